@@ -0,0 +1,34 @@
+package com.example.sysmonitor;
+
+import android.content.pm.PackageManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide package name to label map. The app list fills it as labels are
+ * resolved; other screens look names up here before asking PackageManager.
+ */
+final class AppLabels {
+    private static final String UNKNOWN = "";
+    private static final ConcurrentHashMap<String, String> labels = new ConcurrentHashMap<>();
+
+    private AppLabels() {}
+
+    static void put(String packageName, String label) {
+        labels.put(packageName, label);
+    }
+
+    /** Label of {@code packageName}, or null if no such package is installed. */
+    static String get(PackageManager pm, String packageName) {
+        String label = labels.get(packageName);
+        if (label == null) {
+            try {
+                label = pm.getApplicationInfo(packageName, 0).loadLabel(pm).toString();
+            } catch (PackageManager.NameNotFoundException e) {
+                label = UNKNOWN;
+            }
+            labels.put(packageName, label);
+        }
+        return label.equals(UNKNOWN) ? null : label;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.sysmonitor;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Streams the user-installed apps to the UI. Labels found in the {@link LabelCache}
+ * are published in one batch straight away; the rest are loaded and published
+ * {@link #BATCH_SIZE} at a time. Icons are not touched here, see {@link IconLoader}.
+ */
+final class AppListLoader {
+    static final int BATCH_SIZE = 24;
+
+    interface Callback {
+        /** Called on the main thread with the next batch of apps. */
+        void onApps(List<AppItem> batch);
+    }
+
+    static final class AppItem {
+        final String name;
+        final String packageName;
+
+        AppItem(String name, String packageName) {
+            this.name = name;
+            this.packageName = packageName;
+        }
+    }
+
+    private final Context context;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private volatile boolean cancelled;
+
+    AppListLoader(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /** Runs the whole load on the calling (background) thread. */
+    void load(Callback callback) {
+        PackageManager pm = context.getPackageManager();
+        LabelCache cache = new LabelCache(new File(context.getCacheDir(), "app_labels.tsv"));
+        cache.load();
+
+        List<PackageInfo> packages = pm.getInstalledPackages(0);
+        List<PackageInfo> misses = new ArrayList<>();
+        List<AppItem> hits = new ArrayList<>();
+        Set<String> installed = new HashSet<>();
+
+        for (PackageInfo pkg : packages) {
+            ApplicationInfo app = pkg.applicationInfo;
+            if (app == null || !isUserApp(app)) continue;
+            installed.add(pkg.packageName);
+            String label = cache.get(pkg.packageName, pkg.lastUpdateTime);
+            if (label != null) {
+                AppLabels.put(pkg.packageName, label);
+                hits.add(new AppItem(label, pkg.packageName));
+            } else {
+                misses.add(pkg);
+            }
+        }
+        publish(hits, callback);
+
+        List<AppItem> batch = new ArrayList<>(BATCH_SIZE);
+        for (PackageInfo pkg : misses) {
+            if (cancelled) return;
+            try {
+                String label = pkg.applicationInfo.loadLabel(pm).toString();
+                cache.put(pkg.packageName, pkg.lastUpdateTime, label);
+                AppLabels.put(pkg.packageName, label);
+                batch.add(new AppItem(label, pkg.packageName));
+            } catch (Exception e) {
+                continue;
+            }
+            if (batch.size() == BATCH_SIZE) {
+                publish(batch, callback);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        publish(batch, callback);
+
+        cache.retain(installed);
+        cache.save();
+    }
+
+    private void publish(List<AppItem> batch, Callback callback) {
+        if (batch.isEmpty() || cancelled) return;
+        main.post(() -> {
+            if (!cancelled) callback.onApps(batch);
+        });
+    }
+
+    private static boolean isUserApp(ApplicationInfo app) {
+        return (app.flags & ApplicationInfo.FLAG_SYSTEM) == 0
+                || (app.flags & ApplicationInfo.FLAG_UPDATED_SYSTEM_APP) != 0;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.sysmonitor;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Per-source latency, failures and allocations as recorded by the engine.
+ * The table is re-read once a second without subscribing to anything, so
+ * opening this screen does not change what it measures.
+ *
+ * The same table is printed by {@code adb shell dumpsys activity top} while
+ * this screen is in front.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+    private static final long REFRESH_MS = 1000;
+
+    private TextView textDump;
+    private TextView btnAllocations;
+    private TextView btnStream;
+    private Metrics metrics;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Runnable refresh = new Runnable() {
+        @Override
+        public void run() {
+            textDump.setText(report());
+            // the stream can stop by itself
+            updateStreamButton();
+            handler.postDelayed(this, REFRESH_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+        metrics = Metrics.get(this);
+        textDump = findViewById(R.id.textDump);
+        btnAllocations = findViewById(R.id.btnAllocations);
+        btnAllocations.setOnClickListener(v -> {
+            metrics.setAllocationCounting(!metrics.isAllocationCounting());
+            updateAllocationButton();
+        });
+        updateAllocationButton();
+        btnStream = findViewById(R.id.btnStream);
+        btnStream.setOnClickListener(v -> {
+            if (metrics.isStreaming()) {
+                metrics.stopStream();
+            } else {
+                try {
+                    metrics.startStream();
+                } catch (IOException e) {
+                    btnStream.setText("[ STREAM: " + e.getMessage() + " ]");
+                    return;
+                }
+            }
+            updateStreamButton();
+        });
+        updateStreamButton();
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        metrics.frames.attach(this);
+        handler.post(refresh);
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metrics.frames.detach(this);
+        handler.removeCallbacks(refresh);
+    }
+
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(report());
+    }
+
+    private void updateAllocationButton() {
+        btnAllocations.setText(metrics.isAllocationCounting()
+                ? "[ COUNT ALLOCATIONS: ON ]" : "[ COUNT ALLOCATIONS: OFF ]");
+    }
+
+    private void updateStreamButton() {
+        MetricStreamServer stream = metrics.getStream();
+        btnStream.setText(stream == null ? "[ STREAM: OFF ]"
+                : stream.isStopped() ? "[ STREAM: STOPPED, TAP TO RESTART ]"
+                : "[ STREAM: ON, adb forward tcp:" + Metrics.STREAM_PORT + " tcp:" + Metrics.STREAM_PORT + " ]");
+    }
+
+    private String report() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            metrics.engine.dump(sb);
+        } catch (IOException e) {
+            return e.toString();
+        }
+        sb.append("\nwakeups: ").append(metrics.engine.getWakeups());
+        sb.append("\nfirst frame: ").append(metrics.firstFrameMs).append(" ms, hardware: ")
+                .append(metrics.repo.getDiscoveryMs()).append(" ms")
+                .append(metrics.repo.isProfileCached() ? " (cached)" : " (discovered)");
+        Recording.Overhead overhead = metrics.recording.getOverhead();
+        if (overhead != null) sb.append("\nrecording: ").append(RecordingService.describe(overhead));
+        MetricStreamServer stream = metrics.getStream();
+        if (stream != null) {
+            sb.append("\nstream: ").append(stream.isStopped() ? "stopped, " : "")
+                    .append(stream.getClientCount()).append(" clients, ")
+                    .append(stream.getRowsSent()).append(" rows sent, ")
+                    .append(stream.getRowsDropped()).append(" dropped, ")
+                    .append(stream.getBytesSent() / 1024).append(" KB");
+        }
+        // dump() calls this from a binder thread too, so no shared scratch
+        FrameStats.Snapshot frames = metrics.frames.getAll().stats.newSnapshot();
+        sb.append("\n\nframes:");
+        for (FrameMonitor.Screen screen : metrics.frames.getScreens()) {
+            // no rolling window: it only moves while a screen subscribes to the jank metric
+            sb.append("\n  ").append(FrameMonitor.describe(screen, frames, 0));
+        }
+        return sb.toString();
+    }
+}
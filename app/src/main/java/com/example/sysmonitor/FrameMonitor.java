@@ -0,0 +1,150 @@
+package com.example.sysmonitor;
+
+import android.app.Activity;
+import android.view.Choreographer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Frame pacing of the app's own screens. A screen attaches in onResume and
+ * detaches in onPause; while one is attached a Choreographer callback runs on
+ * every vsync and records the time since the previous one, both for that
+ * screen and app-wide. An interval longer than the refresh period means the
+ * main thread couldn't take the frame, whatever it was busy with.
+ *
+ * The refresh rate comes from the repository's DisplayListener cache, so a
+ * frame costs one volatile read for it and a few atomic increments.
+ */
+public final class FrameMonitor implements Choreographer.FrameCallback {
+    public static final String ALL = "all";
+    /** One slot per engine tick, so rolling jank reaches back a minute. */
+    private static final int WINDOW_TICKS = 61;
+
+    /** Stats of one screen; {@link #window} advances once per engine tick. */
+    public static final class Screen {
+        public final String name;
+        public final FrameStats stats;
+        public final JankWindow window = new JankWindow(WINDOW_TICKS);
+        // only touched by the sampling thread
+        private final FrameStats.Snapshot scratch;
+
+        Screen(String name, float refreshHz) {
+            this.name = name;
+            stats = new FrameStats(refreshHz);
+            scratch = stats.newSnapshot();
+        }
+    }
+
+    private final SystemStatsRepository repo;
+    private final Screen all;
+    private final CopyOnWriteArrayList<Screen> screens = new CopyOnWriteArrayList<>();
+
+    // main thread only
+    private Screen current;
+    private long lastFrameNs;
+    private float appliedHz;
+    private boolean posted;
+
+    FrameMonitor(SystemStatsRepository repo) {
+        this.repo = repo;
+        all = new Screen(ALL, 60f);
+        screens.add(all);
+    }
+
+    /** Starts measuring {@code activity}; call from onResume. */
+    public void attach(Activity activity) {
+        current = screen(activity.getClass().getSimpleName());
+        // the pause in between is not a frame
+        lastFrameNs = 0;
+        if (!posted) {
+            posted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    /** Call from onPause. The next screen's onResume comes after this one's onPause. */
+    public void detach(Activity activity) {
+        if (current != null && current.name.equals(activity.getClass().getSimpleName())) current = null;
+        if (current == null && posted) {
+            posted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        Screen screen = current;
+        if (screen == null) {
+            posted = false;
+            return;
+        }
+        float hz = repo.getDisplayRefreshRate();
+        if (hz != appliedHz) {
+            appliedHz = hz;
+            for (Screen s : screens) s.stats.setRefreshRate(hz);
+        }
+        if (lastFrameNs != 0) {
+            long interval = frameTimeNanos - lastFrameNs;
+            screen.stats.record(interval);
+            all.stats.record(interval);
+        }
+        lastFrameNs = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    /** Advances every screen's rolling window; called by the engine once a tick. */
+    void tick(long now) {
+        for (Screen s : screens) {
+            s.stats.snapshot(s.scratch);
+            s.window.add(now, s.scratch);
+        }
+    }
+
+    public Screen getAll() {
+        return all;
+    }
+
+    /** The app-wide entry first, then screens in the order they were first shown. */
+    public List<Screen> getScreens() {
+        return Collections.unmodifiableList(screens);
+    }
+
+    /** The stats of {@code activity}, or null before it was first attached. */
+    public Screen find(Activity activity) {
+        String name = activity.getClass().getSimpleName();
+        for (Screen s : screens) {
+            if (s.name.equals(name)) return s;
+        }
+        return null;
+    }
+
+    /**
+     * One line for {@code screen}: delivered rate, interval percentiles and
+     * jank over the last {@code windowMs}, from {@code scratch}. Callers take
+     * the snapshot themselves so they can skip this when no frame arrived.
+     * The window only advances while {@link Metrics#jank} is subscribed, so
+     * callers that aren't pass 0 and get the totals alone.
+     */
+    public static String describe(Screen screen, FrameStats.Snapshot scratch, long windowMs) {
+        if (scratch.frames == 0) return screen.name + ": no frames yet";
+        String rolling = windowMs > 0
+                ? String.format(Locale.US, "%.1f%% (%d s) / ", screen.window.jankPercent(windowMs), windowMs / 1000)
+                : "";
+        return String.format(Locale.US, "%s: %.1f fps @ %.0f Hz, p50 %.1f ms, p99 %.1f ms, max %.0f ms, "
+                        + "jank %s%.1f%% total, dropped %d",
+                screen.name, scratch.fps(), scratch.refreshHz, scratch.percentileMs(50), scratch.percentileMs(99),
+                scratch.maxNs / 1e6, rolling, scratch.jankPercent(), scratch.droppedFrames);
+    }
+
+    private Screen screen(String name) {
+        for (Screen s : screens) {
+            if (s.name.equals(name)) return s;
+        }
+        Screen s = new Screen(name, appliedHz > 0 ? appliedHz : 60f);
+        screens.add(s);
+        return s;
+    }
+}
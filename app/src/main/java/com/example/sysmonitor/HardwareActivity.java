@@ -4,27 +4,66 @@ import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.View;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 public class HardwareActivity extends AppCompatActivity {
 
+    private static final int OFFLINE_VALUE = Integer.MIN_VALUE;
+    private static final int ZONE_COLOR = Color.parseColor("#FFB74D");
+    private static final String CORES_TITLE = "CPU CORES FREQUENCY";
+    private static final String ZONES_TITLE = "THERMAL ZONES";
+    private static final String THROTTLE_TITLE = "THROTTLING";
+    private static final int THROTTLE_EVENTS_SHOWN = 5;
+    private static final String FRAMES_TITLE = "UI FRAMES (THIS SCREEN)";
+
     private LinearLayout container;
-    private SystemStatsRepository repo;
+    private Metrics metrics;
     private final Handler handler = new Handler(Looper.getMainLooper());
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
-
-    private final Runnable updater = new Runnable() {
-        @Override
-        public void run() {
-            if (!isFinishing()) {
-                fetchData();
-                handler.postDelayed(this, 1000);
-            }
-        }
+    private final List<Metric.Subscription> subscriptions = new ArrayList<>();
+
+    private RowList coreRows;
+    private RowList zoneRows;
+    private TextView textNoZones;
+    private TextView coreHeader;
+    private TextView zoneHeader;
+    private TextView throttleHeader;
+    private LinearLayout throttleSection;
+    private TextView textThrottleEvents;
+    private int[] shownCaps = new int[0];
+    private int[] shownZones = new int[0];
+    private long shownEventCount;
+    private TextView textFrames;
+    private FrameStats.Snapshot frameScratch;
+    private long shownFrames = -1;
+    private int[] rowKeys = new int[0];
+    private int[] rowValues = new int[0];
+
+    private int[] cores;
+    private ThermalSnapshot thermal;
+    private boolean coresStale;
+    private boolean thermalStale;
+    private ThrottleDetector throttle;
+    private boolean throttleStale;
+    private boolean framesDue;
+    private ThermalSnapshot shownThermal;
+    private boolean renderPending;
+
+    // Cores and thermal usually arrive on the same tick; render once for both.
+    private final Runnable render = () -> {
+        renderPending = false;
+        if (cores != null) renderCores(cores);
+        if (thermal != null) renderZones(thermal);
+        if (throttle != null) renderThrottle(throttle);
+        if (framesDue) renderFrames();
+        markStale(coreHeader, CORES_TITLE, coresStale);
+        markStale(zoneHeader, ZONES_TITLE, thermalStale);
+        markStale(throttleHeader, THROTTLE_TITLE, throttleStale);
     };
 
     @Override
@@ -33,57 +72,224 @@ public class HardwareActivity extends AppCompatActivity {
         setContentView(R.layout.activity_hardware);
 
         container = findViewById(R.id.containerHardware);
-        repo = new SystemStatsRepository(this);
+        metrics = Metrics.get(this);
+
+        // Views are built once; ticks only rebind rows whose value changed.
+        coreHeader = addHeader(CORES_TITLE);
+        coreRows = createRows(addSection(), this::bindCore);
+        zoneHeader = addHeader(ZONES_TITLE);
+        zoneRows = createRows(addSection(), this::bindZone);
+        textNoZones = createItem();
+        textNoZones.setText("No accessible thermal sensors found.");
+        textNoZones.setVisibility(View.GONE);
+        container.addView(textNoZones);
+        throttleHeader = addHeader(THROTTLE_TITLE);
+        throttleSection = addSection();
+        textThrottleEvents = createItem();
+        textThrottleEvents.setTextColor(Color.GRAY);
+        textThrottleEvents.setText("No throttling seen yet.");
+        container.addView(textThrottleEvents);
+        addHeader(FRAMES_TITLE);
+        textFrames = createItem();
+        textFrames.setTextColor(Color.LTGRAY);
+        container.addView(textFrames);
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        handler.post(updater);
+        metrics.frames.attach(this);
+        // A source past its deadline republishes its last value; say so in the header.
+        subscriptions.add(metrics.coreFreq.subscribe(value -> {
+            boolean stale = metrics.coreFreq.isStale();
+            handler.post(() -> {
+                cores = value;
+                coresStale = stale;
+                scheduleRender();
+            });
+        }));
+        subscriptions.add(metrics.thermal.subscribe(value -> {
+            boolean stale = metrics.thermal.isStale();
+            handler.post(() -> {
+                thermal = value;
+                thermalStale = stale;
+                scheduleRender();
+            });
+        }));
+        subscriptions.add(metrics.throttle.subscribe(value -> {
+            boolean stale = metrics.throttle.isStale();
+            handler.post(() -> {
+                throttle = value;
+                throttleStale = stale;
+                scheduleRender();
+            });
+        }));
+        // Measures this screen's own frame pacing, including these renders.
+        subscriptions.add(metrics.jank.subscribe(value -> handler.post(() -> {
+            framesDue = true;
+            scheduleRender();
+        })));
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        handler.removeCallbacks(updater);
+        metrics.frames.detach(this);
+        for (Metric.Subscription s : subscriptions) s.cancel();
+        subscriptions.clear();
+        handler.removeCallbacks(render);
+        renderPending = false;
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        executor.shutdown();
+    private void scheduleRender() {
+        if (renderPending) return;
+        renderPending = true;
+        handler.post(render);
     }
 
-    private void fetchData() {
-        executor.execute(() -> {
-            int[] cores = repo.getCpuCoresFreq();
-            String thermal = repo.getThermalStat();
+    private void renderCores(int[] cores) {
+        int n = cores.length;
+        ensureScratch(n);
+        for (int i = 0; i < n; i++) {
+            rowKeys[i] = i;
+            rowValues[i] = cores[i] == CpuFreqSampler.OFFLINE ? OFFLINE_VALUE : cores[i] / 1000;
+        }
+        coreRows.update(rowKeys, rowValues, n);
+    }
 
-            runOnUiThread(() -> updateUI(cores, thermal));
-        });
+    private void renderZones(ThermalSnapshot thermal) {
+        ensureScratch(thermal.zoneIds.length);
+        shownThermal = thermal;
+        int n = 0;
+        for (int id : thermal.zoneIds) {
+            if (!thermal.isValid(id)) continue;
+            rowKeys[n] = id;
+            rowValues[n] = Math.round(thermal.temps[id] * 10);
+            n++;
+        }
+        zoneRows.update(rowKeys, rowValues, n);
+        textNoZones.setVisibility(n == 0 ? View.VISIBLE : View.GONE);
     }
 
-    private void updateUI(int[] cores, String thermal) {
-        container.removeAllViews();
+    /**
+     * One line per cluster, rebound only when its cap or blamed zone moved,
+     * and the latest events, copied only when one has finished.
+     */
+    private void renderThrottle(ThrottleDetector detector) {
+        int n = detector.policyCount();
+        if (shownCaps.length != n) {
+            throttleSection.removeAllViews();
+            shownCaps = new int[n];
+            shownZones = new int[n];
+            for (int p = 0; p < n; p++) {
+                throttleSection.addView(createItem());
+                shownCaps[p] = Integer.MIN_VALUE;
+            }
+        }
+        for (int p = 0; p < n; p++) {
+            int cap = detector.capKhz(p);
+            // an ongoing event may still learn its zone
+            int zone = detector.activeZone(p);
+            if (cap == shownCaps[p] && zone == shownZones[p]) continue;
+            shownCaps[p] = cap;
+            shownZones[p] = zone;
+            bindPolicy((TextView) throttleSection.getChildAt(p), detector, p, cap);
+        }
 
-        addHeader("CPU CORES FREQUENCY");
-        for (int i = 0; i < cores.length; i++) {
-            if (cores[i] == -2) break; //
+        long count = detector.finishedCount();
+        if (count == shownEventCount) return;
+        shownEventCount = count;
+        List<ThrottleEvent> events = detector.copyHistory();
+        if (events.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (int i = events.size() - 1; i >= Math.max(0, events.size() - THROTTLE_EVENTS_SHOWN); i--) {
+            ThrottleEvent e = events.get(i);
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.format(Locale.US, "%tT  %.1f s  ", e.startMs, e.durationMs(e.endMs) / 1000f)).append(e);
+        }
+        textThrottleEvents.setText(sb);
+    }
 
-            String val = (cores[i] == -1) ? "Sleeping / Offline" : (cores[i] / 1000) + " MHz";
-            int color = (cores[i] == -1) ? Color.GRAY : Color.GREEN;
+    private void renderFrames() {
+        framesDue = false;
+        FrameMonitor.Screen screen = metrics.frames.find(this);
+        if (screen == null) return;
+        if (frameScratch == null) frameScratch = screen.stats.newSnapshot();
+        screen.stats.snapshot(frameScratch);
+        if (frameScratch.frames == shownFrames) return;
+        shownFrames = frameScratch.frames;
+        textFrames.setText(FrameMonitor.describe(screen, frameScratch, Metrics.JANK_WINDOW_MS));
+    }
 
-            addItem("Core " + i, val, color);
+    private static void bindPolicy(TextView tv, ThrottleDetector detector, int policy, int capKhz) {
+        String cpus = "CPU " + detector.label(policy);
+        if (capKhz == CpuPolicySampler.UNKNOWN) {
+            tv.setText(cpus + " :  cap unknown");
+            tv.setTextColor(Color.GRAY);
+            return;
+        }
+        if (!detector.isThrottled(policy)) {
+            tv.setText(String.format(Locale.US, "%s :  max %d MHz", cpus, capKhz / 1000));
+            tv.setTextColor(Color.GREEN);
+        } else {
+            String zone = detector.activeZoneName(policy);
+            tv.setText(String.format(Locale.US, "%s :  THROTTLED %d / %d MHz (%.0f%%), %s", cpus,
+                    capKhz / 1000, detector.baselineKhz(policy) / 1000, detector.capPercent(policy),
+                    zone != null ? zone : "cause unknown"));
+            tv.setTextColor(Color.RED);
         }
+    }
 
-        addHeader("THERMAL ZONES");
-        String[] zones = thermal.split("\n");
-        for (String zone : zones) {
-            addItem(zone, "", Color.parseColor("#FFB74D"));
+    private void ensureScratch(int size) {
+        if (rowKeys.length >= size) return;
+        rowKeys = new int[size];
+        rowValues = new int[size];
+    }
+
+    private RowList createRows(LinearLayout section, RowBinder binder) {
+        return new RowList(new RowList.Binder() {
+            @Override
+            public void insert(int position, int key) {
+                section.addView(createItem(), position);
+            }
+
+            @Override
+            public void remove(int position, int key) {
+                section.removeViewAt(position);
+            }
+
+            @Override
+            public void bind(int position, int key, int value) {
+                binder.bind((TextView) section.getChildAt(position), key, value);
+            }
+        });
+    }
+
+    private interface RowBinder {
+        void bind(TextView tv, int key, int value);
+    }
+
+    private void bindCore(TextView tv, int core, int mhz) {
+        if (mhz == OFFLINE_VALUE) {
+            tv.setText("Core " + core + " :  Sleeping / Offline");
+            tv.setTextColor(Color.GRAY);
+        } else {
+            tv.setText("Core " + core + " :  " + mhz + " MHz");
+            tv.setTextColor(Color.GREEN);
         }
     }
 
-    private void addHeader(String text) {
+    private void bindZone(TextView tv, int zoneId, int tenths) {
+        String name = shownThermal.names[zoneId];
+        tv.setText(String.format(Locale.US, "Zone %d (%s): %.1f°C", zoneId, name, tenths / 10f));
+    }
+
+    private static void markStale(TextView header, String title, boolean stale) {
+        String text = stale ? title + "  (STALE)" : title;
+        if (!text.contentEquals(header.getText())) header.setText(text);
+    }
+
+    private TextView addHeader(String text) {
         TextView tv = new TextView(this);
         tv.setText(text);
         tv.setTextColor(Color.CYAN);
@@ -91,18 +297,21 @@ public class HardwareActivity extends AppCompatActivity {
         tv.setTypeface(null, android.graphics.Typeface.BOLD);
         tv.setPadding(0, 24, 0, 8);
         container.addView(tv);
+        return tv;
     }
 
-    private void addItem(String label, String value, int valueColor) {
+    private LinearLayout addSection() {
+        LinearLayout section = new LinearLayout(this);
+        section.setOrientation(LinearLayout.VERTICAL);
+        container.addView(section);
+        return section;
+    }
+
+    private TextView createItem() {
         TextView tv = new TextView(this);
-        if (value.isEmpty()) {
-            tv.setText(label); // Просто текст (для thermal)
-        } else {
-            tv.setText(label + " :  " + value);
-        }
-        tv.setTextColor(valueColor);
+        tv.setTextColor(ZONE_COLOR);
         tv.setTextSize(16);
         tv.setPadding(0, 4, 0, 4);
-        container.addView(tv);
+        return tv;
     }
-}
\ No newline at end of file
+}
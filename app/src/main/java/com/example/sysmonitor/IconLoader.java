@@ -0,0 +1,79 @@
+package com.example.sysmonitor;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads app icons on demand, off the main thread, into bitmaps sized for the
+ * list row. Decoded icons live in a byte-bounded LRU cache; a pending load is
+ * cancelled when its row is recycled or rebound to another app.
+ */
+final class IconLoader {
+    private final PackageManager pm;
+    private final int sizePx;
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> cache;
+
+    IconLoader(Context context, int sizePx, int cacheBytes) {
+        this.pm = context.getApplicationContext().getPackageManager();
+        this.sizePx = sizePx;
+        this.cache = new LruCache<String, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /** Receives a decoded icon on the main thread. */
+    interface Target {
+        void onIcon(String packageName, Bitmap icon);
+    }
+
+    Bitmap getCached(String packageName) {
+        return cache.get(packageName);
+    }
+
+    /**
+     * Decodes the icon of {@code packageName} in the background and hands it to
+     * {@code target}. The returned future cancels the load; the target must still
+     * check that it is bound to the same package when the icon arrives.
+     */
+    Future<?> load(String packageName, Target target) {
+        return pool.submit(() -> {
+            Bitmap bitmap = decode(packageName);
+            if (bitmap == null || Thread.currentThread().isInterrupted()) return;
+            cache.put(packageName, bitmap);
+            main.post(() -> target.onIcon(packageName, bitmap));
+        });
+    }
+
+    void shutdown() {
+        pool.shutdownNow();
+        cache.evictAll();
+    }
+
+    private Bitmap decode(String packageName) {
+        try {
+            Drawable d = pm.getApplicationIcon(packageName);
+            Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            d.setBounds(0, 0, sizePx, sizePx);
+            d.draw(canvas);
+            return bitmap;
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+}
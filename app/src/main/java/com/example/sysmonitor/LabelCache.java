@@ -0,0 +1,94 @@
+package com.example.sysmonitor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * App labels persisted between launches, keyed by package name and valid only
+ * while the package's lastUpdateTime is unchanged. One tab-separated line per app.
+ */
+final class LabelCache {
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean dirty;
+
+    private static final class Entry {
+        final long updateTime;
+        final String label;
+
+        Entry(long updateTime, String label) {
+            this.updateTime = updateTime;
+            this.label = label;
+        }
+    }
+
+    LabelCache(File file) {
+        this.file = file;
+    }
+
+    void load() {
+        entries.clear();
+        try (BufferedReader r = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                int a = line.indexOf('\t');
+                int b = a < 0 ? -1 : line.indexOf('\t', a + 1);
+                if (b < 0) continue;
+                try {
+                    long time = Long.parseLong(line.substring(a + 1, b));
+                    entries.put(line.substring(0, a), new Entry(time, line.substring(b + 1)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException e) {
+            // first launch or unreadable cache: every label gets loaded
+        }
+    }
+
+    /** Cached label, or null if the package is unknown or was updated since. */
+    String get(String packageName, long updateTime) {
+        Entry e = entries.get(packageName);
+        return e != null && e.updateTime == updateTime ? e.label : null;
+    }
+
+    void put(String packageName, long updateTime, String label) {
+        entries.put(packageName, new Entry(updateTime, label.replace('\t', ' ').replace('\n', ' ')));
+        dirty = true;
+    }
+
+    /** Drops packages that are no longer installed. */
+    void retain(Set<String> installed) {
+        if (entries.keySet().retainAll(installed)) dirty = true;
+    }
+
+    void save() {
+        if (!dirty) return;
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter w = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Entry> e : entries.entrySet()) {
+                w.write(e.getKey());
+                w.write('\t');
+                w.write(Long.toString(e.getValue().updateTime));
+                w.write('\t');
+                w.write(e.getValue().label);
+                w.write('\n');
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            return;
+        }
+        if (tmp.renameTo(file)) dirty = false;
+    }
+}
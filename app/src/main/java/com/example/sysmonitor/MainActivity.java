@@ -1,25 +1,20 @@
 package com.example.sysmonitor;
 
+import android.Manifest;
 import android.app.ActivityManager;
 import android.content.Intent;
-import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.graphics.drawable.Drawable;
-import android.net.ConnectivityManager;
-import android.net.LinkAddress;
-import android.net.LinkProperties;
-import android.net.Network;
-import android.net.NetworkCapabilities;
+import android.graphics.Bitmap;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Environment;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.StatFs;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
 import android.provider.Settings;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
@@ -30,50 +25,58 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.recyclerview.widget.SortedList;
+import androidx.recyclerview.widget.SortedListAdapterCallback;
 
-import java.io.File;
-import java.net.InetAddress;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MainActivity extends AppCompatActivity {
 
-    private TextView textModel, textCpu, textCpuFreq, btnDetails;
-    private TextView textRam, btnCleanRam;
+    private TextView textModel, textCpu, textCpuFreq, btnDetails, btnTop, btnRecord, btnDiagnostics;
+    private TextView textRam, textRamDetail, btnCleanRam;
     private TextView textBattery, textBatTemp;
     private TextView textIp;
-    private TextView textUptime, textStorage, textRoot;
+    private TextView textUptime, textStorage, textDisk, textRoot;
 
     private ProgressBar progressRam, progressBattery, progressStorage;
     private RecyclerView recyclerApps;
     private CardView cardDevice, cardSensors;
 
     private SystemStatsRepository statsRepo;
+    private Metrics metrics;
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
-    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final List<Metric.Subscription> subscriptions = new ArrayList<>();
+    private final ExecutorService cleanerExecutor = Executors.newSingleThreadExecutor();
+    private AppListLoader appListLoader;
+    private IconLoader iconLoader;
 
     private String cachedCpuName = "Loading...";
     private boolean isRooted = false;
-
-    private final Runnable statusUpdater = new Runnable() {
-        @Override
-        public void run() {
-            if (isFinishing() || isDestroyed()) return;
-            updateRealtimeMetrics();
-            handler.postDelayed(this, 1000);
-        }
-    };
+    private long lastCpuFreq;
+    private float lastRefreshRate;
+    private float lastCpuLoad = Float.NaN;
+    private SystemStatsRepository.NetInfo lastNet;
+    private double lastRx = Double.NaN, lastTx = Double.NaN;
+    private boolean cleaning;
+    // a stop was asked for here, so its overhead gets shown once it is done
+    private boolean stopRequested;
+    // only touched by cleanerExecutor
+    private final MemInfo cleanerMemInfo = new MemInfo();
+    private CharSequence cleanLabel;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        statsRepo = new SystemStatsRepository(this);
+        metrics = Metrics.get(this);
+        statsRepo = metrics.repo;
+        if (savedInstanceState == null && metrics.firstFrameMs < 0) measureFirstFrame();
 
         initializeViews();
         setupStaticData();
@@ -84,20 +87,47 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
-        handler.post(statusUpdater);
+        metrics.frames.attach(this);
+        RecordingService.setStateListener(this::onRecordingStateChanged);
+        updateRecordButton(metrics.recording.isRecording());
+        subscribeRealtimeMetrics();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        handler.removeCallbacks(statusUpdater);
+        metrics.frames.detach(this);
+        RecordingService.setStateListener(null);
+        for (Metric.Subscription s : subscriptions) s.cancel();
+        subscriptions.clear();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        handler.removeCallbacks(statusUpdater);
+        if (appListLoader != null) appListLoader.cancel();
+        if (iconLoader != null) iconLoader.shutdown();
         executor.shutdown();
+        cleanerExecutor.shutdownNow();
+    }
+
+    /** Logs the time from process start to the first frame this screen draws. */
+    private void measureFirstFrame() {
+        View decor = getWindow().getDecorView();
+        decor.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean seen;
+
+            @Override
+            public void onDraw() {
+                if (seen) return;
+                seen = true;
+                long ms = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                metrics.firstFrameMs = ms;
+                Log.i("MainActivity", "Cold start to first frame: " + ms + " ms");
+                // listeners can't be removed from inside onDraw
+                decor.post(() -> decor.getViewTreeObserver().removeOnDrawListener(this));
+            }
+        });
     }
 
     private void initializeViews() {
@@ -107,21 +137,25 @@ public class MainActivity extends AppCompatActivity {
         textCpu = findViewById(R.id.textCpu);
         textCpuFreq = findViewById(R.id.textCpuFreq);
         btnDetails = findViewById(R.id.btnDetails); // Новая кнопка
+        btnTop = findViewById(R.id.btnTop);
+        btnRecord = findViewById(R.id.btnRecord);
+        btnDiagnostics = findViewById(R.id.btnDiagnostics);
 
         textRam = findViewById(R.id.textRam);
+        textRamDetail = findViewById(R.id.textRamDetail);
         btnCleanRam = findViewById(R.id.btnCleanRam);
+        cleanLabel = btnCleanRam.getText();
         progressRam = findViewById(R.id.progressRam);
         textBattery = findViewById(R.id.textBattery);
         textBatTemp = findViewById(R.id.textBatTemp);
         progressBattery = findViewById(R.id.progressBattery);
         textIp = findViewById(R.id.textIp);
         textStorage = findViewById(R.id.textStorage);
+        textDisk = findViewById(R.id.textDisk);
         progressStorage = findViewById(R.id.progressStorage);
         textRoot = findViewById(R.id.textRoot);
         textUptime = findViewById(R.id.textUptime);
         recyclerApps = findViewById(R.id.recyclerApps);
-
-        recyclerApps.setNestedScrollingEnabled(false);
     }
 
     private void setupStaticData() {
@@ -145,96 +179,133 @@ public class MainActivity extends AppCompatActivity {
                     textRoot.setText("Root Access: Safe");
                     textRoot.setTextColor(0xFF4CAF50);
                 }
-                updateStorageInfo();
             });
         });
     }
 
-    private void updateRealtimeMetrics() {
-        executor.execute(() -> {
-            long freq = statsRepo.getCpuFrequency();
-            float refreshRate = statsRepo.getDisplayRefreshRate();
-            SystemStatsRepository.BatteryInfo batInfo = statsRepo.getBatteryInfo();
-
-            ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
-            ActivityManager am = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
-            if (am != null) am.getMemoryInfo(mi);
-
+    private void subscribeRealtimeMetrics() {
+        subscriptions.add(metrics.cpuFreq.subscribe(freq -> runOnUiThread(() -> {
+            lastCpuFreq = freq;
+            updateCpuFreqText();
+        })));
+        subscriptions.add(metrics.cpuLoad.subscribe(load -> {
+            float busy = load.isValid(-1) ? load.busy(-1) : Float.NaN;
             runOnUiThread(() -> {
-                // CPU & Screen
-                textCpuFreq.setText(String.format(Locale.US, "Core Speed: %d MHz  |  Disp: %.0f Hz",
-                        freq / 1000, refreshRate));
-
-                // Battery
-                textBattery.setText("Battery: " + batInfo.level + "%");
-                progressBattery.setProgress(batInfo.level);
-                textBatTemp.setText(String.format(Locale.US, "%.1f°C", batInfo.temp));
-
-                if (batInfo.temp < 38.0) textBatTemp.setTextColor(0xFF4CAF50);
-                else if (batInfo.temp < 42.0) textBatTemp.setTextColor(0xFFFFB74D);
-                else textBatTemp.setTextColor(0xFFFF5252);
-
-                // RAM
-                double totalGB = mi.totalMem / 1073741824.0;
-                double usedGB = (mi.totalMem - mi.availMem) / 1073741824.0;
-                int usedPercent = (int) ((usedGB / totalGB) * 100);
-                textRam.setText(String.format(Locale.US, "RAM: %.2f / %.2f GB (%d%%)", usedGB, totalGB, usedPercent));
-                progressRam.setProgress(usedPercent);
-
-                // Uptime
-                long s = android.os.SystemClock.elapsedRealtime() / 1000;
-                textUptime.setText(String.format(Locale.US, "Uptime: %02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60));
+                lastCpuLoad = busy;
+                updateCpuFreqText();
             });
-        });
-        updateNetworkInfo();
+        }));
+        subscriptions.add(metrics.refreshRate.subscribe(rate -> runOnUiThread(() -> {
+            lastRefreshRate = rate;
+            updateCpuFreqText();
+        })));
+        subscriptions.add(metrics.battery.subscribe(bat -> runOnUiThread(() -> updateBatteryInfo(bat))));
+        subscriptions.add(metrics.memory.subscribe(mi -> runOnUiThread(() -> updateRamInfo(mi))));
+        subscriptions.add(metrics.storage.subscribe(st -> runOnUiThread(() -> updateStorageInfo(st))));
+        subscriptions.add(metrics.disk.subscribe(d -> {
+            String text = describeDisk(d);
+            runOnUiThread(() -> textDisk.setText(text));
+        }));
+        subscriptions.add(metrics.network.subscribe(net -> runOnUiThread(() -> {
+            lastNet = net;
+            updateNetworkText();
+        })));
+        subscriptions.add(metrics.netThroughput.subscribe(t -> {
+            double rx = t.totalRxRate();
+            double tx = t.totalTxRate();
+            runOnUiThread(() -> {
+                lastRx = rx;
+                lastTx = tx;
+                updateNetworkText();
+            });
+        }));
+        subscriptions.add(metrics.uptime.subscribe(ms -> runOnUiThread(() -> {
+            long s = ms / 1000;
+            textUptime.setText(String.format(Locale.US, "Uptime: %02d:%02d:%02d", s / 3600, (s % 3600) / 60, s % 60));
+        })));
     }
 
-    private void updateNetworkInfo() {
-        ConnectivityManager cm = (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
-        if (cm == null) return;
+    private void updateCpuFreqText() {
+        if (Float.isNaN(lastCpuLoad)) {
+            textCpuFreq.setText(String.format(Locale.US, "Core Speed: %d MHz  |  Disp: %.0f Hz",
+                    lastCpuFreq / 1000, lastRefreshRate));
+        } else {
+            textCpuFreq.setText(String.format(Locale.US, "Core Speed: %d MHz  |  Load: %.0f%%  |  Disp: %.0f Hz",
+                    lastCpuFreq / 1000, lastCpuLoad, lastRefreshRate));
+        }
+    }
 
-        Network activeNetwork = cm.getActiveNetwork();
-        String netType = "Disconnected";
-        String ipAddr = "Unavailable";
+    private void updateNetworkText() {
+        if (lastNet == null) return;
+        String text = String.format("Type: %s  |  IP: %s", lastNet.type, lastNet.ip);
+        if (!Double.isNaN(lastRx)) {
+            text += String.format(Locale.US, "\nRX: %.1f KB/s  |  TX: %.1f KB/s", lastRx / 1024, lastTx / 1024);
+        }
+        textIp.setText(text);
+    }
 
-        if (activeNetwork != null) {
-            NetworkCapabilities caps = cm.getNetworkCapabilities(activeNetwork);
-            if (caps != null) {
-                if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) netType = "Wi-Fi";
-                else if (caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) netType = "Mobile Data";
-            }
-            LinkProperties props = cm.getLinkProperties(activeNetwork);
-            if (props != null) {
-                for (LinkAddress linkAddr : props.getLinkAddresses()) {
-                    InetAddress addr = linkAddr.getAddress();
-                    String s = addr.getHostAddress();
-                    if (s != null && s.indexOf(':') < 0) {
-                        ipAddr = s;
-                        break;
-                    }
-                }
-            }
+    private void updateBatteryInfo(BatteryState bat) {
+        if (Float.isNaN(bat.ratePerHour)) {
+            textBattery.setText("Battery: " + bat.level + "%" + (bat.charging ? " (charging)" : ""));
+        } else {
+            textBattery.setText(String.format(Locale.US, "Battery: %d%% (%+.1f%%/h)", bat.level, bat.ratePerHour));
         }
-        textIp.setText(String.format("Type: %s  |  IP: %s", netType, ipAddr));
+        progressBattery.setProgress(bat.level);
+        textBatTemp.setText(String.format(Locale.US, "%.1f°C", bat.temperature));
+
+        if (bat.temperature < 38.0) textBatTemp.setTextColor(0xFF4CAF50);
+        else if (bat.temperature < 42.0) textBatTemp.setTextColor(0xFFFFB74D);
+        else textBatTemp.setTextColor(0xFFFF5252);
     }
 
-    private void updateStorageInfo() {
-        try {
-            File path = Environment.getDataDirectory();
-            StatFs stat = new StatFs(path.getPath());
-            long totalSpace = stat.getBlockCountLong() * stat.getBlockSizeLong();
-            long freeSpace = stat.getAvailableBlocksLong() * stat.getBlockSizeLong();
-            long usedSpace = totalSpace - freeSpace;
-
-            double totalGB = totalSpace / 1073741824.0;
-            double usedGB = usedSpace / 1073741824.0;
-            int p = (int) ((usedSpace * 100) / totalSpace);
-
-            textStorage.setText(String.format(Locale.US, "Storage: %.1f / %.1f GB", usedGB, totalGB));
-            progressStorage.setProgress(p);
-        } catch (Exception e) {
+    private void updateRamInfo(MemInfo mem) {
+        long total = mem.get(MemInfo.TOTAL);
+        if (total <= 0) return;
+        double totalGB = total / 1048576.0;
+        double usedGB = mem.used() / 1048576.0;
+        int usedPercent = (int) ((usedGB / totalGB) * 100);
+        textRam.setText(String.format(Locale.US, "RAM: %.2f / %.2f GB (%d%%)", usedGB, totalGB, usedPercent));
+        progressRam.setProgress(usedPercent);
+
+        if (mem.get(MemInfo.FREE) == MemInfo.UNKNOWN) {
+            textRamDetail.setText("");
+            return;
+        }
+        StringBuilder sb = new StringBuilder(String.format(Locale.US,
+                "Free %d MB  |  Reclaimable %d MB\nCached %d MB  |  Buffers %d MB  |  Slab %d MB",
+                mem.get(MemInfo.FREE) / 1024, mem.reclaimable() / 1024, mem.get(MemInfo.CACHED) / 1024,
+                mem.get(MemInfo.BUFFERS) / 1024, mem.get(MemInfo.SLAB) / 1024));
+        if (mem.get(MemInfo.SWAP_TOTAL) > 0) {
+            sb.append(String.format(Locale.US, "\nSwap/zram %d / %d MB",
+                    mem.swapUsed() / 1024, mem.get(MemInfo.SWAP_TOTAL) / 1024));
+        }
+        textRamDetail.setText(sb);
+    }
+
+    private void updateStorageInfo(SystemStatsRepository.StorageInfo st) {
+        if (st.total <= 0) {
             textStorage.setText("Storage: Error");
+            return;
         }
+        long usedSpace = st.total - st.free;
+        double totalGB = st.total / 1073741824.0;
+        double usedGB = usedSpace / 1073741824.0;
+        int p = (int) ((usedSpace * 100) / st.total);
+
+        textStorage.setText(String.format(Locale.US, "Storage: %.1f / %.1f GB", usedGB, totalGB));
+        progressStorage.setProgress(p);
+    }
+
+    /** Runs on the engine thread, where the snapshot is still current. */
+    private static String describeDisk(DiskThroughput d) {
+        int i = d.busiest();
+        if (i < 0) return "";
+        String text = String.format(Locale.US, "Disk %s: R %.1f MB/s  |  W %.1f MB/s  |  %.0f IOPS",
+                d.names[i], d.readRate[i] / 1048576, d.writeRate[i] / 1048576, d.readIops[i] + d.writeIops[i]);
+        if (!Double.isNaN(d.latencyMs[i])) {
+            text += String.format(Locale.US, "\nLatency %.2f ms  |  Busy %.0f%%", d.latencyMs[i], d.busyPercent[i]);
+        }
+        return text;
     }
 
     private void setupInteractions() {
@@ -248,65 +319,105 @@ public class MainActivity extends AppCompatActivity {
             startActivity(new Intent(MainActivity.this, HardwareActivity.class));
         });
 
+        btnTop.setOnClickListener(v -> startActivity(new Intent(MainActivity.this, TopActivity.class)));
+
+        btnRecord.setOnClickListener(v -> toggleRecording());
+
+        btnDiagnostics.setOnClickListener(v -> startActivity(new Intent(MainActivity.this, DiagnosticsActivity.class)));
+
         cardSensors.setOnClickListener(v -> startActivity(new Intent(MainActivity.this, SensorActivity.class)));
 
         btnCleanRam.setOnClickListener(v -> cleanRamMemory());
     }
 
-    private void cleanRamMemory() {
-        ActivityManager am = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
-        PackageManager pm = getPackageManager();
-        List<ApplicationInfo> apps = pm.getInstalledApplications(0);
-
-        long memoryBefore = getAvailableMemory();
-        int count = 0;
-
-        for (ApplicationInfo app : apps) {
-            if (!app.packageName.equals(getPackageName())) {
-                try {
-                    am.killBackgroundProcesses(app.packageName);
-                    count++;
-                } catch (Exception e) { }
+    private void toggleRecording() {
+        boolean start = !metrics.recording.isRecording();
+        if (start) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                    && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+                // Recording works without it; the notification just stays hidden.
+                requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, 0);
             }
+            RecordingService.start(this);
+        } else {
+            RecordingService.stop(this);
+            stopRequested = true;
         }
+        // the service says how it went, see onRecordingStateChanged
+        btnRecord.setText(start ? "[ STARTING... ]" : "[ STOPPING... ]");
+    }
 
-        long memoryAfter = getAvailableMemory();
-        long diff = memoryAfter - memoryBefore;
+    private void onRecordingStateChanged() {
+        boolean recording = metrics.recording.isRecording();
+        updateRecordButton(recording);
+        if (!recording && stopRequested) {
+            stopRequested = false;
+            Recording.Overhead overhead = metrics.recording.getOverhead();
+            if (overhead != null) Toast.makeText(this, RecordingService.describe(overhead), Toast.LENGTH_LONG).show();
+        }
+    }
 
-        String msg = (diff > 0)
-                ? "Freed: " + (diff / 1024 / 1024) + " MB"
-                : "Optimized " + count + " processes";
-        Toast.makeText(this, msg, Toast.LENGTH_SHORT).show();
+    private void updateRecordButton(boolean recording) {
+        btnRecord.setText(recording ? "[ STOP RECORDING ]" : "[ RECORD ]");
     }
 
-    private long getAvailableMemory() {
-        ActivityManager.MemoryInfo mi = new ActivityManager.MemoryInfo();
+    private void cleanRamMemory() {
         ActivityManager am = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
-        if (am != null) am.getMemoryInfo(mi);
-        return mi.availMem;
+        if (am == null || cleaning) return;
+        cleaning = true;
+        btnCleanRam.setEnabled(false);
+        btnCleanRam.setText("Scanning...");
+
+        ProcessCleaner cleaner = new ProcessCleaner(am::killBackgroundProcesses,
+                this::getAvailableMemory, ProcessCleaner.Sleeper.SYSTEM, 4, 16);
+        cleanerExecutor.execute(() -> {
+            SystemStatsRepository.CleanTargets targets = statsRepo.getCleanTargets();
+            CleanReport report;
+            try {
+                report = cleaner.clean(targets.packages, (done, total, pkg) -> runOnUiThread(() ->
+                        btnCleanRam.setText(String.format(Locale.US, "Cleaning %d/%d", done, total))));
+            } catch (InterruptedException e) {
+                return;
+            }
+            runOnUiThread(() -> onCleanFinished(report, targets));
+        });
+    }
+
+    private void onCleanFinished(CleanReport report, SystemStatsRepository.CleanTargets targets) {
+        cleaning = false;
+        btnCleanRam.setEnabled(true);
+        btnCleanRam.setText(cleanLabel);
+
+        StringBuilder msg = new StringBuilder();
+        long freed = report.reclaimedBytes();
+        if (freed > 0) msg.append("Freed: ").append(freed / 1024 / 1024).append(" MB, ");
+        msg.append("stopped ").append(report.killed()).append('/').append(report.packages.length).append(" apps");
+        if (targets.estimate) msg.append(" (estimated: ").append(targets.basis).append(')');
+        int[] slow = report.slowest(1);
+        if (slow.length > 0) {
+            msg.append(String.format(Locale.US, "\nSlowest: %s (%d ms)",
+                    report.packages[slow[0]], report.killNanos[slow[0]] / 1_000_000));
+        }
+        Toast.makeText(this, msg, Toast.LENGTH_LONG).show();
+    }
+
+    private long getAvailableMemory() {
+        statsRepo.getMemInfo(cleanerMemInfo);
+        return cleanerMemInfo.available() * 1024;
     }
 
     private void setupAppList() {
         recyclerApps.setLayoutManager(new LinearLayoutManager(this));
+        recyclerApps.setHasFixedSize(true);
 
-        executor.execute(() -> {
-            PackageManager pm = getPackageManager();
-            List<ApplicationInfo> packages = pm.getInstalledApplications(PackageManager.GET_META_DATA);
-            List<AppItem> userApps = new ArrayList<>();
-
-            for (ApplicationInfo app : packages) {
-                if ((app.flags & ApplicationInfo.FLAG_SYSTEM) == 0 || (app.flags & ApplicationInfo.FLAG_UPDATED_SYSTEM_APP) != 0) {
-                    try {
-                        String name = app.loadLabel(pm).toString();
-                        Drawable icon = app.loadIcon(pm);
-                        userApps.add(new AppItem(name, app.packageName, icon));
-                    } catch (Exception e) {}
-                }
-            }
-            Collections.sort(userApps, (o1, o2) -> o1.name.compareToIgnoreCase(o2.name));
+        int iconPx = Math.round(40 * getResources().getDisplayMetrics().density);
+        iconLoader = new IconLoader(this, iconPx, (int) Math.min(Runtime.getRuntime().maxMemory() / 16, 8 << 20));
+        AppAdapter adapter = new AppAdapter(iconLoader, this::launchApp);
+        recyclerApps.setAdapter(adapter);
 
-            runOnUiThread(() -> recyclerApps.setAdapter(new AppAdapter(userApps, this::launchApp)));
-        });
+        // Cached labels show up at once, the rest stream in as they are loaded.
+        appListLoader = new AppListLoader(this);
+        executor.execute(() -> appListLoader.load(adapter::addAll));
     }
 
     private void launchApp(String packageName) {
@@ -318,19 +429,31 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private static class AppItem {
-        String name; String packageName; Drawable icon;
-        public AppItem(String n, String p, Drawable i) { name=n; packageName=p; icon=i; }
-    }
-
     private static class AppAdapter extends RecyclerView.Adapter<AppAdapter.AppViewHolder> {
-        private final List<AppItem> list;
+        private final IconLoader iconLoader;
         private final OnAppClickListener listener;
+        private final SortedList<AppListLoader.AppItem> list;
 
         public interface OnAppClickListener { void onAppClick(String packageName); }
 
-        public AppAdapter(List<AppItem> list, OnAppClickListener listener) {
-            this.list = list; this.listener = listener;
+        public AppAdapter(IconLoader iconLoader, OnAppClickListener listener) {
+            this.iconLoader = iconLoader; this.listener = listener;
+            this.list = new SortedList<>(AppListLoader.AppItem.class, new SortedListAdapterCallback<AppListLoader.AppItem>(this) {
+                @Override public int compare(AppListLoader.AppItem a, AppListLoader.AppItem b) {
+                    int c = a.name.compareToIgnoreCase(b.name);
+                    return c != 0 ? c : a.packageName.compareTo(b.packageName);
+                }
+                @Override public boolean areContentsTheSame(AppListLoader.AppItem a, AppListLoader.AppItem b) {
+                    return a.name.equals(b.name);
+                }
+                @Override public boolean areItemsTheSame(AppListLoader.AppItem a, AppListLoader.AppItem b) {
+                    return a.packageName.equals(b.packageName);
+                }
+            });
+        }
+
+        void addAll(List<AppListLoader.AppItem> batch) {
+            list.addAll(batch);
         }
 
         @NonNull @Override
@@ -340,23 +463,57 @@ public class MainActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(@NonNull AppViewHolder h, int pos) {
-            AppItem i = list.get(pos);
+            AppListLoader.AppItem i = list.get(pos);
             h.name.setText(i.name);
             h.pkg.setText(i.packageName);
-            h.icon.setImageDrawable(i.icon);
+            h.bindIcon(iconLoader, i.packageName);
             h.itemView.setOnClickListener(v -> listener.onAppClick(i.packageName));
         }
 
+        @Override
+        public void onViewRecycled(@NonNull AppViewHolder h) {
+            h.unbindIcon();
+        }
+
         @Override public int getItemCount() { return list.size(); }
 
-        static class AppViewHolder extends RecyclerView.ViewHolder {
+        static class AppViewHolder extends RecyclerView.ViewHolder implements IconLoader.Target {
             TextView name, pkg; ImageView icon;
+            private String iconPackage;
+            private Future<?> iconTask;
+
             public AppViewHolder(@NonNull View v) {
                 super(v);
                 name=v.findViewById(R.id.appName);
                 pkg=v.findViewById(R.id.appPackage);
                 icon=v.findViewById(R.id.appIcon);
             }
+
+            void bindIcon(IconLoader loader, String packageName) {
+                if (packageName.equals(iconPackage)) return;
+                unbindIcon();
+                iconPackage = packageName;
+                Bitmap cached = loader.getCached(packageName);
+                if (cached != null) {
+                    icon.setImageBitmap(cached);
+                } else {
+                    icon.setImageDrawable(null);
+                    iconTask = loader.load(packageName, this);
+                }
+            }
+
+            void unbindIcon() {
+                if (iconTask != null) iconTask.cancel(true);
+                iconTask = null;
+                iconPackage = null;
+            }
+
+            @Override
+            public void onIcon(String packageName, Bitmap bitmap) {
+                if (!packageName.equals(iconPackage)) return;
+                icon.setImageBitmap(bitmap);
+                iconTask = null;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,296 @@
+package com.example.sysmonitor;
+
+import android.content.Context;
+import android.os.Debug;
+import android.os.Process;
+import android.os.SystemClock;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * The app's single {@link SamplingEngine} and the metrics every screen can
+ * subscribe to. Sources that hand out mutable objects alternate between two
+ * buffers so a listener still reading the previous tick is never overwritten.
+ */
+public final class Metrics {
+    private static final double MB16_IN_KB = 16 * 1024;
+    // Sources that touch sysfs, procfs or a system service get a deadline and
+    // are read off the engine's thread; cached and in-memory ones stay inline.
+    private static final long SYSFS_DEADLINE_MS = 100;
+    private static final long BINDER_DEADLINE_MS = 250;
+    private static final long STORAGE_INTERVAL_MS = 60_000;
+    public static final long JANK_WINDOW_MS = 10_000;
+    /** Reach it from a desktop with {@code adb forward tcp:7070 tcp:7070}. */
+    public static final int STREAM_PORT = 7070;
+    // a minute of rows at the recording's 1 s tick
+    private static final int STREAM_PENDING_ROWS = 60;
+    private static Metrics instance;
+
+    public final SystemStatsRepository repo;
+    public final SamplingEngine engine;
+
+    public final Metric<Long> cpuFreq;
+    public final Metric<int[]> coreFreq;
+    public final Metric<CpuLoad> cpuLoad;
+    public final Metric<ThermalSnapshot> thermal;
+    public final Metric<ThrottleDetector> throttle;
+    public final Metric<Float> refreshRate;
+    public final FrameMonitor frames;
+    public final Metric<FrameMonitor> jank;
+    public final Metric<BatteryState> battery;
+    public final Metric<MemInfo> memory;
+    public final Metric<SystemStatsRepository.StorageInfo> storage;
+    public final Metric<DiskThroughput> disk;
+    public final Metric<SystemStatsRepository.NetInfo> network;
+    public final Metric<NetThroughput> netThroughput;
+    public final Metric<Long> uptime;
+    public final Metric<ProcessTracker> processes;
+    public final Recording recording;
+
+    public final MetricHistory history = new MetricHistory();
+    private boolean allocationCounting;
+    private MetricStreamServer stream;
+    /** Cold start to the main screen's first frame, or -1 if not measured in this process. */
+    public volatile long firstFrameMs = -1;
+
+    public static synchronized Metrics get(Context context) {
+        if (instance == null) {
+            instance = new Metrics(new SystemStatsRepository(context.getApplicationContext()));
+        }
+        return instance;
+    }
+
+    private Metrics(SystemStatsRepository repo) {
+        this.repo = repo;
+        engine = new SamplingEngine(() -> SystemClock.uptimeMillis());
+
+        cpuFreq = engine.register("cpu.freq",
+                SamplingPolicy.adaptive(1000, 500, 4000, 0).withDeadline(SYSFS_DEADLINE_MS), repo::getCpuFrequency);
+        coreFreq = engine.register("cpu.cores",
+                SamplingPolicy.adaptive(1000, 500, 4000, 0).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<int[]>() {
+            private final int[][] buffers = new int[2][];
+            private int next;
+
+            @Override
+            public int[] sample() {
+                int count = repo.getCpuCoreCount();
+                int[] out = buffers[next];
+                if (out == null || out.length != count) out = buffers[next] = new int[count];
+                next ^= 1;
+                repo.getCpuCoresFreq(out);
+                return out;
+            }
+        }, CpuFreqSampler::maxDelta);
+        cpuLoad = engine.register("cpu.load",
+                SamplingPolicy.adaptive(1000, 1000, 4000, 2).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<CpuLoad>() {
+            private final CpuLoad[] buffers = new CpuLoad[2];
+            private int next;
+
+            @Override
+            public CpuLoad sample() {
+                CpuLoad out = buffers[next];
+                if (out == null) out = buffers[next] = repo.newCpuLoad();
+                next ^= 1;
+                repo.getCpuLoad(out);
+                return out;
+            }
+        }, CpuLoad::maxDelta);
+        thermal = engine.register("thermal",
+                SamplingPolicy.adaptive(1000, 1000, 8000, 0.5).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<ThermalSnapshot>() {
+            private final ThermalSnapshot[] buffers = new ThermalSnapshot[2];
+            private int next;
+
+            @Override
+            public ThermalSnapshot sample() {
+                ThermalSnapshot out = buffers[next];
+                if (out == null) out = buffers[next] = repo.newThermalSnapshot();
+                next ^= 1;
+                repo.getThermalSnapshot(out);
+                return out;
+            }
+        }, ThermalSnapshot::maxDelta);
+        // Fixed rate so a short cap drop isn't missed while temperatures sit
+        // still; the detector keeps its own thermal snapshot to pair with the caps.
+        throttle = engine.register("cpu.throttle",
+                SamplingPolicy.fixed(1000).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<ThrottleDetector>() {
+            private int[] caps;
+            private ThermalSnapshot temps;
+
+            @Override
+            public ThrottleDetector sample() {
+                ThrottleDetector detector = repo.getThrottleDetector();
+                if (caps == null) {
+                    caps = new int[detector.policyCount()];
+                    temps = repo.newThermalSnapshot();
+                }
+                repo.getCpuCaps(caps);
+                repo.getThermalSnapshot(temps);
+                detector.update(System.currentTimeMillis(), caps, temps);
+                return detector;
+            }
+        });
+        // Cached from a DisplayListener: a new value appears only when the mode changes.
+        refreshRate = engine.register("display.refresh",
+                SamplingPolicy.adaptive(1000, 1000, 30000, 0), repo::getDisplayRefreshRate);
+        // Frames are recorded on the main thread; a tick only rolls the jank windows.
+        frames = new FrameMonitor(repo);
+        jank = engine.register("ui.frames", SamplingPolicy.fixed(1000), () -> {
+            frames.tick(SystemClock.uptimeMillis());
+            return frames;
+        });
+        // A new snapshot object only appears when the system broadcasts a change,
+        // so identity is the change test and polling it costs one volatile read.
+        battery = engine.register("battery",
+                SamplingPolicy.adaptive(1000, 1000, 30000, 0), repo::getBatteryState);
+        memory = engine.register("memory",
+                SamplingPolicy.adaptive(1000, 1000, 8000, MB16_IN_KB).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<MemInfo>() {
+            private final MemInfo[] buffers = { new MemInfo(), new MemInfo() };
+            private int next;
+
+            @Override
+            public MemInfo sample() {
+                MemInfo out = buffers[next];
+                next ^= 1;
+                repo.getMemInfo(out);
+                return out;
+            }
+        }, MemInfo::maxDelta);
+        // Capacity barely moves; live I/O comes from the disk metric instead.
+        storage = engine.register("storage",
+                SamplingPolicy.fixed(STORAGE_INTERVAL_MS).withDeadline(BINDER_DEADLINE_MS), repo::getStorageInfo,
+                (a, b) -> Math.abs(a.free - b.free));
+        disk = engine.register("disk",
+                SamplingPolicy.adaptive(1000, 1000, 4000, 64 * 1024).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<DiskThroughput>() {
+            private final DiskThroughput[] buffers = { new DiskThroughput(), new DiskThroughput() };
+            private int next;
+
+            @Override
+            public DiskThroughput sample() {
+                DiskThroughput out = buffers[next];
+                next ^= 1;
+                repo.getDiskThroughput(out);
+                return out;
+            }
+        }, DiskThroughput::maxDelta);
+        // Cached from a NetworkCallback: a new object appears only when the link changes.
+        network = engine.register("network",
+                SamplingPolicy.adaptive(1000, 1000, 30000, 0), repo::getNetworkInfo);
+        netThroughput = engine.register("network.throughput",
+                SamplingPolicy.adaptive(1000, 1000, 4000, 1024).withDeadline(SYSFS_DEADLINE_MS), new Metric.Source<NetThroughput>() {
+            private final NetThroughput[] buffers = { new NetThroughput(), new NetThroughput() };
+            private int next;
+
+            @Override
+            public NetThroughput sample() {
+                NetThroughput out = buffers[next];
+                next ^= 1;
+                repo.getNetThroughput(out);
+                return out;
+            }
+        }, (a, b) -> Math.abs(a.totalRxRate() - b.totalRxRate()) + Math.abs(a.totalTxRate() - b.totalTxRate()));
+        uptime = engine.register("uptime", SamplingPolicy.fixed(1000), SystemClock::elapsedRealtime);
+        // Listeners pick their own top-N out of the tracker after each refresh.
+        // No deadline: a stale republish would block in top() behind the
+        // refresh still holding the tracker's lock.
+        ProcessTracker tracker = repo.getProcessTracker();
+        processes = engine.register("processes", SamplingPolicy.fixed(2000), () -> {
+            tracker.refresh();
+            return tracker;
+        });
+
+        // The recording's tick is derived, so each row sees the values sampled
+        // in the same pass, deadline reads included.
+        recording = new Recording(engine, System::currentTimeMillis, Process::getElapsedCpuTime, 1000, 30_000);
+        recording.addColumn("cpu0.freq.khz", cpuFreq, Long::floatValue);
+        recording.addColumn("cpu.busy.pct", cpuLoad, l -> l.busy(-1));
+        recording.addColumn("thermal.max.c", thermal, Metrics::hottest);
+        recording.addColumn("cpu.cap.pct", throttle, ThrottleDetector::lowestCapPercent);
+        recording.addColumn("ui.jank.pct", jank, f -> f.getAll().window.jankPercent(JANK_WINDOW_MS));
+        recording.addColumn("battery.level", battery, b -> b.level);
+        recording.addColumn("battery.temp.c", battery, b -> b.temperature);
+        recording.addColumn("battery.current.ma", battery,
+                b -> b.currentUa == BatteryState.UNKNOWN ? Float.NaN : b.currentUa / 1000f);
+        recording.addColumn("memory.avail.mb", memory, m -> m.available() / 1024f);
+        recording.addColumn("memory.swap.mb", memory, m -> m.swapUsed() / 1024f);
+        recording.addColumn("net.rx.kbs", netThroughput, n -> (float) (n.totalRxRate() / 1024));
+        recording.addColumn("net.tx.kbs", netThroughput, n -> (float) (n.totalTxRate() / 1024));
+        recording.addColumn("disk.read.kbs", disk, d -> (float) (d.totalReadRate() / 1024));
+        recording.addColumn("disk.write.kbs", disk, d -> (float) (d.totalWriteRate() / 1024));
+        recording.addColumn("disk.iops", disk, d -> (float) d.totalIops());
+
+        // elapsedRealtime keeps counting in deep sleep, unlike the engine's uptime clock
+        history.attach(SystemClock::elapsedRealtime, coreFreq, thermal);
+        // Subscriptions made meanwhile just wait for the first tick.
+        new Thread(() -> {
+            repo.prepareHardware();
+            engine.start();
+        }, "HardwareDiscovery").start();
+    }
+
+    /**
+     * ART only counts allocations per thread while counting is on for the
+     * whole runtime, which slows every allocation down, so this stays off
+     * until the diagnostics screen asks for it.
+     */
+    @SuppressWarnings("deprecation")
+    public synchronized void setAllocationCounting(boolean on) {
+        if (on == allocationCounting) return;
+        allocationCounting = on;
+        if (on) {
+            Debug.resetThreadAllocSize();
+            Debug.startAllocCounting();
+            engine.setAllocations(Debug::getThreadAllocSize);
+        } else {
+            engine.setAllocations(null);
+            Debug.stopAllocCounting();
+        }
+    }
+
+    public synchronized boolean isAllocationCounting() {
+        return allocationCounting;
+    }
+
+    /**
+     * Serves the recording's rows on loopback only, so nothing off the device
+     * can connect; the rows keep being sampled while this is on, even when no
+     * recording is running.
+     */
+    public synchronized void startStream() throws IOException {
+        if (isStreaming()) return;
+        stopStream();
+        stream = new MetricStreamServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), STREAM_PORT),
+                recording.getColumnNames().toArray(new String[0]), STREAM_PENDING_ROWS, 0);
+        recording.setSink(stream::publish);
+    }
+
+    public synchronized void stopStream() {
+        if (stream == null) return;
+        recording.setSink(null);
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // the port is released either way
+        }
+        stream = null;
+    }
+
+    /** The stream last started, or null; it may have stopped on its own since. */
+    public synchronized MetricStreamServer getStream() {
+        return stream;
+    }
+
+    public synchronized boolean isStreaming() {
+        return stream != null && !stream.isStopped();
+    }
+
+    private static float hottest(ThermalSnapshot snapshot) {
+        float max = Float.NaN;
+        for (int id : snapshot.zoneIds) {
+            float t = snapshot.temps[id];
+            if (!Float.isNaN(t) && (Float.isNaN(max) || t > max)) max = t;
+        }
+        return max;
+    }
+}
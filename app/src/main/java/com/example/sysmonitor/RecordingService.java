@@ -0,0 +1,246 @@
+package com.example.sysmonitor;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Foreground service that keeps {@link Metrics#recording} running while no
+ * screen is subscribed, e.g. through a benchmark run or a thermal soak with
+ * the display off. Each run goes to its own directory under
+ * files/recordings with a columns.txt naming the recorded series.
+ *
+ * A partial wake lock is held for the whole run: the engine's clock is
+ * uptime, which stops while the CPU is suspended, and a soak test is exactly
+ * the case where the device would otherwise sleep.
+ *
+ * Stopping flushes the last batch and forces the mapped segment to storage,
+ * so that part runs on a worker thread; the service goes away once it is done.
+ */
+public class RecordingService extends Service {
+    private static final String TAG = "RecordingService";
+    private static final String ACTION_START = "com.example.sysmonitor.action.START_RECORDING";
+    private static final String ACTION_STOP = "com.example.sysmonitor.action.STOP_RECORDING";
+    private static final String CHANNEL = "recording";
+    private static final int NOTIFICATION_ID = 1;
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+    private static final int MAX_SEGMENTS = 64;
+    private static final long STATUS_INTERVAL_MS = 30_000;
+
+    /** Told on the main thread when a run has started, failed to start or finished stopping. */
+    public interface StateListener {
+        void onRecordingStateChanged();
+    }
+
+    // main thread only
+    private static StateListener stateListener;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ExecutorService closer = Executors.newSingleThreadExecutor();
+    private Recording recording;
+    private MetricRecorder recorder;
+    private PowerManager.WakeLock wakeLock;
+    private Metric.Subscription history;
+    private boolean stopping;
+
+    private final Runnable updateStatus = new Runnable() {
+        @Override
+        public void run() {
+            Recording.Overhead overhead = recording.getOverhead();
+            if (overhead == null || !recording.isRecording()) return;
+            NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+            if (nm != null) nm.notify(NOTIFICATION_ID, buildNotification(describe(overhead)));
+            handler.postDelayed(this, STATUS_INTERVAL_MS);
+        }
+    };
+
+    public static void start(Context context) {
+        ContextCompat.startForegroundService(context,
+                new Intent(context, RecordingService.class).setAction(ACTION_START));
+    }
+
+    public static void stop(Context context) {
+        context.startService(new Intent(context, RecordingService.class).setAction(ACTION_STOP));
+    }
+
+    /** Null stops the updates; call from the main thread. */
+    public static void setStateListener(StateListener listener) {
+        stateListener = listener;
+    }
+
+    /** One line for the notification and the main screen. */
+    public static String describe(Recording.Overhead o) {
+        return String.format(Locale.US, "CPU %.2f%% · %.0f wakeups/min · %d KB written",
+                o.cpuPercent(), o.wakeupsPerMinute(), o.bytesWritten / 1024);
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        recording = Metrics.get(this).recording;
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            finish();
+            return START_NOT_STICKY;
+        }
+        if (recording.isRecording()) return START_NOT_STICKY;
+
+        createChannel();
+        Notification notification = buildNotification("Starting...");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            startForeground(NOTIFICATION_ID, notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+        } else {
+            startForeground(NOTIFICATION_ID, notification);
+        }
+        if (stopping) {
+            // the previous run is still closing and takes the service down with it
+            notifyState();
+            return START_NOT_STICKY;
+        }
+
+        try {
+            recorder = openRecorder();
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open recording", e);
+            finish();
+            return START_NOT_STICKY;
+        }
+
+        PowerManager pm = (PowerManager) getSystemService(POWER_SERVICE);
+        if (pm != null) {
+            wakeLock = pm.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "SysMonitor:recording");
+            wakeLock.acquire();
+        }
+        recording.start(recorder);
+        // a soak is also what the frequency and thermal history are for
+        history = Metrics.get(this).history.hold();
+        handler.postDelayed(updateStatus, STATUS_INTERVAL_MS);
+        notifyState();
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        finish();
+        // lets a stop already queued finish writing
+        closer.shutdown();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    /** {@code adb shell dumpsys activity service com.example.sysmonitor/.RecordingService} */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.print(Metrics.get(this).engine.dump());
+        Recording.Overhead overhead = recording.getOverhead();
+        if (overhead != null) writer.println(describe(overhead) + ", " + overhead.rows + " rows");
+    }
+
+    private void finish() {
+        handler.removeCallbacks(updateStatus);
+        if (history != null) history.cancel();
+        history = null;
+        if (stopping) return;
+        if (recorder == null) {
+            stopped();
+            return;
+        }
+        MetricRecorder rec = recorder;
+        recorder = null;
+        stopping = true;
+        closer.execute(() -> {
+            Recording.Overhead overhead = recording.stop();
+            Log.i(TAG, describe(overhead) + ", " + overhead.rows + " rows");
+            try {
+                rec.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot close recording", e);
+            }
+            handler.post(this::stopped);
+        });
+    }
+
+    /** Main thread, once nothing is left to write. */
+    private void stopped() {
+        stopping = false;
+        if (wakeLock != null && wakeLock.isHeld()) wakeLock.release();
+        wakeLock = null;
+        stopForeground(true);
+        stopSelf();
+        notifyState();
+    }
+
+    private static void notifyState() {
+        if (stateListener != null) stateListener.onRecordingStateChanged();
+    }
+
+    private MetricRecorder openRecorder() throws IOException {
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File dir = new File(new File(getFilesDir(), "recordings"), name);
+        MetricRecorder rec = new MetricRecorder(dir, recording.getColumnCount(), SEGMENT_BYTES, MAX_SEGMENTS);
+        try (Writer w = new FileWriter(new File(dir, "columns.txt"))) {
+            for (String column : recording.getColumnNames()) w.write(column + "\n");
+        } catch (IOException e) {
+            rec.close();
+            throw e;
+        }
+        return rec;
+    }
+
+    private void createChannel() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        if (nm == null) return;
+        nm.createNotificationChannel(new NotificationChannel(CHANNEL, "Recording", NotificationManager.IMPORTANCE_LOW));
+    }
+
+    private Notification buildNotification(String text) {
+        int immutable = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0;
+        PendingIntent open = PendingIntent.getActivity(this, 0,
+                new Intent(this, MainActivity.class), immutable);
+        PendingIntent stop = PendingIntent.getService(this, 1,
+                new Intent(this, RecordingService.class).setAction(ACTION_STOP), immutable);
+        return new NotificationCompat.Builder(this, CHANNEL)
+                .setSmallIcon(android.R.drawable.ic_media_play)
+                .setContentTitle("Recording metrics")
+                .setContentText(text)
+                .setContentIntent(open)
+                .addAction(0, "Stop", stop)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .build();
+    }
+}
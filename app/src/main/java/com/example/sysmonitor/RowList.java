@@ -0,0 +1,75 @@
+package com.example.sysmonitor;
+
+/**
+ * Keyed, sorted list of int-valued rows that reports only what changed.
+ * Rows are inserted or removed when their key appears or disappears (e.g. a
+ * hotplugged core) and rebound only when their value differs from the last
+ * update, so a steady-state update touches no views and allocates nothing.
+ */
+final class RowList {
+
+    interface Binder {
+        void insert(int position, int key);
+
+        void remove(int position, int key);
+
+        void bind(int position, int key, int value);
+    }
+
+    private final Binder binder;
+    private int[] keys = new int[0];
+    private int[] values = new int[0];
+    private int size;
+
+    private int[] nextKeys = new int[0];
+    private int[] nextValues = new int[0];
+
+    RowList(Binder binder) {
+        this.binder = binder;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int keyAt(int position) {
+        return keys[position];
+    }
+
+    /**
+     * Replaces the rows with the first {@code count} entries of {@code newKeys},
+     * which must be strictly ascending.
+     */
+    void update(int[] newKeys, int[] newValues, int count) {
+        if (nextKeys.length < count) {
+            nextKeys = new int[count];
+            nextValues = new int[count];
+        }
+
+        int i = 0; // old rows
+        int j = 0; // new rows
+        int position = 0;
+        while (i < size || j < count) {
+            if (j == count || (i < size && keys[i] < newKeys[j])) {
+                binder.remove(position, keys[i]);
+                i++;
+            } else if (i == size || newKeys[j] < keys[i]) {
+                binder.insert(position, newKeys[j]);
+                binder.bind(position, newKeys[j], newValues[j]);
+                position++;
+                j++;
+            } else {
+                if (values[i] != newValues[j]) binder.bind(position, newKeys[j], newValues[j]);
+                position++;
+                i++;
+                j++;
+            }
+        }
+
+        System.arraycopy(newKeys, 0, nextKeys, 0, count);
+        System.arraycopy(newValues, 0, nextValues, 0, count);
+        int[] t = keys; keys = nextKeys; nextKeys = t;
+        t = values; values = nextValues; nextValues = t;
+        size = count;
+    }
+}
@@ -1,31 +1,70 @@
 package com.example.sysmonitor;
 
+import android.Manifest;
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import java.util.Locale;
 
+/**
+ * Accelerometer and light sensor. Events are delivered on a background
+ * HandlerThread into a {@link SensorCapture}; the screen is redrawn from its
+ * aggregates once per frame, so the event rate never reaches the UI thread.
+ * Capture mode asks for the fastest rate the sensor supports and lets the
+ * hardware FIFO batch events for up to {@link #MAX_REPORT_LATENCY_US}.
+ * Since Android 12 that rate is capped at {@link #CAPPED_RATE_HZ} unless the
+ * app holds HIGH_SAMPLING_RATE_SENSORS.
+ */
 public class SensorActivity extends AppCompatActivity implements SensorEventListener {
+    private static final int RING_EVENTS = 4096;
+    private static final int MAX_REPORT_LATENCY_US = 200_000;
+    private static final double CAPPED_RATE_HZ = 200;
 
+    private Metrics metrics;
     private SensorManager sensorManager;
     private Sensor accelerometer, lightSensor;
-    private TextView valX, valY, valZ, valLight;
+    private TextView valX, valY, valZ, valLight, textCapture, btnCapture;
+
+    private final SensorCapture capture = new SensorCapture(3, RING_EVENTS);
+    private final SensorCapture.Stats stats = new SensorCapture.Stats(3);
+    private HandlerThread sensorThread;
+    private Handler sensorHandler;
+    private boolean capturing;
+    private volatile float light = Float.NaN;
+    private long shownCount = -1;
+    private float shownLight = Float.NaN;
+
+    private final Choreographer.FrameCallback frame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            render();
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_sensors);
+        metrics = Metrics.get(this);
 
         valX = findViewById(R.id.valX);
         valY = findViewById(R.id.valY);
         valZ = findViewById(R.id.valZ);
         valLight = findViewById(R.id.valLight);
+        textCapture = findViewById(R.id.textCapture);
+        btnCapture = findViewById(R.id.btnCapture);
 
         sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
 
@@ -44,40 +83,118 @@ public class SensorActivity extends AppCompatActivity implements SensorEventList
                 valLight.setText("N/A");
             }
         }
+
+        btnCapture.setOnClickListener(v -> {
+            capturing = !capturing;
+            btnCapture.setText(capturing ? "[ CAPTURE: FASTEST ]" : "[ CAPTURE: OFF ]");
+            if (sensorHandler != null) {
+                sensorManager.unregisterListener(this, accelerometer);
+                registerAccelerometer();
+            }
+        });
     }
 
     @Override
     protected void onResume() {
         super.onResume();
+        metrics.frames.attach(this);
         if (sensorManager != null) {
-            if (accelerometer != null) {
-                sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_UI);
-            }
+            sensorThread = new HandlerThread("SensorCapture");
+            sensorThread.start();
+            sensorHandler = new Handler(sensorThread.getLooper());
+            registerAccelerometer();
             if (lightSensor != null) {
-                sensorManager.registerListener(this, lightSensor, SensorManager.SENSOR_DELAY_UI);
+                sensorManager.registerListener(this, lightSensor, SensorManager.SENSOR_DELAY_UI, sensorHandler);
             }
         }
+        Choreographer.getInstance().postFrameCallback(frame);
     }
 
     @Override
     protected void onPause() {
         super.onPause();
+        metrics.frames.detach(this);
+        Choreographer.getInstance().removeFrameCallback(frame);
         if (sensorManager != null) {
             sensorManager.unregisterListener(this);
+            sensorThread.quitSafely();
+            sensorThread = null;
+            sensorHandler = null;
         }
     }
 
+    /** Runs on {@link #sensorThread}. */
     @Override
     public void onSensorChanged(SensorEvent event) {
         if (event.sensor.getType() == Sensor.TYPE_ACCELEROMETER) {
-            valX.setText(String.format(Locale.US, "%.1f", event.values[0]));
-            valY.setText(String.format(Locale.US, "%.1f", event.values[1]));
-            valZ.setText(String.format(Locale.US, "%.1f", event.values[2]));
+            capture.add(event.timestamp, event.values);
         } else if (event.sensor.getType() == Sensor.TYPE_LIGHT) {
-            valLight.setText((int)event.values[0] + " lx");
+            light = event.values[0];
         }
     }
 
     @Override
     public void onAccuracyChanged(Sensor sensor, int accuracy) { }
-}
\ No newline at end of file
+
+    /** Starts a fresh capture at the rate of the current mode. */
+    private void registerAccelerometer() {
+        if (accelerometer == null) return;
+        capture.reset();
+        shownCount = -1;
+        if (capturing) {
+            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_FASTEST,
+                    MAX_REPORT_LATENCY_US, sensorHandler);
+        } else {
+            sensorManager.registerListener(this, accelerometer, SensorManager.SENSOR_DELAY_UI, sensorHandler);
+        }
+    }
+
+    private void render() {
+        float lux = light;
+        if (lightSensor != null && Float.compare(lux, shownLight) != 0 && !Float.isNaN(lux)) {
+            shownLight = lux;
+            valLight.setText((int) lux + " lx");
+        }
+
+        if (accelerometer == null) return;
+        capture.snapshot(stats);
+        if (stats.count == shownCount) return;
+        shownCount = stats.count;
+        if (stats.count == 0) {
+            textCapture.setText("");
+            return;
+        }
+        valX.setText(String.format(Locale.US, "%.1f", stats.latest[0]));
+        valY.setText(String.format(Locale.US, "%.1f", stats.latest[1]));
+        valZ.setText(String.format(Locale.US, "%.1f", stats.latest[2]));
+        textCapture.setText(describe());
+    }
+
+    private String describe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%d events · %.1f Hz (max %s) · jitter %.0f µs · gap %.1f ms\n",
+                stats.count, stats.rateHz, describeMaxRate(),
+                stats.jitterNs / 1000, stats.maxIntervalNs / 1e6));
+        sb.append(String.format(Locale.US, "FIFO %d events%s\n", accelerometer.getFifoMaxEventCount(),
+                capturing ? ", batched up to " + MAX_REPORT_LATENCY_US / 1000 + " ms" : ""));
+        String[] axes = {"X", "Y", "Z"};
+        for (int c = 0; c < 3; c++) {
+            sb.append(String.format(Locale.US, "%s mean %7.3f  sd %6.3f  rms %6.3f\n",
+                    axes[c], stats.mean[c], stats.stdDev(c), stats.rms[c]));
+        }
+        return sb.toString().trim();
+    }
+
+    /** The fastest rate this app can actually get, which the sensor's own minimum may exceed. */
+    private String describeMaxRate() {
+        int minDelayUs = accelerometer.getMinDelay();
+        if (minDelayUs <= 0) return "?";
+        double hz = 1e6 / minDelayUs;
+        if (hz > CAPPED_RATE_HZ && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                && checkSelfPermission(Manifest.permission.HIGH_SAMPLING_RATE_SENSORS)
+                        != PackageManager.PERMISSION_GRANTED) {
+            return String.format(Locale.US, "%.0f, capped from %.0f", CAPPED_RATE_HZ, hz);
+        }
+        return String.format(Locale.US, "%.0f", hz);
+    }
+}
@@ -1,146 +1,486 @@
 package com.example.sysmonitor;
 
+import android.app.ActivityManager;
+import android.app.usage.UsageStats;
+import android.app.usage.UsageStatsManager;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.hardware.display.DisplayManager;
+import android.net.ConnectivityManager;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.TrafficStats;
 import android.os.BatteryManager;
 import android.os.Build;
+import android.os.Debug;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.StatFs;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
 import android.util.Log;
 import android.view.Display;
-import android.view.WindowManager;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.util.Locale;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SystemStatsRepository {
-    private static final String TAG = "SystemStatsRepo";
+    // getProcessMemoryInfo is rate-limited since Android 10; asking sooner just
+    // returns the previous answer, so there is no point in a shorter TTL.
+    private static final long PSS_TTL_MS = 60_000;
+    private static final long RECENT_USE_MS = 60 * 60_000;
+    // Caps follow a trip crossing within a few polling periods of the thermal HAL.
+    private static final long THROTTLE_WINDOW_MS = 10_000;
+    private static final int THROTTLE_HISTORY = 32;
+
     private final Context context;
+    private final SysfsStats sysfs;
+    private final BatteryTracker battery = new BatteryTracker();
+    private boolean batteryRegistered;
+    private final AtomicReference<NetInfo> network = new AtomicReference<>();
+    private final Object displayLock = new Object();
+    private boolean displayRegistered;
+    private volatile float refreshRate = Float.NaN;
+    // TrafficStats fallback state, only touched by the sampling thread
+    private long trafficAt, trafficRx, trafficTx;
+    private volatile long discoveryMs = -1;
+    private volatile boolean profileCached;
+    private final ActivityManager.MemoryInfo amMemory = new ActivityManager.MemoryInfo();
+    private PssCache pss;
+
+    private static final BatteryState EMPTY_BATTERY = new BatteryState(0, 0, 0, 0, BatteryState.UNKNOWN,
+            false, BatteryManager.BATTERY_STATUS_UNKNOWN, BatteryManager.BATTERY_HEALTH_UNKNOWN, Float.NaN);
 
     public SystemStatsRepository(Context context) {
+        this(context, FileSystemRoot.DEVICE);
+    }
+
+    public SystemStatsRepository(Context context, FileSystemRoot root) {
         this.context = context;
+        this.sysfs = new SysfsStats(root);
     }
 
     public long getCpuFrequency() {
-        String[] paths = {
-                "/sys/devices/system/cpu/cpu0/cpufreq/scaling_cur_freq",
-                "/sys/devices/system/cpu/cpu0/cpufreq/cpuinfo_cur_freq"
-        };
-
-        for (String path : paths) {
-            File file = new File(path);
-            if (file.exists() && file.canRead()) {
-                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                    String line = br.readLine();
-                    if (line != null) {
-                        return Long.parseLong(line.trim());
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error reading CPU freq", e);
-                }
-            }
-        }
-        return 0;
+        return sysfs.getCpuFrequency();
     }
 
+    /**
+     * Refresh rate of the default display's current mode. The first call
+     * registers a DisplayListener for the life of the process; after that
+     * this is a volatile read that only changes when the display switches
+     * modes, cheap enough to call once per frame.
+     */
     public float getDisplayRefreshRate() {
-        WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        if (wm != null) {
-            Display display = wm.getDefaultDisplay();
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                return display.getMode().getRefreshRate();
+        float rate = refreshRate;
+        if (!Float.isNaN(rate)) return rate;
+        synchronized (displayLock) {
+            if (!displayRegistered) {
+                displayRegistered = true;
+                DisplayManager dm = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+                if (dm != null) {
+                    // Callers include the sampling thread, which has no looper of its own.
+                    dm.registerDisplayListener(new DisplayManager.DisplayListener() {
+                        @Override
+                        public void onDisplayAdded(int displayId) {
+                        }
+
+                        @Override
+                        public void onDisplayRemoved(int displayId) {
+                        }
+
+                        @Override
+                        public void onDisplayChanged(int displayId) {
+                            if (displayId == Display.DEFAULT_DISPLAY) readRefreshRate(dm);
+                        }
+                    }, new Handler(Looper.getMainLooper()));
+                    readRefreshRate(dm);
+                }
             }
-            return display.getRefreshRate();
         }
-        return 60.0f;
+        rate = refreshRate;
+        return Float.isNaN(rate) ? 60.0f : rate;
+    }
+
+    private void readRefreshRate(DisplayManager dm) {
+        Display display = dm.getDisplay(Display.DEFAULT_DISPLAY);
+        if (display != null) refreshRate = display.getMode().getRefreshRate();
     }
 
     public boolean checkRootAccess() {
-        String[] paths = {
-                "/sbin/su", "/system/bin/su", "/system/xbin/su",
-                "/data/local/xbin/su", "/data/local/bin/su", "/system/sd/xbin/su",
-                "/system/bin/failsafe/su", "/data/local/su"
-        };
-        for (String path : paths) {
-            if (new File(path).exists()) return true;
-        }
-        return false;
+        return sysfs.checkRootAccess();
     }
 
-    public BatteryInfo getBatteryInfo() {
-        Intent intent = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
-        if (intent == null) return new BatteryInfo(0, 0);
+    /**
+     * Latest battery snapshot. The first call registers one receiver for the
+     * life of the process; after that this is a plain volatile read and the
+     * snapshot only changes when the system broadcasts ACTION_BATTERY_CHANGED.
+     */
+    public BatteryState getBatteryState() {
+        BatteryState state = battery.get();
+        if (state != null) return state;
+        synchronized (battery) {
+            if (!batteryRegistered) {
+                batteryRegistered = true;
+                BroadcastReceiver receiver = new BroadcastReceiver() {
+                    @Override
+                    public void onReceive(Context c, Intent intent) {
+                        onBatteryChanged(intent);
+                    }
+                };
+                // The sticky intent comes back right away and seeds the first snapshot.
+                Intent sticky = context.registerReceiver(receiver, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+                if (sticky != null) onBatteryChanged(sticky);
+            }
+        }
+        state = battery.get();
+        return state != null ? state : EMPTY_BATTERY;
+    }
 
+    private void onBatteryChanged(Intent intent) {
         int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
         int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        int pct = (level > 0 && scale > 0) ? (int) ((level / (float) scale) * 100) : 0;
         int temp = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+        int voltage = intent.getIntExtra(BatteryManager.EXTRA_VOLTAGE, 0);
+        int status = intent.getIntExtra(BatteryManager.EXTRA_STATUS, BatteryManager.BATTERY_STATUS_UNKNOWN);
+        int health = intent.getIntExtra(BatteryManager.EXTRA_HEALTH, BatteryManager.BATTERY_HEALTH_UNKNOWN);
+        boolean charging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
 
-        int pct = (level > 0 && scale > 0) ? (int) ((level / (float) scale) * 100) : 0;
-        return new BatteryInfo(pct, temp / 10.0f);
+        // Current isn't part of the broadcast; read it once per event, not per tick.
+        int current = BatteryState.UNKNOWN;
+        BatteryManager bm = (BatteryManager) context.getSystemService(Context.BATTERY_SERVICE);
+        if (bm != null) {
+            int ua = bm.getIntProperty(BatteryManager.BATTERY_PROPERTY_CURRENT_NOW);
+            if (ua != Integer.MIN_VALUE && ua != 0) current = ua;
+        }
+
+        synchronized (battery) {
+            battery.update(System.currentTimeMillis(), pct, temp / 10.0f, voltage, current, charging, status, health);
+        }
+    }
+
+    /**
+     * Gets the core and thermal samplers ready before the first tick: from the
+     * profile saved for this build if there is one, otherwise by discovering
+     * the hardware in parallel and saving the result. Blocks; call it off the
+     * main thread.
+     */
+    public void prepareHardware() {
+        long start = SystemClock.elapsedRealtime();
+        File file = new File(context.getFilesDir(), "hardware.profile");
+        HardwareProfile profile = HardwareProfile.load(file, Build.FINGERPRINT);
+        profileCached = profile != null;
+        if (profile == null) {
+            int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                profile = HardwareProfile.discover(sysfs.getRoot(), Build.FINGERPRINT, pool, threads);
+            } finally {
+                pool.shutdown();
+            }
+            try {
+                profile.save(file);
+            } catch (IOException e) {
+                Log.w("SystemStatsRepository", "Cannot save hardware profile", e);
+            }
+        }
+        sysfs.setProfile(profile);
+        sysfs.getCoreSampler();
+        sysfs.getThermalSampler();
+        discoveryMs = SystemClock.elapsedRealtime() - start;
+    }
+
+    /** Time {@link #prepareHardware} took, or -1 before it finished. */
+    public long getDiscoveryMs() {
+        return discoveryMs;
+    }
+
+    /** Whether the hardware came from the saved profile rather than discovery. */
+    public boolean isProfileCached() {
+        return profileCached;
     }
 
     public int[] getCpuCoresFreq() {
-        int[] freqs = new int[12];
-
-        for (int i = 0; i < 12; i++) {
-            String path = "/sys/devices/system/cpu/cpu" + i + "/cpufreq/scaling_cur_freq";
-            File file = new File(path);
-            if (file.exists()) {
-                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-                    String line = br.readLine();
-                    if (line != null) {
-                        freqs[i] = Integer.parseInt(line.trim());
-                    } else {
-                        freqs[i] = -1;
+        return sysfs.getCpuCoresFreq();
+    }
+
+    /** Allocation-free variant: fills {@code out} and returns the number of cores written. */
+    public int getCpuCoresFreq(int[] out) {
+        return sysfs.getCpuCoresFreq(out);
+    }
+
+    public int getCpuCoreCount() {
+        return sysfs.getCpuCoreCount();
+    }
+
+    /** Per-core utilization since the previous call; false if /proc/stat is not readable. */
+    public boolean getCpuLoad(CpuLoad out) {
+        return sysfs.getCpuLoad(out);
+    }
+
+    public CpuLoad newCpuLoad() {
+        return sysfs.newCpuLoad();
+    }
+
+    /**
+     * CPU and RSS of the processes visible to this app. Since Android 7 /proc is
+     * mounted with hidepid, so without root that is mostly our own processes.
+     */
+    public ProcessTracker getProcessTracker() {
+        return sysfs.getProcessTracker(Os.sysconf(OsConstants._SC_PAGESIZE) / 1024);
+    }
+
+    public ThermalSnapshot getThermalSnapshot() {
+        return sysfs.getThermalSnapshot();
+    }
+
+    public ThermalSnapshot newThermalSnapshot() {
+        return sysfs.newThermalSnapshot();
+    }
+
+    public void getThermalSnapshot(ThermalSnapshot out) {
+        sysfs.getThermalSnapshot(out);
+    }
+
+    /** scaling_max_freq of every cpufreq policy, -1 where it can't be read. */
+    public int getCpuCaps(int[] out) {
+        return sysfs.getPolicySampler().sample(out);
+    }
+
+    public ThrottleDetector getThrottleDetector() {
+        return sysfs.getThrottleDetector(THROTTLE_WINDOW_MS, THROTTLE_HISTORY);
+    }
+
+    /**
+     * The /proc/meminfo breakdown. If it can't be read only total and
+     * available memory are filled in, from ActivityManager.
+     */
+    public void getMemInfo(MemInfo out) {
+        if (sysfs.getMemInfo(out)) return;
+        out.clear();
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null) return;
+        synchronized (amMemory) {
+            am.getMemoryInfo(amMemory);
+            out.kb[MemInfo.TOTAL] = amMemory.totalMem / 1024;
+            out.kb[MemInfo.AVAILABLE] = amMemory.availMem / 1024;
+        }
+    }
+
+    /**
+     * PSS per pid, measured on demand. Since Android 10 only processes of our
+     * own uid can be measured; the others come back as {@link PssCache#UNKNOWN}.
+     */
+    public synchronized PssCache getPssCache() {
+        if (pss == null) {
+            ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            pss = new PssCache((pids, count, out) -> {
+                if (am == null) return;
+                Debug.MemoryInfo[] infos = am.getProcessMemoryInfo(Arrays.copyOf(pids, count));
+                for (int i = 0; i < count && i < infos.length; i++) {
+                    int totalPss = infos[i].getTotalPss();
+                    if (totalPss > 0) out[i] = totalPss;
+                }
+            }, () -> SystemClock.uptimeMillis(), PSS_TTL_MS);
+        }
+        return pss;
+    }
+
+    /**
+     * Packages that currently have processes worth killing, excluding this app.
+     * Since Android 8 getRunningAppProcesses() only reports our own process.
+     * The next best thing is the apps UsageStats saw in the foreground lately,
+     * which needs usage access; without it, every third-party package that is
+     * not in the stopped state. Both are estimates and say so.
+     */
+    public CleanTargets getCleanTargets() {
+        String self = context.getPackageName();
+        Set<String> running = new LinkedHashSet<>();
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am != null) {
+            List<ActivityManager.RunningAppProcessInfo> procs = am.getRunningAppProcesses();
+            if (procs != null) {
+                for (ActivityManager.RunningAppProcessInfo p : procs) {
+                    if (p.pkgList != null) Collections.addAll(running, p.pkgList);
+                }
+            }
+        }
+        running.remove(self);
+        if (!running.isEmpty()) return new CleanTargets(new ArrayList<>(running), "running processes", false);
+
+        Set<String> thirdParty = new LinkedHashSet<>();
+        for (ApplicationInfo app : context.getPackageManager().getInstalledApplications(0)) {
+            if ((app.flags & (ApplicationInfo.FLAG_STOPPED | ApplicationInfo.FLAG_PERSISTENT
+                    | ApplicationInfo.FLAG_SYSTEM)) != 0) continue;
+            if (!app.packageName.equals(self)) thirdParty.add(app.packageName);
+        }
+
+        UsageStatsManager usm = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        if (usm != null) {
+            long now = System.currentTimeMillis();
+            // empty without usage access
+            List<UsageStats> stats = usm.queryUsageStats(UsageStatsManager.INTERVAL_DAILY,
+                    now - RECENT_USE_MS, now);
+            if (stats != null) {
+                for (UsageStats u : stats) {
+                    if (u.getLastTimeUsed() >= now - RECENT_USE_MS && thirdParty.contains(u.getPackageName())) {
+                        running.add(u.getPackageName());
                     }
-                } catch (Exception e) {
-                    freqs[i] = -1;
                 }
-            } else {
-                freqs[i] = -2;
+            }
+            if (!running.isEmpty()) {
+                return new CleanTargets(new ArrayList<>(running), "apps used in the last hour", true);
             }
         }
-        return freqs;
+        return new CleanTargets(new ArrayList<>(thirdParty), "all non-stopped user apps", true);
     }
 
-    public String getThermalStat() {
-        StringBuilder sb = new StringBuilder();
-        boolean foundAny = false;
+    /** Per-disk I/O rates, or no disks at all where /proc/diskstats can't be read. */
+    public void getDiskThroughput(DiskThroughput out) {
+        if (!sysfs.getDiskThroughput(out)) out.count = 0;
+    }
 
+    public StorageInfo getStorageInfo() {
+        try {
+            StatFs stat = new StatFs(Environment.getDataDirectory().getPath());
+            long total = stat.getBlockCountLong() * stat.getBlockSizeLong();
+            long free = stat.getAvailableBlocksLong() * stat.getBlockSizeLong();
+            return new StorageInfo(total, free);
+        } catch (Exception e) {
+            return new StorageInfo(0, 0);
+        }
+    }
 
-        for (int i = 0; i < 30; i++) {
-            String dirPath = "/sys/class/thermal/thermal_zone" + i;
-            File dir = new File(dirPath);
-            if (!dir.exists()) continue;
+    /**
+     * Current default network. The first call registers a default-network
+     * callback; after that the cached value is returned and only replaced when
+     * connectivity or link properties actually change.
+     */
+    public NetInfo getNetworkInfo() {
+        NetInfo info = network.get();
+        if (info != null) return info;
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (cm == null) return new NetInfo("Disconnected", "Unavailable");
+        synchronized (network) {
+            if (network.get() == null) {
+                network.set(queryNetworkInfo(cm, cm.getActiveNetwork()));
+                cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                    private String type = network.get().type;
+                    private String ip = network.get().ip;
 
-            String type = "Unknown";
-            float temp = -999;
+                    @Override
+                    public void onCapabilitiesChanged(Network n, NetworkCapabilities caps) {
+                        type = typeOf(caps);
+                        publish();
+                    }
 
-            try (BufferedReader br = new BufferedReader(new FileReader(new File(dir, "type")))) {
-                type = br.readLine();
-            } catch (Exception e) {}
+                    @Override
+                    public void onLinkPropertiesChanged(Network n, LinkProperties props) {
+                        ip = ipv4Of(props);
+                        publish();
+                    }
 
-            try (BufferedReader br = new BufferedReader(new FileReader(new File(dir, "temp")))) {
-                String line = br.readLine();
-                if (line != null) {
-                    long raw = Long.parseLong(line.trim());
-                    if (raw > 1000) temp = raw / 1000.0f;
-                    else temp = raw;
-                }
-            } catch (Exception e) {}
+                    @Override
+                    public void onLost(Network n) {
+                        type = "Disconnected";
+                        ip = "Unavailable";
+                        publish();
+                    }
+
+                    private void publish() {
+                        NetInfo last = network.get();
+                        if (!last.type.equals(type) || !last.ip.equals(ip)) network.set(new NetInfo(type, ip));
+                    }
+                });
+            }
+        }
+        return network.get();
+    }
 
-            if (temp > -20 && temp < 150) {
-                sb.append(String.format(Locale.US, "Zone %d (%s): %.1f°C\n", i, type, temp));
-                foundAny = true;
+    private static NetInfo queryNetworkInfo(ConnectivityManager cm, Network activeNetwork) {
+        if (activeNetwork == null) return new NetInfo("Disconnected", "Unavailable");
+        return new NetInfo(typeOf(cm.getNetworkCapabilities(activeNetwork)),
+                ipv4Of(cm.getLinkProperties(activeNetwork)));
+    }
+
+    private static String typeOf(NetworkCapabilities caps) {
+        if (caps != null) {
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) return "Wi-Fi";
+            if (caps.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) return "Mobile Data";
+        }
+        return "Disconnected";
+    }
+
+    private static String ipv4Of(LinkProperties props) {
+        if (props != null) {
+            for (LinkAddress linkAddr : props.getLinkAddresses()) {
+                InetAddress addr = linkAddr.getAddress();
+                String s = addr.getHostAddress();
+                if (s != null && s.indexOf(':') < 0) return s;
             }
         }
-        return foundAny ? sb.toString() : "No accessible thermal sensors found.";
+        return "Unavailable";
+    }
+
+    /**
+     * Per-interface RX/TX rates from /proc/net/dev. Apps targeting Android 10+
+     * can't read /proc/net, so there the device-wide TrafficStats counters are
+     * reported as a single "total" entry instead.
+     */
+    public void getNetThroughput(NetThroughput out) {
+        if (sysfs.getNetThroughput(out)) return;
+        long now = SystemClock.elapsedRealtime();
+        long rx = TrafficStats.getTotalRxBytes();
+        long tx = TrafficStats.getTotalTxBytes();
+        out.ensureCapacity(1);
+        out.count = 1;
+        out.names[0] = "total";
+        boolean valid = trafficAt > 0 && now > trafficAt && rx >= trafficRx && tx >= trafficTx
+                && rx != TrafficStats.UNSUPPORTED;
+        out.rxRate[0] = valid ? (rx - trafficRx) * 1000.0 / (now - trafficAt) : Double.NaN;
+        out.txRate[0] = valid ? (tx - trafficTx) * 1000.0 / (now - trafficAt) : Double.NaN;
+        out.rxBytes[0] = rx;
+        out.txBytes[0] = tx;
+        trafficAt = now;
+        trafficRx = rx;
+        trafficTx = tx;
+    }
+
+    public static class StorageInfo {
+        public long total;
+        public long free;
+        public StorageInfo(long t, long f) { total = t; free = f; }
+    }
+
+    public static class CleanTargets {
+        public final List<String> packages;
+        /** How the packages were chosen, for the report. */
+        public final String basis;
+        /** True unless the packages are known to have running processes. */
+        public final boolean estimate;
+        public CleanTargets(List<String> p, String b, boolean e) { packages = p; basis = b; estimate = e; }
     }
 
-    public static class BatteryInfo {
-        public int level;
-        public float temp;
-        public BatteryInfo(int l, float t) { level = l; temp = t; }
+    public static class NetInfo {
+        public String type;
+        public String ip;
+        public NetInfo(String t, String i) { type = t; ip = i; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package com.example.sysmonitor;
+
+import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class TopActivity extends AppCompatActivity {
+
+    private static final int ROWS = 25;
+    private static final int ROW_COLOR = Color.parseColor("#FFB74D");
+
+    private LinearLayout container;
+    private TextView btnSort, btnPss;
+    private TextView textSummary;
+    private final List<TextView> rows = new ArrayList<>();
+    private Metrics metrics;
+    private PackageManager pm;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Metric.Subscription subscription;
+
+    private volatile int sortKey = ProcessTracker.BY_CPU;
+    // PSS is expensive to measure, so it is only asked for while the column is on
+    private volatile boolean showPss;
+    // The engine thread fills one buffer while the UI may still show the other.
+    private final ProcessTop[] buffers = { new ProcessTop(ROWS), new ProcessTop(ROWS) };
+    private final String[][] labels = new String[2][ROWS];
+    private int next;
+    // PSS goes through a rate-limited binder call, so it is measured here and
+    // not on the engine's thread, one batch at a time.
+    private final ExecutorService pssExecutor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean pssBusy = new AtomicBoolean();
+    // main thread only: the last batch measured, shown until the next one arrives
+    private int[] pssPids;
+    private long[] pssKb;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_top);
+
+        container = findViewById(R.id.containerTop);
+        btnSort = findViewById(R.id.btnSort);
+        btnPss = findViewById(R.id.btnPss);
+        metrics = Metrics.get(this);
+        pm = getPackageManager();
+
+        textSummary = createItem();
+        textSummary.setTextColor(Color.CYAN);
+        container.addView(textSummary);
+
+        btnSort.setOnClickListener(v -> {
+            sortKey = sortKey == ProcessTracker.BY_CPU ? ProcessTracker.BY_RSS : ProcessTracker.BY_CPU;
+            btnSort.setText(sortKey == ProcessTracker.BY_CPU ? "[ SORT: CPU ]" : "[ SORT: MEMORY ]");
+        });
+        btnPss.setOnClickListener(v -> {
+            showPss = !showPss;
+            btnPss.setText(showPss ? "[ PSS: ON ]" : "[ PSS: OFF ]");
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        metrics.frames.attach(this);
+        subscription = metrics.processes.subscribe(tracker -> {
+            int slot = next;
+            next ^= 1;
+            ProcessTop top = buffers[slot];
+            tracker.top(sortKey, top);
+            String[] names = labels[slot];
+            for (int i = 0; i < top.count; i++) {
+                String label = AppLabels.get(pm, ProcessTop.packageOf(top.names[i]));
+                names[i] = label != null ? label : top.names[i];
+            }
+            if (showPss && pssBusy.compareAndSet(false, true)) measurePss(top);
+            handler.post(() -> render(top, names));
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        pssExecutor.shutdownNow();
+    }
+
+    private void measurePss(ProcessTop top) {
+        int count = top.count;
+        int[] pids = Arrays.copyOf(top.pids, count);
+        pssExecutor.execute(() -> {
+            long[] kb = new long[count];
+            try {
+                metrics.repo.getPssCache().get(pids, count, kb);
+            } finally {
+                pssBusy.set(false);
+            }
+            handler.post(() -> {
+                pssPids = pids;
+                pssKb = kb;
+            });
+        });
+    }
+
+    /** Last measured PSS of {@code pid} in KiB, or UNKNOWN. */
+    private long pssOf(int pid) {
+        if (pssPids == null) return PssCache.UNKNOWN;
+        for (int i = 0; i < pssPids.length; i++) {
+            if (pssPids[i] == pid) return pssKb[i];
+        }
+        return PssCache.UNKNOWN;
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        metrics.frames.detach(this);
+        if (subscription != null) subscription.cancel();
+        subscription = null;
+        handler.removeCallbacksAndMessages(null);
+    }
+
+    private void render(ProcessTop top, String[] names) {
+        textSummary.setText(String.format(Locale.US, "%d processes visible", top.tracked));
+        while (rows.size() < top.count) {
+            TextView tv = createItem();
+            rows.add(tv);
+            container.addView(tv);
+        }
+        for (int i = 0; i < rows.size(); i++) {
+            TextView tv = rows.get(i);
+            if (i >= top.count) {
+                tv.setText("");
+                continue;
+            }
+            String cpu = Float.isNaN(top.cpu[i]) ? "  -- " : String.format(Locale.US, "%5.1f", top.cpu[i]);
+            String mem = String.format(Locale.US, "%7.1f MB", top.rssKb[i] / 1024f);
+            if (showPss) {
+                long pss = pssOf(top.pids[i]);
+                mem += pss == PssCache.UNKNOWN ? "      --  " : String.format(Locale.US, " %7.1f PSS", pss / 1024f);
+            }
+            tv.setText(String.format(Locale.US, "%6d %s%%  %s  %s", top.pids[i], cpu, mem, names[i]));
+        }
+    }
+
+    private TextView createItem() {
+        TextView tv = new TextView(this);
+        tv.setTextColor(ROW_COLOR);
+        tv.setTextSize(13);
+        tv.setTypeface(android.graphics.Typeface.MONOSPACE);
+        tv.setSingleLine(true);
+        tv.setPadding(0, 4, 0, 4);
+        return tv;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LabelCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void labelsSurviveARoundTrip() throws IOException {
+        File file = new File(tmp.getRoot(), "labels.tsv");
+        LabelCache cache = new LabelCache(file);
+        cache.load();
+        cache.put("org.example.mail", 100, "Mail");
+        cache.put("org.example.tabs", 200, "Tabs\tand\nnewlines");
+        cache.put("org.example.kanji", 300, "日本語");
+        cache.save();
+
+        LabelCache reloaded = new LabelCache(file);
+        reloaded.load();
+        assertEquals("Mail", reloaded.get("org.example.mail", 100));
+        assertEquals("Tabs and newlines", reloaded.get("org.example.tabs", 200));
+        assertEquals("日本語", reloaded.get("org.example.kanji", 300));
+        assertNull(reloaded.get("org.example.unknown", 100));
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void anUpdatedPackageIsAMiss() throws IOException {
+        File file = new File(tmp.getRoot(), "labels.tsv");
+        LabelCache cache = new LabelCache(file);
+        cache.put("org.example.mail", 100, "Mail");
+        cache.save();
+
+        LabelCache reloaded = new LabelCache(file);
+        reloaded.load();
+        assertNull(reloaded.get("org.example.mail", 101));
+        reloaded.put("org.example.mail", 101, "Mail 2");
+        assertEquals("Mail 2", reloaded.get("org.example.mail", 101));
+        assertNull(reloaded.get("org.example.mail", 100));
+    }
+
+    @Test
+    public void uninstalledPackagesAreDropped() throws IOException {
+        File file = new File(tmp.getRoot(), "labels.tsv");
+        LabelCache cache = new LabelCache(file);
+        cache.put("org.example.kept", 1, "Kept");
+        cache.put("org.example.gone", 1, "Gone");
+        cache.retain(Set.of("org.example.kept"));
+        cache.save();
+
+        LabelCache reloaded = new LabelCache(file);
+        reloaded.load();
+        assertEquals("Kept", reloaded.get("org.example.kept", 1));
+        assertNull(reloaded.get("org.example.gone", 1));
+    }
+
+    @Test
+    public void missingOrDamagedFilesLoadWhatTheyCan() throws IOException {
+        File file = new File(tmp.getRoot(), "labels.tsv");
+        LabelCache cache = new LabelCache(file);
+        cache.load();
+        assertNull(cache.get("org.example.mail", 100));
+
+        Files.write(file.toPath(), ("garbage\n"
+                + "org.example.bad\tnot-a-time\tBad\n"
+                + "org.example.mail\t100\tMail\n").getBytes(StandardCharsets.UTF_8));
+        cache.load();
+        assertEquals("Mail", cache.get("org.example.mail", 100));
+        assertNull(cache.get("org.example.bad", 0));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RowListTest {
+    private final List<String> ops = new ArrayList<>();
+    private final List<Integer> rows = new ArrayList<>();
+    private final RowList list = new RowList(new RowList.Binder() {
+        @Override
+        public void insert(int position, int key) {
+            rows.add(position, key);
+            ops.add("+" + key + "@" + position);
+        }
+
+        @Override
+        public void remove(int position, int key) {
+            assertEquals(Integer.valueOf(key), rows.remove(position));
+            ops.add("-" + key + "@" + position);
+        }
+
+        @Override
+        public void bind(int position, int key, int value) {
+            assertEquals(Integer.valueOf(key), rows.get(position));
+            ops.add(key + "=" + value);
+        }
+    });
+
+    @Test
+    public void firstUpdateInsertsAndBindsEveryRow() {
+        list.update(new int[]{0, 1, 2}, new int[]{300, 300, 1800}, 3);
+        assertEquals(List.of("+0@0", "0=300", "+1@1", "1=300", "+2@2", "2=1800"), ops);
+    }
+
+    @Test
+    public void unchangedValuesAreNotRebound() {
+        list.update(new int[]{0, 1}, new int[]{300, 600}, 2);
+        ops.clear();
+        list.update(new int[]{0, 1}, new int[]{300, 900}, 2);
+        list.update(new int[]{0, 1}, new int[]{300, 900}, 2);
+        assertEquals(List.of("1=900"), ops);
+    }
+
+    @Test
+    public void diffsAppearingAndDisappearingKeys() {
+        list.update(new int[]{0, 2, 5}, new int[]{1, 2, 5}, 3);
+        ops.clear();
+
+        list.update(new int[]{0, 1, 5, 7, 9}, new int[]{1, 10, 50, 7, 0}, 4);
+        assertEquals(List.of("+1@1", "1=10", "-2@2", "5=50", "+7@3", "7=7"), ops);
+        assertEquals(List.of(0, 1, 5, 7), rows);
+        assertEquals(4, list.size());
+        assertEquals(7, list.keyAt(3));
+
+        ops.clear();
+        list.update(new int[0], new int[0], 0);
+        assertEquals(List.of("-0@0", "-1@0", "-5@0", "-7@0"), ops);
+        assertTrue(rows.isEmpty());
+    }
+}
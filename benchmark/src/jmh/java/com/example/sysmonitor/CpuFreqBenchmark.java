@@ -0,0 +1,63 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 1 Hz tick worth of CPU frequency reads. Run with the gc profiler
+ * (configured in build.gradle.kts) to get gc.alloc.rate.norm, i.e. bytes per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CpuFreqBenchmark {
+
+    @Param({"8", "64", "256"})
+    public int cores;
+
+    private File dir;
+    private SysfsStats stats;
+    private int[] out;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sysfs-cpu").toFile();
+        stats = new SysfsStats(SysfsFixture.create(dir, cores, 0));
+        out = new int[cores];
+        stats.getCpuCoresFreq(out);
+    }
+
+    @TearDown
+    public void tearDown() {
+        stats.getCoreSampler().close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public long cpuFrequency() {
+        return stats.getCpuFrequency();
+    }
+
+    @Benchmark
+    public int[] coresFreq() {
+        return stats.getCpuCoresFreq();
+    }
+
+    @Benchmark
+    public int[] coresFreqInto() {
+        stats.getCpuCoresFreq(out);
+        return out;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /proc/stat utilization on synthetic files. {@code parse} measures the tokenizer
+ * alone on an in-memory buffer; {@code sample} adds the positional read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CpuLoadBenchmark {
+
+    @Param({"8", "64", "256"})
+    public int cores;
+
+    private File dir;
+    private SysfsStats stats;
+    private CpuLoadSampler parser;
+    private byte[][] bodies;
+    private int[] ends;
+    private int next;
+    private CpuLoad load;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("proc-stat").toFile();
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(cores, 100));
+        stats = new SysfsStats(FileSystemRoot.at(dir));
+        load = stats.newCpuLoad();
+        stats.getCpuLoad(load);
+
+        // alternate between two ticks so the counters change on every parse
+        parser = new CpuLoadSampler(new File(dir, "unused"));
+        bodies = new byte[2][];
+        ends = new int[2];
+        for (int i = 0; i < 2; i++) {
+            bodies[i] = SysfsFixture.procStat(cores, 100 + i).getBytes(StandardCharsets.US_ASCII);
+            ends[i] = CpuLoadSampler.cpuBlockEnd(bodies[i], bodies[i].length);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        stats.getLoadSampler().close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public CpuLoad parse() {
+        int i = next;
+        next = 1 - i;
+        parser.parse(bodies[i], ends[i], load);
+        return load;
+    }
+
+    @Benchmark
+    public CpuLoad sample() {
+        stats.getCpuLoad(load);
+        return load;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of getting the core and thermal samplers ready: {@code listing}
+ * is the serial directory walk, {@code discover} the parallel one, and
+ * {@code cached} a cold start that finds a saved profile for its build.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DiscoveryBenchmark {
+    private static final String FINGERPRINT = "bench/device:14/1:user/release-keys";
+
+    @Param({"8", "256"})
+    public int cores;
+
+    @Param({"30", "200"})
+    public int zones;
+
+    private File dir;
+    private FileSystemRoot root;
+    private File profileFile;
+    private ExecutorService pool;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sysfs-discovery").toFile();
+        root = SysfsFixture.create(dir, cores, zones);
+        pool = Executors.newFixedThreadPool(4);
+        profileFile = new File(dir, "hardware.profile");
+        HardwareProfile.discover(root, FINGERPRINT, pool, 4).save(profileFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public int listing() {
+        return ready(null);
+    }
+
+    @Benchmark
+    public int discover() {
+        return ready(HardwareProfile.discover(root, FINGERPRINT, pool, 4));
+    }
+
+    @Benchmark
+    public int cached() {
+        return ready(HardwareProfile.load(profileFile, FINGERPRINT));
+    }
+
+    private int ready(HardwareProfile profile) {
+        SysfsStats stats = new SysfsStats(root);
+        if (profile != null) stats.setProfile(profile);
+        CpuFreqSampler coreSampler = stats.getCoreSampler();
+        ThermalSampler thermalSampler = stats.getThermalSampler();
+        int n = coreSampler.coreCount() + thermalSampler.zoneCount();
+        coreSampler.close();
+        thermalSampler.close();
+        return n;
+    }
+}
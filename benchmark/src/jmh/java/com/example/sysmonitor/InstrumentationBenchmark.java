@@ -0,0 +1,54 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-read instrumentation: {@code record} is one histogram and
+ * counter update, {@code tick} a full engine pass over twelve sources that
+ * do nothing, so it is all scheduling and instrumentation. Compare against
+ * the collectors' own benchmarks; the budget is 1% of a tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InstrumentationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean countAllocations;
+
+    private final SourceStats stats = new SourceStats();
+    private SamplingEngine engine;
+    private long now;
+    private long nanos;
+
+    @Setup
+    public void setUp() {
+        engine = new SamplingEngine(() -> now);
+        if (countAllocations) engine.setAllocations(SamplingEngine.Allocations.hotSpot());
+        for (int i = 0; i < 12; i++) {
+            Integer value = i;
+            engine.register("m" + i, SamplingPolicy.fixed(1000), () -> value).subscribe(v -> {});
+        }
+    }
+
+    @Benchmark
+    public SourceStats record() {
+        stats.record(nanos = (nanos + 7919) & 0xFFFFFF, false, false, -1);
+        return stats;
+    }
+
+    @Benchmark
+    public long tick() {
+        now += 1000;
+        return engine.runDue(now);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /proc/meminfo: {@code parse} is the hashed key lookup over a full 5.10
+ * file, {@code parseSplit} the line-by-line String splitting it replaces,
+ * and {@code sample} adds the positional read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MemInfoBenchmark {
+
+    private File dir;
+    private SysfsStats stats;
+    private byte[] body;
+    private String text;
+    private final MemInfo out = new MemInfo();
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("proc-meminfo").toFile();
+        String meminfo = SysfsFixture.meminfo(3_000_000);
+        SysfsFixture.write(new File(dir, SysfsStats.PROC_MEMINFO.substring(1)), meminfo);
+        stats = new SysfsStats(FileSystemRoot.at(dir));
+        body = meminfo.getBytes(StandardCharsets.US_ASCII);
+        text = meminfo;
+    }
+
+    @TearDown
+    public void tearDown() {
+        stats.getMemSampler().close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public MemInfo parse() {
+        MemInfoSampler.parse(body, body.length, out);
+        return out;
+    }
+
+    @Benchmark
+    public MemInfo parseSplit() {
+        out.clear();
+        for (String line : text.split("\n")) {
+            String[] parts = line.split(":\\s+");
+            if (parts.length < 2) continue;
+            for (int f = 0; f < MemInfo.KEYS.length; f++) {
+                if (MemInfo.KEYS[f].equals(parts[0])) {
+                    out.kb[f] = Long.parseLong(parts[1].split(" ")[0]);
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public MemInfo sample() {
+        stats.getMemInfo(out);
+        return out;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /proc/net/dev throughput on synthetic files: {@code parse} is the tokenizer
+ * and interface matching alone, {@code sample} adds the positional read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NetDevBenchmark {
+
+    @Param({"8", "32"})
+    public int interfaces;
+
+    private File dir;
+    private SysfsStats stats;
+    private NetDevSampler parser;
+    private byte[][] bodies;
+    private final NetThroughput out = new NetThroughput();
+    private int next;
+    private long now;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("proc-net").toFile();
+        SysfsFixture.write(new File(dir, SysfsStats.PROC_NET_DEV.substring(1)), SysfsFixture.netDev(interfaces, 1));
+        stats = new SysfsStats(FileSystemRoot.at(dir));
+        stats.getNetThroughput(out);
+
+        parser = new NetDevSampler(new File(dir, "unused"), () -> now += 1000);
+        bodies = new byte[2][];
+        for (int i = 0; i < 2; i++) {
+            bodies[i] = SysfsFixture.netDev(interfaces, 1 + i).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        stats.getNetSampler().close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public NetThroughput parse() {
+        int i = next;
+        next = 1 - i;
+        parser.parse(bodies[i], bodies[i].length, now += 1000, out);
+        return out;
+    }
+
+    @Benchmark
+    public NetThroughput sample() {
+        stats.getNetThroughput(out);
+        return out;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One refresh of the process tracker over a synthetic /proc. {@code refresh}
+ * includes the periodic /proc listing (every 5th call); {@code top} is the
+ * bounded-heap selection alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProcessTrackerBenchmark {
+
+    @Param({"200", "1000"})
+    public int pids;
+
+    private File dir;
+    private ProcessTracker tracker;
+    private final ProcessTop top = new ProcessTop(25);
+    private long now;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("proc").toFile();
+        for (int pid = 1; pid <= pids; pid++) {
+            SysfsFixture.writeProcess(dir, pid, "com.example.app" + pid, pid * 7L, pid * 3L, pid, pid * 11L);
+        }
+        tracker = new ProcessTracker(new File(dir, "proc"), () -> now += 1000, 4, 5,
+                ProcessTracker.DEFAULT_MAX_OPEN);
+        tracker.refresh();
+        tracker.refresh();
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracker.close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public int refresh() {
+        tracker.refresh();
+        return tracker.processCount();
+    }
+
+    @Benchmark
+    public ProcessTop top() {
+        tracker.top(ProcessTracker.BY_RSS, top);
+        return top;
+    }
+}
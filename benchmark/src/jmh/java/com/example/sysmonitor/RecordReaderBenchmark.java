@@ -0,0 +1,76 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MetricRecordReader#scan} over a day of 1 Hz rows written by
+ * {@link MetricRecorder}. A quarter of the series are constant, a quarter are
+ * counters, a quarter move in whole steps (frequencies, levels) and the rest
+ * are noisy readings, roughly the mix of the app's own columns; about 43 MB
+ * of segments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RecordReaderBenchmark {
+    static final int ROWS = 86_400;
+
+    @Param({"256"})
+    public int series;
+
+    private File dir;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recordings").toFile();
+        Random random = new Random(42);
+        float[] row = new float[series];
+        try (MetricRecorder recorder = new MetricRecorder(dir, series, 16 << 20, 1024)) {
+            for (int r = 0; r < ROWS; r++) {
+                for (int s = 0; s < series; s++) {
+                    switch (s % 4) {
+                        case 0:
+                            row[s] = s;
+                            break;
+                        case 1:
+                            row[s] += random.nextInt(100);
+                            break;
+                        case 2:
+                            if (random.nextInt(10) == 0) row[s] = 300 + random.nextInt(20) * 100;
+                            break;
+                        default:
+                            row[s] = 40 + random.nextFloat();
+                    }
+                }
+                recorder.append(1_700_000_000_000L + r * 1000L + random.nextInt(3), row);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public long scan() throws IOException {
+        float[] sum = new float[1];
+        long records = MetricRecordReader.scan(dir, (t, v) -> sum[0] += v[v.length - 1]);
+        if (records != ROWS) throw new AssertionError(records + " records");
+        return records + (long) sum[0];
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link MetricStreamServer} over a loopback socket with a reader thread
+ * decoding everything it receives. {@code roundTrip} publishes
+ * {@value #ROWS} rows and waits until the reader has seen or been told it
+ * missed each one, so it measures the time per delivered row including
+ * coalescing; {@code publish} is the cost paid on the sampling thread alone;
+ * {@code decode} is the reference decoder on frames already in memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StreamBenchmark {
+    static final int ROWS = 1000;
+
+    @Param({"16", "128"})
+    public int columns;
+
+    private MetricStreamServer server;
+    private SocketChannel socket;
+    private Thread reader;
+    private final AtomicLong accounted = new AtomicLong();
+    private long published;
+    private float[] row;
+    private byte[] frames;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        String[] names = new String[columns];
+        for (int i = 0; i < columns; i++) names[i] = "metric." + i;
+        row = new float[columns];
+        for (int i = 0; i < columns; i++) row[i] = i * 1.5f;
+
+        server = new MetricStreamServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                names, 256, 0);
+        socket = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        MetricStreamDecoder decoder = new MetricStreamDecoder(socket);
+        decoder.readSchema();
+        while (server.getClientCount() == 0) Thread.sleep(1);
+        reader = new Thread(() -> {
+            try {
+                while (decoder.next((rows, times, values, dropped) -> accounted.addAndGet(rows + dropped))) {
+                    // counting is all this reader does
+                }
+            } catch (IOException e) {
+                // socket closed by tearDown
+            }
+        }, "StreamReader");
+        reader.start();
+
+        byte[][] encoded = StreamCodec.encodeNames(names);
+        ByteBuffer buf = ByteBuffer.allocate(StreamCodec.schemaBytes(encoded) + ROWS * StreamCodec.batchBytes(1, columns));
+        StreamCodec.putSchema(buf, encoded);
+        long[] times = {0};
+        for (int i = 0; i < ROWS; i++) {
+            times[0] = i;
+            StreamCodec.putBatch(buf, times, row, 0, 1, 1, columns, 0);
+        }
+        frames = buf.array();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        socket.close();
+        server.close();
+        reader.join(1000);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long roundTrip() {
+        for (int i = 0; i < ROWS; i++) server.publish(++published, row);
+        while (accounted.get() < published) Thread.onSpinWait();
+        return published;
+    }
+
+    @Benchmark
+    public long publish() {
+        server.publish(++published, row);
+        return published;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long decode() throws IOException {
+        MetricStreamDecoder decoder = new MetricStreamDecoder(Channels.newChannel(new ByteArrayInputStream(frames)));
+        long[] sum = new long[1];
+        while (decoder.next((rows, times, values, dropped) -> sum[0] += rows)) {
+            // whole buffer
+        }
+        return sum[0];
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThermalBenchmark {
+
+    @Param({"30", "200"})
+    public int zones;
+
+    private File dir;
+    private SysfsStats stats;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("sysfs-thermal").toFile();
+        stats = new SysfsStats(SysfsFixture.create(dir, 1, zones));
+        stats.getThermalSnapshot();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stats.getThermalSampler().close();
+        SysfsFixture.delete(dir);
+    }
+
+    @Benchmark
+    public ThermalSnapshot thermalSnapshot() {
+        return stats.getThermalSnapshot();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.sysmonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link ThrottleDetector} tick on steady caps and warm zones, the case
+ * that runs every second; it should not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ThrottleBenchmark {
+
+    @Param({"30", "200"})
+    public int zones;
+
+    private ThrottleDetector detector;
+    private ThermalSnapshot thermal;
+    private final int[] caps = {1800000, 2400000, 3000000};
+    private long now;
+
+    @Setup
+    public void setUp() {
+        int[] ids = new int[zones];
+        String[] names = new String[zones];
+        float[] trips = new float[zones];
+        for (int i = 0; i < zones; i++) {
+            ids[i] = i;
+            names[i] = SysfsFixture.zoneType(i);
+            trips[i] = i % 2 == 0 ? 85f : Float.NaN;
+        }
+        thermal = new ThermalSnapshot(ids, names);
+        for (int i = 0; i < zones; i++) thermal.temps[i] = 30 + (i % 40) * 0.5f;
+        int[] maxKhz = caps.clone();
+        detector = new ThrottleDetector(new String[]{"0-3", "4-6", "7"}, maxKhz, trips, 10_000, 32);
+        Arrays.fill(thermal.temps, zones / 2, zones, 60f);
+    }
+
+    @Benchmark
+    public ThrottleDetector update() {
+        detector.update(now += 1000, caps, thermal);
+        return detector;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.sysmonitor;
+
+/**
+ * Immutable battery reading built from one ACTION_BATTERY_CHANGED broadcast.
+ * A new instance is published per broadcast, so a reader holding one always
+ * sees fields that belong together.
+ */
+public final class BatteryState {
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    public final long timeMs;
+    /** Percent, 0..100. */
+    public final int level;
+    public final float temperature;
+    public final int voltageMv;
+    /** Instantaneous current in microamperes, positive while charging; {@link #UNKNOWN} if not reported. */
+    public final int currentUa;
+    public final boolean charging;
+    /** Raw BatteryManager status and health codes. */
+    public final int status;
+    public final int health;
+    /**
+     * Level change in percent per hour over the recent part of the current
+     * charging or discharging session; NaN until the level has moved twice.
+     */
+    public final float ratePerHour;
+
+    public BatteryState(long timeMs, int level, float temperature, int voltageMv, int currentUa,
+                        boolean charging, int status, int health, float ratePerHour) {
+        this.timeMs = timeMs;
+        this.level = level;
+        this.temperature = temperature;
+        this.voltageMv = voltageMv;
+        this.currentUa = currentUa;
+        this.charging = charging;
+        this.status = status;
+        this.health = health;
+        this.ratePerHour = ratePerHour;
+    }
+}
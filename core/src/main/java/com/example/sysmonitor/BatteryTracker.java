@@ -0,0 +1,83 @@
+package com.example.sysmonitor;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Turns the stream of battery broadcasts into {@link BatteryState} snapshots.
+ * There is a single writer (the receiver); readers on any thread get the latest
+ * snapshot through one volatile read and never block it.
+ *
+ * The charge/discharge rate comes from the moments the level actually changed:
+ * the reading that opens a session may have sat at its level for a while, so it
+ * only counts as a baseline once the level has moved past it.
+ */
+public final class BatteryTracker {
+    public static final long DEFAULT_WINDOW_MS = 30 * 60_000L;
+
+    private final AtomicReference<BatteryState> current = new AtomicReference<>();
+    private final long windowMs;
+
+    // level changes of the current session, oldest first (ring)
+    private final long[] times;
+    private final int[] levels;
+    private int head;
+    private int size;
+    private boolean sessionCharging;
+    private int lastLevel = BatteryState.UNKNOWN;
+
+    public BatteryTracker() {
+        this(DEFAULT_WINDOW_MS, 64);
+    }
+
+    public BatteryTracker(long windowMs, int capacity) {
+        this.windowMs = windowMs;
+        times = new long[capacity];
+        levels = new int[capacity];
+    }
+
+    /** Latest snapshot, or null before the first broadcast. */
+    public BatteryState get() {
+        return current.get();
+    }
+
+    /** Called by the single writer for every broadcast. */
+    public BatteryState update(long timeMs, int level, float temperature, int voltageMv, int currentUa,
+                               boolean charging, int status, int health) {
+        if (lastLevel == BatteryState.UNKNOWN || charging != sessionCharging) {
+            // new session: the rate of the previous one says nothing about this one
+            size = 0;
+            sessionCharging = charging;
+            lastLevel = level;
+        } else if (level != lastLevel) {
+            push(timeMs, level);
+            lastLevel = level;
+        }
+
+        BatteryState state = new BatteryState(timeMs, level, temperature, voltageMv, currentUa,
+                charging, status, health, rate(timeMs));
+        current.set(state);
+        return state;
+    }
+
+    private void push(long timeMs, int level) {
+        int at = (head + size) % times.length;
+        times[at] = timeMs;
+        levels[at] = level;
+        if (size < times.length) size++;
+        else head = (head + 1) % times.length;
+    }
+
+    private float rate(long now) {
+        if (size < 2) return Float.NaN;
+        int newest = (head + size - 1) % times.length;
+        // oldest change still inside the window, but keep at least two points
+        int oldest = head;
+        for (int k = 0; k < size - 2; k++) {
+            if (now - times[oldest] <= windowMs) break;
+            oldest = (oldest + 1) % times.length;
+        }
+        long dt = times[newest] - times[oldest];
+        if (dt <= 0) return Float.NaN;
+        return (levels[newest] - levels[oldest]) * 3_600_000f / dt;
+    }
+}
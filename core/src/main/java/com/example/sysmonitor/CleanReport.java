@@ -0,0 +1,53 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Outcome of one {@link ProcessCleaner} run. Arrays are indexed by the order in
+ * which packages were handed to the cleaner; {@code killNanos} is the wall time
+ * of each kill call, so slow targets stand out.
+ */
+public final class CleanReport {
+    public final String[] packages;
+    public final long[] killNanos;
+    public final boolean[] failed;
+    /** availMem before the first kill and after the settling window, in bytes. */
+    public final long availBefore;
+    public final long availAfter;
+    /** Number of availMem samples taken while waiting for memory to settle. */
+    public final int settleSamples;
+    public final long elapsedNanos;
+
+    CleanReport(String[] packages, long[] killNanos, boolean[] failed, long availBefore,
+                long availAfter, int settleSamples, long elapsedNanos) {
+        this.packages = packages;
+        this.killNanos = killNanos;
+        this.failed = failed;
+        this.availBefore = availBefore;
+        this.availAfter = availAfter;
+        this.settleSamples = settleSamples;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /** Memory that became available, never negative. */
+    public long reclaimedBytes() {
+        return Math.max(0, availAfter - availBefore);
+    }
+
+    public int killed() {
+        int n = 0;
+        for (boolean f : failed) if (!f) n++;
+        return n;
+    }
+
+    /** Indices of the {@code n} slowest kills, slowest first. */
+    public int[] slowest(int n) {
+        Integer[] order = new Integer[packages.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> killNanos[i]).reversed());
+        int[] out = new int[Math.min(n, order.length)];
+        for (int i = 0; i < out.length; i++) out[i] = order[i];
+        return out;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Samples scaling_cur_freq of every present core. Cores are discovered once and
+ * each node stays open, so a steady-state {@link #sample(int[])} allocates nothing.
+ */
+public final class CpuFreqSampler implements Closeable {
+    public static final int OFFLINE = -1;
+
+    private final int[] coreIds;
+    private final SysfsNode[] nodes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+
+    /** @param cpuDir usually /sys/devices/system/cpu */
+    public CpuFreqSampler(File cpuDir) {
+        this(cpuDir, listCores(cpuDir));
+    }
+
+    /** Samples cores already known from a {@link HardwareProfile}. */
+    public CpuFreqSampler(File cpuDir, int[] coreIds) {
+        this.coreIds = coreIds.clone();
+        nodes = new SysfsNode[coreIds.length];
+        for (int i = 0; i < coreIds.length; i++) {
+            File dir = new File(cpuDir, "cpu" + coreIds[i]);
+            nodes[i] = new SysfsNode(new File(dir, "cpufreq/scaling_cur_freq"));
+            nodes[i].open();
+        }
+    }
+
+    public int coreCount() {
+        return coreIds.length;
+    }
+
+    public int coreId(int index) {
+        return coreIds[index];
+    }
+
+    /**
+     * Fills {@code out} with the current frequency of each core in kHz, or
+     * {@link #OFFLINE} for cores whose node can't be read right now.
+     *
+     * @return number of entries written
+     */
+    public synchronized int sample(int[] out) {
+        int n = Math.min(out.length, nodes.length);
+        for (int i = 0; i < n; i++) {
+            long v = nodes[i].readLong(buffer);
+            out[i] = v == SysfsNode.NO_VALUE ? OFFLINE : (int) v;
+        }
+        return n;
+    }
+
+    /** Largest per-core move in kHz; infinite if the core count changed. */
+    public static double maxDelta(int[] a, int[] b) {
+        if (a.length != b.length) return Double.POSITIVE_INFINITY;
+        int max = 0;
+        for (int i = 0; i < a.length; i++) max = Math.max(max, Math.abs(a[i] - b[i]));
+        return max;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SysfsNode node : nodes) node.close();
+    }
+
+    static int[] listCores(File cpuDir) {
+        String[] names = cpuDir.list();
+        if (names == null) return new int[0];
+
+        int[] ids = new int[names.length];
+        int count = 0;
+        for (String name : names) {
+            int id = SysfsNode.parseIndex(name, "cpu");
+            if (id >= 0) ids[count++] = id;
+        }
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+}
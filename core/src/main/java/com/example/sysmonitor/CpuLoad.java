@@ -0,0 +1,84 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * CPU time split over the last sampling interval, in percent, for the aggregate
+ * "cpu" line and for every core id seen so far. Cores that are offline, just
+ * came online or have no previous sample read as NaN. Steal time counts toward
+ * the total only, so the five fields can add up to less than 100.
+ */
+public final class CpuLoad {
+    public static final int USER = 0;    // user + nice
+    public static final int SYSTEM = 1;
+    public static final int IOWAIT = 2;
+    public static final int IRQ = 3;     // irq + softirq
+    public static final int IDLE = 4;
+    static final int FIELDS = 5;
+
+    /** Slot 0 holds the aggregate, slot id + 1 core id. */
+    float[] percent;
+    int cpuCount;
+
+    public CpuLoad() {
+        this(0);
+    }
+
+    CpuLoad(int cpuCount) {
+        percent = new float[(cpuCount + 1) * FIELDS];
+        Arrays.fill(percent, Float.NaN);
+        this.cpuCount = cpuCount;
+    }
+
+    /** One past the highest core id; ids below it may still be offline. */
+    public int cpuCount() {
+        return cpuCount;
+    }
+
+    /** @param cpu core id, or -1 for the aggregate of all online cores */
+    public float get(int cpu, int field) {
+        if (cpu >= cpuCount) return Float.NaN;
+        return percent[(cpu + 1) * FIELDS + field];
+    }
+
+    public boolean isValid(int cpu) {
+        return !Float.isNaN(get(cpu, IDLE));
+    }
+
+    /** Share of time not idle and not waiting for I/O. */
+    public float busy(int cpu) {
+        return 100f - get(cpu, IDLE) - get(cpu, IOWAIT);
+    }
+
+    void ensureCapacity(int cpus) {
+        if (cpus <= cpuCount) return;
+        int size = (cpus + 1) * FIELDS;
+        if (size > percent.length) {
+            int old = percent.length;
+            percent = Arrays.copyOf(percent, Math.max(size, old * 2));
+            Arrays.fill(percent, old, percent.length, Float.NaN);
+        }
+        cpuCount = cpus;
+    }
+
+    public void copyFrom(CpuLoad other) {
+        ensureCapacity(other.cpuCount);
+        System.arraycopy(other.percent, 0, percent, 0, (other.cpuCount + 1) * FIELDS);
+        if (other.cpuCount < cpuCount) {
+            Arrays.fill(percent, (other.cpuCount + 1) * FIELDS, (cpuCount + 1) * FIELDS, Float.NaN);
+        }
+        cpuCount = other.cpuCount;
+    }
+
+    /** Largest move of any busy percentage; infinite if the set of valid cores changed. */
+    public static double maxDelta(CpuLoad a, CpuLoad b) {
+        int n = Math.max(a.cpuCount, b.cpuCount);
+        double max = 0;
+        for (int cpu = -1; cpu < n; cpu++) {
+            boolean va = a.isValid(cpu);
+            if (va != b.isValid(cpu)) return Double.POSITIVE_INFINITY;
+            if (va) max = Math.max(max, Math.abs(a.busy(cpu) - b.busy(cpu)));
+        }
+        return max;
+    }
+}
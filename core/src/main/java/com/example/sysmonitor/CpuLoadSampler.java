@@ -0,0 +1,172 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * CPU utilization from consecutive /proc/stat samples. The file stays open and
+ * is read from offset 0 into one reused heap buffer (tokenizing a byte[] is
+ * cheaper than per-byte ByteBuffer.get on a direct one); the cpu lines are
+ * parsed straight from the bytes, so a steady-state {@link #sample(CpuLoad)} allocates
+ * nothing. Offline cores are simply missing from /proc/stat: they read as NaN,
+ * and a core that comes back needs one more sample before it has a value.
+ */
+public final class CpuLoadSampler implements Closeable {
+    // user nice system idle iowait irq softirq steal; guest time is already in user
+    static final int COUNTERS = 8;
+    private static final int INITIAL_BUFFER = 8 * 1024;
+
+    private final SysfsNode node;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER);
+    private final long[] current = new long[COUNTERS];
+    private final long[] delta = new long[COUNTERS];
+    // per slot (0 = aggregate, id + 1 = core id): last counters and whether they are usable
+    private long[] previous = new long[0];
+    private boolean[] hasPrevious = new boolean[0];
+    private boolean[] seen = new boolean[0];
+    private int cpuCount;
+
+    /** @param procStat usually /proc/stat */
+    public CpuLoadSampler(File procStat) {
+        node = new SysfsNode(procStat);
+        node.open();
+    }
+
+    public boolean isAvailable() {
+        return node.isOpen();
+    }
+
+    public CpuLoad newSnapshot() {
+        return new CpuLoad(cpuCount);
+    }
+
+    /**
+     * Fills {@code out} with the split since the previous call. Returns false,
+     * leaving {@code out} untouched, if /proc/stat can't be read (it is denied to
+     * apps by SELinux on many Android 8+ builds).
+     */
+    public synchronized boolean sample(CpuLoad out) {
+        int n = node.read(buffer);
+        if (n < 0) return false;
+        int end = cpuBlockEnd(buffer.array(), n);
+        while (end < 0) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            n = node.read(buffer);
+            if (n < 0) return false;
+            end = cpuBlockEnd(buffer.array(), n);
+        }
+        parse(buffer.array(), end, out);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        node.close();
+    }
+
+    /**
+     * End of the leading cpu lines in the first {@code n} bytes, or -1 if the
+     * buffer filled up before they ended.
+     */
+    static int cpuBlockEnd(byte[] buf, int n) {
+        int i = 0;
+        while (i < n) {
+            if (!startsWithCpu(buf, i, n)) return i;
+            while (i < n && buf[i] != '\n') i++;
+            i++;
+        }
+        return n < buf.length ? n : -1;
+    }
+
+    /** Consumes the cpu lines in {@code [0, end)} and writes percentages to {@code out}. */
+    void parse(byte[] buf, int end, CpuLoad out) {
+        Arrays.fill(seen, false);
+        int i = 0;
+        while (i < end && startsWithCpu(buf, i, end)) {
+            i += 3;
+            int slot = 0;
+            if (i < end && buf[i] != ' ') {
+                int id = 0;
+                byte b;
+                while (i < end && (b = buf[i]) >= '0' && b <= '9') {
+                    id = id * 10 + (b - '0');
+                    i++;
+                }
+                slot = id + 1;
+            }
+
+            int count = 0;
+            while (i < end && buf[i] != '\n') {
+                byte b = buf[i];
+                if (b < '0' || b > '9') {
+                    i++;
+                    continue;
+                }
+                long v = 0;
+                while (i < end && (b = buf[i]) >= '0' && b <= '9') {
+                    v = v * 10 + (b - '0');
+                    i++;
+                }
+                if (count < COUNTERS) current[count++] = v;
+            }
+            i++;
+            while (count < COUNTERS) current[count++] = 0;
+
+            ensureSlots(slot + 1);
+            out.ensureCapacity(cpuCount);
+            update(slot, out.percent);
+        }
+
+        // cores missing from this sample went offline
+        out.ensureCapacity(cpuCount);
+        for (int slot = 0; slot <= cpuCount; slot++) {
+            if (slot < seen.length && seen[slot]) continue;
+            if (slot < hasPrevious.length) hasPrevious[slot] = false;
+            Arrays.fill(out.percent, slot * CpuLoad.FIELDS, (slot + 1) * CpuLoad.FIELDS, Float.NaN);
+        }
+    }
+
+    /** Diffs {@link #current} against the slot's previous counters into {@code percent}. */
+    private void update(int slot, float[] percent) {
+        seen[slot] = true;
+        int base = slot * COUNTERS;
+        long total = 0;
+        boolean backwards = false;
+        for (int k = 0; k < COUNTERS; k++) {
+            delta[k] = current[k] - previous[base + k];
+            if (delta[k] < 0) backwards = true;
+            total += delta[k];
+            previous[base + k] = current[k];
+        }
+
+        int at = slot * CpuLoad.FIELDS;
+        if (!hasPrevious[slot] || backwards || total <= 0) {
+            // first sample since the core appeared, counters reset, or no time passed
+            Arrays.fill(percent, at, at + CpuLoad.FIELDS, Float.NaN);
+        } else {
+            float scale = 100f / total;
+            percent[at + CpuLoad.USER] = (delta[0] + delta[1]) * scale;
+            percent[at + CpuLoad.SYSTEM] = delta[2] * scale;
+            percent[at + CpuLoad.IDLE] = delta[3] * scale;
+            percent[at + CpuLoad.IOWAIT] = delta[4] * scale;
+            percent[at + CpuLoad.IRQ] = (delta[5] + delta[6]) * scale;
+        }
+        hasPrevious[slot] = true;
+    }
+
+    private void ensureSlots(int slots) {
+        if (slots > seen.length) {
+            int size = Math.max(slots, seen.length * 2);
+            previous = Arrays.copyOf(previous, size * COUNTERS);
+            hasPrevious = Arrays.copyOf(hasPrevious, size);
+            seen = Arrays.copyOf(seen, size);
+        }
+        cpuCount = Math.max(cpuCount, slots - 1);
+    }
+
+    private static boolean startsWithCpu(byte[] buf, int i, int end) {
+        return i + 3 <= end && buf[i] == 'c' && buf[i + 1] == 'p' && buf[i + 2] == 'u';
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Frequency caps per cpufreq policy, i.e. per cluster of cores that share a
+ * clock. Policies and their cores are found once under cpufreq/policyN, or
+ * from each core's related_cpus on kernels without policy directories; only
+ * scaling_max_freq stays open and is re-read per tick.
+ */
+public final class CpuPolicySampler implements Closeable {
+    public static final int UNKNOWN = -1;
+
+    private final int[] policyIds;
+    private final int[][] cpus;
+    private final int[] hardwareMaxKhz;
+    private final SysfsNode[] capNodes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+
+    /** @param cpuDir usually /sys/devices/system/cpu */
+    public CpuPolicySampler(File cpuDir) {
+        File[] dirs = listPolicyDirs(cpuDir);
+        int n = dirs.length;
+        policyIds = new int[n];
+        cpus = new int[n][];
+        hardwareMaxKhz = new int[n];
+        capNodes = new SysfsNode[n];
+        for (int i = 0; i < n; i++) {
+            int[] related = parseCpuList(SysfsNode.readText(new File(dirs[i], "related_cpus")));
+            cpus[i] = related;
+            policyIds[i] = related.length > 0 ? related[0] : i;
+            hardwareMaxKhz[i] = readInt(new File(dirs[i], "cpuinfo_max_freq"));
+            capNodes[i] = new SysfsNode(new File(dirs[i], "scaling_max_freq"));
+            capNodes[i].open();
+        }
+    }
+
+    public int policyCount() {
+        return policyIds.length;
+    }
+
+    /** N of policyN, which is the first core of the policy. */
+    public int policyId(int index) {
+        return policyIds[index];
+    }
+
+    /** Cores sharing the policy's clock, ascending. */
+    public int[] cpus(int index) {
+        return cpus[index].clone();
+    }
+
+    /** The fastest the hardware can run, in kHz, or {@link #UNKNOWN}. */
+    public int hardwareMaxKhz(int index) {
+        return hardwareMaxKhz[index];
+    }
+
+    /** "4-7" for a contiguous range, otherwise the cores joined with commas. */
+    public String label(int index) {
+        int[] c = cpus[index];
+        if (c.length == 0) return "?";
+        boolean contiguous = c[c.length - 1] - c[0] == c.length - 1;
+        if (contiguous) return c.length == 1 ? String.valueOf(c[0]) : c[0] + "-" + c[c.length - 1];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < c.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(c[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fills {@code outKhz} with each policy's scaling_max_freq, or
+     * {@link #UNKNOWN} where it can't be read right now.
+     *
+     * @return number of entries written
+     */
+    public synchronized int sample(int[] outKhz) {
+        int n = Math.min(outKhz.length, capNodes.length);
+        for (int i = 0; i < n; i++) {
+            long v = capNodes[i].readLong(buffer);
+            outKhz[i] = v == SysfsNode.NO_VALUE || v <= 0 ? UNKNOWN : (int) v;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SysfsNode node : capNodes) node.close();
+    }
+
+    /** policyN directories in id order, or one cpufreq directory per cluster on older kernels. */
+    static File[] listPolicyDirs(File cpuDir) {
+        File cpufreq = new File(cpuDir, "cpufreq");
+        String[] names = cpufreq.list();
+        int[] ids = new int[names == null ? 0 : names.length];
+        int count = 0;
+        if (names != null) {
+            for (String name : names) {
+                int id = SysfsNode.parseIndex(name, "policy");
+                if (id >= 0) ids[count++] = id;
+            }
+        }
+        if (count > 0) {
+            ids = Arrays.copyOf(ids, count);
+            Arrays.sort(ids);
+            File[] dirs = new File[count];
+            for (int i = 0; i < count; i++) dirs[i] = new File(cpufreq, "policy" + ids[i]);
+            return dirs;
+        }
+
+        // one entry per cluster: the core that comes first in its related_cpus
+        int[] cores = CpuFreqSampler.listCores(cpuDir);
+        File[] dirs = new File[cores.length];
+        for (int core : cores) {
+            File dir = new File(cpuDir, "cpu" + core + "/cpufreq");
+            int[] related = parseCpuList(SysfsNode.readText(new File(dir, "related_cpus")));
+            if (related.length > 0 ? related[0] == core : dir.isDirectory()) dirs[count++] = dir;
+        }
+        return Arrays.copyOf(dirs, count);
+    }
+
+    /** Parses "0 1 2 3" as written by related_cpus, also accepting "0-3" ranges. */
+    static int[] parseCpuList(String text) {
+        if (text == null || text.isEmpty()) return new int[0];
+        int[] out = new int[8];
+        int count = 0;
+        for (String part : text.split("[\\s,]+")) {
+            if (part.isEmpty()) continue;
+            int dash = part.indexOf('-');
+            try {
+                int from = Integer.parseInt(dash < 0 ? part : part.substring(0, dash));
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1));
+                for (int c = from; c <= to; c++) {
+                    if (count == out.length) out = Arrays.copyOf(out, count * 2);
+                    out[count++] = c;
+                }
+            } catch (NumberFormatException e) {
+                // not a cpu number, skip it
+            }
+        }
+        out = Arrays.copyOf(out, count);
+        Arrays.sort(out);
+        return out;
+    }
+
+    private static int readInt(File file) {
+        String text = SysfsNode.readText(file);
+        if (text == null) return UNKNOWN;
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+}
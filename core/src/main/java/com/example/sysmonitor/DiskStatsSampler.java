@@ -0,0 +1,253 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Throughput, IOPS and request latency per disk from /proc/diskstats. Works
+ * like {@link NetDevSampler}: the file stays open, is re-read into one buffer
+ * and device names are matched as bytes, so steady ticks allocate nothing.
+ *
+ * Partitions and virtual devices (zram, loop, dm-*, ...) are left out; their
+ * requests are already counted on the disk underneath, or never reach one.
+ * Each new name is classified once, from /sys/block when it can be listed and
+ * from the kernel's naming schemes when it can't.
+ */
+public final class DiskStatsSampler implements Closeable {
+    private static final int INITIAL_BUFFER = 4 * 1024;
+    private static final int SECTOR_BYTES = 512;
+    private static final String[] VIRTUAL_PREFIXES = {"loop", "ram", "zram", "dm-", "md", "nbd"};
+
+    private final SysfsNode node;
+    private final File sysBlock;
+    private final SamplingEngine.Clock clock;
+    private final boolean sysBlockListable;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER);
+    private final long[] fields = new long[11];
+
+    // every device seen so far, in order of first appearance
+    private int known;
+    private byte[][] nameBytes = new byte[16][];
+    private String[] names = new String[16];
+    private boolean[] disk = new boolean[16];
+    private long[] reads = new long[16];
+    private long[] sectorsRead = new long[16];
+    private long[] writes = new long[16];
+    private long[] sectorsWritten = new long[16];
+    private long[] ioMs = new long[16];
+    private long[] busyMs = new long[16];
+    private long[] at = new long[16];
+    private boolean[] hasPrevious = new boolean[16];
+    private boolean[] present = new boolean[16];
+
+    /**
+     * @param diskstats usually /proc/diskstats
+     * @param sysBlock  usually /sys/block, one entry per whole disk
+     */
+    public DiskStatsSampler(File diskstats, File sysBlock, SamplingEngine.Clock clock) {
+        this.node = new SysfsNode(diskstats);
+        this.sysBlock = sysBlock;
+        this.clock = clock;
+        String[] entries = sysBlock.list();
+        sysBlockListable = entries != null && entries.length > 0;
+        node.open();
+    }
+
+    public boolean isAvailable() {
+        return node.isOpen();
+    }
+
+    /** Fills {@code out} with the disks listed right now; false if the file can't be read. */
+    public synchronized boolean sample(DiskThroughput out) {
+        int n = node.read(buffer);
+        while (n == buffer.capacity()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            n = node.read(buffer);
+        }
+        if (n < 0) return false;
+        parse(buffer.array(), n, clock.now(), out);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        node.close();
+    }
+
+    void parse(byte[] buf, int n, long now, DiskThroughput out) {
+        Arrays.fill(present, false);
+        out.count = 0;
+        int i = 0;
+        int hint = 0;
+        while (i < n) {
+            // major minor name: skip the two numbers
+            i = skipField(buf, skipField(buf, i, n), n);
+            while (i < n && buf[i] == ' ') i++;
+            int nameStart = i;
+            while (i < n && buf[i] != ' ' && buf[i] != '\n') i++;
+            if (i == nameStart || i >= n || buf[i] == '\n') {
+                i = skipLine(buf, i, n);
+                continue;
+            }
+            int dev = find(buf, nameStart, i, hint);
+            if (dev < 0) dev = add(buf, nameStart, i);
+            hint = dev + 1;
+            if (!disk[dev]) {
+                i = skipLine(buf, i, n);
+                continue;
+            }
+
+            // reads merged sectors ms, writes merged sectors ms, in-flight, io_ms, weighted; newer kernels add more
+            int field = 0;
+            while (i < n && buf[i] != '\n') {
+                byte b = buf[i];
+                if (b < '0' || b > '9') {
+                    i++;
+                    continue;
+                }
+                long v = 0;
+                while (i < n && (b = buf[i]) >= '0' && b <= '9') {
+                    v = v * 10 + (b - '0');
+                    i++;
+                }
+                if (field < fields.length) fields[field] = v;
+                field++;
+            }
+            i++;
+            if (field < 10) continue;
+            update(dev, now, out);
+        }
+        // a disk that went away, e.g. an unplugged card, starts over if it comes back
+        for (int k = 0; k < known; k++) {
+            if (!present[k]) hasPrevious[k] = false;
+        }
+    }
+
+    private void update(int dev, long now, DiskThroughput out) {
+        long r = fields[0];
+        long rs = fields[2];
+        long w = fields[4];
+        long ws = fields[6];
+        long ms = fields[3] + fields[7];
+        long busy = fields[9];
+
+        present[dev] = true;
+        int slot = out.count++;
+        out.ensureCapacity(out.count);
+        out.names[slot] = names[dev];
+
+        long dt = now - at[dev];
+        long dr = r - reads[dev];
+        long dw = w - writes[dev];
+        long drs = rs - sectorsRead[dev];
+        long dws = ws - sectorsWritten[dev];
+        long dms = ms - ioMs[dev];
+        long dbusy = busy - busyMs[dev];
+        if (hasPrevious[dev] && dt > 0 && dr >= 0 && dw >= 0 && drs >= 0 && dws >= 0 && dms >= 0 && dbusy >= 0) {
+            out.readRate[slot] = drs * SECTOR_BYTES * 1000.0 / dt;
+            out.writeRate[slot] = dws * SECTOR_BYTES * 1000.0 / dt;
+            out.readIops[slot] = dr * 1000.0 / dt;
+            out.writeIops[slot] = dw * 1000.0 / dt;
+            out.latencyMs[slot] = dr + dw == 0 ? Double.NaN : (double) dms / (dr + dw);
+            out.busyPercent[slot] = Math.min(100, dbusy * 100.0 / dt);
+        } else {
+            // first sample, or 32-bit counters wrapped
+            out.readRate[slot] = Double.NaN;
+            out.writeRate[slot] = Double.NaN;
+            out.readIops[slot] = Double.NaN;
+            out.writeIops[slot] = Double.NaN;
+            out.latencyMs[slot] = Double.NaN;
+            out.busyPercent[slot] = Double.NaN;
+        }
+        reads[dev] = r;
+        sectorsRead[dev] = rs;
+        writes[dev] = w;
+        sectorsWritten[dev] = ws;
+        ioMs[dev] = ms;
+        busyMs[dev] = busy;
+        at[dev] = now;
+        hasPrevious[dev] = true;
+    }
+
+    /** Whether {@code name} is a whole physical disk rather than a partition or a virtual device. */
+    boolean isDisk(String name) {
+        // eMMC boot and RPMB areas show up as disks of their own but are never busy
+        if (name.contains("boot") || name.contains("rpmb")) return false;
+        if (sysBlockListable) {
+            // /sys/block only lists whole disks, and only real ones have a device link
+            return new File(sysBlock, name).exists() && new File(sysBlock, name + "/device").exists();
+        }
+        for (String prefix : VIRTUAL_PREFIXES) {
+            if (name.startsWith(prefix)) return false;
+        }
+        return !isPartitionName(name);
+    }
+
+    /** sda1, mmcblk0p1, nvme0n1p1: a disk name followed by a partition number. */
+    static boolean isPartitionName(String name) {
+        int end = name.length();
+        int digits = end;
+        while (digits > 0 && Character.isDigit(name.charAt(digits - 1))) digits--;
+        if (digits == end || digits == 0) return false;
+        char before = name.charAt(digits - 1);
+        if (before == 'p') {
+            // mmcblkNpM and nvmeNnMpK, but not a disk that merely ends in p
+            return digits >= 2 && Character.isDigit(name.charAt(digits - 2));
+        }
+        // sdX, hdX, vdX: letters only before the number
+        return (name.startsWith("sd") || name.startsWith("hd") || name.startsWith("vd")) && Character.isLetter(before);
+    }
+
+    /** Index of the known device named {@code buf[from, to)}, trying {@code hint} first. */
+    private int find(byte[] buf, int from, int to, int hint) {
+        for (int k = 0; k < known; k++) {
+            int idx = (hint + k) % known;
+            if (nameEquals(nameBytes[idx], buf, from, to)) return idx;
+        }
+        return -1;
+    }
+
+    private static boolean nameEquals(byte[] name, byte[] buf, int from, int to) {
+        if (name.length != to - from) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buf[from + i]) return false;
+        }
+        return true;
+    }
+
+    private int add(byte[] buf, int from, int to) {
+        if (known == names.length) {
+            int size = known * 2;
+            nameBytes = Arrays.copyOf(nameBytes, size);
+            names = Arrays.copyOf(names, size);
+            disk = Arrays.copyOf(disk, size);
+            reads = Arrays.copyOf(reads, size);
+            sectorsRead = Arrays.copyOf(sectorsRead, size);
+            writes = Arrays.copyOf(writes, size);
+            sectorsWritten = Arrays.copyOf(sectorsWritten, size);
+            ioMs = Arrays.copyOf(ioMs, size);
+            busyMs = Arrays.copyOf(busyMs, size);
+            at = Arrays.copyOf(at, size);
+            hasPrevious = Arrays.copyOf(hasPrevious, size);
+            present = Arrays.copyOf(present, size);
+        }
+        nameBytes[known] = Arrays.copyOfRange(buf, from, to);
+        names[known] = new String(buf, from, to - from, StandardCharsets.US_ASCII);
+        disk[known] = isDisk(names[known]);
+        return known++;
+    }
+
+    private static int skipField(byte[] buf, int i, int n) {
+        while (i < n && buf[i] == ' ') i++;
+        while (i < n && buf[i] != ' ' && buf[i] != '\n') i++;
+        return i;
+    }
+
+    private static int skipLine(byte[] buf, int i, int n) {
+        while (i < n && buf[i] != '\n') i++;
+        return i + 1;
+    }
+}
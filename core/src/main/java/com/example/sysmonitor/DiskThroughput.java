@@ -0,0 +1,86 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Per-disk I/O from one {@link DiskStatsSampler} tick, whole physical disks
+ * only. Rates are NaN for a disk's first sample and after its counters reset;
+ * latency is also NaN for an interval without requests.
+ */
+public final class DiskThroughput {
+    public int count;
+    public String[] names = new String[0];
+    /** Bytes per second over the last interval. */
+    public double[] readRate = new double[0];
+    public double[] writeRate = new double[0];
+    /** Completed requests per second. */
+    public double[] readIops = new double[0];
+    public double[] writeIops = new double[0];
+    /** Mean time a request completed in the interval spent queued and in service. */
+    public double[] latencyMs = new double[0];
+    /** Share of the interval the disk had requests in flight, 0..100. */
+    public double[] busyPercent = new double[0];
+
+    public void ensureCapacity(int n) {
+        if (names.length >= n) return;
+        names = Arrays.copyOf(names, n);
+        readRate = Arrays.copyOf(readRate, n);
+        writeRate = Arrays.copyOf(writeRate, n);
+        readIops = Arrays.copyOf(readIops, n);
+        writeIops = Arrays.copyOf(writeIops, n);
+        latencyMs = Arrays.copyOf(latencyMs, n);
+        busyPercent = Arrays.copyOf(busyPercent, n);
+    }
+
+    /** Sum over all disks; NaN if none has a rate yet. */
+    public double totalReadRate() {
+        return total(readRate);
+    }
+
+    public double totalWriteRate() {
+        return total(writeRate);
+    }
+
+    public double totalIops() {
+        double reads = total(readIops);
+        return Double.isNaN(reads) ? reads : reads + total(writeIops);
+    }
+
+    /** Index of the disk with the most requests in the last interval, or -1. */
+    public int busiest() {
+        int best = -1;
+        double max = -1;
+        for (int i = 0; i < count; i++) {
+            double iops = readIops[i] + writeIops[i];
+            if (!Double.isNaN(iops) && iops > max) {
+                max = iops;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /** Largest move of combined read and write rate of any disk. */
+    public static double maxDelta(DiskThroughput a, DiskThroughput b) {
+        if (a.count != b.count) return Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (int i = 0; i < a.count; i++) {
+            double x = a.readRate[i] + a.writeRate[i];
+            double y = b.readRate[i] + b.writeRate[i];
+            if (Double.isNaN(x) != Double.isNaN(y)) return Double.POSITIVE_INFINITY;
+            if (!Double.isNaN(x)) max = Math.max(max, Math.abs(x - y));
+        }
+        return max;
+    }
+
+    private double total(double[] rates) {
+        double sum = 0;
+        boolean any = false;
+        for (int i = 0; i < count; i++) {
+            if (Double.isNaN(rates[i])) continue;
+            sum += rates[i];
+            any = true;
+        }
+        return any ? sum : Double.NaN;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.sysmonitor;
+
+import java.io.File;
+
+/**
+ * Where the kernel's /sys and /proc trees live. {@link #DEVICE} is the real
+ * filesystem; {@link #at(File)} re-roots every absolute path under a directory,
+ * so captured device trees and synthetic fixtures can be read on a plain JVM.
+ */
+public final class FileSystemRoot {
+    public static final FileSystemRoot DEVICE = new FileSystemRoot(null);
+
+    private final File base;
+
+    private FileSystemRoot(File base) {
+        this.base = base;
+    }
+
+    public static FileSystemRoot at(File dir) {
+        return new FileSystemRoot(dir);
+    }
+
+    /** @param absolutePath a device path such as "/sys/class/thermal" */
+    public File file(String absolutePath) {
+        return base == null ? new File(absolutePath) : new File(base, absolutePath);
+    }
+
+    @Override
+    public String toString() {
+        return base == null ? "/" : base.getPath();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.sysmonitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Frame intervals of one screen in fixed {@value #BUCKET_US} µs buckets up to
+ * {@value #MAX_MS} ms, plus jank and dropped-frame counts relative to the
+ * display's refresh period. Recording is a handful of atomic increments on
+ * the UI thread and never blocks; readers take a {@link Snapshot} from any
+ * thread. A snapshot is not one atomic cut: a frame recorded meanwhile may be
+ * in the buckets but not yet in the totals, which a 1 s reader can ignore.
+ */
+public final class FrameStats {
+    static final int BUCKET_US = 500;
+    static final int MAX_MS = 100;
+    /** The last bucket holds every interval of {@value #MAX_MS} ms or more. */
+    static final int BUCKETS = MAX_MS * 1000 / BUCKET_US + 1;
+
+    private static final int FRAMES = 0;
+    private static final int JANKY = 1;
+    private static final int DROPPED = 2;
+    private static final int SUM_NS = 3;
+    private static final int MAX_NS = 4;
+    private static final int TOTALS = 5;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray totals = new AtomicLongArray(TOTALS);
+    private volatile long periodNs;
+    private volatile float refreshHz;
+
+    public FrameStats(float refreshHz) {
+        setRefreshRate(refreshHz);
+    }
+
+    /** Applies to frames recorded from now on. */
+    public void setRefreshRate(float hz) {
+        if (!(hz > 0)) hz = 60f;
+        refreshHz = hz;
+        periodNs = Math.round(1e9 / hz);
+    }
+
+    public float getRefreshRate() {
+        return refreshHz;
+    }
+
+    /**
+     * Records the time between two consecutive frame callbacks. An interval
+     * of n refresh periods, rounded, means n - 1 vsyncs went by without a
+     * frame: those count as dropped and the frame as janky.
+     */
+    public void record(long intervalNs) {
+        if (intervalNs <= 0) return;
+        long period = periodNs;
+        long missed = (intervalNs + period / 2) / period - 1;
+        counts.incrementAndGet((int) Math.min(intervalNs / (BUCKET_US * 1000L), BUCKETS - 1));
+        totals.incrementAndGet(FRAMES);
+        totals.addAndGet(SUM_NS, intervalNs);
+        if (missed > 0) {
+            totals.incrementAndGet(JANKY);
+            totals.addAndGet(DROPPED, missed);
+        }
+        long max;
+        while (intervalNs > (max = totals.get(MAX_NS))) {
+            if (totals.compareAndSet(MAX_NS, max, intervalNs)) break;
+        }
+    }
+
+    public long getFrames() {
+        return totals.get(FRAMES);
+    }
+
+    public Snapshot newSnapshot() {
+        return new Snapshot();
+    }
+
+    /** Copies the counts into {@code out} without allocating. */
+    public void snapshot(Snapshot out) {
+        out.frames = totals.get(FRAMES);
+        out.jankyFrames = totals.get(JANKY);
+        out.droppedFrames = totals.get(DROPPED);
+        out.sumNs = totals.get(SUM_NS);
+        out.maxNs = totals.get(MAX_NS);
+        out.refreshHz = refreshHz;
+        for (int i = 0; i < BUCKETS; i++) out.counts[i] = counts.get(i);
+    }
+
+    /** Counts since the stats were created. */
+    public static final class Snapshot {
+        final long[] counts = new long[BUCKETS];
+        public long frames;
+        /** Frames that came at least one refresh period late. */
+        public long jankyFrames;
+        /** Vsyncs that passed without a frame. */
+        public long droppedFrames;
+        public long sumNs;
+        public long maxNs;
+        public float refreshHz;
+
+        Snapshot() {}
+
+        /** Share of frames that were janky, 0..100; NaN before the first frame. */
+        public float jankPercent() {
+            return frames == 0 ? Float.NaN : jankyFrames * 100f / frames;
+        }
+
+        public double meanMs() {
+            return frames == 0 ? Double.NaN : sumNs / 1e6 / frames;
+        }
+
+        /** Frames per second actually delivered, from the mean interval. */
+        public double fps() {
+            return sumNs == 0 ? Double.NaN : frames * 1e9 / sumNs;
+        }
+
+        /**
+         * Upper edge of the bucket holding the requested percentile, in ms,
+         * capped at the longest interval seen; NaN when empty.
+         *
+         * @param percentile 0..100
+         */
+        public double percentileMs(double percentile) {
+            long total = 0;
+            for (long c : counts) total += c;
+            if (total == 0) return Double.NaN;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    double upper = i == BUCKETS - 1 ? Double.POSITIVE_INFINITY : (i + 1) * BUCKET_US / 1000.0;
+                    return Math.min(upper, maxNs / 1e6);
+                }
+            }
+            return maxNs / 1e6;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.sysmonitor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The cores and thermal zones of one device, found by listing
+ * /sys/devices/system/cpu and /sys/class/thermal. Saved next to the build
+ * fingerprint it was found on, so a cold start of the same build reads one
+ * small file instead of listing directories and every zone's type.
+ */
+public final class HardwareProfile {
+    static final String HEADER = "sysmonitor-hardware 1";
+
+    public final String fingerprint;
+    /** N of every cpuN directory, ascending; offline cores included. */
+    public final int[] coreIds;
+    /** N of every thermal_zoneN with a readable temp node, ascending. */
+    public final int[] zoneIds;
+    /** Type of each zone in {@link #zoneIds}, in the same order. */
+    public final String[] zoneTypes;
+
+    HardwareProfile(String fingerprint, int[] coreIds, int[] zoneIds, String[] zoneTypes) {
+        this.fingerprint = fingerprint;
+        this.coreIds = coreIds;
+        this.zoneIds = zoneIds;
+        this.zoneTypes = zoneTypes;
+    }
+
+    /**
+     * Lists cores and zones at the same time and reads the zones' types in
+     * {@code parallelism} slices, all on {@code executor}.
+     */
+    public static HardwareProfile discover(FileSystemRoot root, String fingerprint,
+                                           Executor executor, int parallelism) {
+        CompletableFuture<int[]> cores = CompletableFuture.supplyAsync(
+                () -> CpuFreqSampler.listCores(root.file(SysfsStats.CPU_DIR)), executor);
+
+        File thermalDir = root.file(SysfsStats.THERMAL_DIR);
+        int[] zones = ThermalSampler.listZones(thermalDir);
+        String[] types = new String[zones.length];
+        int slices = Math.max(1, Math.min(parallelism, zones.length));
+        CompletableFuture<?>[] reads = new CompletableFuture<?>[slices];
+        for (int s = 0; s < slices; s++) {
+            int from = zones.length * s / slices;
+            int to = zones.length * (s + 1) / slices;
+            reads[s] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) types[i] = ThermalSampler.readType(thermalDir, zones[i]);
+            }, executor);
+        }
+        CompletableFuture.allOf(reads).join();
+        return new HardwareProfile(fingerprint, cores.join(), zones, types);
+    }
+
+    /** The profile saved for {@code fingerprint}, or null if there is none or it can't be read. */
+    public static HardwareProfile load(File file, String fingerprint) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(in.readLine())) return null;
+            if (!fingerprint.equals(in.readLine())) return null;
+            int[] cores = parseInts(in.readLine());
+            int zoneCount = Integer.parseInt(in.readLine());
+            int[] zones = new int[zoneCount];
+            String[] types = new String[zoneCount];
+            for (int i = 0; i < zoneCount; i++) {
+                String line = in.readLine();
+                int tab = line.indexOf('\t');
+                zones[i] = Integer.parseInt(line.substring(0, tab));
+                types[i] = line.substring(tab + 1);
+            }
+            return new HardwareProfile(fingerprint, cores, zones, types);
+        } catch (IOException | RuntimeException e) {
+            // missing, from an older format, or cut short: discover again
+            return null;
+        }
+    }
+
+    /** Writes to a temporary file first, so a crash never leaves half a profile behind. */
+    public void save(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            w.write(HEADER + "\n");
+            w.write(fingerprint + "\n");
+            StringBuilder cores = new StringBuilder();
+            for (int i = 0; i < coreIds.length; i++) {
+                if (i > 0) cores.append(',');
+                cores.append(coreIds[i]);
+            }
+            w.write(cores + "\n");
+            w.write(zoneIds.length + "\n");
+            for (int i = 0; i < zoneIds.length; i++) {
+                w.write(zoneIds[i] + "\t" + zoneTypes[i].replace('\n', ' ') + "\n");
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) throw new IOException("Cannot replace " + file);
+    }
+
+    private static int[] parseInts(String line) {
+        if (line.isEmpty()) return new int[0];
+        return Arrays.stream(line.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.sysmonitor;
+
+/**
+ * Rolling jank over the last few seconds, from cumulative {@link FrameStats}
+ * totals taken once per tick. Keeps {@code capacity} ticks in a ring, so a
+ * window can reach back that many ticks; nothing is allocated after
+ * construction.
+ */
+public final class JankWindow {
+    private final long[] at;
+    private final long[] frames;
+    private final long[] janky;
+    private final long[] dropped;
+    private int count;
+    private int next;
+
+    public JankWindow(int capacity) {
+        at = new long[capacity];
+        frames = new long[capacity];
+        janky = new long[capacity];
+        dropped = new long[capacity];
+    }
+
+    public synchronized void add(long now, FrameStats.Snapshot totals) {
+        at[next] = now;
+        frames[next] = totals.frames;
+        janky[next] = totals.jankyFrames;
+        dropped[next] = totals.droppedFrames;
+        next = (next + 1) % at.length;
+        if (count < at.length) count++;
+    }
+
+    public synchronized void clear() {
+        count = 0;
+        next = 0;
+    }
+
+    /** Share of the frames of the last {@code windowMs} that were janky, 0..100; NaN without frames. */
+    public synchronized float jankPercent(long windowMs) {
+        int from = oldest(windowMs);
+        if (from < 0) return Float.NaN;
+        int last = latest();
+        long f = frames[last] - frames[from];
+        return f <= 0 ? Float.NaN : (janky[last] - janky[from]) * 100f / f;
+    }
+
+    /** Vsyncs without a frame in the last {@code windowMs}; 0 while there is no history. */
+    public synchronized long droppedFrames(long windowMs) {
+        int from = oldest(windowMs);
+        return from < 0 ? 0 : dropped[latest()] - dropped[from];
+    }
+
+    public synchronized long frames(long windowMs) {
+        int from = oldest(windowMs);
+        return from < 0 ? 0 : frames[latest()] - frames[from];
+    }
+
+    private int latest() {
+        return (next - 1 + at.length) % at.length;
+    }
+
+    /** Slot of the earliest tick no more than {@code windowMs} before the latest, or -1 with under two ticks. */
+    private int oldest(long windowMs) {
+        if (count < 2) return -1;
+        int last = latest();
+        long since = at[last] - windowMs;
+        int found = -1;
+        for (int k = 1; k < count; k++) {
+            int slot = (last - k + at.length) % at.length;
+            if (at[slot] < since) break;
+            found = slot;
+        }
+        return found;
+    }
+}
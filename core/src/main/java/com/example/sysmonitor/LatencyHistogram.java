@@ -0,0 +1,89 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of durations in nanoseconds, in the style
+ * of HdrHistogram: every power of two is split into {@value #SUB_BUCKETS}
+ * linear buckets, so a reported percentile is within about 3% of the true
+ * value from 1 ns up to about 18 minutes. Recording is a few shifts and an
+ * array increment; nothing is allocated after construction.
+ */
+public final class LatencyHistogram {
+    static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    static final int MAX_BITS = 40;
+    static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+
+    private final long[] counts = new long[index(MAX_VALUE) + 1];
+    private long count;
+    private long max;
+    private long sum;
+
+    public synchronized void record(long nanos) {
+        long v = nanos < 0 ? 0 : Math.min(nanos, MAX_VALUE);
+        counts[index(v)]++;
+        count++;
+        sum += v;
+        if (v > max) max = v;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    /**
+     * Highest value that falls in the same bucket as the requested percentile,
+     * capped at the recorded maximum; 0 when empty.
+     *
+     * @param percentile 0..100
+     */
+    public synchronized long getPercentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), max);
+        }
+        return max;
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        max = 0;
+        sum = 0;
+    }
+
+    /** Makes {@code into} an exact copy of this histogram. */
+    public synchronized void copyInto(LatencyHistogram into) {
+        synchronized (into) {
+            System.arraycopy(counts, 0, into.counts, 0, counts.length);
+            into.count = count;
+            into.max = max;
+            into.sum = sum;
+        }
+    }
+
+    static int index(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = (index >>> SUB_BITS) - 1;
+        long mantissa = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
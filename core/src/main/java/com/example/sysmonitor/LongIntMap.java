@@ -0,0 +1,104 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to non-negative ints, with linear probing
+ * and backward-shift deletion so removals leave no tombstones. No boxing; the
+ * tables only reallocate when the map grows past 50% load.
+ */
+final class LongIntMap {
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int i = slot(key);
+        while (values[i] != MISSING) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("negative value");
+        int i = slot(key);
+        while (values[i] != MISSING) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) rehash(keys.length * 2);
+    }
+
+    /** Returns the removed value, or {@link #MISSING}. */
+    int remove(long key) {
+        int i = slot(key);
+        while (values[i] != MISSING) {
+            if (keys[i] == key) break;
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        if (removed == MISSING) return MISSING;
+
+        // shift later entries of the same probe run back into the gap
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (values[j] != MISSING) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        values[gap] = MISSING;
+        size--;
+        return removed;
+    }
+
+    void clear() {
+        Arrays.fill(values, MISSING);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
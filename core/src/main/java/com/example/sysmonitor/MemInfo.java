@@ -0,0 +1,97 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * The /proc/meminfo fields the app shows, in KiB. Values are indexed by the
+ * constants below, in the order of {@link #KEYS}; a field the kernel didn't
+ * report holds {@link #UNKNOWN}. Instances are reused between ticks.
+ */
+public final class MemInfo {
+    public static final long UNKNOWN = -1;
+
+    public static final int TOTAL = 0;
+    public static final int FREE = 1;
+    public static final int AVAILABLE = 2;
+    public static final int BUFFERS = 3;
+    public static final int CACHED = 4;
+    public static final int SWAP_CACHED = 5;
+    public static final int ACTIVE = 6;
+    public static final int INACTIVE = 7;
+    public static final int SHMEM = 8;
+    public static final int SLAB = 9;
+    public static final int SLAB_RECLAIMABLE = 10;
+    public static final int SLAB_UNRECLAIMABLE = 11;
+    public static final int SWAP_TOTAL = 12;
+    public static final int SWAP_FREE = 13;
+    public static final int DIRTY = 14;
+    public static final int WRITEBACK = 15;
+    public static final int ANON = 16;
+    public static final int MAPPED = 17;
+    public static final int KERNEL_STACK = 18;
+    public static final int PAGE_TABLES = 19;
+
+    /** The kernel's name for each field, indexed like {@link #kb}. */
+    static final String[] KEYS = {
+            "MemTotal", "MemFree", "MemAvailable", "Buffers", "Cached", "SwapCached",
+            "Active", "Inactive", "Shmem", "Slab", "SReclaimable", "SUnreclaim",
+            "SwapTotal", "SwapFree", "Dirty", "Writeback", "AnonPages", "Mapped",
+            "KernelStack", "PageTables"
+    };
+
+    public final long[] kb = new long[KEYS.length];
+
+    public MemInfo() {
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(kb, UNKNOWN);
+    }
+
+    public long get(int field) {
+        return kb[field];
+    }
+
+    /**
+     * MemAvailable, or on kernels older than 3.14 that lack it the usual
+     * estimate of free plus page cache plus buffers.
+     */
+    public long available() {
+        if (kb[AVAILABLE] != UNKNOWN) return kb[AVAILABLE];
+        return orZero(FREE) + orZero(CACHED) + orZero(BUFFERS);
+    }
+
+    public long used() {
+        return kb[TOTAL] - available();
+    }
+
+    /**
+     * Memory the kernel can take back without swapping: page cache that isn't
+     * shmem, buffers and reclaimable slab.
+     */
+    public long reclaimable() {
+        return Math.max(0, orZero(CACHED) - orZero(SHMEM)) + orZero(BUFFERS) + orZero(SLAB_RECLAIMABLE);
+    }
+
+    /** Swap in use; on Android this is the uncompressed size of what zram holds. */
+    public long swapUsed() {
+        return orZero(SWAP_TOTAL) - orZero(SWAP_FREE);
+    }
+
+    public void copyFrom(MemInfo other) {
+        System.arraycopy(other.kb, 0, kb, 0, kb.length);
+    }
+
+    /** Largest move of available, free or cached memory between two snapshots, in KiB. */
+    public static double maxDelta(MemInfo a, MemInfo b) {
+        long d = Math.abs(a.available() - b.available());
+        d = Math.max(d, Math.abs(a.kb[FREE] - b.kb[FREE]));
+        d = Math.max(d, Math.abs(a.kb[CACHED] - b.kb[CACHED]));
+        return d;
+    }
+
+    private long orZero(int field) {
+        return kb[field] == UNKNOWN ? 0 : kb[field];
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads /proc/meminfo into a {@link MemInfo}. The file stays open and is
+ * re-read into one reused buffer; each key is hashed while it is scanned and
+ * looked up in a collision-free table built from {@link MemInfo#KEYS}, so a
+ * line costs one table probe and one byte comparison, and the fifty-odd lines
+ * the app doesn't show are skipped without comparing anything.
+ */
+public final class MemInfoSampler implements Closeable {
+    private static final int INITIAL_BUFFER = 4 * 1024;
+
+    // Multiply-shift over the key's 31-based hash. SEED is the first odd
+    // multiplier that sends every key in MemInfo.KEYS to its own slot.
+    static final int TABLE_BITS = 5;
+    static final int SEED = 0xEBF;
+    private static final byte[][] TABLE_KEYS = new byte[1 << TABLE_BITS][];
+    private static final int[] TABLE_FIELDS = new int[1 << TABLE_BITS];
+
+    static {
+        for (int f = 0; f < MemInfo.KEYS.length; f++) {
+            byte[] key = MemInfo.KEYS[f].getBytes(StandardCharsets.US_ASCII);
+            int slot = slot(hash(key, 0, key.length));
+            if (TABLE_KEYS[slot] != null) {
+                throw new IllegalStateException(MemInfo.KEYS[f] + " collides with another key, pick a new SEED");
+            }
+            TABLE_KEYS[slot] = key;
+            TABLE_FIELDS[slot] = f;
+        }
+    }
+
+    private final SysfsNode node;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER);
+
+    /** @param meminfo usually /proc/meminfo */
+    public MemInfoSampler(File meminfo) {
+        node = new SysfsNode(meminfo);
+        node.open();
+    }
+
+    public boolean isAvailable() {
+        return node.isOpen();
+    }
+
+    /** Fills {@code out}; false if the file can't be read. */
+    public synchronized boolean sample(MemInfo out) {
+        int n = node.read(buffer);
+        while (n == buffer.capacity()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            n = node.read(buffer);
+        }
+        if (n < 0) return false;
+        parse(buffer.array(), n, out);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        node.close();
+    }
+
+    /** Parses lines of the form {@code "Key:   1234 kB"}; unknown keys are skipped. */
+    static void parse(byte[] buf, int n, MemInfo out) {
+        out.clear();
+        int i = 0;
+        while (i < n) {
+            int start = i;
+            int h = 0;
+            byte b;
+            while (i < n && (b = buf[i]) != ':' && b != '\n') {
+                h = 31 * h + b;
+                i++;
+            }
+            int field = i < n && buf[i] == ':' ? lookup(h, buf, start, i) : -1;
+            if (field >= 0) {
+                i++;
+                while (i < n && buf[i] == ' ') i++;
+                long v = 0;
+                boolean digits = false;
+                while (i < n && (b = buf[i]) >= '0' && b <= '9') {
+                    v = v * 10 + (b - '0');
+                    digits = true;
+                    i++;
+                }
+                if (digits) out.kb[field] = v;
+            }
+            while (i < n && buf[i] != '\n') i++;
+            i++;
+        }
+    }
+
+    /** Field of the key {@code buf[from, to)} with hash {@code h}, or -1 if the app doesn't show it. */
+    private static int lookup(int h, byte[] buf, int from, int to) {
+        int slot = slot(h);
+        byte[] key = TABLE_KEYS[slot];
+        if (key == null || key.length != to - from) return -1;
+        for (int k = 0; k < key.length; k++) {
+            if (key[k] != buf[from + k]) return -1;
+        }
+        return TABLE_FIELDS[slot];
+    }
+
+    static int hash(byte[] buf, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + buf[i];
+        return h;
+    }
+
+    private static int slot(int h) {
+        return (h * SEED) >>> (32 - TABLE_BITS);
+    }
+}
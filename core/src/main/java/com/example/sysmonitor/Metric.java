@@ -0,0 +1,295 @@
+package com.example.sysmonitor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A named value sampled by a {@link SamplingEngine}. Screens {@link #subscribe}
+ * to the metrics they show and cancel the subscription when they go away.
+ */
+public final class Metric<T> {
+    /** Consecutive missed deadlines before a source is quarantined. */
+    static final int QUARANTINE_AFTER = 3;
+    static final long QUARANTINE_PROBE_MS = 5_000;
+    static final long QUARANTINE_MAX_MS = 5 * 60_000;
+
+    /**
+     * Produces one sample. Called on the engine's thread, or for a policy with
+     * a deadline on one of the engine's read threads, never twice at once for
+     * the same metric. A sampler shared by several metrics (ThermalSampler is
+     * read by both {@code thermal} and {@code cpu.throttle}) may be called
+     * from two threads at once and must be thread-safe.
+     */
+    public interface Source<T> {
+        T sample();
+    }
+
+    /** Receives samples on the engine's thread. */
+    public interface Listener<T> {
+        void onSample(T value);
+    }
+
+    /**
+     * How far a metric moved between two samples, compared against
+     * {@link SamplingPolicy#threshold}. Both values are still intact when called.
+     */
+    public interface Change<T> {
+        double between(T previous, T current);
+
+        Change<Object> EQUALS = (a, b) -> a == null ? (b == null ? 0 : Double.POSITIVE_INFINITY)
+                : a.equals(b) ? 0 : Double.POSITIVE_INFINITY;
+    }
+
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final SamplingEngine engine;
+    private final String name;
+    private final SamplingPolicy policy;
+    private final Source<T> source;
+    private final Change<? super T> change;
+    /** Sampled after the rest of each tick; see {@link SamplingEngine#registerDerived}. */
+    final boolean derived;
+    private final CopyOnWriteArrayList<Listener<? super T>> listeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Listener<? super T>> observers = new CopyOnWriteArrayList<>();
+    private final SourceStats stats = new SourceStats();
+    private final Callable<T> reader = this::timedRead;
+    private volatile T last;
+    private volatile boolean stale;
+    private volatile boolean quarantined;
+
+    // Scheduling state, guarded by the engine.
+    long intervalMs;
+    long nextDue = SamplingEngine.IDLE;
+    private long lastRead = -1;
+    private volatile long reads;
+    private volatile long skippedReads;
+    private FutureTask<T> pending;
+    private long waitFrom;
+    private int consecutiveTimeouts;
+    private long probeMs = QUARANTINE_PROBE_MS;
+
+    Metric(SamplingEngine engine, String name, SamplingPolicy policy, Source<T> source, Change<? super T> change,
+           boolean derived) {
+        this.engine = engine;
+        this.derived = derived;
+        this.name = name;
+        this.policy = policy;
+        this.source = source;
+        this.change = change;
+        this.intervalMs = policy.baseMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SamplingPolicy getPolicy() {
+        return policy;
+    }
+
+    /** The most recent sample, or null before the first one. */
+    public T getLast() {
+        return last;
+    }
+
+    /**
+     * True while {@link #getLast} is a value republished because the source
+     * missed its deadline. Listeners can check it from {@code onSample}.
+     */
+    public boolean isStale() {
+        return stale;
+    }
+
+    /** True while a source that kept missing its deadline is only re-probed now and then. */
+    public boolean isQuarantined() {
+        return quarantined;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public long getReads() {
+        return reads;
+    }
+
+    /** Latency, failures and allocations of this metric's source. */
+    public SourceStats getStats() {
+        return stats;
+    }
+
+    /** Reads a fixed poller at the base interval would have made that backoff avoided. */
+    public long getSkippedReads() {
+        return skippedReads;
+    }
+
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    public Subscription subscribe(Listener<? super T> listener) {
+        boolean first = listeners.isEmpty();
+        listeners.add(listener);
+        if (first) engine.onActivated(this);
+        return () -> listeners.remove(listener);
+    }
+
+    /**
+     * Like {@link #subscribe}, but passive: the observer sees every sample taken
+     * for other listeners and never causes the metric to be read by itself.
+     */
+    public Subscription observe(Listener<? super T> observer) {
+        observers.add(observer);
+        return () -> observers.remove(observer);
+    }
+
+    void reset(long now) {
+        intervalMs = policy.baseMs;
+        nextDue = now;
+        lastRead = -1;
+    }
+
+    /** Samples, publishes, and moves {@link #nextDue} according to the policy. */
+    void sampleAndPublish(long now) {
+        countRead(now);
+        T value;
+        try {
+            value = timedRead();
+        } catch (RuntimeException e) {
+            nextDue = now + intervalMs;
+            return;
+        }
+        accept(now, value);
+    }
+
+    boolean hasDeadline() {
+        return policy.deadlineMs > 0;
+    }
+
+    /**
+     * Starts a read on {@code executor}. A read still running from an earlier
+     * tick is not started twice; it gets this tick's deadline instead. One
+     * that was cancelled before it ever ran, because the engine shut down
+     * under it, is replaced.
+     */
+    void startRead(long now, Executor executor) {
+        countRead(now);
+        waitFrom = System.nanoTime();
+        if (pending != null && pending.isCancelled()) pending = null;
+        if (pending != null) return;
+        pending = new FutureTask<>(reader);
+        try {
+            executor.execute(pending);
+        } catch (RejectedExecutionException e) {
+            // shut down since we got the executor; finishRead lets it go
+            pending.cancel(false);
+        }
+    }
+
+    /** Waits for the read begun by {@link #startRead} until its deadline runs out. */
+    void finishRead(long now) {
+        long remaining = waitFrom + policy.deadlineMs * 1_000_000L - System.nanoTime();
+        T value;
+        try {
+            value = pending.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            onTimeout(now);
+            return;
+        } catch (ExecutionException | CancellationException e) {
+            pending = null;
+            nextDue = now + intervalMs;
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            nextDue = now + intervalMs;
+            return;
+        }
+        // may be a read that missed an earlier deadline; it is still the newest value
+        pending = null;
+        consecutiveTimeouts = 0;
+        probeMs = QUARANTINE_PROBE_MS;
+        quarantined = false;
+        accept(now, value);
+    }
+
+    private void onTimeout(long now) {
+        stats.recordTimeout();
+        consecutiveTimeouts++;
+        stale = true;
+        if (consecutiveTimeouts >= QUARANTINE_AFTER) {
+            // Leave the source alone for a while; each failed probe doubles the wait.
+            quarantined = true;
+            nextDue = now + probeMs;
+            probeMs = Math.min(probeMs * 2, QUARANTINE_MAX_MS);
+        } else {
+            nextDue = now + intervalMs;
+        }
+        // Only listeners hear about it: for observers nothing new was sampled.
+        T previous = last;
+        if (previous != null) publish(listeners, previous);
+    }
+
+    private void countRead(long now) {
+        if (lastRead >= 0) {
+            long missed = (now - lastRead) / policy.baseMs - 1;
+            if (missed > 0) skippedReads += missed;
+        }
+        lastRead = now;
+        reads++;
+    }
+
+    /** Reads the source once, recording latency, failure and allocations. */
+    private T timedRead() {
+        SamplingEngine.Allocations allocations = engine.allocations;
+        long allocated = allocations != null ? allocations.currentThreadAllocatedBytes() : 0;
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = source.sample();
+        } catch (RuntimeException e) {
+            record(start, allocations, allocated, true);
+            throw e;
+        }
+        record(start, allocations, allocated, false);
+        return value;
+    }
+
+    private void accept(long now, T value) {
+        T previous = last;
+        last = value;
+        stale = false;
+
+        if (!policy.isFixed() && previous != null) {
+            boolean changed = change.between(previous, value) > policy.threshold;
+            intervalMs = policy.next(intervalMs, changed);
+        }
+        nextDue = now + intervalMs;
+
+        publish(observers, value);
+        publish(listeners, value);
+    }
+
+    private void record(long start, SamplingEngine.Allocations allocations, long allocatedBefore, boolean failed) {
+        long nanos = System.nanoTime() - start;
+        long allocated = allocations != null ? allocations.currentThreadAllocatedBytes() - allocatedBefore : -1;
+        stats.record(nanos, failed, !hasDeadline() && nanos > engine.budgetNanos, allocated);
+    }
+
+    private static <T> void publish(CopyOnWriteArrayList<Listener<? super T>> targets, T value) {
+        for (Listener<? super T> listener : targets) {
+            try {
+                listener.onSample(value);
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.sysmonitor;
+
+/**
+ * Per-core frequency (MHz) and per-zone temperature (°C) history. A series is
+ * created the first time its core or zone reports a value; every later sample
+ * is recorded without allocating.
+ */
+public final class MetricHistory {
+    private final TimeSeries.Resolution[] tiers;
+    private volatile TimeSeries[] cores = new TimeSeries[0];
+    private volatile TimeSeries[] zones = new TimeSeries[0];
+    private Metric<int[]> coreFreq;
+    private Metric<ThermalSnapshot> thermal;
+    private int holders;
+    private Metric.Subscription[] held;
+
+    public MetricHistory() {
+        this(TimeSeries.DEFAULT_TIERS);
+    }
+
+    public MetricHistory(TimeSeries.Resolution... tiers) {
+        this.tiers = tiers;
+    }
+
+    /**
+     * Records every sample the metrics take for their subscribers, without
+     * keeping them active by itself; {@link #hold} does that for a while.
+     *
+     * @param clock stamps the samples; it should keep running through deep
+     *              sleep, or the tiers lose the time the device slept
+     */
+    public synchronized void attach(SamplingEngine.Clock clock, Metric<int[]> coreFreq,
+                                    Metric<ThermalSnapshot> thermal) {
+        this.coreFreq = coreFreq;
+        this.thermal = thermal;
+        coreFreq.observe(v -> recordCores(clock.now(), v));
+        thermal.observe(v -> recordThermal(clock.now(), v));
+    }
+
+    /**
+     * Keeps the attached metrics sampled until the returned subscription is
+     * cancelled, e.g. for the length of a recording, so the history has no
+     * holes while no screen shows them.
+     */
+    public synchronized Metric.Subscription hold() {
+        if (coreFreq == null) throw new IllegalStateException("Not attached");
+        if (holders++ == 0) {
+            Metric.Listener<Object> keepAlive = v -> {};
+            held = new Metric.Subscription[]{coreFreq.subscribe(keepAlive), thermal.subscribe(keepAlive)};
+        }
+        boolean[] cancelled = new boolean[1];
+        return () -> {
+            synchronized (this) {
+                if (cancelled[0]) return;
+                cancelled[0] = true;
+                if (--holders > 0) return;
+                for (Metric.Subscription s : held) s.cancel();
+                held = null;
+            }
+        };
+    }
+
+    public void recordCores(long timeMs, int[] khz) {
+        TimeSeries[] series = cores;
+        if (series.length != khz.length) series = cores = grow(series, khz.length);
+        for (int i = 0; i < khz.length; i++) {
+            if (khz[i] < 0) continue;
+            if (series[i] == null) series[i] = new TimeSeries(tiers);
+            series[i].add(timeMs, khz[i] / 1000f);
+        }
+    }
+
+    public void recordThermal(long timeMs, ThermalSnapshot snapshot) {
+        TimeSeries[] series = zones;
+        if (series.length != snapshot.temps.length) series = zones = grow(series, snapshot.temps.length);
+        for (int id : snapshot.zoneIds) {
+            if (series[id] == null) series[id] = new TimeSeries(tiers);
+            series[id].add(timeMs, snapshot.temps[id]);
+        }
+    }
+
+    /** History of core {@code index}, or null if it has never been sampled. */
+    public TimeSeries core(int index) {
+        TimeSeries[] series = cores;
+        return index < series.length ? series[index] : null;
+    }
+
+    /** History of thermal_zone{@code zoneId}, or null if it has never been sampled. */
+    public TimeSeries zone(int zoneId) {
+        TimeSeries[] series = zones;
+        return zoneId < series.length ? series[zoneId] : null;
+    }
+
+    public long bytesPerSeries() {
+        return TimeSeries.bytesFor(tiers);
+    }
+
+    private static TimeSeries[] grow(TimeSeries[] old, int size) {
+        TimeSeries[] series = new TimeSeries[size];
+        System.arraycopy(old, 0, series, 0, Math.min(old.length, size));
+        return series;
+    }
+}
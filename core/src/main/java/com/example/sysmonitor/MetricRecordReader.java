@@ -0,0 +1,60 @@
+package com.example.sysmonitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Sequential scan over the segments written by {@link MetricRecorder}, oldest
+ * first. Each segment is read into one reused array and decoded in place.
+ */
+public final class MetricRecordReader {
+
+    public interface Visitor {
+        /** {@code values} is reused for the next record. */
+        void onRecord(long timeMs, float[] values);
+    }
+
+    private MetricRecordReader() {}
+
+    /** @return number of records visited */
+    public static long scan(File dir, Visitor visitor) throws IOException {
+        long records = 0;
+        byte[] data = new byte[0];
+        int[] pos = new int[1];
+
+        for (File segment : MetricRecorder.listSegments(dir)) {
+            long length = segment.length();
+            if (length < MetricRecorder.HEADER_BYTES || length > Integer.MAX_VALUE) continue;
+            if (data.length < length) data = new byte[(int) length];
+            int limit = read(segment, data);
+
+            ByteBuffer header = ByteBuffer.wrap(data, 0, MetricRecorder.HEADER_BYTES);
+            if (limit < MetricRecorder.HEADER_BYTES || header.getInt() != MetricRecorder.MAGIC) continue;
+            int seriesCount = header.getInt();
+            SampleCodec codec = new SampleCodec(seriesCount);
+            float[] values = new float[seriesCount];
+
+            pos[0] = MetricRecorder.HEADER_BYTES;
+            long time;
+            while ((time = codec.decode(data, pos, limit, values)) != Long.MIN_VALUE) {
+                visitor.onRecord(time, values);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static int read(File f, byte[] into) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(into);
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            FileChannel ch = raf.getChannel();
+            while (buf.hasRemaining() && ch.read(buf) > 0) {
+                // a segment is read whole; the channel may return it in pieces
+            }
+        }
+        return buf.position();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Appends rows of samples to fixed-size memory-mapped segment files encoded
+ * with {@link SampleCodec}. Every segment is self-contained, so rotation just
+ * starts a new file and the oldest files are deleted past the size cap.
+ *
+ * On open, the newest segment is scanned to restore the codec state; a torn
+ * record at its tail is zeroed in place instead of rewriting the segment.
+ */
+public final class MetricRecorder implements Closeable {
+    static final int MAGIC = 0x534D5231; // "SMR1"
+    static final int HEADER_BYTES = 16;
+    static final String PREFIX = "seg-";
+    static final String SUFFIX = ".bin";
+
+    private final File dir;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final SampleCodec codec;
+    private final byte[] scratch;
+    private final List<File> segments = new ArrayList<>();
+
+    private RandomAccessFile file;
+    private MappedByteBuffer map;
+    private long nextSequence;
+    private long bytesWritten;
+
+    /**
+     * @param segmentBytes size of each segment file
+     * @param maxSegments  segments kept on disk; total size is capped at
+     *                     {@code segmentBytes * maxSegments}
+     */
+    public MetricRecorder(File dir, int seriesCount, int segmentBytes, int maxSegments) throws IOException {
+        if (segmentBytes < HEADER_BYTES + SampleCodec.maxRecordBytes(seriesCount)) {
+            throw new IllegalArgumentException("Segment too small for " + seriesCount + " series");
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        this.codec = new SampleCodec(seriesCount);
+        this.scratch = new byte[SampleCodec.maxRecordBytes(seriesCount)];
+
+        for (File f : listSegments(dir)) segments.add(f);
+        if (!segments.isEmpty()) {
+            File last = segments.get(segments.size() - 1);
+            nextSequence = sequenceOf(last) + 1;
+            if (!reopen(last)) startSegment();
+        } else {
+            startSegment();
+        }
+    }
+
+    public synchronized void append(long timeMs, float[] values) throws IOException {
+        if (values.length < codec.seriesCount()) {
+            throw new IllegalArgumentException("Expected " + codec.seriesCount() + " values");
+        }
+        if (map.position() + scratch.length > segmentBytes) startSegment();
+        int len = codec.encode(scratch, 0, timeMs, values);
+        map.put(scratch, 0, len);
+        bytesWritten += len;
+    }
+
+    /** Forces mapped pages of the current segment to storage. */
+    public synchronized void flush() {
+        if (map != null) map.force();
+    }
+
+    /** Encoded bytes appended since this recorder was opened. */
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        map = null;
+        if (file != null) file.close();
+        file = null;
+    }
+
+    static File[] listSegments(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) return new File[0];
+        Arrays.sort(files, (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return files;
+    }
+
+    static long sequenceOf(File f) {
+        String name = f.getName();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        if (file != null) {
+            map.force();
+            file.close();
+        }
+        File f = new File(dir, String.format(Locale.US, "%s%016d%s", PREFIX, nextSequence++, SUFFIX));
+        file = new RandomAccessFile(f, "rw");
+        file.setLength(segmentBytes);
+        map = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        map.putInt(MAGIC);
+        map.putInt(codec.seriesCount());
+        map.putLong(System.currentTimeMillis());
+        codec.reset();
+        segments.add(f);
+
+        while (segments.size() > maxSegments) {
+            File oldest = segments.remove(0);
+            if (!oldest.delete()) oldest.deleteOnExit();
+        }
+    }
+
+    /** Maps an existing segment for appending; false if it can't be reused. */
+    private boolean reopen(File f) throws IOException {
+        if (f.length() != segmentBytes) return false;
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        MappedByteBuffer m = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        if (m.getInt(0) != MAGIC || m.getInt(4) != codec.seriesCount()) {
+            raf.close();
+            return false;
+        }
+
+        byte[] data = new byte[segmentBytes];
+        m.get(data);
+        int[] pos = {HEADER_BYTES};
+        float[] row = new float[codec.seriesCount()];
+        codec.reset();
+        while (codec.decode(data, pos, segmentBytes, row) != Long.MIN_VALUE) {
+            // replaying restores the delta and XOR state for the next append
+        }
+
+        // Whatever follows the last good record is a torn write; clear just that much.
+        int end = Math.min(segmentBytes, pos[0] + scratch.length);
+        for (int i = pos[0]; i < end; i++) {
+            if (data[i] != 0) m.put(i, (byte) 0);
+        }
+
+        file = raf;
+        map = m;
+        map.position(pos[0]);
+        return true;
+    }
+}
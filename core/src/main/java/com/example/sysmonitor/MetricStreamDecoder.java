@@ -0,0 +1,126 @@
+package com.example.sysmonitor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reference reader of a {@link MetricStreamServer} stream, for desktop tools
+ * and tests. Reads blocking from any channel: a SocketChannel connected to the
+ * forwarded port, or a file a stream was saved to. Batches are handed out in
+ * columns, in arrays that are reused for the next batch.
+ */
+public final class MetricStreamDecoder {
+
+    public interface Visitor {
+        /**
+         * @param times   time of each row in ms, valid up to {@code rows}
+         * @param columns one array per column, in schema order, valid up to {@code rows}
+         * @param dropped rows the server dropped before this batch because the reader fell behind
+         */
+        void onBatch(int rows, long[] times, float[][] columns, int dropped);
+    }
+
+    private final ReadableByteChannel in;
+    private ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+    private String[] names;
+    private long[] times = new long[0];
+    private float[][] columns;
+
+    public MetricStreamDecoder(ReadableByteChannel in) {
+        this.in = in;
+        buf.flip();
+    }
+
+    /** Reads the schema frame that starts every stream. */
+    public String[] readSchema() throws IOException {
+        if (names != null) return names.clone();
+        int length = frame();
+        if (length < 0) throw new EOFException("Stream ended before its schema");
+        if (buf.get() != StreamCodec.SCHEMA || buf.getInt() != StreamCodec.MAGIC) {
+            throw new IOException("Not a metric stream");
+        }
+        int version = buf.getShort() & 0xFFFF;
+        if (version != StreamCodec.VERSION) throw new IOException("Unsupported stream version " + version);
+        int count = buf.getShort() & 0xFFFF;
+        names = new String[count];
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[buf.getShort() & 0xFFFF];
+            buf.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+        columns = new float[count][0];
+        return names.clone();
+    }
+
+    /**
+     * Reads one batch and hands it to {@code visitor}; frames of unknown types
+     * are skipped.
+     *
+     * @return false once the stream has ended
+     */
+    public boolean next(Visitor visitor) throws IOException {
+        if (names == null) readSchema();
+        while (true) {
+            int length = frame();
+            if (length < 0) return false;
+            int end = buf.position() + length;
+            if (buf.get() != StreamCodec.BATCH) {
+                buf.position(end);
+                continue;
+            }
+            int rows = buf.getInt();
+            int dropped = buf.getInt();
+            if (length != StreamCodec.batchBytes(rows, names.length) - 4) throw new IOException("Corrupt batch");
+            if (times.length < rows) {
+                times = new long[rows];
+                for (int c = 0; c < columns.length; c++) columns[c] = new float[rows];
+            }
+            for (int r = 0; r < rows; r++) times[r] = buf.getLong();
+            for (float[] column : columns) {
+                buf.asFloatBuffer().get(column, 0, rows);
+                buf.position(buf.position() + rows * 4);
+            }
+            visitor.onBatch(rows, times, columns, dropped);
+            return true;
+        }
+    }
+
+    /**
+     * Makes the next whole frame available in {@link #buf}, positioned after
+     * its length prefix.
+     *
+     * @return the frame length, or -1 at a clean end of stream
+     */
+    private int frame() throws IOException {
+        if (!fill(4)) return -1;
+        int length = buf.getInt();
+        if (length < 1) throw new IOException("Bad frame length " + length);
+        if (!fill(length)) throw new EOFException("Stream ended inside a frame");
+        return length;
+    }
+
+    /** Ensures {@code n} unread bytes; false if the stream ends first with none unread. */
+    private boolean fill(int n) throws IOException {
+        if (buf.remaining() >= n) return true;
+        if (buf.capacity() < n) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, buf.capacity() * 2));
+            bigger.put(buf);
+            buf = bigger;
+        } else {
+            buf.compact();
+        }
+        while (buf.position() < n) {
+            if (in.read(buf) < 0) {
+                boolean empty = buf.position() == 0;
+                buf.flip();
+                if (empty) return false;
+                throw new EOFException("Stream ended inside a frame");
+            }
+        }
+        buf.flip();
+        return true;
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves rows of samples to any number of TCP clients in the
+ * {@link StreamCodec} format, e.g. to a desktop tool through adb forward.
+ *
+ * {@link #publish} only copies the row into each client's ring of pending
+ * rows and never touches a socket, so sampling can't be held up by a client.
+ * One selector thread does all network I/O with non-blocking writes: whatever
+ * is pending when a client's previous frame is fully written goes out as one
+ * batch. A client that can't keep up gets its pending rows coalesced into
+ * larger batches and, once {@code maxPendingRows} are waiting, loses the
+ * oldest ones; the next batch says how many.
+ */
+public final class MetricStreamServer implements Closeable {
+    private static final int READ_BUFFER = 256;
+    /** How long accepting pauses after it failed, e.g. for lack of file descriptors. */
+    private static final long ACCEPT_RETRY_MS = 100;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final int columns;
+    private final byte[][] names;
+    private final int maxPendingRows;
+    private final int sendBufferBytes;
+    private final CopyOnWriteArrayList<Client> clients = new CopyOnWriteArrayList<>();
+    private final ByteBuffer discard = ByteBuffer.allocate(READ_BUFFER);
+    private final Thread thread;
+    private final SelectionKey acceptKey;
+    // selector thread only: when accepting resumes, or 0 while it isn't paused
+    private long acceptPausedUntil;
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    private final AtomicLong rowsPublished = new AtomicLong();
+    private final AtomicLong rowsSent = new AtomicLong();
+    private final AtomicLong rowsDropped = new AtomicLong();
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /**
+     * @param address         where to listen; bind to loopback, adb forward connects there
+     * @param columns         column names, in the order of every published row
+     * @param maxPendingRows  rows kept per client before the oldest are dropped
+     * @param sendBufferBytes SO_SNDBUF for client sockets, or 0 for the system default
+     */
+    public MetricStreamServer(InetSocketAddress address, String[] columns, int maxPendingRows,
+                              int sendBufferBytes) throws IOException {
+        if (maxPendingRows < 1) throw new IllegalArgumentException("maxPendingRows " + maxPendingRows);
+        this.columns = columns.length;
+        this.names = StreamCodec.encodeNames(columns);
+        this.maxPendingRows = maxPendingRows;
+        this.sendBufferBytes = sendBufferBytes;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            acceptKey = server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "MetricStream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** The bound port, useful after binding to port 0. */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * True once the server no longer serves anyone: after {@link #close}, or
+     * when its selector failed. A failing client is dropped without stopping it.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public long getRowsPublished() {
+        return rowsPublished.get();
+    }
+
+    /** Rows delivered, counted once per client. */
+    public long getRowsSent() {
+        return rowsSent.get();
+    }
+
+    /** Rows a client fell too far behind to receive, counted once per client. */
+    public long getRowsDropped() {
+        return rowsDropped.get();
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * Queues one row for every connected client. Safe from any thread; costs
+     * a copy of the row per client and at most one selector wakeup.
+     */
+    public void publish(long timeMs, float[] row) {
+        if (row.length != columns) throw new IllegalArgumentException(row.length + " values for " + columns + " columns");
+        rowsPublished.incrementAndGet();
+        boolean any = false;
+        for (Client c : clients) {
+            c.add(timeMs, row);
+            any = true;
+        }
+        if (any) selector.wakeup();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Client c : clients) c.close();
+        clients.clear();
+        server.close();
+        selector.close();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                if (acceptPausedUntil == 0) {
+                    selector.select();
+                } else {
+                    long wait = acceptPausedUntil - System.currentTimeMillis();
+                    if (wait > 0) selector.select(wait);
+                    if (System.currentTimeMillis() >= acceptPausedUntil) {
+                        acceptPausedUntil = 0;
+                        acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+                    }
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client c = (Client) key.attachment();
+                        if (key.isReadable()) read(c);
+                        if (key.isValid() && key.isWritable()) write(c);
+                    }
+                }
+                // New rows wake the selector without making any key ready.
+                for (Client c : clients) {
+                    if (!c.out.hasRemaining() && c.fill()) write(c);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // the selector itself failed; nothing left to serve with
+        } finally {
+            stopped = true;
+            for (Client c : clients) c.close();
+            clients.clear();
+        }
+    }
+
+    /** Accepts one client; a failure loses only that client, never the server. */
+    private void accept() {
+        SocketChannel channel;
+        try {
+            channel = server.accept();
+        } catch (IOException e) {
+            // e.g. out of file descriptors: the connection stays queued and
+            // would keep the selector spinning, so stop asking for a while
+            acceptKey.interestOps(0);
+            acceptPausedUntil = System.currentTimeMillis() + ACCEPT_RETRY_MS;
+            return;
+        }
+        if (channel == null) return;
+        Client c;
+        try {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            if (sendBufferBytes > 0) channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferBytes);
+            c = new Client(channel);
+            c.key = channel.register(selector, SelectionKey.OP_READ, c);
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing more to release
+            }
+            return;
+        }
+        c.out.clear();
+        StreamCodec.putSchema(c.out, names);
+        c.out.flip();
+        clients.add(c);
+        write(c);
+    }
+
+    /** Clients don't send anything; reading just notices when they hang up. */
+    private void read(Client c) {
+        try {
+            discard.clear();
+            if (c.channel.read(discard) < 0) drop(c);
+        } catch (IOException e) {
+            drop(c);
+        }
+    }
+
+    private void write(Client c) {
+        try {
+            bytesSent.addAndGet(c.channel.write(c.out));
+        } catch (IOException e) {
+            drop(c);
+            return;
+        }
+        if (!c.out.hasRemaining()) {
+            framesSent.incrementAndGet();
+            rowsSent.addAndGet(c.sending);
+            c.sending = 0;
+        }
+        // only ask for writability while a frame is stuck, or the selector spins
+        int ops = c.out.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (c.key.isValid() && c.key.interestOps() != ops) c.key.interestOps(ops);
+    }
+
+    private void drop(Client c) {
+        clients.remove(c);
+        c.close();
+    }
+
+    private final class Client {
+        final SocketChannel channel;
+        SelectionKey key;
+        // pending rows, guarded by this
+        final long[] times = new long[maxPendingRows];
+        final float[] values = new float[maxPendingRows * columns];
+        int head;
+        int count;
+        long dropped;
+        // selector thread only: the frame being written and the rows in it
+        final ByteBuffer out;
+        int sending;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            out = ByteBuffer.allocateDirect(Math.max(StreamCodec.schemaBytes(names),
+                    StreamCodec.batchBytes(maxPendingRows, columns)));
+        }
+
+        synchronized void add(long timeMs, float[] row) {
+            if (count == maxPendingRows) {
+                head = (head + 1) % maxPendingRows;
+                count--;
+                dropped++;
+                rowsDropped.incrementAndGet();
+            }
+            int slot = (head + count) % maxPendingRows;
+            times[slot] = timeMs;
+            System.arraycopy(row, 0, values, slot * columns, columns);
+            count++;
+        }
+
+        /** Moves every pending row into {@link #out} as one batch; false if there was none. */
+        synchronized boolean fill() {
+            if (count == 0) return false;
+            out.clear();
+            StreamCodec.putBatch(out, times, values, head, count, maxPendingRows, columns, dropped);
+            out.flip();
+            sending = count;
+            head = (head + count) % maxPendingRows;
+            count = 0;
+            dropped = 0;
+            return true;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Live RX/TX rates per interface from /proc/net/dev. The file stays open and
+ * is re-read from offset 0 into one reused buffer; interface names are matched
+ * against the bytes of the names already known, so a String is only created
+ * when a new interface shows up.
+ */
+public final class NetDevSampler implements Closeable {
+    private static final int INITIAL_BUFFER = 4 * 1024;
+
+    private final SysfsNode node;
+    private final SamplingEngine.Clock clock;
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER);
+
+    // every interface seen so far, in order of first appearance
+    private int known;
+    private byte[][] nameBytes = new byte[8][];
+    private String[] names = new String[8];
+    private long[] rx = new long[8];
+    private long[] tx = new long[8];
+    private long[] at = new long[8];
+    private boolean[] hasPrevious = new boolean[8];
+    private boolean[] present = new boolean[8];
+
+    /** @param netDev usually /proc/net/dev */
+    public NetDevSampler(File netDev, SamplingEngine.Clock clock) {
+        this.node = new SysfsNode(netDev);
+        this.clock = clock;
+        node.open();
+    }
+
+    public boolean isAvailable() {
+        return node.isOpen();
+    }
+
+    /**
+     * Fills {@code out} with the interfaces listed right now. Returns false if
+     * the file can't be read; apps targeting Android 10+ are denied /proc/net.
+     */
+    public synchronized boolean sample(NetThroughput out) {
+        int n = node.read(buffer);
+        while (n == buffer.capacity()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            n = node.read(buffer);
+        }
+        if (n < 0) return false;
+        parse(buffer.array(), n, clock.now(), out);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        node.close();
+    }
+
+    void parse(byte[] buf, int n, long now, NetThroughput out) {
+        Arrays.fill(present, false);
+        out.count = 0;
+        int i = skipLine(buf, skipLine(buf, 0, n), n); // two header lines
+        int hint = 0;
+        while (i < n) {
+            while (i < n && buf[i] == ' ') i++;
+            int nameStart = i;
+            while (i < n && buf[i] != ':' && buf[i] != '\n') i++;
+            if (i >= n || buf[i] != ':') {
+                i = skipLine(buf, i, n);
+                continue;
+            }
+            int iface = find(buf, nameStart, i, hint);
+            if (iface < 0) iface = add(buf, nameStart, i);
+            hint = iface + 1;
+            i++;
+
+            // receive: bytes packets errs drop fifo frame compressed multicast; transmit: bytes ...
+            long rxBytes = 0;
+            long txBytes = 0;
+            int field = 0;
+            while (i < n && buf[i] != '\n') {
+                byte b = buf[i];
+                if (b < '0' || b > '9') {
+                    i++;
+                    continue;
+                }
+                long v = 0;
+                while (i < n && (b = buf[i]) >= '0' && b <= '9') {
+                    v = v * 10 + (b - '0');
+                    i++;
+                }
+                if (field == 0) rxBytes = v;
+                else if (field == 8) txBytes = v;
+                field++;
+            }
+            i++;
+            if (field < 9) continue;
+            update(iface, rxBytes, txBytes, now, out);
+        }
+        // an interface that went away starts over if it comes back
+        for (int k = 0; k < known; k++) {
+            if (!present[k]) hasPrevious[k] = false;
+        }
+    }
+
+    private void update(int iface, long rxBytes, long txBytes, long now, NetThroughput out) {
+        present[iface] = true;
+        int slot = out.count++;
+        out.ensureCapacity(out.count);
+        out.names[slot] = names[iface];
+        out.rxBytes[slot] = rxBytes;
+        out.txBytes[slot] = txBytes;
+
+        long dt = now - at[iface];
+        long drx = rxBytes - rx[iface];
+        long dtx = txBytes - tx[iface];
+        if (hasPrevious[iface] && dt > 0 && drx >= 0 && dtx >= 0) {
+            out.rxRate[slot] = drx * 1000.0 / dt;
+            out.txRate[slot] = dtx * 1000.0 / dt;
+        } else {
+            // first sample, or counters reset when the interface was re-created
+            out.rxRate[slot] = Double.NaN;
+            out.txRate[slot] = Double.NaN;
+        }
+        rx[iface] = rxBytes;
+        tx[iface] = txBytes;
+        at[iface] = now;
+        hasPrevious[iface] = true;
+    }
+
+    /** Index of the known interface named {@code buf[from, to)}, trying {@code hint} first. */
+    private int find(byte[] buf, int from, int to, int hint) {
+        for (int k = 0; k < known; k++) {
+            int idx = (hint + k) % known;
+            if (nameEquals(nameBytes[idx], buf, from, to)) return idx;
+        }
+        return -1;
+    }
+
+    private static boolean nameEquals(byte[] name, byte[] buf, int from, int to) {
+        if (name.length != to - from) return false;
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != buf[from + i]) return false;
+        }
+        return true;
+    }
+
+    private int add(byte[] buf, int from, int to) {
+        if (known == names.length) {
+            int size = known * 2;
+            nameBytes = Arrays.copyOf(nameBytes, size);
+            names = Arrays.copyOf(names, size);
+            rx = Arrays.copyOf(rx, size);
+            tx = Arrays.copyOf(tx, size);
+            at = Arrays.copyOf(at, size);
+            hasPrevious = Arrays.copyOf(hasPrevious, size);
+            present = Arrays.copyOf(present, size);
+        }
+        nameBytes[known] = Arrays.copyOfRange(buf, from, to);
+        names[known] = new String(buf, from, to - from, StandardCharsets.US_ASCII);
+        return known++;
+    }
+
+    private static int skipLine(byte[] buf, int i, int n) {
+        while (i < n && buf[i] != '\n') i++;
+        return i + 1;
+    }
+}
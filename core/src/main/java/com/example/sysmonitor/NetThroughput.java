@@ -0,0 +1,48 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Per-interface receive and transmit rates from one {@link NetDevSampler} tick.
+ * Entries follow the order of /proc/net/dev; rates are NaN for an interface's
+ * first sample and after its counters were reset.
+ */
+public final class NetThroughput {
+    public int count;
+    public String[] names = new String[0];
+    /** Bytes per second over the last interval. */
+    public double[] rxRate = new double[0];
+    public double[] txRate = new double[0];
+    /** Cumulative counters as reported by the kernel. */
+    public long[] rxBytes = new long[0];
+    public long[] txBytes = new long[0];
+
+    public void ensureCapacity(int n) {
+        if (names.length >= n) return;
+        names = Arrays.copyOf(names, n);
+        rxRate = Arrays.copyOf(rxRate, n);
+        txRate = Arrays.copyOf(txRate, n);
+        rxBytes = Arrays.copyOf(rxBytes, n);
+        txBytes = Arrays.copyOf(txBytes, n);
+    }
+
+    /** Sum of receive rates over all interfaces but loopback; NaN if none has a rate yet. */
+    public double totalRxRate() {
+        return total(rxRate);
+    }
+
+    public double totalTxRate() {
+        return total(txRate);
+    }
+
+    private double total(double[] rates) {
+        double sum = 0;
+        boolean any = false;
+        for (int i = 0; i < count; i++) {
+            if ("lo".equals(names[i]) || Double.isNaN(rates[i])) continue;
+            sum += rates[i];
+            any = true;
+        }
+        return any ? sum : Double.NaN;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.sysmonitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Kills background processes of a list of packages on a small worker pool,
+ * a batch at a time, and measures what it got back. Reclaim is taken from
+ * availMem sampled over a settling window rather than a single read straight
+ * after the kills, since the kernel frees memory of a dying process lazily.
+ */
+public final class ProcessCleaner {
+
+    public interface Killer {
+        void kill(String packageName) throws Exception;
+    }
+
+    public interface MemoryProbe {
+        long availableBytes();
+    }
+
+    public interface Sleeper {
+        void sleep(long ms) throws InterruptedException;
+
+        Sleeper SYSTEM = Thread::sleep;
+    }
+
+    public interface Listener {
+        /** Called from a worker thread after each kill. */
+        void onProgress(int done, int total, String packageName);
+    }
+
+    private final Killer killer;
+    private final MemoryProbe probe;
+    private final Sleeper sleeper;
+    private final int threads;
+    private final int batchSize;
+
+    private long settleIntervalMs = 250;
+    private long settleWindowMs = 3000;
+    private int settleStableSamples = 3;
+    private long settleToleranceBytes = 4L << 20;
+
+    public ProcessCleaner(Killer killer, MemoryProbe probe, Sleeper sleeper, int threads, int batchSize) {
+        if (threads < 1 || batchSize < 1) throw new IllegalArgumentException("threads and batchSize must be positive");
+        this.killer = killer;
+        this.probe = probe;
+        this.sleeper = sleeper;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * After the kills availMem is read every {@code intervalMs} until {@code stable}
+     * consecutive reads stay within {@code toleranceBytes} of each other, or
+     * {@code windowMs} has passed.
+     */
+    public ProcessCleaner settle(long intervalMs, long windowMs, int stable, long toleranceBytes) {
+        if (intervalMs <= 0 || windowMs < intervalMs || stable < 1) {
+            throw new IllegalArgumentException("bad settling window");
+        }
+        this.settleIntervalMs = intervalMs;
+        this.settleWindowMs = windowMs;
+        this.settleStableSamples = stable;
+        this.settleToleranceBytes = toleranceBytes;
+        return this;
+    }
+
+    /** Runs on the calling thread until every package was tried and memory settled. */
+    public CleanReport clean(List<String> packageNames, Listener listener) throws InterruptedException {
+        long start = System.nanoTime();
+        String[] packages = packageNames.toArray(new String[0]);
+        long[] killNanos = new long[packages.length];
+        boolean[] failed = new boolean[packages.length];
+        long before = probe.availableBytes();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, packages.length)));
+        int[] done = new int[1];
+        try {
+            List<Future<?>> batch = new ArrayList<>(batchSize);
+            for (int from = 0; from < packages.length; from += batchSize) {
+                int to = Math.min(packages.length, from + batchSize);
+                for (int i = from; i < to; i++) {
+                    int index = i;
+                    batch.add(pool.submit(() -> {
+                        long t0 = System.nanoTime();
+                        try {
+                            killer.kill(packages[index]);
+                        } catch (Exception e) {
+                            failed[index] = true;
+                        }
+                        killNanos[index] = System.nanoTime() - t0;
+                        int n;
+                        synchronized (done) {
+                            n = ++done[0];
+                        }
+                        if (listener != null) listener.onProgress(n, packages.length, packages[index]);
+                    }));
+                }
+                for (Future<?> f : batch) {
+                    try {
+                        f.get();
+                    } catch (ExecutionException e) {
+                        // the task catches the killer's exceptions; only a listener can end up here
+                    }
+                }
+                batch.clear();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long[] window = new long[settleStableSamples];
+        int samples = 0;
+        long after = before;
+        for (long waited = 0; waited < settleWindowMs; waited += settleIntervalMs) {
+            sleeper.sleep(settleIntervalMs);
+            after = probe.availableBytes();
+            window[samples % window.length] = after;
+            samples++;
+            if (samples >= window.length && spread(window) <= settleToleranceBytes) break;
+        }
+        if (samples >= window.length) after = mean(window);
+
+        return new CleanReport(packages, killNanos, failed, before, after, samples, System.nanoTime() - start);
+    }
+
+    private static long spread(long[] values) {
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (long v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        return max - min;
+    }
+
+    private static long mean(long[] values) {
+        long sum = 0;
+        for (long v : values) sum += v;
+        return sum / values.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.sysmonitor;
+
+/**
+ * The heaviest processes of one {@link ProcessTracker} refresh, heaviest first.
+ * Sized once; {@link ProcessTracker#top} fills it without allocating.
+ */
+public final class ProcessTop {
+    public final int[] pids;
+    /** Process names as in /proc/[pid]/cmdline, e.g. "com.example.app:remote". */
+    public final String[] names;
+    /** CPU time over the last refresh in percent of one core; NaN right after discovery. */
+    public final float[] cpu;
+    public final long[] rssKb;
+    public int count;
+    /** Processes tracked in total, not just the ones listed. */
+    public int tracked;
+
+    public ProcessTop(int capacity) {
+        pids = new int[capacity];
+        names = new String[capacity];
+        cpu = new float[capacity];
+        rssKb = new long[capacity];
+    }
+
+    public int capacity() {
+        return pids.length;
+    }
+
+    /** Package part of a process name: app processes are named after their package. */
+    public static String packageOf(String processName) {
+        int colon = processName.indexOf(':');
+        return colon < 0 ? processName : processName.substring(0, colon);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * CPU and RSS of every visible process, refreshed incrementally. Per-pid state
+ * lives in parallel arrays indexed through a {@link LongIntMap}; /proc itself is
+ * only listed every few refreshes to pick up new pids, and in between just the
+ * known pids are re-read. A pid whose stat can't be read any more has exited and
+ * is evicted. Only /proc/[pid]/stat is read: it carries utime, stime and rss, so
+ * statm is not needed.
+ */
+public final class ProcessTracker implements Closeable {
+    public static final int BY_CPU = 0;
+    public static final int BY_RSS = 1;
+
+    /** USER_HZ, the unit of utime/stime; 100 on every Android kernel. */
+    static final int CLOCK_TICKS = 100;
+    static final int DEFAULT_MAX_OPEN = 1024;
+
+    private final File procDir;
+    private final SamplingEngine.Clock clock;
+    private final long pageKb;
+    private final int rescanEvery;
+    private final int maxOpen;
+
+    private final LongIntMap index = new LongIntMap(512);
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024);
+    private final long[] fields = new long[4];
+
+    private int count;
+    private int[] pids = new int[0];
+    private String[] names = new String[0];
+    private SysfsNode[] nodes = new SysfsNode[0];
+    private long[] startTimes = new long[0];
+    private long[] cpuTicks = new long[0];
+    private long[] readAt = new long[0];
+    private float[] cpu = new float[0];
+    private long[] rssKb = new long[0];
+    private int[] scanned = new int[0];
+
+    private int refreshes;
+    private int scan;
+    private int[] heap = new int[0];
+
+    /**
+     * @param procDir     usually /proc
+     * @param rescanEvery list /proc on every n-th refresh
+     * @param maxOpen     stat descriptors kept open between refreshes; the rest are reopened each time
+     */
+    public ProcessTracker(File procDir, SamplingEngine.Clock clock, long pageKb, int rescanEvery, int maxOpen) {
+        if (rescanEvery < 1) throw new IllegalArgumentException("rescanEvery must be positive");
+        this.procDir = procDir;
+        this.clock = clock;
+        this.pageKb = pageKb;
+        this.rescanEvery = rescanEvery;
+        this.maxOpen = maxOpen;
+    }
+
+    public synchronized int processCount() {
+        return count;
+    }
+
+    /** Re-reads every known pid, and on every {@code rescanEvery}-th call lists /proc for new ones. */
+    public synchronized void refresh() {
+        if (refreshes++ % rescanEvery == 0) discover();
+        long now = clock.now();
+        for (int i = count - 1; i >= 0; i--) {
+            if (!read(i, now)) evict(i);
+        }
+    }
+
+    /**
+     * Writes the {@code out.capacity()} heaviest processes by {@link #BY_CPU} or
+     * {@link #BY_RSS} to {@code out}, heaviest first. O(n log k) with a bounded heap.
+     */
+    public synchronized void top(int key, ProcessTop out) {
+        int k = out.capacity();
+        if (heap.length < k) heap = new int[k];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size < k) {
+                heap[size] = i;
+                siftUp(size++, key);
+            } else if (weight(i, key) > weight(heap[0], key)) {
+                heap[0] = i;
+                siftDown(0, size, key);
+            }
+        }
+
+        out.count = size;
+        out.tracked = count;
+        // popping the min-heap yields ascending weights; fill from the back
+        while (size > 0) {
+            int i = heap[0];
+            int at = --size;
+            out.pids[at] = pids[i];
+            out.names[at] = names[i];
+            out.cpu[at] = cpu[i];
+            out.rssKb[at] = rssKb[i];
+            heap[0] = heap[size];
+            siftDown(0, size, key);
+        }
+        Arrays.fill(out.names, out.count, k, null);
+    }
+
+    @Override
+    public synchronized void close() {
+        for (int i = 0; i < count; i++) nodes[i].close();
+    }
+
+    private void discover() {
+        String[] entries = procDir.list();
+        if (entries == null) return;
+        scan++;
+        for (String entry : entries) {
+            int pid = SysfsNode.parseIndex(entry, "");
+            if (pid < 0) continue;
+            int i = index.get(pid);
+            if (i == LongIntMap.MISSING) i = add(pid);
+            scanned[i] = scan;
+        }
+        for (int i = count - 1; i >= 0; i--) {
+            if (scanned[i] != scan) evict(i);
+        }
+    }
+
+    private int add(int pid) {
+        if (count == pids.length) grow(Math.max(64, count * 2));
+        int i = count++;
+        pids[i] = pid;
+        nodes[i] = new SysfsNode(pidFile(pid, "stat"));
+        names[i] = cmdline(pidFile(pid, "cmdline"));
+        startTimes[i] = -1;
+        cpu[i] = Float.NaN;
+        rssKb[i] = 0;
+        index.put(pid, i);
+        return i;
+    }
+
+    private boolean read(int i, long now) {
+        SysfsNode node = nodes[i];
+        int n = node.read(buffer);
+        if (i >= maxOpen) node.close();
+        if (n <= 0 || !parseStat(buffer.array(), n, fields)) return false;
+
+        long ticks = fields[0] + fields[1];
+        if (fields[2] != startTimes[i]) {
+            // first read, or the pid was reused by a new process
+            if (startTimes[i] != -1) names[i] = cmdline(pidFile(pids[i], "cmdline"));
+            if (names[i] == null) names[i] = comm(buffer.array(), n);
+            startTimes[i] = fields[2];
+            cpu[i] = Float.NaN;
+        } else if (now > readAt[i]) {
+            cpu[i] = (ticks - cpuTicks[i]) * (100_000f / CLOCK_TICKS) / (now - readAt[i]);
+        }
+        cpuTicks[i] = ticks;
+        readAt[i] = now;
+        rssKb[i] = fields[3] * pageKb;
+        return true;
+    }
+
+    /** Swap-removes entry {@code i}; the last entry takes its place. */
+    private void evict(int i) {
+        nodes[i].close();
+        index.remove(pids[i]);
+        int last = --count;
+        if (i != last) {
+            pids[i] = pids[last];
+            names[i] = names[last];
+            nodes[i] = nodes[last];
+            startTimes[i] = startTimes[last];
+            cpuTicks[i] = cpuTicks[last];
+            readAt[i] = readAt[last];
+            cpu[i] = cpu[last];
+            rssKb[i] = rssKb[last];
+            scanned[i] = scanned[last];
+            index.put(pids[i], i);
+        }
+        names[last] = null;
+        nodes[last] = null;
+    }
+
+    private void grow(int capacity) {
+        pids = Arrays.copyOf(pids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        nodes = Arrays.copyOf(nodes, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        cpuTicks = Arrays.copyOf(cpuTicks, capacity);
+        readAt = Arrays.copyOf(readAt, capacity);
+        cpu = Arrays.copyOf(cpu, capacity);
+        rssKb = Arrays.copyOf(rssKb, capacity);
+        scanned = Arrays.copyOf(scanned, capacity);
+    }
+
+    private double weight(int i, int key) {
+        if (key == BY_RSS) return rssKb[i];
+        return Float.isNaN(cpu[i]) ? -1 : cpu[i];
+    }
+
+    private void siftUp(int at, int key) {
+        int v = heap[at];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (weight(heap[parent], key) <= weight(v, key)) break;
+            heap[at] = heap[parent];
+            at = parent;
+        }
+        heap[at] = v;
+    }
+
+    private void siftDown(int at, int size, int key) {
+        int v = heap[at];
+        while (true) {
+            int child = 2 * at + 1;
+            if (child >= size) break;
+            if (child + 1 < size && weight(heap[child + 1], key) < weight(heap[child], key)) child++;
+            if (weight(v, key) <= weight(heap[child], key)) break;
+            heap[at] = heap[child];
+            at = child;
+        }
+        heap[at] = v;
+    }
+
+    /**
+     * Pulls utime, stime, starttime and rss (fields 14, 15, 22 and 24) out of a
+     * stat line. Counting starts after the last ')' since comm may contain spaces.
+     */
+    static boolean parseStat(byte[] buf, int n, long[] out) {
+        int i = n - 1;
+        while (i >= 0 && buf[i] != ')') i--;
+        if (i < 0) return false;
+        i++;
+
+        int field = 2;
+        int found = 0;
+        while (i < n && found < 4) {
+            while (i < n && buf[i] == ' ') i++;
+            if (i >= n || buf[i] == '\n') break;
+            field++;
+            int slot = field == 14 ? 0 : field == 15 ? 1 : field == 22 ? 2 : field == 24 ? 3 : -1;
+            if (slot < 0) {
+                while (i < n && buf[i] != ' ') i++;
+                continue;
+            }
+            long v = 0;
+            boolean negative = buf[i] == '-';
+            if (negative) i++;
+            while (i < n && buf[i] >= '0' && buf[i] <= '9') v = v * 10 + (buf[i++] - '0');
+            out[slot] = negative ? -v : v;
+            found++;
+        }
+        return found == 4;
+    }
+
+    /** The name in parentheses, used for kernel threads which have an empty cmdline. */
+    private static String comm(byte[] buf, int n) {
+        int open = 0;
+        while (open < n && buf[open] != '(') open++;
+        int close = n - 1;
+        while (close > open && buf[close] != ')') close--;
+        if (close <= open) return "?";
+        return "[" + new String(buf, open + 1, close - open - 1, StandardCharsets.US_ASCII) + "]";
+    }
+
+    private File pidFile(int pid, String name) {
+        return new File(new File(procDir, Integer.toString(pid)), name);
+    }
+
+    private static String cmdline(File file) {
+        String text = SysfsNode.readText(file);
+        if (text == null) return null;
+        int nul = text.indexOf('\0');
+        if (nul >= 0) text = text.substring(0, nul);
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Proportional set size per pid, fetched on demand and kept for a TTL.
+ * Measuring PSS walks every page table of the process, and Android 10+
+ * rate-limits ActivityManager.getProcessMemoryInfo per caller, so each
+ * {@link #get} only asks the source about pids whose value has expired, all
+ * in one batch. Nothing is allocated once the tables have grown to fit.
+ */
+public final class PssCache {
+    public static final long UNKNOWN = -1;
+
+    /** Measures a batch of processes, e.g. through getProcessMemoryInfo. */
+    public interface Source {
+        /** Fills {@code outKb[i]} for the first {@code count} pids, UNKNOWN where a pid can't be measured. */
+        void read(int[] pids, int count, long[] outKb);
+    }
+
+    private final Source source;
+    private final SamplingEngine.Clock clock;
+    private final long ttlMs;
+
+    private final LongIntMap slots = new LongIntMap(64);
+    private int[] entryPids = new int[64];
+    private long[] entryKb = new long[64];
+    private long[] fetchedAt = new long[64];
+    private int used;
+
+    // scratch for the batch sent to the source
+    private int[] stalePids = new int[16];
+    private long[] staleKb = new long[16];
+    private int[] staleSlots = new int[16];
+
+    private long queries;
+
+    public PssCache(Source source, SamplingEngine.Clock clock, long ttlMs) {
+        this.source = source;
+        this.clock = clock;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Fills {@code outKb[i]} with the PSS of {@code pids[i]} for the first
+     * {@code count} entries, measuring the ones not seen within the TTL.
+     */
+    public synchronized void get(int[] pids, int count, long[] outKb) {
+        long now = clock.now();
+        // only between batches, so no slot queued below can move
+        if (used + count > entryPids.length) evictExpired(now);
+        int stale = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = slots.get(pids[i]);
+            if (slot != LongIntMap.MISSING && now - fetchedAt[slot] < ttlMs) continue;
+            if (slot == LongIntMap.MISSING) slot = add(pids[i], now);
+            if (stale == stalePids.length) growScratch();
+            stalePids[stale] = pids[i];
+            staleSlots[stale] = slot;
+            stale++;
+        }
+        if (stale > 0) {
+            Arrays.fill(staleKb, 0, stale, UNKNOWN);
+            source.read(stalePids, stale, staleKb);
+            queries++;
+            for (int s = 0; s < stale; s++) {
+                entryKb[staleSlots[s]] = staleKb[s];
+                fetchedAt[staleSlots[s]] = now;
+            }
+        }
+        for (int i = 0; i < count; i++) outKb[i] = entryKb[slots.get(pids[i])];
+    }
+
+    /** Batches sent to the source so far. */
+    public synchronized long getQueries() {
+        return queries;
+    }
+
+    public synchronized int size() {
+        return used;
+    }
+
+    private int add(int pid, long now) {
+        if (used == entryPids.length) {
+            int size = used * 2;
+            entryPids = Arrays.copyOf(entryPids, size);
+            entryKb = Arrays.copyOf(entryKb, size);
+            fetchedAt = Arrays.copyOf(fetchedAt, size);
+        }
+        int slot = used++;
+        entryPids[slot] = pid;
+        entryKb[slot] = UNKNOWN;
+        fetchedAt[slot] = now - ttlMs; // expired until the source has answered
+        slots.put(pid, slot);
+        return slot;
+    }
+
+    /** Drops entries past their TTL, e.g. of processes that have exited, compacting the rest. */
+    private void evictExpired(long now) {
+        int kept = 0;
+        for (int s = 0; s < used; s++) {
+            if (now - fetchedAt[s] >= ttlMs) {
+                slots.remove(entryPids[s]);
+                continue;
+            }
+            entryPids[kept] = entryPids[s];
+            entryKb[kept] = entryKb[s];
+            fetchedAt[kept] = fetchedAt[s];
+            slots.put(entryPids[kept], kept);
+            kept++;
+        }
+        used = kept;
+    }
+
+    private void growScratch() {
+        int size = stalePids.length * 2;
+        stalePids = Arrays.copyOf(stalePids, size);
+        staleKb = Arrays.copyOf(staleKb, size);
+        staleSlots = Arrays.copyOf(staleSlots, size);
+    }
+}
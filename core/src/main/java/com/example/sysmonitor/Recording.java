@@ -0,0 +1,349 @@
+package com.example.sysmonitor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Continuous capture of a fixed set of columns into a {@link MetricRecorder}.
+ * A row of the columns' latest values is taken on the engine's thread every
+ * interval and kept in memory; the batch reaches the recorder in one go every
+ * flush period, so storage sees a few large sequential writes instead of a
+ * page dirtied per sample.
+ *
+ * The batch is written and forced to storage on a writer thread of its own,
+ * one wakeup per flush period, so the engine's thread never waits on the
+ * disk. Two batches take turns: one fills while the other is written.
+ *
+ * Rows can also go to a {@link RowSink} as they are taken, with or without a
+ * recorder, e.g. to stream them off the device.
+ */
+public final class Recording {
+
+    /** Turns a metric's value into the number stored in its column. */
+    public interface Column<T> {
+        float of(T value);
+    }
+
+    /** Receives every row as it is taken, on the engine's thread. */
+    public interface RowSink {
+        /** {@code row} is reused for the next row. */
+        void onRow(long timeMs, float[] row);
+    }
+
+    /** Cost of a recording so far. */
+    public static final class Overhead {
+        public final long elapsedMs;
+        /** CPU time of the whole process, as reported by the CPU clock. */
+        public final long cpuMs;
+        /** Times the engine's thread woke up to look for due metrics. */
+        public final long wakeups;
+        public final long bytesWritten;
+        public final long rows;
+        public final long flushes;
+        public final long failedFlushes;
+
+        Overhead(long elapsedMs, long cpuMs, long wakeups, long bytesWritten,
+                 long rows, long flushes, long failedFlushes) {
+            this.elapsedMs = elapsedMs;
+            this.cpuMs = cpuMs;
+            this.wakeups = wakeups;
+            this.bytesWritten = bytesWritten;
+            this.rows = rows;
+            this.flushes = flushes;
+            this.failedFlushes = failedFlushes;
+        }
+
+        public double wakeupsPerMinute() {
+            return elapsedMs > 0 ? wakeups * 60_000.0 / elapsedMs : Double.NaN;
+        }
+
+        /** Share of one core spent by the process while recording. */
+        public double cpuPercent() {
+            return elapsedMs > 0 ? cpuMs * 100.0 / elapsedMs : Double.NaN;
+        }
+    }
+
+    private static final class Binding<T> {
+        final Metric<T> metric;
+        final Column<? super T> column;
+
+        Binding(Metric<T> metric, Column<? super T> column) {
+            this.metric = metric;
+            this.column = column;
+        }
+
+        float read() {
+            T value = metric.getLast();
+            return value == null ? Float.NaN : column.of(value);
+        }
+    }
+
+    private final SamplingEngine engine;
+    private final SamplingEngine.Clock clock;
+    private final SamplingEngine.Clock cpuClock;
+    private final long flushEveryMs;
+    private final int batchRows;
+    private final Metric<Recording> tick;
+    private final List<String> names = new ArrayList<>();
+    private final List<Binding<?>> bindings = new ArrayList<>();
+    private final List<Metric.Subscription> subscriptions = new ArrayList<>();
+
+    /** Rows taken since the last flush, or being written. */
+    private static final class Batch {
+        final long[] times;
+        final float[] rows;
+        int count;
+
+        Batch(int capacity, int columns) {
+            times = new long[capacity];
+            rows = new float[capacity * columns];
+        }
+    }
+
+    private final Executor writer;
+    private MetricRecorder out;
+    private RowSink sink;
+    private Batch filling;
+    // the other batch while the writer isn't using it, else null
+    private Batch spare;
+    private float[] row;
+    // writer thread only
+    private float[] writeRow;
+    private boolean stopping;
+    private long lastFlush;
+
+    private long startMs;
+    private long startCpuMs;
+    private long startWakeups;
+    private long startBytes;
+    private long rowCount;
+    private long bytesWritten;
+    private long flushes;
+    private long failedFlushes;
+    private Overhead finished;
+
+    /**
+     * @param clock        wall time, stamped on every row
+     * @param cpuClock     CPU time consumed so far, in milliseconds
+     * @param intervalMs   time between rows
+     * @param flushEveryMs time between writes to the recorder
+     */
+    public Recording(SamplingEngine engine, SamplingEngine.Clock clock, SamplingEngine.Clock cpuClock,
+                     long intervalMs, long flushEveryMs) {
+        this(engine, clock, cpuClock, intervalMs, flushEveryMs, Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "RecordingWriter");
+            t.setDaemon(true);
+            return t;
+        }));
+    }
+
+    /** @param writer runs the writes to the recorder, one batch at a time */
+    Recording(SamplingEngine engine, SamplingEngine.Clock clock, SamplingEngine.Clock cpuClock,
+              long intervalMs, long flushEveryMs, Executor writer) {
+        if (flushEveryMs < intervalMs) {
+            throw new IllegalArgumentException("Flush period " + flushEveryMs + " shorter than interval " + intervalMs);
+        }
+        this.engine = engine;
+        this.writer = writer;
+        this.clock = clock;
+        this.cpuClock = cpuClock;
+        this.flushEveryMs = flushEveryMs;
+        // room for one period plus a late tick
+        this.batchRows = (int) (flushEveryMs / intervalMs) + 2;
+        this.tick = engine.registerDerived("recording", SamplingPolicy.fixed(intervalMs), this::sampleRow);
+    }
+
+    /** Adds a column; only allowed while not recording. */
+    public synchronized <T> void addColumn(String name, Metric<T> metric, Column<? super T> column) {
+        if (out != null || sink != null) throw new IllegalStateException("Recording in progress");
+        names.add(name);
+        bindings.add(new Binding<>(metric, column));
+    }
+
+    public synchronized List<String> getColumnNames() {
+        return new ArrayList<>(names);
+    }
+
+    public synchronized int getColumnCount() {
+        return bindings.size();
+    }
+
+    public synchronized boolean isRecording() {
+        return out != null;
+    }
+
+    /**
+     * Keeps every column's metric sampled and starts writing rows to
+     * {@code recorder}, which must have one series per column.
+     */
+    public synchronized void start(MetricRecorder recorder) {
+        if (out != null) throw new IllegalStateException("Already recording");
+        allocateRows();
+        out = recorder;
+        filling.count = 0;
+        rowCount = 0;
+        flushes = 0;
+        failedFlushes = 0;
+        finished = null;
+        startMs = clock.now();
+        lastFlush = startMs;
+        startCpuMs = cpuClock.now();
+        startWakeups = engine.getWakeups();
+        startBytes = recorder.getBytesWritten();
+        bytesWritten = startBytes;
+        if (sink == null) keepSampling();
+    }
+
+    /**
+     * Hands every row to {@code sink} from now on, keeping the columns sampled
+     * even while nothing is recorded; null stops it.
+     */
+    public synchronized void setSink(RowSink sink) {
+        boolean wasActive = this.sink != null || out != null;
+        this.sink = sink;
+        if (sink != null) allocateRows();
+        boolean active = sink != null || out != null;
+        if (active && !wasActive) keepSampling();
+        if (!active && wasActive) stopSampling();
+    }
+
+    /**
+     * Writes out whatever is still batched and stops sampling for this
+     * recording, returning once the recorder has it all; the recorder is left
+     * open for the caller to close. Rows are not taken while this waits, but
+     * the engine's thread is never blocked behind the write.
+     */
+    public synchronized Overhead stop() {
+        if (out == null || stopping) return finished;
+        stopping = true;
+        if (sink == null) stopSampling();
+        awaitWriter();
+        flush(clock.now());
+        awaitWriter();
+        finished = overhead();
+        out = null;
+        stopping = false;
+        return finished;
+    }
+
+    /** Waits, without holding the monitor, until no batch is being written. */
+    private void awaitWriter() {
+        boolean interrupted = false;
+        while (spare == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /** Overhead of the current recording, or of the last one once stopped. */
+    public synchronized Overhead getOverhead() {
+        return out != null ? overhead() : finished;
+    }
+
+    private void allocateRows() {
+        int columns = bindings.size();
+        if (row == null || row.length != columns) {
+            // only while not recording, so the writer holds neither batch
+            filling = new Batch(batchRows, columns);
+            spare = new Batch(batchRows, columns);
+            row = new float[columns];
+            writeRow = new float[columns];
+        }
+    }
+
+    private void keepSampling() {
+        // The tick is a derived metric, so within one engine pass it sees the
+        // values sampled in that same pass, including reads with a deadline.
+        Metric.Listener<Object> keepAlive = v -> {};
+        List<Metric<?>> seen = new ArrayList<>();
+        for (Binding<?> b : bindings) {
+            if (seen.contains(b.metric)) continue;
+            seen.add(b.metric);
+            subscriptions.add(b.metric.subscribe(keepAlive));
+        }
+        subscriptions.add(tick.subscribe(keepAlive));
+    }
+
+    private void stopSampling() {
+        for (Metric.Subscription s : subscriptions) s.cancel();
+        subscriptions.clear();
+    }
+
+    private Overhead overhead() {
+        return new Overhead(clock.now() - startMs, cpuClock.now() - startCpuMs,
+                engine.getWakeups() - startWakeups, bytesWritten - startBytes,
+                rowCount, flushes, failedFlushes);
+    }
+
+    private synchronized Recording sampleRow() {
+        if (out == null && sink == null) return this;
+        long now = clock.now();
+        int columns = row.length;
+        for (int i = 0; i < columns; i++) row[i] = bindings.get(i).read();
+        if (sink != null) sink.onRow(now, row);
+        if (out == null || stopping) return this;
+        if (filling.count == batchRows) {
+            // The writer is still busy with the previous batch. This one is
+            // dropped rather than grown so memory stays bounded.
+            filling.count = 0;
+            failedFlushes++;
+        }
+        filling.times[filling.count] = now;
+        System.arraycopy(row, 0, filling.rows, filling.count * columns, columns);
+        filling.count++;
+        rowCount++;
+        if (filling.count == batchRows || now - lastFlush >= flushEveryMs) flush(now);
+        return this;
+    }
+
+    /** Hands the filled batch to the writer; if it is still busy, keeps batching. */
+    private void flush(long now) {
+        if (filling.count == 0) {
+            lastFlush = now;
+            return;
+        }
+        if (spare == null) return;
+        lastFlush = now;
+        Batch batch = filling;
+        filling = spare;
+        spare = null;
+        MetricRecorder recorder = out;
+        writer.execute(() -> write(recorder, batch));
+    }
+
+    /** Writer thread: appends and forces one batch, then gives it back. */
+    private void write(MetricRecorder recorder, Batch batch) {
+        int columns = writeRow.length;
+        boolean ok = false;
+        try {
+            for (int r = 0; r < batch.count; r++) {
+                System.arraycopy(batch.rows, r * columns, writeRow, 0, columns);
+                recorder.append(batch.times[r], writeRow);
+            }
+            recorder.flush();
+            ok = true;
+        } catch (IOException e) {
+            // The batch is dropped rather than retried so memory stays bounded.
+        } finally {
+            long written = recorder.getBytesWritten();
+            synchronized (this) {
+                if (ok) {
+                    flushes++;
+                } else {
+                    failedFlushes++;
+                }
+                bytesWritten = written;
+                batch.count = 0;
+                spare = batch;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Byte-aligned Gorilla-style encoding of one row of samples: the timestamp as a
+ * zigzag varint delta-of-delta, each value as the XOR with the previous value
+ * of its series. An unchanged value costs one byte; a changed one costs a byte
+ * for the trailing-zero count plus a varint of the remaining significant bits.
+ *
+ * Record layout: varint payload length, payload, 4-byte FNV-1a of the payload.
+ * A zero length byte marks the end of data.
+ */
+final class SampleCodec {
+    static final int CHECKSUM_BYTES = 4;
+
+    private final int[] prevBits;
+    private final int[] nextBits;
+    private final int[] cursor = new int[1];
+    private long prevTime;
+    private long prevDelta;
+
+    SampleCodec(int seriesCount) {
+        prevBits = new int[seriesCount];
+        nextBits = new int[seriesCount];
+    }
+
+    int seriesCount() {
+        return prevBits.length;
+    }
+
+    void reset() {
+        Arrays.fill(prevBits, 0);
+        prevTime = 0;
+        prevDelta = 0;
+    }
+
+    /** Upper bound of one encoded record including framing. */
+    static int maxRecordBytes(int seriesCount) {
+        return 5 + 10 + seriesCount * 6 + CHECKSUM_BYTES;
+    }
+
+    /**
+     * Encodes a full record at {@code buf[pos]}, advancing the codec state.
+     *
+     * @return position after the record
+     */
+    int encode(byte[] buf, int pos, long timeMs, float[] values) {
+        // Payload first at a fixed offset, then slide it behind its length prefix.
+        int start = pos + 5;
+        int p = start;
+        long delta = timeMs - prevTime;
+        p = Varint.write(buf, p, Varint.zigzag(delta - prevDelta));
+        prevDelta = delta;
+        prevTime = timeMs;
+
+        for (int i = 0; i < prevBits.length; i++) {
+            int bits = Float.floatToRawIntBits(values[i]);
+            int xor = bits ^ prevBits[i];
+            prevBits[i] = bits;
+            if (xor == 0) {
+                buf[p++] = 0;
+            } else {
+                int tz = Integer.numberOfTrailingZeros(xor);
+                buf[p++] = (byte) (tz + 1);
+                p = Varint.write(buf, p, (xor >>> tz) & 0xFFFFFFFFL);
+            }
+        }
+
+        int len = p - start;
+        int headerEnd = Varint.write(buf, pos, len);
+        System.arraycopy(buf, start, buf, headerEnd, len);
+        int end = headerEnd + len;
+        int sum = Varint.fnv1a(buf, headerEnd, end);
+        buf[end++] = (byte) (sum >>> 24);
+        buf[end++] = (byte) (sum >>> 16);
+        buf[end++] = (byte) (sum >>> 8);
+        buf[end++] = (byte) sum;
+        return end;
+    }
+
+    /**
+     * Decodes the record at {@code pos[0]} into {@code out} and returns its
+     * timestamp, advancing {@code pos}. Returns {@code Long.MIN_VALUE} without
+     * touching codec state or {@code pos} at the end of data or on a torn or
+     * corrupt record.
+     */
+    long decode(byte[] buf, int[] pos, int limit, float[] out) {
+        int start = pos[0];
+        if (start >= limit || buf[start] == 0) return Long.MIN_VALUE;
+
+        long len = Varint.read(buf, pos, limit);
+        int payload = pos[0];
+        pos[0] = start;
+        if (payload == start || len <= 0 || payload + len + CHECKSUM_BYTES > limit) return Long.MIN_VALUE;
+
+        int end = payload + (int) len;
+        int sum = ((buf[end] & 0xFF) << 24) | ((buf[end + 1] & 0xFF) << 16)
+                | ((buf[end + 2] & 0xFF) << 8) | (buf[end + 3] & 0xFF);
+        if (sum != Varint.fnv1a(buf, payload, end)) return Long.MIN_VALUE;
+
+        cursor[0] = payload;
+        long dod = Varint.unzigzag(Varint.read(buf, cursor, end));
+        long delta = prevDelta + dod;
+        long time = prevTime + delta;
+
+        for (int i = 0; i < prevBits.length; i++) {
+            if (cursor[0] >= end) return Long.MIN_VALUE;
+            int ctl = buf[cursor[0]++];
+            int bits = prevBits[i];
+            if (ctl != 0) {
+                bits ^= (int) Varint.read(buf, cursor, end) << (ctl - 1);
+            }
+            nextBits[i] = bits;
+            out[i] = Float.intBitsToFloat(bits);
+        }
+        // Commit state only once the whole record decoded.
+        System.arraycopy(nextBits, 0, prevBits, 0, prevBits.length);
+        prevDelta = delta;
+        prevTime = time;
+        pos[0] = end + CHECKSUM_BYTES;
+        return time;
+    }
+}
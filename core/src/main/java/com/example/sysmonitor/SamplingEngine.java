@@ -0,0 +1,299 @@
+package com.example.sysmonitor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide sampling scheduler. Owns one collection thread; every registered
+ * {@link Metric} is read at most once per tick and the value is handed to all
+ * of its listeners. Metrics without listeners are not read at all, and each
+ * active one is due again after its own {@link SamplingPolicy} interval.
+ * Metrics whose policy has a deadline are read on worker threads so a hung
+ * sysfs node costs the tick at most that deadline. Derived metrics, which
+ * read other metrics' last values, are sampled after every other read of the
+ * same tick has published, deadline reads included.
+ */
+public final class SamplingEngine {
+
+    public interface Clock {
+        long now();
+
+        Clock SYSTEM = () -> System.nanoTime() / 1_000_000L;
+    }
+
+    /** Running total of bytes allocated by the calling thread. */
+    public interface Allocations {
+        long currentThreadAllocatedBytes();
+
+        /** The JVM's own counter, or null where there is none (Android). */
+        static Allocations hotSpot() {
+            try {
+                return HotSpotAllocations.create();
+            } catch (LinkageError | RuntimeException e) {
+                return null;
+            }
+        }
+    }
+
+    static final long DEFAULT_BUDGET_MS = 50;
+
+    static final long IDLE = Long.MAX_VALUE;
+
+    private final Clock clock;
+    private final List<Metric<?>> metrics = new ArrayList<>();
+    private final Object lock = new Object();
+    private Thread thread;
+    // a thread told to stop that may still be inside runDue()
+    private Thread stopping;
+    private volatile boolean running;
+    private long nextTick = IDLE;
+    private volatile long wakeups;
+    volatile Allocations allocations;
+    volatile long budgetNanos = DEFAULT_BUDGET_MS * 1_000_000L;
+    // Only touched by whichever thread drives runDue().
+    private Metric<?>[] due = new Metric<?>[8];
+    // Reads of metrics with a deadline; a read stuck in the kernel keeps its thread.
+    private ExecutorService readers;
+
+    public SamplingEngine(Clock clock) {
+        this.clock = clock;
+    }
+
+    public <T> Metric<T> register(String name, Metric.Source<T> source) {
+        return register(name, SamplingPolicy.DEFAULT, source, Metric.Change.EQUALS);
+    }
+
+    public <T> Metric<T> register(String name, SamplingPolicy policy, Metric.Source<T> source) {
+        return register(name, policy, source, Metric.Change.EQUALS);
+    }
+
+    public <T> Metric<T> register(String name, SamplingPolicy policy, Metric.Source<T> source,
+                                  Metric.Change<? super T> change) {
+        return add(new Metric<>(this, name, policy, source, change, false));
+    }
+
+    /**
+     * Registers a metric computed from other metrics' {@link Metric#getLast}
+     * values. It is sampled inline at the end of each tick, so it sees what
+     * the other metrics read in that same tick.
+     */
+    public <T> Metric<T> registerDerived(String name, SamplingPolicy policy, Metric.Source<T> source) {
+        if (policy.deadlineMs > 0) throw new IllegalArgumentException("Derived metric " + name + " with a deadline");
+        return add(new Metric<>(this, name, policy, source, Metric.Change.EQUALS, true));
+    }
+
+    private <T> Metric<T> add(Metric<T> metric) {
+        synchronized (lock) {
+            metrics.add(metric);
+        }
+        return metric;
+    }
+
+    public List<Metric<?>> getMetrics() {
+        synchronized (lock) {
+            return new ArrayList<>(metrics);
+        }
+    }
+
+    /** Total reads avoided by backoff across all metrics. */
+    public long getSkippedReads() {
+        long total = 0;
+        for (Metric<?> m : getMetrics()) total += m.getSkippedReads();
+        return total;
+    }
+
+    /**
+     * Counts bytes allocated by every read from now on; null stops counting.
+     * Off by default, since some runtimes slow all allocation down while on.
+     */
+    public void setAllocations(Allocations allocations) {
+        this.allocations = allocations;
+    }
+
+    /** Reads slower than this count as timeouts in each metric's {@link SourceStats}. */
+    public void setBudgetMs(long budgetMs) {
+        this.budgetNanos = budgetMs * 1_000_000L;
+    }
+
+    /**
+     * Writes one line per metric that has been read: reads, latency
+     * percentiles in microseconds, failures, timeouts, bytes per read and
+     * whether the last value is stale or the source quarantined.
+     */
+    public void dump(Appendable out) throws IOException {
+        out.append(String.format(Locale.US, "%-20s %8s %8s %8s %8s %6s %6s %8s  %s%n",
+                "metric", "reads", "p50us", "p99us", "maxus", "fail", "slow", "B/read", "state"));
+        for (Metric<?> m : getMetrics()) {
+            SourceStats s = m.getStats();
+            if (s.getSamples() == 0) continue;
+            double alloc = s.getAllocatedBytesPerSample();
+            String state = m.isQuarantined() ? "quarantined" : m.isStale() ? "stale" : "ok";
+            out.append(String.format(Locale.US, "%-20s %8d %8.1f %8.1f %8.1f %6d %6d %8s  %s%n",
+                    m.getName(), s.getSamples(),
+                    s.getLatencyNanos(50) / 1000.0, s.getLatencyNanos(99) / 1000.0,
+                    s.getMaxLatencyNanos() / 1000.0, s.getFailures(), s.getTimeouts(),
+                    Double.isNaN(alloc) ? "-" : String.format(Locale.US, "%.0f", alloc), state));
+        }
+    }
+
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        try {
+            dump(sb);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return sb.toString();
+    }
+
+    /** Calls to {@link #runDue}, i.e. times the engine's thread woke up. */
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Starts the engine's thread. After a {@link #shutdown} this first waits
+     * for the old thread to leave its tick, since {@link #runDue} must never
+     * run on two threads at once.
+     */
+    public void start() {
+        Thread previous;
+        synchronized (this) {
+            if (thread != null) return;
+            previous = stopping;
+        }
+        // outside the monitor: the old loop may still need it for readers()
+        if (previous != null && previous != Thread.currentThread()) joinUninterruptibly(previous);
+        synchronized (this) {
+            if (thread != null) return;
+            stopping = null;
+            running = true;
+            thread = new Thread(this::loop, "SamplingEngine");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /** Stops the engine's thread without waiting for a tick in progress to end. */
+    public synchronized void shutdown() {
+        running = false;
+        if (readers != null) {
+            // Reads that never started would otherwise never complete, and the
+            // metric would wait on them again after a restart.
+            for (Runnable queued : readers.shutdownNow()) {
+                if (queued instanceof Future) ((Future<?>) queued).cancel(false);
+            }
+        }
+        readers = null;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        if (thread != null) stopping = thread;
+        thread = null;
+    }
+
+    private static void joinUninterruptibly(Thread t) {
+        boolean interrupted = false;
+        while (t.isAlive()) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Samples every active metric that is due at {@code now}.
+     *
+     * @return time the next metric is due, or {@link #IDLE} when nothing is subscribed
+     */
+    public long runDue(long now) {
+        wakeups++;
+        int count = 0;
+        synchronized (lock) {
+            if (nextTick == IDLE || now < nextTick) return nextTick;
+            for (Metric<?> m : metrics) {
+                if (!m.hasListeners()) {
+                    m.nextDue = IDLE;
+                    continue;
+                }
+                if (m.nextDue > now) continue;
+                if (count == due.length) due = Arrays.copyOf(due, Math.max(4, count * 2));
+                due[count++] = m;
+            }
+        }
+        // Deadline reads run in parallel with the inline ones, which publish
+        // without waiting for them; only then does this thread wait, each read
+        // at most until its own deadline. Derived metrics go last.
+        for (int i = 0; i < count; i++) {
+            if (due[i].hasDeadline()) due[i].startRead(now, readers());
+        }
+        for (int i = 0; i < count; i++) {
+            if (!due[i].hasDeadline() && !due[i].derived) due[i].sampleAndPublish(now);
+        }
+        for (int i = 0; i < count; i++) {
+            if (due[i].hasDeadline()) due[i].finishRead(now);
+        }
+        for (int i = 0; i < count; i++) {
+            if (due[i].derived) due[i].sampleAndPublish(now);
+            due[i] = null;
+        }
+        synchronized (lock) {
+            long next = IDLE;
+            for (Metric<?> m : metrics) {
+                if (m.hasListeners() && m.nextDue < next) next = m.nextDue;
+            }
+            // A subscription made while sampling may already have asked for an earlier tick.
+            if (nextTick <= now || next < nextTick) nextTick = next;
+            return nextTick;
+        }
+    }
+
+    private synchronized ExecutorService readers() {
+        if (readers == null) {
+            readers = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "SamplingEngine-read");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return readers;
+    }
+
+    /** Called by a metric when it gains its first listener. */
+    void onActivated(Metric<?> metric) {
+        synchronized (lock) {
+            long now = clock.now();
+            metric.reset(now);
+            if (nextTick == IDLE || nextTick > now) nextTick = now;
+            lock.notifyAll();
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            runDue(clock.now());
+            synchronized (lock) {
+                if (!running) break;
+                try {
+                    if (nextTick == IDLE) {
+                        lock.wait();
+                    } else {
+                        long wait = nextTick - clock.now();
+                        if (wait > 0) lock.wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
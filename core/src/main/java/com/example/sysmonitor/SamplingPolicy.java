@@ -0,0 +1,58 @@
+package com.example.sysmonitor;
+
+/**
+ * How often a {@link Metric} is read. A metric starts at the base interval,
+ * doubles it (up to the max) after every sample that moved by no more than
+ * the threshold, and drops to the min interval as soon as it moves again.
+ *
+ * A policy {@link #withDeadline with a deadline} reads its source on a worker
+ * thread instead of the engine's, so one blocking node can't hold up the rest.
+ */
+public final class SamplingPolicy {
+    public static final SamplingPolicy DEFAULT = fixed(1000);
+
+    public final long baseMs;
+    public final long minMs;
+    public final long maxMs;
+    public final double threshold;
+    /** Longest wait for one read before the last value is reused; 0 reads inline. */
+    public final long deadlineMs;
+
+    private SamplingPolicy(long baseMs, long minMs, long maxMs, double threshold, long deadlineMs) {
+        if (minMs <= 0 || minMs > baseMs || baseMs > maxMs) {
+            throw new IllegalArgumentException("Expected 0 < min <= base <= max, got "
+                    + minMs + "/" + baseMs + "/" + maxMs);
+        }
+        this.baseMs = baseMs;
+        this.minMs = minMs;
+        this.maxMs = maxMs;
+        this.threshold = threshold;
+        this.deadlineMs = deadlineMs;
+    }
+
+    public static SamplingPolicy fixed(long intervalMs) {
+        return new SamplingPolicy(intervalMs, intervalMs, intervalMs, 0, 0);
+    }
+
+    public static SamplingPolicy adaptive(long baseMs, long minMs, long maxMs, double threshold) {
+        return new SamplingPolicy(baseMs, minMs, maxMs, threshold, 0);
+    }
+
+    /**
+     * Same intervals, but a read that takes longer than {@code deadlineMs}
+     * republishes the previous value marked {@link Metric#isStale stale}.
+     */
+    public SamplingPolicy withDeadline(long deadlineMs) {
+        if (deadlineMs <= 0) throw new IllegalArgumentException("Deadline must be positive, got " + deadlineMs);
+        return new SamplingPolicy(baseMs, minMs, maxMs, threshold, deadlineMs);
+    }
+
+    boolean isFixed() {
+        return minMs == maxMs;
+    }
+
+    long next(long currentMs, boolean changed) {
+        if (changed) return minMs;
+        return Math.min(maxMs, currentMs * 2);
+    }
+}
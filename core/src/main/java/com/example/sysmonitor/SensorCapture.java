@@ -0,0 +1,178 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Raw events of one multi-axis sensor in a preallocated ring, plus running
+ * mean, variance and RMS per axis and the rate and jitter the sensor actually
+ * delivered, both taken from event timestamps rather than arrival times so
+ * that hardware batching doesn't skew them. {@link #add} allocates nothing;
+ * readers copy the aggregates into a reused {@link Stats} once per frame.
+ */
+public final class SensorCapture {
+
+    /** A copy of the aggregates, filled by {@link #snapshot}. */
+    public static final class Stats {
+        public final float[] latest;
+        public final double[] mean;
+        public final double[] variance;
+        public final double[] rms;
+        public long count;
+        /** Events per second over the timestamps seen; NaN with fewer than two events. */
+        public double rateHz;
+        /** Mean interval between events; NaN with fewer than two events. */
+        public double meanIntervalNs;
+        /** Standard deviation of the interval between events. */
+        public double jitterNs;
+        /** Longest interval between events, e.g. a dropped batch. */
+        public long maxIntervalNs;
+
+        public Stats(int channels) {
+            latest = new float[channels];
+            mean = new double[channels];
+            variance = new double[channels];
+            rms = new double[channels];
+        }
+
+        public double stdDev(int channel) {
+            return Math.sqrt(variance[channel]);
+        }
+    }
+
+    private final int channels;
+    private final int capacity;
+    private final float[] values;
+    private final long[] timestamps;
+    private int head;
+    private int size;
+
+    private long count;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] sumSquares;
+
+    private long firstNs;
+    private long lastNs;
+    private long intervals;
+    private double intervalMean;
+    private double intervalM2;
+    private long maxInterval;
+
+    public SensorCapture(int channels, int capacity) {
+        this.channels = channels;
+        this.capacity = capacity;
+        values = new float[channels * capacity];
+        timestamps = new long[capacity];
+        mean = new double[channels];
+        m2 = new double[channels];
+        sumSquares = new double[channels];
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Adds one event. Axes beyond {@link #getChannels} are ignored, missing
+     * ones read as 0. An event whose timestamp doesn't advance still counts
+     * towards the value statistics but not towards rate and jitter.
+     */
+    public synchronized void add(long timestampNs, float[] event) {
+        int base = head * channels;
+        int n = Math.min(channels, event.length);
+        for (int c = 0; c < channels; c++) values[base + c] = c < n ? event[c] : 0f;
+        timestamps[head] = timestampNs;
+        head = head + 1 == capacity ? 0 : head + 1;
+        if (size < capacity) size++;
+
+        count++;
+        for (int c = 0; c < channels; c++) {
+            double v = values[base + c];
+            double delta = v - mean[c];
+            mean[c] += delta / count;
+            m2[c] += delta * (v - mean[c]);
+            sumSquares[c] += v * v;
+        }
+
+        if (count == 1) {
+            firstNs = timestampNs;
+        } else if (timestampNs > lastNs) {
+            long interval = timestampNs - lastNs;
+            intervals++;
+            double delta = interval - intervalMean;
+            intervalMean += delta / intervals;
+            intervalM2 += delta * (interval - intervalMean);
+            if (interval > maxInterval) maxInterval = interval;
+        }
+        if (count == 1 || timestampNs > lastNs) lastNs = timestampNs;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /** Copies the aggregates into {@code into}, which must have at least as many channels. */
+    public synchronized void snapshot(Stats into) {
+        into.count = count;
+        for (int c = 0; c < channels; c++) {
+            into.latest[c] = size == 0 ? 0f : values[slot(size - 1) * channels + c];
+            into.mean[c] = count == 0 ? Double.NaN : mean[c];
+            into.variance[c] = count < 2 ? 0 : m2[c] / (count - 1);
+            into.rms[c] = count == 0 ? Double.NaN : Math.sqrt(sumSquares[c] / count);
+        }
+        if (intervals == 0) {
+            into.rateHz = Double.NaN;
+            into.meanIntervalNs = Double.NaN;
+            into.jitterNs = 0;
+        } else {
+            into.rateHz = intervals * 1e9 / (lastNs - firstNs);
+            into.meanIntervalNs = intervalMean;
+            into.jitterNs = intervals < 2 ? 0 : Math.sqrt(intervalM2 / (intervals - 1));
+        }
+        into.maxIntervalNs = maxInterval;
+    }
+
+    /**
+     * Copies the most recent values of {@code channel}, oldest first, into
+     * {@code into}, e.g. for a plot.
+     *
+     * @return number of values written
+     */
+    public synchronized int copyRecent(int channel, float[] into) {
+        int n = Math.min(size, into.length);
+        for (int i = 0; i < n; i++) into[i] = values[slot(size - n + i) * channels + channel];
+        return n;
+    }
+
+    /** Timestamps matching {@link #copyRecent}, oldest first. */
+    public synchronized int copyRecentTimestamps(long[] into) {
+        int n = Math.min(size, into.length);
+        for (int i = 0; i < n; i++) into[i] = timestamps[slot(size - n + i)];
+        return n;
+    }
+
+    public synchronized void reset() {
+        head = 0;
+        size = 0;
+        count = 0;
+        Arrays.fill(mean, 0);
+        Arrays.fill(m2, 0);
+        Arrays.fill(sumSquares, 0);
+        firstNs = 0;
+        lastNs = 0;
+        intervals = 0;
+        intervalMean = 0;
+        intervalM2 = 0;
+        maxInterval = 0;
+    }
+
+    /** Slot of the i-th oldest event still in the ring. */
+    private int slot(int i) {
+        int s = head - size + i;
+        return s < 0 ? s + capacity : s;
+    }
+}
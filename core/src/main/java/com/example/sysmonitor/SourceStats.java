@@ -0,0 +1,71 @@
+package com.example.sysmonitor;
+
+/**
+ * What one {@link Metric}'s source has cost so far: latency of every read,
+ * reads that threw, timeouts and, where the runtime can count them, bytes
+ * allocated per read.
+ */
+public final class SourceStats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long failures;
+    private long timeouts;
+    private long allocatedBytes;
+    private long allocationSamples;
+
+    synchronized void record(long nanos, boolean failed, boolean overBudget, long allocated) {
+        latency.record(nanos);
+        if (failed) failures++;
+        if (overBudget) timeouts++;
+        if (allocated >= 0) {
+            allocatedBytes += allocated;
+            allocationSamples++;
+        }
+    }
+
+    synchronized void recordTimeout() {
+        timeouts++;
+    }
+
+    public synchronized long getSamples() {
+        return latency.getCount();
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Ticks on which the source missed its {@link SamplingPolicy#deadlineMs
+     * deadline}; for sources without one, reads that took longer than
+     * {@link SamplingEngine#setBudgetMs the engine's budget}.
+     */
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    /** @param percentile 0..100 */
+    public long getLatencyNanos(double percentile) {
+        return latency.getPercentile(percentile);
+    }
+
+    public long getMaxLatencyNanos() {
+        return latency.getMax();
+    }
+
+    public double getMeanLatencyNanos() {
+        return latency.getMean();
+    }
+
+    /** Mean bytes allocated per read, or NaN if allocations weren't counted. */
+    public synchronized double getAllocatedBytesPerSample() {
+        return allocationSamples == 0 ? Double.NaN : (double) allocatedBytes / allocationSamples;
+    }
+
+    public synchronized void reset() {
+        latency.reset();
+        failures = 0;
+        timeouts = 0;
+        allocatedBytes = 0;
+        allocationSamples = 0;
+    }
+}
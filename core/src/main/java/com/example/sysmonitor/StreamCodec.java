@@ -0,0 +1,78 @@
+package com.example.sysmonitor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format of {@link MetricStreamServer}, big-endian throughout:
+ *
+ * <pre>
+ * frame  := u32 length of what follows, u8 type, body
+ * SCHEMA := u32 magic "SMS1", u16 version, u16 columns, columns x (u16 length, UTF-8 name)
+ * BATCH  := u32 rows, u32 rows dropped since the previous batch,
+ *           rows x i64 time in ms, then per column rows x f32
+ * </pre>
+ *
+ * The schema is the first frame on every connection. A batch normally holds
+ * one tick; when a client falls behind, everything it hasn't been sent yet
+ * goes out as one batch, so a column stays a contiguous run of floats.
+ */
+final class StreamCodec {
+    static final int MAGIC = 0x534D5331; // "SMS1"
+    static final int VERSION = 1;
+    static final byte SCHEMA = 1;
+    static final byte BATCH = 2;
+    /** Length prefix plus type. */
+    static final int FRAME_HEADER_BYTES = 5;
+    static final int BATCH_HEADER_BYTES = FRAME_HEADER_BYTES + 8;
+
+    private StreamCodec() {}
+
+    static int batchBytes(int rows, int columns) {
+        return BATCH_HEADER_BYTES + rows * (8 + 4 * columns);
+    }
+
+    static byte[][] encodeNames(String[] columns) {
+        byte[][] names = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = columns[i].getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > 0xFFFF) throw new IllegalArgumentException("Column name too long: " + columns[i]);
+        }
+        return names;
+    }
+
+    static int schemaBytes(byte[][] names) {
+        int n = FRAME_HEADER_BYTES + 8;
+        for (byte[] name : names) n += 2 + name.length;
+        return n;
+    }
+
+    static void putSchema(ByteBuffer out, byte[][] names) {
+        out.putInt(schemaBytes(names) - 4);
+        out.put(SCHEMA);
+        out.putInt(MAGIC);
+        out.putShort((short) VERSION);
+        out.putShort((short) names.length);
+        for (byte[] name : names) {
+            out.putShort((short) name.length);
+            out.put(name);
+        }
+    }
+
+    /**
+     * Writes {@code rows} rows starting at ring slot {@code head} of a ring of
+     * {@code capacity} rows; {@code values} holds each row's columns together.
+     */
+    static void putBatch(ByteBuffer out, long[] times, float[] values, int head, int rows, int capacity,
+                         int columns, long dropped) {
+        out.putInt(batchBytes(rows, columns) - 4);
+        out.put(BATCH);
+        out.putInt(rows);
+        out.putInt((int) Math.min(dropped, Integer.MAX_VALUE));
+        for (int r = 0; r < rows; r++) out.putLong(times[(head + r) % capacity]);
+        // transpose from rows to columns on the way out
+        for (int c = 0; c < columns; c++) {
+            for (int r = 0; r < rows; r++) out.putFloat(values[((head + r) % capacity) * columns + c]);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A single sysfs attribute kept open between reads. Every read is a positional
+ * read from offset 0, so the kernel regenerates the value without a new open().
+ *
+ * A node that can't be opened (an offline core, a zone we may not read) is
+ * retried on a backoff rather than on every read, since each failed open costs
+ * a syscall and an exception: after the second failure in a row one read is
+ * skipped, then three, seven, and so on up to {@link #MAX_SKIPPED_READS}.
+ */
+final class SysfsNode implements Closeable {
+    static final long NO_VALUE = Long.MIN_VALUE;
+    static final int MAX_SKIPPED_READS = 31;
+
+    private final File file;
+    private FileChannel channel;
+    // reads to skip after the next failed open, and before the next attempt
+    private int backoff;
+    private int skip;
+
+    SysfsNode(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    boolean isOpen() {
+        return channel != null;
+    }
+
+    boolean open() {
+        if (channel != null) return true;
+        if (skip > 0) {
+            skip--;
+            return false;
+        }
+        try {
+            channel = new RandomAccessFile(file, "r").getChannel();
+            backoff = 0;
+            return true;
+        } catch (IOException | SecurityException e) {
+            skip = backoff;
+            backoff = Math.min(2 * backoff + 1, MAX_SKIPPED_READS);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the node into {@code buf} and parses the first integer in it.
+     * Returns {@link #NO_VALUE} if the node can't be opened or holds no number;
+     * a failed read drops the descriptor so the next call re-opens it.
+     */
+    long readLong(ByteBuffer buf) {
+        if (!open()) return NO_VALUE;
+        buf.clear();
+        try {
+            int n = channel.read(buf, 0);
+            if (n <= 0) return NO_VALUE;
+            return parseLong(buf, 0, n);
+        } catch (IOException e) {
+            close();
+            return NO_VALUE;
+        }
+    }
+
+    /**
+     * Reads the node from offset 0 until EOF or until {@code buf} is full, for
+     * procfs files larger than one read. Returns the byte count, or -1 on failure.
+     */
+    int read(ByteBuffer buf) {
+        if (!open()) return -1;
+        buf.clear();
+        try {
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, buf.position()) <= 0) break;
+            }
+            return buf.position();
+        } catch (IOException e) {
+            close();
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    /** One-shot read of a small text attribute, trimmed; null if unreadable. */
+    static String readText(File file) {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[256];
+            int len = 0;
+            int n;
+            while (len < data.length && (n = in.read(data, len, data.length - len)) > 0) len += n;
+            return new String(data, 0, len, "UTF-8").trim();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /** Returns N for names of the form prefix + N, otherwise -1. */
+    static int parseIndex(String name, String prefix) {
+        int len = name.length();
+        if (len <= prefix.length() || !name.startsWith(prefix)) return -1;
+        int value = 0;
+        for (int i = prefix.length(); i < len; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    static long parseLong(ByteBuffer buf, int from, int to) {
+        int i = from;
+        while (i < to && isSpace(buf.get(i))) i++;
+
+        boolean negative = false;
+        if (i < to && buf.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+
+        int start = i;
+        long value = 0;
+        while (i < to) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) break;
+            value = value * 10 + d;
+            i++;
+        }
+        if (i == start) return NO_VALUE;
+        return negative ? -value : value;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+}
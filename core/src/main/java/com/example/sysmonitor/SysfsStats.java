@@ -0,0 +1,220 @@
+package com.example.sysmonitor;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+
+/**
+ * The file-backed collectors behind SystemStatsRepository, free of any
+ * Android dependency so they can run against a {@link FileSystemRoot} fixture.
+ */
+public class SysfsStats {
+    static final String CPU_DIR = "/sys/devices/system/cpu";
+    static final String THERMAL_DIR = "/sys/class/thermal";
+    static final String PROC_STAT = "/proc/stat";
+    static final String PROC_DIR = "/proc";
+    static final String PROC_NET_DEV = "/proc/net/dev";
+    static final String PROC_MEMINFO = "/proc/meminfo";
+    static final String PROC_DISKSTATS = "/proc/diskstats";
+    static final String SYS_BLOCK = "/sys/block";
+
+    private static final String[] SU_PATHS = {
+            "/sbin/su", "/system/bin/su", "/system/xbin/su",
+            "/data/local/xbin/su", "/data/local/bin/su", "/system/sd/xbin/su",
+            "/system/bin/failsafe/su", "/data/local/su"
+    };
+
+    private final FileSystemRoot root;
+    private HardwareProfile profile;
+    private CpuFreqSampler coreSampler;
+    private ThermalSampler thermalSampler;
+    private CpuLoadSampler loadSampler;
+    private ProcessTracker processTracker;
+    private NetDevSampler netSampler;
+    private MemInfoSampler memSampler;
+    private DiskStatsSampler diskSampler;
+    private CpuPolicySampler policySampler;
+    private ThrottleDetector throttleDetector;
+
+    public SysfsStats(FileSystemRoot root) {
+        this.root = root;
+    }
+
+    public FileSystemRoot getRoot() {
+        return root;
+    }
+
+    /**
+     * Builds the core and thermal samplers from {@code profile} instead of
+     * listing directories. Only effective before they are first used.
+     */
+    public synchronized void setProfile(HardwareProfile profile) {
+        this.profile = profile;
+    }
+
+    public long getCpuFrequency() {
+        String[] paths = {
+                CPU_DIR + "/cpu0/cpufreq/scaling_cur_freq",
+                CPU_DIR + "/cpu0/cpufreq/cpuinfo_cur_freq"
+        };
+
+        for (String path : paths) {
+            File file = root.file(path);
+            if (file.exists() && file.canRead()) {
+                try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                    String line = br.readLine();
+                    if (line != null) {
+                        return Long.parseLong(line.trim());
+                    }
+                } catch (Exception e) {
+                    // fall through to the next candidate
+                }
+            }
+        }
+        return 0;
+    }
+
+    public boolean checkRootAccess() {
+        for (String path : SU_PATHS) {
+            if (root.file(path).exists()) return true;
+        }
+        return false;
+    }
+
+    public int[] getCpuCoresFreq() {
+        CpuFreqSampler sampler = getCoreSampler();
+        int[] freqs = new int[sampler.coreCount()];
+        sampler.sample(freqs);
+        return freqs;
+    }
+
+    public int getCpuCoreCount() {
+        return getCoreSampler().coreCount();
+    }
+
+    /** Allocation-free variant: fills {@code out} and returns the number of cores written. */
+    public int getCpuCoresFreq(int[] out) {
+        return getCoreSampler().sample(out);
+    }
+
+    public synchronized CpuFreqSampler getCoreSampler() {
+        if (coreSampler == null) {
+            coreSampler = profile != null
+                    ? new CpuFreqSampler(root.file(CPU_DIR), profile.coreIds)
+                    : new CpuFreqSampler(root.file(CPU_DIR));
+        }
+        return coreSampler;
+    }
+
+    public synchronized CpuPolicySampler getPolicySampler() {
+        if (policySampler == null) {
+            policySampler = new CpuPolicySampler(root.file(CPU_DIR));
+        }
+        return policySampler;
+    }
+
+    /**
+     * A detector over {@link #getPolicySampler()}'s policies and the passive
+     * trip points of {@link #getThermalSampler()}'s zones; feeding it is up to
+     * the caller.
+     */
+    public synchronized ThrottleDetector getThrottleDetector(long windowMs, int historySize) {
+        if (throttleDetector == null) {
+            CpuPolicySampler policies = getPolicySampler();
+            int n = policies.policyCount();
+            String[] labels = new String[n];
+            int[] maxKhz = new int[n];
+            for (int i = 0; i < n; i++) {
+                labels[i] = policies.label(i);
+                maxKhz[i] = policies.hardwareMaxKhz(i);
+            }
+            throttleDetector = new ThrottleDetector(labels, maxKhz, getThermalSampler().readPassiveTrips(),
+                    windowMs, historySize);
+        }
+        return throttleDetector;
+    }
+
+    /** Utilization since the previous call; false if /proc/stat is not readable. */
+    public boolean getCpuLoad(CpuLoad out) {
+        return getLoadSampler().sample(out);
+    }
+
+    public CpuLoad newCpuLoad() {
+        return getLoadSampler().newSnapshot();
+    }
+
+    public synchronized CpuLoadSampler getLoadSampler() {
+        if (loadSampler == null) {
+            loadSampler = new CpuLoadSampler(root.file(PROC_STAT));
+        }
+        return loadSampler;
+    }
+
+    /** Per-interface rates since the previous call; false if /proc/net/dev is not readable. */
+    public boolean getNetThroughput(NetThroughput out) {
+        return getNetSampler().sample(out);
+    }
+
+    public synchronized NetDevSampler getNetSampler() {
+        if (netSampler == null) {
+            netSampler = new NetDevSampler(root.file(PROC_NET_DEV), SamplingEngine.Clock.SYSTEM);
+        }
+        return netSampler;
+    }
+
+    /** Per-disk I/O since the previous call; false if /proc/diskstats is not readable. */
+    public boolean getDiskThroughput(DiskThroughput out) {
+        return getDiskSampler().sample(out);
+    }
+
+    public synchronized DiskStatsSampler getDiskSampler() {
+        if (diskSampler == null) {
+            diskSampler = new DiskStatsSampler(root.file(PROC_DISKSTATS), root.file(SYS_BLOCK),
+                    SamplingEngine.Clock.SYSTEM);
+        }
+        return diskSampler;
+    }
+
+    /** Current /proc/meminfo; false if it is not readable. */
+    public boolean getMemInfo(MemInfo out) {
+        return getMemSampler().sample(out);
+    }
+
+    public synchronized MemInfoSampler getMemSampler() {
+        if (memSampler == null) {
+            memSampler = new MemInfoSampler(root.file(PROC_MEMINFO));
+        }
+        return memSampler;
+    }
+
+    /** @param pageKb size of a memory page in KiB, rss is reported in pages */
+    public synchronized ProcessTracker getProcessTracker(long pageKb) {
+        if (processTracker == null) {
+            processTracker = new ProcessTracker(root.file(PROC_DIR), SamplingEngine.Clock.SYSTEM, pageKb,
+                    5, ProcessTracker.DEFAULT_MAX_OPEN);
+        }
+        return processTracker;
+    }
+
+    /** Current temperatures in the sampler's reusable snapshot. */
+    public ThermalSnapshot getThermalSnapshot() {
+        return getThermalSampler().sample();
+    }
+
+    public ThermalSnapshot newThermalSnapshot() {
+        return getThermalSampler().newSnapshot();
+    }
+
+    public void getThermalSnapshot(ThermalSnapshot out) {
+        getThermalSampler().sample(out);
+    }
+
+    public synchronized ThermalSampler getThermalSampler() {
+        if (thermalSampler == null) {
+            thermalSampler = profile != null
+                    ? new ThermalSampler(root.file(THERMAL_DIR), profile.zoneIds, profile.zoneTypes)
+                    : new ThermalSampler(root.file(THERMAL_DIR));
+        }
+        return thermalSampler;
+    }
+}
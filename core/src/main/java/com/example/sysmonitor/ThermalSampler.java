@@ -0,0 +1,137 @@
+package com.example.sysmonitor;
+
+import java.io.Closeable;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads every thermal zone's temperature. Zones and their type names are
+ * enumerated once; only the temp nodes stay open and are re-read per tick.
+ */
+public final class ThermalSampler implements Closeable {
+    private static final int MAX_TRIPS = 16;
+
+    private final File thermalDir;
+    private final int[] zoneIds;
+    private final String[] names;
+    private final SysfsNode[] tempNodes;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(32);
+    private final ThermalSnapshot snapshot;
+
+    /** @param thermalDir usually /sys/class/thermal */
+    public ThermalSampler(File thermalDir) {
+        this(thermalDir, listZones(thermalDir), null);
+    }
+
+    /**
+     * Samples zones already known from a {@link HardwareProfile}, without
+     * listing the directory or reading any type.
+     *
+     * @param types type of each zone in {@code zoneIds}; read from the zone when null
+     */
+    public ThermalSampler(File thermalDir, int[] zoneIds, String[] types) {
+        this.thermalDir = thermalDir;
+        this.zoneIds = zoneIds.clone();
+        tempNodes = new SysfsNode[zoneIds.length];
+        int maxId = -1;
+        for (int i = 0; i < zoneIds.length; i++) {
+            tempNodes[i] = new SysfsNode(new File(thermalDir, "thermal_zone" + zoneIds[i] + "/temp"));
+            tempNodes[i].open();
+            maxId = Math.max(maxId, zoneIds[i]);
+        }
+
+        names = new String[maxId + 1];
+        for (int i = 0; i < zoneIds.length; i++) {
+            names[zoneIds[i]] = types != null ? types[i] : readType(thermalDir, zoneIds[i]);
+        }
+        snapshot = new ThermalSnapshot(this.zoneIds, names);
+    }
+
+    /** Ids of the zones with a readable temp node, ascending. */
+    static int[] listZones(File thermalDir) {
+        String[] entries = thermalDir.list();
+        if (entries == null) return new int[0];
+        int[] ids = new int[entries.length];
+        int count = 0;
+        for (String entry : entries) {
+            int id = SysfsNode.parseIndex(entry, "thermal_zone");
+            if (id < 0 || !new File(thermalDir, entry + "/temp").canRead()) continue;
+            ids[count++] = id;
+        }
+        // Keep zones in id order so the snapshot iterates like the kernel lists them.
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    static String readType(File thermalDir, int zoneId) {
+        String type = SysfsNode.readText(new File(thermalDir, "thermal_zone" + zoneId + "/type"));
+        return type == null || type.isEmpty() ? "Unknown" : type;
+    }
+
+    /**
+     * Lowest passive trip point of every zone in °C, indexed by zone id; NaN
+     * for zones without one. Passive trips are where the kernel starts capping
+     * frequencies, so crossing one is what explains a throttle. Read once, on
+     * demand, since they don't change at runtime.
+     */
+    public float[] readPassiveTrips() {
+        float[] trips = new float[names.length];
+        Arrays.fill(trips, Float.NaN);
+        for (int id : zoneIds) {
+            File zone = new File(thermalDir, "thermal_zone" + id);
+            for (int k = 0; k < MAX_TRIPS; k++) {
+                String type = SysfsNode.readText(new File(zone, "trip_point_" + k + "_type"));
+                if (type == null) break;
+                if (!"passive".equals(type)) continue;
+                String temp = SysfsNode.readText(new File(zone, "trip_point_" + k + "_temp"));
+                float c = parseCelsius(temp);
+                if (!Float.isNaN(c) && (Float.isNaN(trips[id]) || c < trips[id])) trips[id] = c;
+            }
+        }
+        return trips;
+    }
+
+    public int zoneCount() {
+        return zoneIds.length;
+    }
+
+    /** A fresh snapshot sharing this sampler's zone and name tables. */
+    public ThermalSnapshot newSnapshot() {
+        return new ThermalSnapshot(zoneIds, names);
+    }
+
+    /** Samples into the sampler's own snapshot, which is overwritten on the next call. */
+    public ThermalSnapshot sample() {
+        sample(snapshot);
+        return snapshot;
+    }
+
+    public synchronized void sample(ThermalSnapshot out) {
+        for (int i = 0; i < tempNodes.length; i++) {
+            out.temps[zoneIds[i]] = toCelsius(tempNodes[i].readLong(buffer));
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (SysfsNode node : tempNodes) node.close();
+    }
+
+    private static float parseCelsius(String text) {
+        if (text == null) return Float.NaN;
+        try {
+            return toCelsius(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            return Float.NaN;
+        }
+    }
+
+    /** Most drivers report millidegrees, a few report whole degrees. */
+    static float toCelsius(long raw) {
+        if (raw == SysfsNode.NO_VALUE) return Float.NaN;
+        float temp = raw > 1000 ? raw / 1000.0f : raw;
+        return temp > -20 && temp < 150 ? temp : Float.NaN;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * Temperatures of all thermal zones at one instant. Arrays are indexed by the
+ * kernel zone id (thermal_zoneN); ids without a usable sensor hold NaN.
+ * Instances are reused between ticks, so copy anything that must outlive one.
+ */
+public final class ThermalSnapshot {
+    /** Ids of the zones that have a readable sensor, ascending. */
+    public final int[] zoneIds;
+    /** Zone type names, fixed for the lifetime of the sampler. */
+    public final String[] names;
+    /** Degrees Celsius, or NaN while the zone reports nothing plausible. */
+    public final float[] temps;
+
+    ThermalSnapshot(int[] zoneIds, String[] names) {
+        this.zoneIds = zoneIds;
+        this.names = names;
+        this.temps = new float[names.length];
+        Arrays.fill(temps, Float.NaN);
+    }
+
+    public boolean isValid(int zoneId) {
+        return !Float.isNaN(temps[zoneId]);
+    }
+
+    public void copyFrom(ThermalSnapshot other) {
+        System.arraycopy(other.temps, 0, temps, 0, temps.length);
+    }
+
+    /** Largest temperature move between two snapshots; infinite if a zone appeared or vanished. */
+    public static double maxDelta(ThermalSnapshot a, ThermalSnapshot b) {
+        if (a.temps.length != b.temps.length) return Double.POSITIVE_INFINITY;
+        double max = 0;
+        for (int id : b.zoneIds) {
+            float x = a.temps[id];
+            float y = b.temps[id];
+            if (Float.isNaN(x) != Float.isNaN(y)) return Double.POSITIVE_INFINITY;
+            if (!Float.isNaN(x)) max = Math.max(max, Math.abs(x - y));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.sysmonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns per-policy frequency caps and zone temperatures into throttling
+ * events. A policy is throttled while its scaling_max_freq sits below the
+ * highest cap it has shown, so a ceiling lowered for good by the vendor or a
+ * battery saver doesn't read as one endless event; throttling already in
+ * force when sampling starts only shows once it deepens.
+ *
+ * The suspected cause is the zone that last crossed its passive trip point
+ * upwards within {@code windowMs} of the cap dropping. Zones without a known
+ * trip are only blamed when no trip explains the drop, by how far they rose
+ * over the last one to two windows. A tick costs one pass over the policies
+ * and one over the zones; events are only allocated when they start and end.
+ * Screens redrawn every tick read the ongoing events through the primitive
+ * accessors and copy the history only when {@link #finishedCount} moves.
+ */
+public final class ThrottleDetector {
+    /** Smallest rise over a window for a zone without trip points to be blamed. */
+    static final float MIN_RISE_C = 2f;
+
+    public interface Listener {
+        /** Called on the sampling thread, inside the detector's lock; keep it short. */
+        void onThrottleStart(ThrottleEvent event);
+
+        void onThrottleEnd(ThrottleEvent event);
+    }
+
+    private final String[] labels;
+    private final int[] hardwareMaxKhz;
+    private final long windowMs;
+
+    // per policy
+    private final int[] capKhz;
+    private final int[] baselineKhz;
+    private final boolean[] active;
+    private final long[] startMs;
+    private final int[] minCapKhz;
+    private final int[] zoneId;
+    private final float[] zoneTempC;
+
+    // per zone, indexed by zone id
+    private float[] tripC;
+    private boolean[] above = new boolean[0];
+    private long[] crossingMs = new long[0];
+    // temperatures at the start of the previous and of the current window
+    private float[] windowTempC = new float[0];
+    private float[] pendingTempC = new float[0];
+    private long windowStartMs = Long.MIN_VALUE;
+    private ThermalSnapshot lastThermal;
+
+    private final ThrottleEvent[] history;
+    private int historyCount;
+    private int historyNext;
+    private long finished;
+    private Listener listener;
+
+    /**
+     * @param labels         cores of each policy, e.g. from {@link CpuPolicySampler#label}
+     * @param hardwareMaxKhz cpuinfo_max_freq per policy, or {@link CpuPolicySampler#UNKNOWN}
+     * @param tripC          passive trip per zone id, NaN where unknown; may be null
+     * @param windowMs       how far apart a trip crossing and a cap drop may be to be linked
+     * @param historySize    number of finished events kept
+     */
+    public ThrottleDetector(String[] labels, int[] hardwareMaxKhz, float[] tripC, long windowMs, int historySize) {
+        int n = labels.length;
+        this.labels = labels.clone();
+        this.hardwareMaxKhz = hardwareMaxKhz.clone();
+        this.tripC = tripC != null ? tripC.clone() : new float[0];
+        this.windowMs = windowMs;
+        capKhz = new int[n];
+        baselineKhz = new int[n];
+        active = new boolean[n];
+        startMs = new long[n];
+        minCapKhz = new int[n];
+        zoneId = new int[n];
+        zoneTempC = new float[n];
+        Arrays.fill(capKhz, CpuPolicySampler.UNKNOWN);
+        Arrays.fill(baselineKhz, CpuPolicySampler.UNKNOWN);
+        history = new ThrottleEvent[historySize];
+    }
+
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int policyCount() {
+        return labels.length;
+    }
+
+    public String label(int policy) {
+        return labels[policy];
+    }
+
+    public int hardwareMaxKhz(int policy) {
+        return hardwareMaxKhz[policy];
+    }
+
+    /**
+     * Feeds one tick.
+     *
+     * @param caps    scaling_max_freq per policy, {@link CpuPolicySampler#UNKNOWN} where unread
+     * @param thermal temperatures of the same instant; may be null
+     */
+    public synchronized void update(long now, int[] caps, ThermalSnapshot thermal) {
+        if (thermal != null) updateZones(now, thermal);
+
+        for (int p = 0; p < labels.length; p++) {
+            int cap = caps[p];
+            capKhz[p] = cap;
+            if (cap == CpuPolicySampler.UNKNOWN) continue;
+
+            if (!active[p]) {
+                if (cap >= baselineKhz[p]) {
+                    baselineKhz[p] = cap;
+                    continue;
+                }
+                active[p] = true;
+                startMs[p] = now;
+                minCapKhz[p] = cap;
+                zoneId[p] = ThrottleEvent.NO_ZONE;
+                attribute(p, now, thermal);
+                if (listener != null) listener.onThrottleStart(event(p, ThrottleEvent.ONGOING));
+            } else if (cap >= baselineKhz[p]) {
+                active[p] = false;
+                ThrottleEvent done = event(p, now);
+                addHistory(done);
+                baselineKhz[p] = cap;
+                if (listener != null) listener.onThrottleEnd(done);
+            } else {
+                if (cap < minCapKhz[p]) minCapKhz[p] = cap;
+                // the zone may cross its trip a little after the cap moved
+                if (zoneId[p] == ThrottleEvent.NO_ZONE && now - startMs[p] <= windowMs) attribute(p, now, thermal);
+            }
+        }
+    }
+
+    public synchronized boolean isThrottled(int policy) {
+        return active[policy];
+    }
+
+    /** Current cap as a share of the policy's baseline, 0..100; NaN before the first reading. */
+    public synchronized float capPercent(int policy) {
+        int cap = capKhz[policy];
+        int base = baselineKhz[policy];
+        return cap <= 0 || base <= 0 ? Float.NaN : cap * 100f / base;
+    }
+
+    /** The most throttled policy's {@link #capPercent}; NaN if none has been read. */
+    public synchronized float lowestCapPercent() {
+        float min = Float.NaN;
+        for (int p = 0; p < labels.length; p++) {
+            float v = capPercent(p);
+            if (!Float.isNaN(v) && (Float.isNaN(min) || v < min)) min = v;
+        }
+        return min;
+    }
+
+    public synchronized int capKhz(int policy) {
+        return capKhz[policy];
+    }
+
+    /** Baseline of the ongoing event, or the cap the policy runs at otherwise. */
+    public synchronized int baselineKhz(int policy) {
+        return baselineKhz[policy];
+    }
+
+    /** Zone blamed for the ongoing event of {@code policy}, else {@link ThrottleEvent#NO_ZONE}. */
+    public synchronized int activeZone(int policy) {
+        return active[policy] ? zoneId[policy] : ThrottleEvent.NO_ZONE;
+    }
+
+    /** Name of {@link #activeZone}, or null if there is none. */
+    public synchronized String activeZoneName(int policy) {
+        int zone = activeZone(policy);
+        return zone == ThrottleEvent.NO_ZONE || lastThermal == null ? null : lastThermal.names[zone];
+    }
+
+    /** Events finished since the detector was created; the history changes only when this does. */
+    public synchronized long finishedCount() {
+        return finished;
+    }
+
+    /** The ongoing event of {@code policy}, or null if it runs at its baseline. */
+    public synchronized ThrottleEvent getActive(int policy) {
+        return active[policy] ? event(policy, ThrottleEvent.ONGOING) : null;
+    }
+
+    /** Finished events, oldest first. */
+    public synchronized List<ThrottleEvent> copyHistory() {
+        List<ThrottleEvent> out = new ArrayList<>(historyCount);
+        int first = historyNext - historyCount;
+        for (int i = 0; i < historyCount; i++) {
+            out.add(history[Math.floorMod(first + i, history.length)]);
+        }
+        return out;
+    }
+
+    private void updateZones(long now, ThermalSnapshot thermal) {
+        int size = thermal.temps.length;
+        if (above.length < size) {
+            above = Arrays.copyOf(above, size);
+            crossingMs = Arrays.copyOf(crossingMs, size);
+            int old = windowTempC.length;
+            windowTempC = Arrays.copyOf(windowTempC, size);
+            pendingTempC = Arrays.copyOf(pendingTempC, size);
+            Arrays.fill(windowTempC, old, size, Float.NaN);
+            Arrays.fill(pendingTempC, old, size, Float.NaN);
+            Arrays.fill(crossingMs, old, size, Long.MIN_VALUE);
+        }
+        boolean rollWindow = windowStartMs == Long.MIN_VALUE || now - windowStartMs >= windowMs;
+        if (rollWindow) windowStartMs = now;
+        for (int id : thermal.zoneIds) {
+            float t = thermal.temps[id];
+            if (Float.isNaN(t)) continue;
+            float trip = id < tripC.length ? tripC[id] : Float.NaN;
+            if (!Float.isNaN(trip)) {
+                boolean isAbove = t >= trip;
+                if (isAbove && !above[id]) crossingMs[id] = now;
+                above[id] = isAbove;
+            }
+            if (rollWindow || Float.isNaN(pendingTempC[id])) {
+                float start = pendingTempC[id];
+                windowTempC[id] = Float.isNaN(start) ? t : start;
+                pendingTempC[id] = t;
+            }
+        }
+        lastThermal = thermal;
+    }
+
+    private void attribute(int p, long now, ThermalSnapshot thermal) {
+        if (thermal == null) thermal = lastThermal;
+        if (thermal == null) return;
+        int best = ThrottleEvent.NO_ZONE;
+
+        // the latest upward trip crossing close enough to the drop
+        long latest = Long.MIN_VALUE;
+        for (int id : thermal.zoneIds) {
+            if (id >= crossingMs.length) continue;
+            long at = crossingMs[id];
+            if (at != Long.MIN_VALUE && Math.abs(startMs[p] - at) <= windowMs && at > latest) {
+                latest = at;
+                best = id;
+            }
+        }
+        // a zone still above its trip from earlier on, furthest above first
+        if (best == ThrottleEvent.NO_ZONE) {
+            float most = 0;
+            for (int id : thermal.zoneIds) {
+                if (id >= above.length || !above[id]) continue;
+                float excess = thermal.temps[id] - tripC[id];
+                if (best == ThrottleEvent.NO_ZONE || excess > most) {
+                    most = excess;
+                    best = id;
+                }
+            }
+        }
+        // no trip explains it: the zone that heated up the most
+        if (best == ThrottleEvent.NO_ZONE) {
+            float most = MIN_RISE_C;
+            for (int id : thermal.zoneIds) {
+                if (id >= windowTempC.length || (id < tripC.length && !Float.isNaN(tripC[id]))) continue;
+                float rise = thermal.temps[id] - windowTempC[id];
+                if (rise >= most) {
+                    most = rise;
+                    best = id;
+                }
+            }
+        }
+        if (best != ThrottleEvent.NO_ZONE) {
+            zoneId[p] = best;
+            zoneTempC[p] = thermal.temps[best];
+        }
+    }
+
+    private ThrottleEvent event(int p, long endMs) {
+        int zone = zoneId[p];
+        String name = zone == ThrottleEvent.NO_ZONE || lastThermal == null ? null : lastThermal.names[zone];
+        return new ThrottleEvent(p, labels[p], startMs[p], endMs, baselineKhz[p], minCapKhz[p],
+                zone, name, zone == ThrottleEvent.NO_ZONE ? Float.NaN : zoneTempC[p]);
+    }
+
+    private void addHistory(ThrottleEvent event) {
+        finished++;
+        if (history.length == 0) return;
+        history[historyNext] = event;
+        historyNext = (historyNext + 1) % history.length;
+        if (historyCount < history.length) historyCount++;
+    }
+}
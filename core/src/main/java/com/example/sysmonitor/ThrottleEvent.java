@@ -0,0 +1,64 @@
+package com.example.sysmonitor;
+
+import java.util.Locale;
+
+/**
+ * One stretch of time during which a cpufreq policy's maximum frequency sat
+ * below its usual ceiling. Immutable; {@link ThrottleDetector} hands out a new
+ * instance when an event starts and another when it ends.
+ */
+public final class ThrottleEvent {
+    public static final long ONGOING = -1;
+    public static final int NO_ZONE = -1;
+
+    /** Index of the policy in the detector, and its cores as "4-7". */
+    public final int policy;
+    public final String cpus;
+    public final long startMs;
+    /** {@link #ONGOING} until the cap is back at its baseline. */
+    public final long endMs;
+    /** The ceiling the cap dropped from, in kHz. */
+    public final int baselineKhz;
+    /** Lowest cap seen during the event so far, in kHz. */
+    public final int minCapKhz;
+    /** Thermal zone id that most likely caused the cap, or {@link #NO_ZONE}. */
+    public final int zoneId;
+    public final String zoneName;
+    /** Temperature of that zone when it was picked; NaN without a zone. */
+    public final float zoneTempC;
+
+    public ThrottleEvent(int policy, String cpus, long startMs, long endMs, int baselineKhz, int minCapKhz,
+                         int zoneId, String zoneName, float zoneTempC) {
+        this.policy = policy;
+        this.cpus = cpus;
+        this.startMs = startMs;
+        this.endMs = endMs;
+        this.baselineKhz = baselineKhz;
+        this.minCapKhz = minCapKhz;
+        this.zoneId = zoneId;
+        this.zoneName = zoneName;
+        this.zoneTempC = zoneTempC;
+    }
+
+    public boolean isOngoing() {
+        return endMs == ONGOING;
+    }
+
+    /** Share of the baseline frequency taken away at the deepest point, 0..1. */
+    public float depth() {
+        return baselineKhz <= 0 ? 0 : 1f - (float) minCapKhz / baselineKhz;
+    }
+
+    /** Length of the event, measured up to {@code nowMs} while it is ongoing. */
+    public long durationMs(long nowMs) {
+        return (isOngoing() ? nowMs : endMs) - startMs;
+    }
+
+    @Override
+    public String toString() {
+        String zone = zoneId == NO_ZONE ? "unknown"
+                : String.format(Locale.US, "%s %.1f°C", zoneName, zoneTempC);
+        return String.format(Locale.US, "cpu%s %d -> %d MHz (-%.0f%%), %s", cpus,
+                baselineKhz / 1000, minCapKhz / 1000, depth() * 100, zone);
+    }
+}
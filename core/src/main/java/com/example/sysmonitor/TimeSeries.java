@@ -0,0 +1,170 @@
+package com.example.sysmonitor;
+
+import java.util.Arrays;
+
+/**
+ * History of one float metric in fixed-size tiers of min/max/avg buckets, e.g.
+ * 1 s for 10 min, 10 s for 6 h and 1 min for 7 days. Everything is allocated
+ * up front; {@link #add} touches one bucket per tier and allocates nothing.
+ */
+public final class TimeSeries {
+
+    /** Bucket width and how many buckets a tier keeps. */
+    public static final class Resolution {
+        public final long periodMs;
+        public final int capacity;
+
+        public Resolution(long periodMs, int capacity) {
+            this.periodMs = periodMs;
+            this.capacity = capacity;
+        }
+
+        public long spanMs() {
+            return periodMs * capacity;
+        }
+    }
+
+    public static final Resolution[] DEFAULT_TIERS = {
+            new Resolution(1000, 10 * 60),
+            new Resolution(10_000, 6 * 360),
+            new Resolution(60_000, 7 * 24 * 60)
+    };
+
+    /** Bytes a single slot costs across min, max, avg and count. */
+    static final int SLOT_BYTES = 4 + 4 + 4 + 2;
+
+    private final Tier[] tiers;
+
+    public TimeSeries(Resolution... resolutions) {
+        tiers = new Tier[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) tiers[i] = new Tier(resolutions[i]);
+    }
+
+    public static long bytesFor(Resolution... resolutions) {
+        long bytes = 0;
+        for (Resolution r : resolutions) bytes += (long) r.capacity * SLOT_BYTES;
+        return bytes;
+    }
+
+    public synchronized void add(long timeMs, float value) {
+        if (Float.isNaN(value)) return;
+        for (Tier tier : tiers) tier.add(timeMs, value);
+    }
+
+    /**
+     * Fills {@code out} with the buckets overlapping [fromMs, toMs] from the finest
+     * tier that still reaches back to {@code fromMs}.
+     *
+     * @return number of buckets written
+     */
+    public synchronized int query(long fromMs, long toMs, Window out) {
+        out.size = 0;
+        if (tiers.length == 0) return 0;
+        Tier tier = tiers[tiers.length - 1];
+        for (Tier t : tiers) {
+            if (t.head >= 0 && fromMs >= t.oldestStart()) {
+                tier = t;
+                break;
+            }
+        }
+        out.periodMs = tier.periodMs;
+        if (tier.head < 0) return 0;
+
+        long first = Math.max(floorDiv(fromMs, tier.periodMs), tier.head - tier.capacity + 1);
+        long last = Math.min(floorDiv(toMs, tier.periodMs), tier.head);
+        for (long b = first; b <= last && out.size < out.start.length; b++) {
+            int slot = tier.slot(b);
+            if (tier.count[slot] == 0) continue;
+            int i = out.size++;
+            out.start[i] = b * tier.periodMs;
+            out.min[i] = tier.min[slot];
+            out.max[i] = tier.max[slot];
+            out.avg[i] = tier.avg[slot];
+        }
+        return out.size;
+    }
+
+    /** Caller-owned, reusable query result. */
+    public static final class Window {
+        public final long[] start;
+        public final float[] min;
+        public final float[] max;
+        public final float[] avg;
+        public long periodMs;
+        public int size;
+
+        public Window(int capacity) {
+            start = new long[capacity];
+            min = new float[capacity];
+            max = new float[capacity];
+            avg = new float[capacity];
+        }
+    }
+
+    private static long floorDiv(long a, long b) {
+        long q = a / b;
+        return (a % b != 0 && (a < 0) != (b < 0)) ? q - 1 : q;
+    }
+
+    private static final class Tier {
+        final long periodMs;
+        final int capacity;
+        final float[] min;
+        final float[] max;
+        final float[] avg;
+        final short[] count;
+        long head = -1;
+
+        Tier(Resolution r) {
+            periodMs = r.periodMs;
+            capacity = r.capacity;
+            min = new float[capacity];
+            max = new float[capacity];
+            avg = new float[capacity];
+            count = new short[capacity];
+        }
+
+        int slot(long bucket) {
+            return (int) (bucket % capacity);
+        }
+
+        long oldestStart() {
+            return (head - capacity + 1) * periodMs;
+        }
+
+        void add(long timeMs, float value) {
+            long bucket = floorDiv(timeMs, periodMs);
+            if (head < 0) {
+                head = bucket;
+            } else if (bucket > head) {
+                // Buckets we skipped over (no samples) must not keep data from a lap ago.
+                long gap = Math.min(bucket - head, capacity);
+                if (gap == capacity) {
+                    Arrays.fill(count, (short) 0);
+                } else {
+                    for (long b = head + 1; b <= head + gap; b++) count[slot(b)] = 0;
+                }
+                head = bucket;
+            } else if (bucket <= head - capacity) {
+                return;
+            }
+
+            int s = slot(bucket);
+            int n = count[s];
+            if (n == 0) {
+                min[s] = value;
+                max[s] = value;
+                avg[s] = value;
+                count[s] = 1;
+                return;
+            }
+            if (value < min[s]) min[s] = value;
+            if (value > max[s]) max[s] = value;
+            if (n < Short.MAX_VALUE) {
+                n++;
+                count[s] = (short) n;
+            }
+            avg[s] += (value - avg[s]) / n;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.sysmonitor;
+
+/** LEB128 varints and zigzag encoding over plain byte arrays. */
+final class Varint {
+    private Varint() {}
+
+    static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** @return position after the written bytes */
+    static int write(byte[] buf, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    /**
+     * Reads a varint starting at {@code pos[0]} and advances it. If the varint
+     * runs past {@code limit}, {@code pos} is left untouched so callers can tell.
+     */
+    static long read(byte[] buf, int[] pos, int limit) {
+        int p = pos[0];
+        long v = 0;
+        for (int shift = 0; shift < 64 && p < limit; shift += 7) {
+            byte b = buf[p++];
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                pos[0] = p;
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    static int fnv1a(byte[] buf, int from, int to) {
+        int h = 0x811C9DC5;
+        for (int i = from; i < to; i++) {
+            h ^= buf[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h;
+    }
+}
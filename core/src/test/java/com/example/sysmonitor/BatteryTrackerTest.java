@@ -0,0 +1,78 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class BatteryTrackerTest {
+    private static final long MIN = 60_000L;
+
+    private final BatteryTracker tracker = new BatteryTracker(30 * MIN, 8);
+
+    private BatteryState discharge(long time, int level) {
+        return tracker.update(time, level, 30f, 3900, -300_000, false, 3, 2);
+    }
+
+    @Test
+    public void rateComesFromLevelChanges() {
+        assertNull(tracker.get());
+        // sat at 80% for an unknown time before we started listening
+        assertTrue(Float.isNaN(discharge(0, 80).ratePerHour));
+        assertTrue(Float.isNaN(discharge(5 * MIN, 79).ratePerHour));
+        discharge(7 * MIN, 79); // temperature-only broadcast
+        BatteryState s = discharge(11 * MIN, 78);
+
+        // 1% in 6 minutes, measured between the two changes
+        assertEquals(-10f, s.ratePerHour, 0.01);
+        assertSame(s, tracker.get());
+        assertEquals(-300_000, s.currentUa);
+    }
+
+    @Test
+    public void chargingFlipStartsNewSession() {
+        discharge(0, 50);
+        discharge(MIN, 49);
+        discharge(2 * MIN, 48);
+        BatteryState plugged = tracker.update(3 * MIN, 48, 31f, 4100, 900_000, true, 2, 2);
+        assertTrue(Float.isNaN(plugged.ratePerHour));
+
+        tracker.update(4 * MIN, 49, 31f, 4100, 900_000, true, 2, 2);
+        BatteryState s = tracker.update(5 * MIN, 50, 31f, 4100, 900_000, true, 2, 2);
+        assertEquals(60f, s.ratePerHour, 0.01);
+        assertTrue(s.charging);
+    }
+
+    @Test
+    public void rateUsesOnlyTheRecentWindow() {
+        discharge(0, 90);
+        discharge(MIN, 89);
+        discharge(2 * MIN, 88);   // fast drain early on
+        discharge(60 * MIN, 87);
+        BatteryState s = discharge(90 * MIN, 86);
+        // only the last two changes are inside 30 minutes: 1% per 30 min
+        assertEquals(-2f, s.ratePerHour, 0.01);
+    }
+
+    @Test
+    public void readersSeeWholeSnapshots() throws Exception {
+        AtomicBoolean torn = new AtomicBoolean();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                BatteryState s = tracker.get();
+                // every snapshot written below has voltage == level * 10
+                if (s != null && s.voltageMv != s.level * 10) torn.set(true);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100_000; i++) {
+            int level = i % 100;
+            tracker.update(i, level, 25f, level * 10, 0, false, 3, 2);
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(torn.get());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class CpuFreqSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsEveryPresentCoreInOrder() throws IOException {
+        File cpu = tmp.newFolder("cpu");
+        writeFreq(cpu, 0, "1804800\n");
+        writeFreq(cpu, 1, "300000\n");
+        writeFreq(cpu, 10, "2419200\n");
+        new File(cpu, "cpufreq").mkdirs();
+        new File(cpu, "cpuidle").mkdirs();
+
+        try (CpuFreqSampler sampler = new CpuFreqSampler(cpu)) {
+            assertEquals(3, sampler.coreCount());
+            assertEquals(10, sampler.coreId(2));
+
+            int[] out = new int[3];
+            assertEquals(3, sampler.sample(out));
+            assertArrayEquals(new int[]{1804800, 300000, 2419200}, out);
+        }
+    }
+
+    @Test
+    public void rereadsOpenNodesAndReportsOfflineCores() throws IOException {
+        File cpu = tmp.newFolder("cpu");
+        writeFreq(cpu, 0, "1000\n");
+        new File(cpu, "cpu1").mkdirs();
+
+        try (CpuFreqSampler sampler = new CpuFreqSampler(cpu)) {
+            int[] out = new int[2];
+            sampler.sample(out);
+            assertArrayEquals(new int[]{1000, CpuFreqSampler.OFFLINE}, out);
+
+            writeFreq(cpu, 0, "999999\n");
+            writeFreq(cpu, 1, "42\n");
+            // cpu1 failed to open twice, so its next read is skipped
+            sampler.sample(out);
+            assertArrayEquals(new int[]{999999, CpuFreqSampler.OFFLINE}, out);
+            sampler.sample(out);
+            assertArrayEquals(new int[]{999999, 42}, out);
+        }
+    }
+
+    @Test
+    public void nodesThatKeepFailingAreRetriedOnABackoff() throws IOException {
+        File cpu = tmp.newFolder("cpu");
+        new File(cpu, "cpu0").mkdirs();
+
+        try (CpuFreqSampler sampler = new CpuFreqSampler(cpu)) {
+            int[] out = new int[1];
+            for (int i = 0; i < 100; i++) sampler.sample(out);
+            writeFreq(cpu, 0, "1000\n");
+            int reads = 0;
+            do {
+                sampler.sample(out);
+                reads++;
+            } while (out[0] == CpuFreqSampler.OFFLINE && reads < 100);
+            assertEquals(1000, out[0]);
+            assertTrue(reads > 1);
+            assertTrue(reads <= SysfsNode.MAX_SKIPPED_READS + 1);
+        }
+    }
+
+    @Test
+    public void missingCpuDirectoryYieldsNoCores() {
+        CpuFreqSampler sampler = new CpuFreqSampler(new File(tmp.getRoot(), "absent"));
+        assertEquals(0, sampler.coreCount());
+        assertEquals(0, sampler.sample(new int[4]));
+    }
+
+    private static void writeFreq(File cpuDir, int core, String value) throws IOException {
+        File dir = new File(cpuDir, "cpu" + core + "/cpufreq");
+        dir.mkdirs();
+        try (FileWriter w = new FileWriter(new File(dir, "scaling_cur_freq"))) {
+            w.write(value);
+        }
+    }
+}
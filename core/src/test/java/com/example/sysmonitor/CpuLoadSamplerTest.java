@@ -0,0 +1,115 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class CpuLoadSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private SysfsStats stats;
+
+    @Before
+    public void setUp() {
+        dir = tmp.getRoot();
+        stats = new SysfsStats(FileSystemRoot.at(dir));
+    }
+
+    @After
+    public void tearDown() {
+        stats.getLoadSampler().close();
+    }
+
+    @Test
+    public void computesSplitFromConsecutiveSamples() throws Exception {
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 100));
+        CpuLoad load = stats.newCpuLoad();
+        assertTrue(stats.getCpuLoad(load));
+        assertFalse("first sample has no delta", load.isValid(0));
+
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 101));
+        assertTrue(stats.getCpuLoad(load));
+
+        assertEquals(4, load.cpuCount());
+        assertEquals(10, load.get(0, CpuLoad.USER), 0.01);
+        assertEquals(40, load.get(3, CpuLoad.USER), 0.01);
+        assertEquals(5, load.get(3, CpuLoad.SYSTEM), 0.01);
+        assertEquals(2, load.get(3, CpuLoad.IOWAIT), 0.01);
+        assertEquals(3, load.get(3, CpuLoad.IRQ), 0.01);
+        assertEquals(50, load.get(3, CpuLoad.IDLE), 0.01);
+        assertEquals(48, load.busy(3), 0.01);
+        // aggregate of 10, 20, 30 and 40 % user
+        assertEquals(25, load.get(-1, CpuLoad.USER), 0.01);
+    }
+
+    @Test
+    public void offlineAndHotpluggedCoresReadAsNaN() throws Exception {
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 100));
+        CpuLoad load = stats.newCpuLoad();
+        stats.getCpuLoad(load);
+
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 101, 2));
+        stats.getCpuLoad(load);
+        assertTrue(load.isValid(1));
+        assertFalse(load.isValid(2));
+        assertTrue(load.isValid(3));
+
+        // cpu2 is back: it needs one more sample before it has a delta again
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 102));
+        stats.getCpuLoad(load);
+        assertFalse(load.isValid(2));
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(4, 103));
+        stats.getCpuLoad(load);
+        assertEquals(30, load.get(2, CpuLoad.USER), 0.01);
+
+        // a core that appears for the first time grows the snapshot
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(6, 104));
+        stats.getCpuLoad(load);
+        assertEquals(6, load.cpuCount());
+        assertFalse(load.isValid(5));
+        assertTrue(load.isValid(3));
+    }
+
+    @Test
+    public void growsBufferForLargeFiles() throws Exception {
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(256, 100));
+        CpuLoad load = stats.newCpuLoad();
+        stats.getCpuLoad(load);
+        SysfsFixture.writeProcStat(dir, SysfsFixture.procStat(256, 101));
+        stats.getCpuLoad(load);
+
+        assertEquals(256, load.cpuCount());
+        assertEquals(80, load.get(255, CpuLoad.USER), 0.01);
+    }
+
+    @Test
+    public void steadyStateParseDoesNotAllocate() {
+        CpuLoadSampler sampler = new CpuLoadSampler(new File(dir, "missing"));
+        byte[] a = SysfsFixture.procStat(8, 100).getBytes(StandardCharsets.US_ASCII);
+        byte[] b = SysfsFixture.procStat(8, 101).getBytes(StandardCharsets.US_ASCII);
+        CpuLoad load = sampler.newSnapshot();
+        sampler.parse(a, CpuLoadSampler.cpuBlockEnd(a, a.length), load);
+        sampler.parse(b, CpuLoadSampler.cpuBlockEnd(b, b.length), load);
+        float[] storage = load.percent;
+
+        sampler.parse(a, CpuLoadSampler.cpuBlockEnd(a, a.length), load);
+        assertSame(storage, load.percent);
+        // counters went backwards: no bogus negative percentages
+        assertFalse(load.isValid(0));
+    }
+
+    @Test
+    public void unreadableStatReportsFalse() {
+        assertFalse(stats.getCpuLoad(stats.newCpuLoad()));
+        assertFalse(stats.getLoadSampler().isAvailable());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class CpuPolicySamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsCapsPerPolicy() throws IOException {
+        File root = tmp.getRoot();
+        SysfsFixture.writePolicy(root, new int[]{0, 1, 2, 3}, 1800000, 1800000);
+        SysfsFixture.writePolicy(root, new int[]{4, 5, 6}, 2400000, 2400000);
+        SysfsFixture.writePolicy(root, new int[]{7}, 3000000, 3000000);
+
+        try (CpuPolicySampler sampler = new CpuPolicySampler(new File(root, "sys/devices/system/cpu"))) {
+            assertEquals(3, sampler.policyCount());
+            assertEquals(4, sampler.policyId(1));
+            assertEquals("0-3", sampler.label(0));
+            assertEquals("7", sampler.label(2));
+            assertArrayEquals(new int[]{4, 5, 6}, sampler.cpus(1));
+            assertEquals(3000000, sampler.hardwareMaxKhz(2));
+
+            int[] caps = new int[3];
+            assertEquals(3, sampler.sample(caps));
+            assertArrayEquals(new int[]{1800000, 2400000, 3000000}, caps);
+
+            SysfsFixture.writePolicy(root, new int[]{7}, 3000000, 2200000);
+            sampler.sample(caps);
+            assertEquals(2200000, caps[2]);
+        }
+    }
+
+    @Test
+    public void fallsBackToRelatedCpusPerCore() throws IOException {
+        File root = tmp.getRoot();
+        for (int core = 0; core < 4; core++) {
+            SysfsFixture.writeCore(root, core, 1000000);
+            File cpufreq = new File(root, "sys/devices/system/cpu/cpu" + core + "/cpufreq");
+            SysfsFixture.write(new File(cpufreq, "related_cpus"), core < 2 ? "0 1\n" : "2 3\n");
+            SysfsFixture.write(new File(cpufreq, "scaling_max_freq"), (core < 2 ? 1500000 : 2000000) + "\n");
+        }
+
+        try (CpuPolicySampler sampler = new CpuPolicySampler(new File(root, "sys/devices/system/cpu"))) {
+            assertEquals(2, sampler.policyCount());
+            assertEquals("0-1", sampler.label(0));
+            assertEquals("2-3", sampler.label(1));
+            assertEquals(CpuPolicySampler.UNKNOWN, sampler.hardwareMaxKhz(0));
+            int[] caps = new int[2];
+            sampler.sample(caps);
+            assertArrayEquals(new int[]{1500000, 2000000}, caps);
+        }
+    }
+
+    @Test
+    public void parsesCpuLists() {
+        assertArrayEquals(new int[]{0, 1, 2, 3}, CpuPolicySampler.parseCpuList("0 1 2 3"));
+        assertArrayEquals(new int[]{4, 5, 6, 7}, CpuPolicySampler.parseCpuList("4-7"));
+        assertArrayEquals(new int[]{0, 2, 3}, CpuPolicySampler.parseCpuList("3,0 2"));
+        assertArrayEquals(new int[0], CpuPolicySampler.parseCpuList(null));
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class DiskStatsSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private File file;
+    private long now = 5_000;
+    private DiskStatsSampler sampler;
+    private final DiskThroughput out = new DiskThroughput();
+
+    @Before
+    public void setUp() {
+        dir = tmp.getRoot();
+        file = new File(dir, "proc/diskstats");
+        // no /sys/block in the fixture, so names are classified by pattern
+        sampler = new DiskStatsSampler(file, new File(dir, "sys/block"), () -> now);
+    }
+
+    @After
+    public void tearDown() {
+        sampler.close();
+    }
+
+    @Test
+    public void ratesFromCapturedPhoneSnapshots() throws Exception {
+        capture("phone_t0.txt");
+        assertTrue(sampler.sample(out));
+        assertEquals(4, out.count);
+        assertEquals("sda", out.names[0]);
+        assertEquals("sdb", out.names[1]);
+        assertEquals("sdc", out.names[2]);
+        assertEquals("mmcblk0", out.names[3]);
+        assertTrue(Double.isNaN(out.readRate[0]));
+        assertTrue(Double.isNaN(out.totalIops()));
+
+        now += 2000;
+        capture("phone_t1.txt");
+        assertTrue(sampler.sample(out));
+        assertEquals(4, out.count);
+        // 16000 sectors read and 24000 written over 2 s
+        assertEquals(16000 * 512 / 2.0, out.readRate[0], 0.001);
+        assertEquals(24000 * 512 / 2.0, out.writeRate[0], 0.001);
+        assertEquals(200, out.readIops[0], 0.001);
+        assertEquals(300, out.writeIops[0], 0.001);
+        assertEquals((800 + 1800) / 1000.0, out.latencyMs[0], 1e-9);
+        assertEquals(45, out.busyPercent[0], 1e-9);
+
+        assertEquals(0, out.readRate[1], 0);
+        assertTrue("no requests, no latency", Double.isNaN(out.latencyMs[1]));
+        assertEquals(3.0, out.latencyMs[3], 1e-9);
+
+        // partitions, dm and zram would count the same requests again
+        assertEquals(out.readRate[0] + 2048 * 512 / 2.0, out.totalReadRate(), 0.001);
+        assertEquals(0, out.busiest());
+    }
+
+    @Test
+    public void oldKernelWithElevenFieldsAndEmmcBootAreas() throws Exception {
+        capture("old_kernel.txt");
+        sampler.sample(out);
+        assertEquals(2, out.count);
+        assertEquals("mmcblk0", out.names[0]);
+        assertEquals("mmcblk1", out.names[1]);
+    }
+
+    @Test
+    public void sysBlockDecidesWhenItCanBeListed() throws Exception {
+        File sysBlock = new File(dir, "sys/block");
+        assertTrue(new File(sysBlock, "sda/device").mkdirs());
+        assertTrue(new File(sysBlock, "zram0").mkdirs());
+        // a disk whose name doesn't follow any scheme the patterns know
+        assertTrue(new File(sysBlock, "vendor_flash/device").mkdirs());
+        SysfsFixture.write(file, "   8       0 sda 1 0 8 1 1 0 8 1 0 1 2\n"
+                + "   8       1 sda1 1 0 8 1 1 0 8 1 0 1 2\n"
+                + " 254       0 zram0 1 0 8 1 1 0 8 1 0 1 2\n"
+                + " 240       0 vendor_flash 1 0 8 1 1 0 8 1 0 1 2\n");
+        try (DiskStatsSampler listed = new DiskStatsSampler(file, sysBlock, () -> now)) {
+            listed.sample(out);
+        }
+        assertEquals(2, out.count);
+        assertEquals("sda", out.names[0]);
+        assertEquals("vendor_flash", out.names[1]);
+    }
+
+    @Test
+    public void partitionNames() {
+        assertTrue(DiskStatsSampler.isPartitionName("sda1"));
+        assertTrue(DiskStatsSampler.isPartitionName("sdaa12"));
+        assertTrue(DiskStatsSampler.isPartitionName("vdb3"));
+        assertTrue(DiskStatsSampler.isPartitionName("mmcblk0p22"));
+        assertTrue(DiskStatsSampler.isPartitionName("nvme0n1p2"));
+        assertFalse(DiskStatsSampler.isPartitionName("sda"));
+        assertFalse(DiskStatsSampler.isPartitionName("mmcblk0"));
+        assertFalse(DiskStatsSampler.isPartitionName("nvme0n1"));
+    }
+
+    @Test
+    public void wrappedCountersAndVanishedDisksStartOver() throws Exception {
+        SysfsFixture.write(file, SysfsFixture.diskstats(2, 10));
+        sampler.sample(out);
+        now += 1000;
+        SysfsFixture.write(file, SysfsFixture.diskstats(1, 11));
+        sampler.sample(out);
+        assertEquals(1, out.count);
+        assertEquals(40 * 40 * 512, out.readRate[0], 0.001);
+
+        now += 1000;
+        SysfsFixture.write(file, SysfsFixture.diskstats(2, 12));
+        sampler.sample(out);
+        assertTrue("sdb came back", Double.isNaN(out.readRate[1]));
+        assertFalse(Double.isNaN(out.readRate[0]));
+
+        now += 1000;
+        SysfsFixture.write(file, SysfsFixture.diskstats(2, 0));
+        sampler.sample(out);
+        assertTrue(Double.isNaN(out.readRate[0]));
+    }
+
+    @Test
+    public void namesAreNotReallocatedOnSteadyTicks() throws Exception {
+        SysfsFixture.write(file, SysfsFixture.diskstats(3, 1));
+        sampler.sample(out);
+        String sdb = out.names[1];
+        now += 1000;
+        SysfsFixture.write(file, SysfsFixture.diskstats(3, 2));
+        sampler.sample(out);
+        assertSame(sdb, out.names[1]);
+        assertEquals(3, out.count);
+    }
+
+    @Test
+    public void unreadableFileReportsFalse() {
+        assertFalse(sampler.sample(out));
+        assertFalse(sampler.isAvailable());
+    }
+
+    private void capture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/diskstats/" + name)) {
+            assertNotNull(name, in);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) > 0) bytes.write(chunk, 0, n);
+            SysfsFixture.write(file, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+        }
+    }
+}
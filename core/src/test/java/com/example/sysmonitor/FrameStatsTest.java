@@ -0,0 +1,120 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class FrameStatsTest {
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void droppedFramesFollowTheRefreshPeriod() {
+        FrameStats stats = new FrameStats(60);
+        FrameStats.Snapshot s = stats.newSnapshot();
+        for (int i = 0; i < 97; i++) stats.record(16_667_000);
+        // jitter below half a period is not a miss
+        stats.record(24 * MS);
+        stats.record(34 * MS);
+        stats.record(100 * MS);
+        stats.snapshot(s);
+        assertEquals(100, s.frames);
+        assertEquals(2, s.jankyFrames);
+        assertEquals(1 + 5, s.droppedFrames);
+        assertEquals(2f, s.jankPercent(), 1e-6f);
+        assertEquals(100, s.maxNs / MS);
+
+        // the same 16.7 ms is two vsyncs at 120 Hz
+        stats.setRefreshRate(120);
+        stats.record(16_667_000);
+        stats.snapshot(s);
+        assertEquals(3, s.jankyFrames);
+        assertEquals(7, s.droppedFrames);
+        assertEquals(120f, s.refreshHz, 0f);
+    }
+
+    @Test
+    public void percentilesFromFixedBuckets() {
+        FrameStats stats = new FrameStats(90);
+        FrameStats.Snapshot s = stats.newSnapshot();
+        assertTrue(Double.isNaN(s.percentileMs(50)));
+        for (int i = 0; i < 99; i++) stats.record(11_100_000);
+        stats.record(250 * MS);
+        stats.snapshot(s);
+        assertEquals(11.5, s.percentileMs(50), 1e-9);
+        assertEquals(11.5, s.percentileMs(99), 1e-9);
+        // beyond the last edge the longest interval is reported
+        assertEquals(250, s.percentileMs(100), 1e-9);
+        assertEquals((99 * 11.1 + 250) / 100, s.meanMs(), 1e-9);
+        assertEquals(1000 / s.meanMs(), s.fps(), 1e-9);
+    }
+
+    @Test
+    public void nonsenseRatesAndIntervalsAreIgnored() {
+        FrameStats stats = new FrameStats(0);
+        assertEquals(60f, stats.getRefreshRate(), 0f);
+        stats.record(0);
+        stats.record(-5);
+        assertEquals(0, stats.getFrames());
+    }
+
+    @Test
+    public void concurrentWritersLoseNothing() throws InterruptedException {
+        FrameStats stats = new FrameStats(60);
+        int threads = 4;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long interval = (t + 1) * 16_667_000L;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) stats.record(interval);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) w.join();
+
+        FrameStats.Snapshot s = stats.newSnapshot();
+        stats.snapshot(s);
+        assertEquals(threads * perThread, s.frames);
+        assertEquals(3 * perThread, s.jankyFrames);
+        assertEquals((1 + 2 + 3) * perThread, s.droppedFrames);
+        assertEquals(4 * 16_667_000L, s.maxNs);
+    }
+
+    @Test
+    public void rollingJankCoversOnlyTheWindow() {
+        FrameStats stats = new FrameStats(60);
+        FrameStats.Snapshot s = stats.newSnapshot();
+        JankWindow window = new JankWindow(11);
+        assertTrue(Float.isNaN(window.jankPercent(10_000)));
+
+        long now = 0;
+        stats.snapshot(s);
+        window.add(now, s);
+        // 5 s of smooth frames, then 5 s with every tenth frame late
+        for (int sec = 0; sec < 10; sec++) {
+            for (int f = 0; f < 60; f++) stats.record(sec >= 5 && f % 10 == 0 ? 33 * MS : 16_667_000);
+            stats.snapshot(s);
+            window.add(now += 1000, s);
+        }
+        assertEquals(600, window.frames(10_000));
+        assertEquals(5f, window.jankPercent(10_000), 1e-4f);
+        assertEquals(10f, window.jankPercent(5_000), 1e-4f);
+        assertEquals(30, window.droppedFrames(5_000));
+        assertEquals(10f, window.jankPercent(1_000), 1e-4f);
+
+        // the ring only reaches back ten ticks now
+        for (int f = 0; f < 60; f++) stats.record(16_667_000);
+        stats.snapshot(s);
+        window.add(now += 1000, s);
+        assertEquals(600, window.frames(60_000));
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class HardwareProfileTest {
+    private static final String FINGERPRINT = "vendor/device/device:14/UP1A.231005.007/10754064:user/release-keys";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void findsEveryCoreAndZoneWithoutFixedLimits() throws IOException {
+        FileSystemRoot root = SysfsFixture.create(tmp.newFolder(), 64, 200);
+        // a zone without a readable sensor and a stray entry are skipped
+        new File(root.file(SysfsStats.THERMAL_DIR), "thermal_zone900").mkdirs();
+        new File(root.file(SysfsStats.THERMAL_DIR), "cooling_device0").mkdirs();
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            HardwareProfile parallel = HardwareProfile.discover(root, FINGERPRINT, pool, 4);
+            HardwareProfile serial = HardwareProfile.discover(root, FINGERPRINT, Runnable::run, 1);
+
+            assertEquals(64, parallel.coreIds.length);
+            assertEquals(63, parallel.coreIds[63]);
+            assertEquals(200, parallel.zoneIds.length);
+            assertEquals(199, parallel.zoneIds[199]);
+            for (int i = 0; i < 200; i++) assertEquals(SysfsFixture.zoneType(i), parallel.zoneTypes[i]);
+            assertArrayEquals(serial.coreIds, parallel.coreIds);
+            assertArrayEquals(serial.zoneTypes, parallel.zoneTypes);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void savedProfileIsOnlyReusedOnTheSameBuild() throws IOException {
+        FileSystemRoot root = SysfsFixture.create(tmp.newFolder(), 4, 3);
+        File file = new File(tmp.getRoot(), "hardware.profile");
+        assertNull(HardwareProfile.load(file, FINGERPRINT));
+
+        HardwareProfile found = HardwareProfile.discover(root, FINGERPRINT, Runnable::run, 1);
+        found.save(file);
+        HardwareProfile loaded = HardwareProfile.load(file, FINGERPRINT);
+        assertNotNull(loaded);
+        assertArrayEquals(found.coreIds, loaded.coreIds);
+        assertArrayEquals(found.zoneIds, loaded.zoneIds);
+        assertArrayEquals(found.zoneTypes, loaded.zoneTypes);
+
+        assertNull("after an OTA", HardwareProfile.load(file, FINGERPRINT + "-ota"));
+    }
+
+    @Test
+    public void truncatedProfileIsIgnored() throws IOException {
+        File file = new File(tmp.getRoot(), "hardware.profile");
+        SysfsFixture.write(file, HardwareProfile.HEADER + "\n" + FINGERPRINT + "\n0,1,2,3\n5\n0\tcpu\n");
+        assertNull(HardwareProfile.load(file, FINGERPRINT));
+        SysfsFixture.write(file, "sysmonitor-hardware 0\n" + FINGERPRINT + "\n");
+        assertNull(HardwareProfile.load(file, FINGERPRINT));
+    }
+
+    @Test
+    public void samplersFromProfileSkipDiscovery() throws IOException {
+        File dir = tmp.newFolder();
+        FileSystemRoot root = SysfsFixture.create(dir, 4, 3);
+        HardwareProfile profile = HardwareProfile.discover(root, FINGERPRINT, Runnable::run, 1);
+        // a type changed after discovery is not read again
+        SysfsFixture.writeZone(dir, 2, "renamed", 45000);
+
+        SysfsStats stats = new SysfsStats(root);
+        stats.setProfile(profile);
+        assertArrayEquals(new int[]{300000, 550000, 800000, 1050000}, stats.getCpuCoresFreq());
+        ThermalSnapshot thermal = stats.getThermalSnapshot();
+        assertArrayEquals(new int[]{0, 1, 2}, thermal.zoneIds);
+        assertEquals("gpu", thermal.names[2]);
+        assertEquals(45f, thermal.temps[2], 0f);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndWithinThreePercent() {
+        long previousUpper = -1;
+        for (int i = 0; i <= LatencyHistogram.index(LatencyHistogram.MAX_VALUE); i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            long lower = previousUpper + 1;
+            assertEquals(i, LatencyHistogram.index(lower));
+            assertEquals(i, LatencyHistogram.index(upper));
+            assertTrue("bucket " + i, upper - lower <= Math.max(0, lower / LatencyHistogram.SUB_BUCKETS));
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, previousUpper);
+    }
+
+    @Test
+    public void percentilesOfUniformLatencies() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int us = 1; us <= 1000; us++) h.record(us * 1000L);
+
+        assertEquals(1000, h.getCount());
+        assertEquals(500_000, h.getPercentile(50), 500_000 * 0.04);
+        assertEquals(990_000, h.getPercentile(99), 990_000 * 0.04);
+        assertEquals(1_000_000, h.getPercentile(100));
+        assertEquals(1_000_000, h.getMax());
+        assertEquals(500_500, h.getMean(), 0.001);
+    }
+
+    @Test
+    public void rareStallShowsInTailOnly() {
+        LatencyHistogram h = new LatencyHistogram();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) h.record(20_000 + random.nextInt(5_000));
+        h.record(40_000_000); // one blocking sysfs read
+
+        assertTrue(h.getPercentile(50) < 26_000);
+        assertTrue(h.getPercentile(99) < 26_000);
+        assertEquals(40_000_000, h.getMax());
+        assertEquals(40_000_000, h.getPercentile(100));
+    }
+
+    @Test
+    public void clampsOutOfRangeAndCopies() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getPercentile(99));
+        assertTrue(Double.isNaN(h.getMean()));
+        h.record(-5);
+        h.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_VALUE, h.getMax());
+
+        LatencyHistogram copy = new LatencyHistogram();
+        copy.record(123);
+        h.copyInto(copy);
+        assertEquals(2, copy.getCount());
+        assertEquals(0, copy.getPercentile(50));
+        h.reset();
+        assertEquals(0, h.getCount());
+        assertEquals(2, copy.getCount());
+    }
+}
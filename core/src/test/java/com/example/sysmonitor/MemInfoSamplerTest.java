@@ -0,0 +1,116 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MemInfoSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File file;
+    private MemInfoSampler sampler;
+    private final MemInfo out = new MemInfo();
+
+    @Before
+    public void setUp() {
+        file = new File(tmp.getRoot(), "proc/meminfo");
+        sampler = new MemInfoSampler(file);
+    }
+
+    @After
+    public void tearDown() {
+        sampler.close();
+    }
+
+    @Test
+    public void breakdownFromCapturedPhone() throws Exception {
+        capture("phone.txt");
+        assertTrue(sampler.sample(out));
+        assertEquals(5616188, out.get(MemInfo.TOTAL));
+        assertEquals(141360, out.get(MemInfo.FREE));
+        assertEquals(1827316, out.available());
+        assertEquals(1742944, out.get(MemInfo.CACHED));
+        assertEquals(492648, out.get(MemInfo.SLAB));
+        assertEquals(129616, out.get(MemInfo.PAGE_TABLES));
+        assertEquals(5616188 - 1827316, out.used());
+        assertEquals(2621436 - 1244964, out.swapUsed());
+        assertEquals((1742944 - 20020) + 3412 + 148232, out.reclaimable());
+    }
+
+    @Test
+    public void oldKernelWithoutMemAvailableFallsBack() throws Exception {
+        capture("old_kernel.txt");
+        assertTrue(sampler.sample(out));
+        assertEquals(MemInfo.UNKNOWN, out.get(MemInfo.AVAILABLE));
+        assertEquals(70212 + 512460 + 11380, out.available());
+        assertEquals(24012, out.get(MemInfo.SLAB_RECLAIMABLE));
+    }
+
+    @Test
+    public void everyKeyHasItsOwnSlot() {
+        // the static table would have refused to load otherwise; check lookups round-trip too
+        StringBuilder body = new StringBuilder();
+        for (int f = 0; f < MemInfo.KEYS.length; f++) {
+            body.append(MemInfo.KEYS[f]).append(":  ").append(1000 + f).append(" kB\n");
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.US_ASCII);
+        MemInfoSampler.parse(bytes, bytes.length, out);
+        for (int f = 0; f < MemInfo.KEYS.length; f++) assertEquals(MemInfo.KEYS[f], 1000 + f, out.get(f));
+    }
+
+    @Test
+    public void unknownKeysThatShareASlotAreNotMistaken() {
+        // same length and slot as a tracked key is possible; the byte compare must reject it
+        String body = "MemTotal: 10 kB\nmemtotal: 20 kB\nMemTotal2: 30 kB\nCached\nShmem: kB\nSlab:5";
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        MemInfoSampler.parse(bytes, bytes.length, out);
+        assertEquals(10, out.get(MemInfo.TOTAL));
+        assertEquals(MemInfo.UNKNOWN, out.get(MemInfo.CACHED));
+        assertEquals(MemInfo.UNKNOWN, out.get(MemInfo.SHMEM));
+        assertEquals(5, out.get(MemInfo.SLAB));
+    }
+
+    @Test
+    public void rereadsTheOpenFile() throws Exception {
+        SysfsFixture.write(file, SysfsFixture.meminfo(3_000_000));
+        MemInfoSampler live = new MemInfoSampler(file);
+        try {
+            assertTrue(live.sample(out));
+            assertEquals(3_000_000, out.available());
+            SysfsFixture.write(file, SysfsFixture.meminfo(2_000_000));
+            assertTrue(live.sample(out));
+            assertEquals(2_000_000, out.available());
+            assertEquals(400_000, out.get(MemInfo.FREE));
+        } finally {
+            live.close();
+        }
+    }
+
+    @Test
+    public void unreadableFileReportsFalse() {
+        assertFalse(sampler.sample(out));
+        assertFalse(sampler.isAvailable());
+    }
+
+    private void capture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/meminfo/" + name)) {
+            assertNotNull(name, in);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) > 0) bytes.write(chunk, 0, n);
+            SysfsFixture.write(file, new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MetricHistoryTest {
+    private long now = 50_000;
+    private final SamplingEngine engine = new SamplingEngine(() -> now);
+    private final int[] khz = {1_200_000, -1};
+    private final Metric<int[]> coreFreq = engine.register("cpu.cores", SamplingPolicy.fixed(1000), () -> khz);
+    private final ThermalSnapshot snapshot = new ThermalSnapshot(new int[]{0}, new String[]{"cpu"});
+    private final Metric<ThermalSnapshot> thermal = engine.register("thermal", SamplingPolicy.fixed(1000),
+            () -> snapshot, (a, b) -> Double.POSITIVE_INFINITY);
+    private final MetricHistory history = new MetricHistory(new TimeSeries.Resolution(1000, 60));
+    private final TimeSeries.Window window = new TimeSeries.Window(60);
+
+    @Test
+    public void recordsWhatSubscribersSampleStampedWithItsOwnClock() {
+        long[] wall = {7_000_000};
+        history.attach(() -> wall[0], coreFreq, thermal);
+        engine.runDue(now);
+        assertNull("nothing subscribed, nothing read", history.core(0));
+
+        Metric.Subscription screen = thermal.subscribe(v -> {});
+        for (int s = 0; s < 3; s++) {
+            snapshot.temps[0] = 40 + s;
+            engine.runDue(now);
+            now += 1000;
+            wall[0] += 1000;
+        }
+        screen.cancel();
+        assertNull(history.core(0));
+        assertEquals(3, history.zone(0).query(7_000_000, 7_002_999, window));
+        assertEquals(7_000_000, window.start[0]);
+        assertEquals(42f, window.avg[2], 0f);
+    }
+
+    @Test
+    public void holdKeepsBothMetricsSampledUntilTheLastHolderLetsGo() {
+        history.attach(() -> now, coreFreq, thermal);
+        Metric.Subscription first = history.hold();
+        Metric.Subscription second = history.hold();
+        for (int s = 0; s < 5; s++) {
+            snapshot.temps[0] = 40 + s;
+            engine.runDue(now);
+            now += 1000;
+        }
+
+        assertEquals(5, history.core(0).query(50_000, 54_999, window));
+        assertEquals(50_000, window.start[0]);
+        assertEquals(1200f, window.avg[0], 0f);
+        assertNull("a core that never reported has no series", history.core(1));
+        assertEquals(5, history.zone(0).query(50_000, 54_999, window));
+        assertEquals(44f, window.avg[4], 0f);
+
+        first.cancel();
+        first.cancel();
+        assertTrue(coreFreq.hasListeners());
+        second.cancel();
+        assertFalse(coreFreq.hasListeners());
+        assertFalse(thermal.hasListeners());
+    }
+}
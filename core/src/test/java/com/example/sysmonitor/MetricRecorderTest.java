@@ -0,0 +1,114 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricRecorderTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void roundTripsRows() throws IOException {
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 3, 4096, 4)) {
+            rec.append(1_700_000_000_000L, new float[]{1804.8f, 41.5f, Float.NaN});
+            rec.append(1_700_000_001_000L, new float[]{1804.8f, 41.5f, 87f});
+            rec.append(1_700_000_002_003L, new float[]{300f, -0.25f, 87f});
+        }
+
+        List<String> rows = scan(dir);
+        assertEquals(List.of(
+                "1700000000000 1804.8 41.5 NaN",
+                "1700000001000 1804.8 41.5 87.0",
+                "1700000002003 300.0 -0.25 87.0"), rows);
+    }
+
+    @Test
+    public void unchangedSeriesCostOneByteEach() throws IOException {
+        File dir = tmp.newFolder();
+        float[] row = new float[256];
+        try (MetricRecorder rec = new MetricRecorder(dir, row.length, 1 << 20, 1)) {
+            rec.append(0, row);
+            rec.append(1000, row);
+            long before = rec.getBytesWritten();
+            rec.append(2000, row);
+            rec.append(3000, row);
+            // length varint (2) + delta-of-delta (1) + 256 zero bytes + checksum (4)
+            assertEquals(2 * (2 + 1 + 256 + 4), rec.getBytesWritten() - before);
+        }
+    }
+
+    @Test
+    public void rotatesAndCapsSegments() throws IOException {
+        File dir = tmp.newFolder();
+        int rows = 0;
+        try (MetricRecorder rec = new MetricRecorder(dir, 2, 256, 3)) {
+            for (int i = 0; i < 200; i++) {
+                rec.append(i * 1000L, new float[]{i, i * 0.5f});
+                rows++;
+            }
+        }
+        File[] segments = MetricRecorder.listSegments(dir);
+        assertEquals(3, segments.length);
+
+        List<String> scanned = scan(dir);
+        assertTrue(scanned.size() < rows);
+        assertEquals("199000 199.0 99.5", scanned.get(scanned.size() - 1));
+    }
+
+    @Test
+    public void truncatesTornTailAndKeepsAppending() throws IOException {
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 2, 4096, 2)) {
+            rec.append(1000, new float[]{1, 2});
+            rec.append(2000, new float[]{3, 4});
+        }
+
+        // Simulate a crash halfway through a third record.
+        File segment = MetricRecorder.listSegments(dir)[0];
+        int tail = findTail(segment);
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(tail);
+            raf.write(new byte[]{12, 0x55, 0x66, 0x77});
+        }
+
+        try (MetricRecorder rec = new MetricRecorder(dir, 2, 4096, 2)) {
+            rec.append(3000, new float[]{5, 6});
+        }
+        assertEquals(1, MetricRecorder.listSegments(dir).length);
+        assertEquals(List.of("1000 1.0 2.0", "2000 3.0 4.0", "3000 5.0 6.0"), scan(dir));
+    }
+
+    private static int findTail(File segment) throws IOException {
+        byte[] data = new byte[(int) segment.length()];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+            raf.readFully(data);
+        }
+        SampleCodec codec = new SampleCodec(2);
+        int[] pos = {MetricRecorder.HEADER_BYTES};
+        float[] row = new float[2];
+        while (codec.decode(data, pos, data.length, row) != Long.MIN_VALUE) {
+            // advance to the end of data
+        }
+        return pos[0];
+    }
+
+    private static List<String> scan(File dir) throws IOException {
+        List<String> rows = new ArrayList<>();
+        MetricRecordReader.scan(dir, (time, values) -> {
+            StringBuilder sb = new StringBuilder().append(time);
+            for (float v : values) sb.append(' ').append(v);
+            rows.add(sb.toString());
+        });
+        return rows;
+    }
+}
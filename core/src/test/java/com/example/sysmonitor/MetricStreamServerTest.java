@@ -0,0 +1,209 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricStreamServerTest {
+    private static final String[] COLUMNS = {"cpu.busy.pct", "thermal.max.c", "température"};
+    private static final long TIMEOUT_MS = 10_000;
+
+    private MetricStreamServer server;
+    private final List<SocketChannel> sockets = new ArrayList<>();
+
+    @After
+    public void tearDown() throws IOException {
+        for (SocketChannel s : sockets) s.close();
+        if (server != null) server.close();
+    }
+
+    @Test
+    public void schemaThenOneBatchPerTick() throws Exception {
+        server = start(COLUMNS, 16, 0);
+        MetricStreamDecoder decoder = new MetricStreamDecoder(connect(0));
+        assertArrayEquals(COLUMNS, decoder.readSchema());
+        awaitClients(1);
+
+        List<String> seen = new ArrayList<>();
+        for (int tick = 0; tick < 3; tick++) {
+            server.publish(1000 + tick, new float[]{tick, 40 + tick, Float.NaN});
+            // wait for each tick, so none are coalesced
+            assertTrue(decoder.next((rows, times, columns, dropped) -> {
+                for (int r = 0; r < rows; r++) {
+                    seen.add(times[r] + " " + columns[0][r] + " " + columns[1][r] + " " + columns[2][r]);
+                }
+                assertEquals(0, dropped);
+            }));
+        }
+        assertEquals(List.of("1000 0.0 40.0 NaN", "1001 1.0 41.0 NaN", "1002 2.0 42.0 NaN"), seen);
+        assertEquals(3, server.getRowsSent());
+        // the schema plus three batches
+        assertEquals(4, server.getFramesSent());
+    }
+
+    @Test
+    public void slowReaderGetsCoalescedBatchesAndDropCounts() throws Exception {
+        String[] wide = new String[256];
+        for (int i = 0; i < wide.length; i++) wide[i] = "c" + i;
+        server = start(wide, 64, 4096);
+        SocketChannel socket = connect(4096);
+        MetricStreamDecoder decoder = new MetricStreamDecoder(socket);
+        decoder.readSchema();
+        awaitClients(1);
+
+        // about 20 MB while nobody reads: publish must neither block nor fail
+        int published = 20_000;
+        float[] row = new float[wide.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < published; i++) {
+            row[0] = i;
+            server.publish(i, row);
+        }
+        assertTrue("publish blocked", (System.nanoTime() - start) / 1_000_000 < TIMEOUT_MS);
+        assertTrue(server.getRowsDropped() > 0);
+
+        long[] received = new long[1];
+        long[] dropped = new long[1];
+        int[] largest = new int[1];
+        float[] last = {-1};
+        while (received[0] + dropped[0] < published) {
+            assertTrue(decoder.next((rows, times, columns, d) -> {
+                received[0] += rows;
+                dropped[0] += d;
+                largest[0] = Math.max(largest[0], rows);
+                for (int r = 0; r < rows; r++) {
+                    assertTrue("rows stay in order", columns[0][r] > last[0]);
+                    assertEquals(times[r], (long) columns[0][r]);
+                    last[0] = columns[0][r];
+                }
+            }));
+        }
+        assertEquals(published, received[0] + dropped[0]);
+        assertEquals(server.getRowsDropped(), dropped[0]);
+        assertTrue("batches were coalesced", largest[0] > 1);
+        assertEquals(published - 1, (long) last[0]);
+    }
+
+    @Test
+    public void eachClientGetsItsOwnStream() throws Exception {
+        server = start(COLUMNS, 16, 0);
+        MetricStreamDecoder first = new MetricStreamDecoder(connect(0));
+        first.readSchema();
+        awaitClients(1);
+        server.publish(1, new float[]{1, 2, 3});
+
+        SocketChannel late = connect(0);
+        MetricStreamDecoder second = new MetricStreamDecoder(late);
+        assertArrayEquals(COLUMNS, second.readSchema());
+        awaitClients(2);
+        server.publish(2, new float[]{4, 5, 6});
+
+        // the two ticks may have been coalesced into one batch
+        List<Long> firstTimes = new ArrayList<>();
+        while (firstTimes.size() < 2) {
+            first.next((rows, times, columns, dropped) -> {
+                for (int r = 0; r < rows; r++) firstTimes.add(times[r]);
+            });
+        }
+        assertEquals(List.of(1L, 2L), firstTimes);
+        long[] secondTime = new long[1];
+        second.next((rows, times, columns, dropped) -> secondTime[0] = times[0]);
+        assertEquals(2, secondTime[0]);
+
+        // a client that hangs up is forgotten
+        late.close();
+        awaitClients(1);
+    }
+
+    @Test
+    public void aClientThatResetsDoesNotStopTheServer() throws Exception {
+        server = start(COLUMNS, 16, 0);
+        for (int i = 0; i < 20; i++) {
+            SocketChannel rude = connect(0);
+            rude.setOption(StandardSocketOptions.SO_LINGER, 0);
+            rude.close();
+        }
+        MetricStreamDecoder decoder = new MetricStreamDecoder(connect(0));
+        assertArrayEquals(COLUMNS, decoder.readSchema());
+        awaitClients(1);
+        server.publish(1, new float[]{1, 2, 3});
+        assertTrue(decoder.next((rows, times, columns, dropped) -> assertEquals(1, times[0])));
+        assertFalse(server.isStopped());
+
+        server.close();
+        assertTrue(server.isStopped());
+        assertEquals(0, server.getClientCount());
+    }
+
+    @Test
+    public void decoderReadsSavedStreamsAndRejectsGarbage() throws Exception {
+        byte[][] names = StreamCodec.encodeNames(COLUMNS);
+        ByteBuffer buf = ByteBuffer.allocate(StreamCodec.schemaBytes(names) + StreamCodec.batchBytes(2, 3) + 64);
+        StreamCodec.putSchema(buf, names);
+        // a frame type from a future version is skipped
+        buf.putInt(3).put((byte) 9).putShort((short) 0);
+        StreamCodec.putBatch(buf, new long[]{7, 5, 6}, new float[]{
+                5, 50, 500, 6, 60, 600, 7, 70, 700}, 1, 2, 3, 3, 4);
+
+        MetricStreamDecoder decoder = new MetricStreamDecoder(
+                Channels.newChannel(new ByteArrayInputStream(buf.array(), 0, buf.position())));
+        List<String> seen = new ArrayList<>();
+        assertTrue(decoder.next((rows, times, columns, dropped) -> {
+            assertEquals(4, dropped);
+            for (int r = 0; r < rows; r++) seen.add(times[r] + ":" + columns[0][r] + "," + columns[2][r]);
+        }));
+        assertEquals(List.of("5:6.0,600.0", "6:7.0,700.0"), seen);
+        assertFalse(decoder.next((rows, times, columns, dropped) -> fail()));
+
+        MetricStreamDecoder garbage = new MetricStreamDecoder(
+                Channels.newChannel(new ByteArrayInputStream(new byte[]{0, 0, 0, 9, 1, 'n', 'o', 'p', 'e', 0, 0, 0, 0})));
+        try {
+            garbage.readSchema();
+            fail();
+        } catch (IOException expected) {
+            // not a metric stream
+        }
+        MetricStreamDecoder truncated = new MetricStreamDecoder(
+                Channels.newChannel(new ByteArrayInputStream(buf.array(), 0, 20)));
+        try {
+            truncated.readSchema();
+            fail();
+        } catch (EOFException expected) {
+            // ends inside the schema
+        }
+    }
+
+    private static MetricStreamServer start(String[] columns, int maxPending, int sendBuffer) throws IOException {
+        return new MetricStreamServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                columns, maxPending, sendBuffer);
+    }
+
+    private SocketChannel connect(int receiveBuffer) throws IOException {
+        SocketChannel s = SocketChannel.open();
+        sockets.add(s);
+        if (receiveBuffer > 0) s.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+        s.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        return s;
+    }
+
+    private void awaitClients(int n) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        while (server.getClientCount() != n) {
+            assertTrue("clients: " + server.getClientCount(), System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+}
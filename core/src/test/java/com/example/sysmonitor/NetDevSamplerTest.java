@@ -0,0 +1,122 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class NetDevSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private long now = 5_000;
+    private NetDevSampler sampler;
+
+    @Before
+    public void setUp() {
+        dir = tmp.getRoot();
+        sampler = new NetDevSampler(new File(dir, "proc/net/dev"), () -> now);
+    }
+
+    @After
+    public void tearDown() {
+        sampler.close();
+    }
+
+    @Test
+    public void ratesFromCapturedPhoneSnapshots() throws Exception {
+        capture("dev_phone_t0.txt");
+        NetThroughput out = new NetThroughput();
+        assertTrue(sampler.sample(out));
+        assertEquals(6, out.count);
+        assertEquals("rmnet_data0", out.names[3]);
+        assertEquals(1093442817L, out.rxBytes[4]);
+        assertTrue(Double.isNaN(out.rxRate[4]));
+        assertTrue(Double.isNaN(out.totalRxRate()));
+
+        now += 2000;
+        capture("dev_phone_t1.txt");
+        assertTrue(sampler.sample(out));
+        assertEquals(7, out.count);
+        assertEquals("wlan0", out.names[4]);
+        assertEquals((1095540097L - 1093442817L) / 2.0, out.rxRate[4], 0.001);
+        assertEquals((98495555L - 98233411L) / 2.0, out.txRate[4], 0.001);
+        assertEquals(0, out.rxRate[1], 0);
+        assertEquals("tun0", out.names[6]);
+        assertTrue(Double.isNaN(out.rxRate[6]));
+        // loopback is left out of the totals
+        assertEquals(out.rxRate[4], out.totalRxRate(), 0.001);
+    }
+
+    @Test
+    public void oldKernelFormatWithoutSpaceAfterColon() throws Exception {
+        capture("dev_old_kernel.txt");
+        NetThroughput out = new NetThroughput();
+        sampler.sample(out);
+        assertEquals(2, out.count);
+        assertEquals("eth0", out.names[1]);
+        assertEquals(3017222911L, out.rxBytes[1]);
+        assertEquals(204820493L, out.txBytes[1]);
+    }
+
+    @Test
+    public void vanishedInterfaceStartsOverAndResetCountersAreNotNegative() throws Exception {
+        NetThroughput out = new NetThroughput();
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(3, 10));
+        sampler.sample(out);
+        now += 1000;
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(2, 11));
+        sampler.sample(out);
+        assertEquals(2, out.count);
+        assertEquals(250_000, out.rxRate[1], 0.001);
+
+        now += 1000;
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(3, 12));
+        sampler.sample(out);
+        assertTrue("rmnet_data0 came back", Double.isNaN(out.rxRate[2]));
+
+        now += 1000;
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(3, 1));
+        sampler.sample(out);
+        assertTrue(Double.isNaN(out.rxRate[1]));
+    }
+
+    @Test
+    public void namesAreNotReallocatedOnSteadyTicks() throws Exception {
+        NetThroughput out = new NetThroughput();
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(4, 1));
+        sampler.sample(out);
+        String wlan = out.names[1];
+        now += 1000;
+        SysfsFixture.write(new File(dir, "proc/net/dev"), SysfsFixture.netDev(4, 2));
+        sampler.sample(out);
+        assertSame(wlan, out.names[1]);
+    }
+
+    @Test
+    public void unreadableFileReportsFalse() {
+        assertFalse(sampler.sample(new NetThroughput()));
+        assertFalse(sampler.isAvailable());
+    }
+
+    private void capture(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/net/" + name)) {
+            assertNotNull(name, in);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            int n;
+            while ((n = in.read(chunk)) > 0) bytes.write(chunk, 0, n);
+            SysfsFixture.write(new File(dir, "proc/net/dev"), new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+        }
+    }
+}
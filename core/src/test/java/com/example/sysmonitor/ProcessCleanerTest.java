@@ -0,0 +1,82 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ProcessCleanerTest {
+
+    @Test
+    public void killsEveryPackageAndReportsProgress() throws Exception {
+        List<String> killed = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        ProcessCleaner cleaner = new ProcessCleaner(killed::add, () -> 100, ms -> {}, 3, 4)
+                .settle(10, 30, 1, 0);
+
+        List<String> packages = Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+        CleanReport report = cleaner.clean(packages, (done, total, pkg) -> {
+            assertEquals(10, total);
+            progress.add(done);
+        });
+
+        assertEquals(10, killed.size());
+        assertTrue(killed.containsAll(packages));
+        Collections.sort(progress);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), progress);
+        assertEquals(10, report.killed());
+        assertArrayEquals(packages.toArray(), report.packages);
+    }
+
+    @Test
+    public void recordsFailuresAndSlowKills() throws Exception {
+        ProcessCleaner cleaner = new ProcessCleaner(pkg -> {
+            if (pkg.equals("bad")) throw new SecurityException();
+            if (pkg.equals("slow")) Thread.sleep(30);
+        }, () -> 0, ms -> {}, 2, 2).settle(10, 10, 1, 0);
+
+        CleanReport report = cleaner.clean(Arrays.asList("ok", "bad", "slow"), null);
+
+        assertEquals(2, report.killed());
+        assertTrue(report.failed[1]);
+        assertEquals(2, report.slowest(1)[0]);
+        assertTrue(report.killNanos[2] >= 30_000_000L);
+        assertEquals(3, report.slowest(10).length);
+    }
+
+    @Test
+    public void reclaimIsMeasuredOnceMemorySettles() throws Exception {
+        // availMem keeps rising for a while after the kills, then levels off
+        long[] readings = {1000, 1200, 1500, 1700, 1702, 1701, 1703, 1900};
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger sleeps = new AtomicInteger();
+        ProcessCleaner cleaner = new ProcessCleaner(pkg -> {}, () -> readings[next.getAndIncrement()],
+                ms -> sleeps.incrementAndGet(), 1, 8).settle(100, 1000, 3, 5);
+
+        CleanReport report = cleaner.clean(Collections.singletonList("x"), null);
+
+        assertEquals(1000, report.availBefore);
+        assertEquals(1701, report.availAfter);
+        assertEquals(701, report.reclaimedBytes());
+        assertEquals(5, report.settleSamples);
+        assertEquals(5, sleeps.get());
+    }
+
+    @Test
+    public void settlingGivesUpAfterTheWindow() throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        ProcessCleaner cleaner = new ProcessCleaner(pkg -> {}, () -> 1000L * next.getAndIncrement(),
+                ms -> {}, 1, 8).settle(100, 400, 2, 0);
+
+        CleanReport report = cleaner.clean(Collections.emptyList(), null);
+
+        assertEquals(4, report.settleSamples);
+        assertEquals(0, report.availBefore);
+        assertEquals(3500, report.availAfter);
+    }
+}
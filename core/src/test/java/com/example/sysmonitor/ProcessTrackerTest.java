@@ -0,0 +1,135 @@
+package com.example.sysmonitor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ProcessTrackerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+    private long now = 1_000;
+    private ProcessTracker tracker;
+
+    @Before
+    public void setUp() {
+        dir = tmp.getRoot();
+        // maxOpen 0: an open stat of an exited pid fails on procfs, but a deleted
+        // fixture file would stay readable through its descriptor
+        tracker = new ProcessTracker(new File(dir, "proc"), () -> now, 4, 3, 0);
+    }
+
+    @After
+    public void tearDown() {
+        tracker.close();
+    }
+
+    @Test
+    public void ranksByCpuAndRss() throws Exception {
+        SysfsFixture.writeProcess(dir, 100, "com.example.a", 0, 0, 500, 1000);
+        SysfsFixture.writeProcess(dir, 200, "com.example.b:remote", 0, 0, 600, 3000);
+        SysfsFixture.writeProcess(dir, 300, "", 0, 0, 700, 0);
+        tracker.refresh();
+
+        now += 2000;
+        SysfsFixture.writeProcess(dir, 100, "com.example.a", 150, 50, 500, 1000);   // 200 ticks in 2 s
+        SysfsFixture.writeProcess(dir, 200, "com.example.b:remote", 10, 10, 600, 3000);
+        SysfsFixture.writeProcess(dir, 300, "", 50, 0, 700, 0);
+        tracker.refresh();
+
+        ProcessTop top = new ProcessTop(2);
+        tracker.top(ProcessTracker.BY_CPU, top);
+        assertEquals(2, top.count);
+        assertEquals(3, top.tracked);
+        assertEquals(100, top.pids[0]);
+        assertEquals(100f, top.cpu[0], 0.01);
+        assertEquals(300, top.pids[1]);
+        assertEquals("[proc 300]", top.names[1]);
+        assertEquals(25f, top.cpu[1], 0.01);
+
+        tracker.top(ProcessTracker.BY_RSS, top);
+        assertEquals(200, top.pids[0]);
+        assertEquals(12000, top.rssKb[0]);
+        assertEquals("com.example.b:remote", top.names[0]);
+        assertEquals("com.example.b", ProcessTop.packageOf(top.names[0]));
+    }
+
+    @Test
+    public void evictsExitedPidsAndDiscoversOnRescan() throws Exception {
+        SysfsFixture.writeProcess(dir, 100, "a", 0, 0, 1, 1);
+        SysfsFixture.writeProcess(dir, 200, "b", 0, 0, 1, 1);
+        tracker.refresh();
+        assertEquals(2, tracker.processCount());
+
+        SysfsFixture.delete(new File(dir, "proc/100"));
+        SysfsFixture.writeProcess(dir, 300, "c", 0, 0, 1, 1);
+        tracker.refresh();
+        assertEquals("exited pid evicted, new one not listed yet", 1, tracker.processCount());
+
+        tracker.refresh();
+        tracker.refresh(); // third refresh since the last listing rescans /proc
+        assertEquals(2, tracker.processCount());
+        ProcessTop top = new ProcessTop(5);
+        tracker.top(ProcessTracker.BY_RSS, top);
+        assertEquals(2, top.count);
+        assertNull(top.names[2]);
+    }
+
+    @Test
+    public void pidReuseResetsState() throws Exception {
+        SysfsFixture.writeProcess(dir, 100, "old", 0, 0, 10, 1);
+        tracker.refresh();
+        now += 1000;
+        SysfsFixture.writeProcess(dir, 100, "new", 5, 0, 99, 1);
+        tracker.refresh();
+
+        ProcessTop top = new ProcessTop(1);
+        tracker.top(ProcessTracker.BY_CPU, top);
+        assertEquals("new", top.names[0]);
+        assertTrue(Float.isNaN(top.cpu[0]));
+    }
+
+    @Test
+    public void parsesCommWithParenthesesAndSpaces() {
+        byte[] stat = ("42 (weird ) name) R 1 42 0 0 -1 0 0 0 0 0 7 3 0 0 20 0 1 0 1234 1000 55 0\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        long[] out = new long[4];
+        assertTrue(ProcessTracker.parseStat(stat, stat.length, out));
+        assertArrayEquals(new long[]{7, 3, 1234, 55}, out);
+        assertFalse(ProcessTracker.parseStat(stat, 20, out));
+    }
+
+    @Test
+    public void longIntMapSurvivesChurn() {
+        LongIntMap map = new LongIntMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int step = 0; step < 20_000; step++) {
+            long key = random.nextInt(500);
+            if (random.nextBoolean()) {
+                int value = random.nextInt(1000);
+                map.put(key, value);
+                reference.put(key, value);
+            } else {
+                Integer expected = reference.remove(key);
+                assertEquals(expected == null ? LongIntMap.MISSING : expected, map.remove(key));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        for (long key = 0; key < 500; key++) {
+            Integer expected = reference.get(key);
+            assertEquals(expected == null ? LongIntMap.MISSING : expected, map.get(key));
+        }
+    }
+}
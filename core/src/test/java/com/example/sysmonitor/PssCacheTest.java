@@ -0,0 +1,83 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PssCacheTest {
+    private long now = 0;
+    private final List<int[]> batches = new ArrayList<>();
+    private final PssCache cache = new PssCache((pids, count, out) -> {
+        batches.add(Arrays.copyOf(pids, count));
+        for (int i = 0; i < count; i++) out[i] = pids[i] == 666 ? PssCache.UNKNOWN : pids[i] * 10L;
+    }, () -> now, 30_000);
+    private final long[] out = new long[8];
+
+    @Test
+    public void measuresOnlyExpiredPidsInOneBatch() {
+        cache.get(new int[]{1, 2, 3}, 3, out);
+        assertEquals(1, batches.size());
+        assertArrayEquals(new long[]{10, 20, 30}, Arrays.copyOf(out, 3));
+
+        now += 10_000;
+        cache.get(new int[]{3, 4, 1}, 3, out);
+        assertEquals(2, batches.size());
+        assertArrayEquals(new int[]{4}, batches.get(1));
+        assertArrayEquals(new long[]{30, 40, 10}, Arrays.copyOf(out, 3));
+
+        now += 10_000;
+        cache.get(new int[]{1, 2, 3, 4}, 4, out);
+        assertEquals("all fresh", 2, cache.getQueries());
+
+        now += 10_001;
+        cache.get(new int[]{1, 2, 3, 4}, 4, out);
+        assertArrayEquals(new int[]{1, 2, 3}, batches.get(2));
+    }
+
+    @Test
+    public void unmeasurablePidsAreCachedAsUnknown() {
+        cache.get(new int[]{666}, 1, out);
+        assertEquals(PssCache.UNKNOWN, out[0]);
+        now += 1000;
+        cache.get(new int[]{666}, 1, out);
+        assertEquals(1, cache.getQueries());
+    }
+
+    @Test
+    public void exitedProcessesAreEvictedOnceExpired() {
+        int[] pids = new int[100];
+        long[] wide = new long[100];
+        for (int i = 0; i < 100; i++) pids[i] = 1000 + i;
+        cache.get(pids, 60, wide);
+        assertEquals(60, cache.size());
+
+        // an hour later a different set of processes is running
+        now += 3_600_000;
+        for (int i = 0; i < 100; i++) pids[i] = 5000 + i;
+        cache.get(pids, 40, wide);
+        assertEquals(40, cache.size());
+        assertEquals(50_000, wide[0]);
+        assertEquals(50_390, wide[39]);
+    }
+
+    @Test
+    public void failingSourceIsRetriedNextTime() {
+        boolean[] fail = {true};
+        PssCache flaky = new PssCache((pids, count, o) -> {
+            if (fail[0]) throw new SecurityException("rate limited");
+            for (int i = 0; i < count; i++) o[i] = 7;
+        }, () -> now, 30_000);
+        try {
+            flaky.get(new int[]{1}, 1, out);
+            fail();
+        } catch (SecurityException expected) {
+        }
+        fail[0] = false;
+        flaky.get(new int[]{1}, 1, out);
+        assertEquals(7, out[0]);
+    }
+}
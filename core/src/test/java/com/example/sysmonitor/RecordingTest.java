@@ -0,0 +1,220 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecordingTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private long now = 1_000;
+    private long cpu = 0;
+    private final SamplingEngine engine = new SamplingEngine(() -> now);
+    private int temp = 40;
+    private final Metric<Integer> thermal = engine.register("thermal", () -> temp);
+    private final Metric<String> idle = engine.register("idle", () -> "x");
+    // writes run inline unless a test holds them back
+    private final List<Runnable> heldWrites = new ArrayList<>();
+    private boolean holdWrites;
+    private final Recording recording = new Recording(engine, () -> now, () -> cpu, 1000, 10_000, task -> {
+        if (holdWrites) {
+            heldWrites.add(task);
+        } else {
+            task.run();
+        }
+    });
+
+    @Test
+    public void rowsReachStorageOnlyOnFlush() throws IOException {
+        recording.addColumn("temp", thermal, t -> t);
+        recording.addColumn("temp.half", thermal, t -> t / 2f);
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 2, 1 << 16, 2)) {
+            recording.start(rec);
+            for (int i = 0; i < 10; i++) {
+                engine.runDue(now);
+                temp++;
+                now += 1000;
+            }
+            assertEquals(0, rec.getBytesWritten());
+            assertEquals(0, recording.getOverhead().flushes);
+
+            engine.runDue(now); // ten seconds after start
+            assertEquals(1, recording.getOverhead().flushes);
+            assertEquals(11, recording.getOverhead().rows);
+            long afterFirst = rec.getBytesWritten();
+            assertTrue(afterFirst > 0);
+
+            now += 1000;
+            temp++;
+            engine.runDue(now);
+            assertEquals(afterFirst, rec.getBytesWritten());
+
+            Recording.Overhead overhead = recording.stop();
+            assertFalse(recording.isRecording());
+            assertEquals(2, overhead.flushes);
+            assertEquals(12, overhead.rows);
+            assertEquals(rec.getBytesWritten(), overhead.bytesWritten);
+        }
+
+        List<String> rows = new ArrayList<>();
+        MetricRecordReader.scan(dir, (t, v) -> rows.add(t + " " + v[0] + " " + v[1]));
+        assertEquals(12, rows.size());
+        assertEquals("1000 40.0 20.0", rows.get(0));
+        assertEquals("12000 51.0 25.5", rows.get(11));
+    }
+
+    @Test
+    public void aBusyWriterNeitherBlocksSamplingNorLosesRows() throws IOException {
+        recording.addColumn("temp", thermal, t -> t);
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 1, 1 << 16, 2)) {
+            recording.start(rec);
+            holdWrites = true;
+            for (int i = 0; i < 11; i++) {
+                engine.runDue(now);
+                temp++;
+                now += 1000;
+            }
+            // the first batch went to the writer, which hasn't got to it yet
+            assertEquals(1, heldWrites.size());
+            assertEquals(0, recording.getOverhead().flushes);
+            assertEquals(0, recording.getOverhead().bytesWritten);
+
+            // meanwhile rows keep going into the other batch
+            for (int i = 0; i < 10; i++) {
+                engine.runDue(now);
+                temp++;
+                now += 1000;
+            }
+            assertEquals(1, heldWrites.size());
+
+            holdWrites = false;
+            heldWrites.remove(0).run();
+            assertEquals(1, recording.getOverhead().flushes);
+            assertTrue(recording.getOverhead().bytesWritten > 0);
+
+            Recording.Overhead overhead = recording.stop();
+            assertEquals(2, overhead.flushes);
+            assertEquals(0, overhead.failedFlushes);
+            assertEquals(21, overhead.rows);
+        }
+        long[] count = new long[1];
+        float[] last = new float[1];
+        MetricRecordReader.scan(dir, (t, v) -> {
+            count[0]++;
+            last[0] = v[0];
+        });
+        assertEquals(21, count[0]);
+        assertEquals(60f, last[0], 0f);
+    }
+
+    @Test
+    public void rowsSeeDeadlineReadsOfTheSamePass() {
+        int[] load = {0};
+        Metric<Integer> slow = engine.register("slow", SamplingPolicy.fixed(1000).withDeadline(5_000), () -> load[0]);
+        recording.addColumn("load", slow, l -> l);
+        recording.addColumn("temp", thermal, t -> t);
+        List<String> rows = new ArrayList<>();
+        recording.setSink((t, v) -> rows.add(v[0] + " " + v[1]));
+        try {
+            for (int i = 0; i < 4; i++) {
+                engine.runDue(now);
+                load[0] += 10;
+                temp++;
+                now += 1000;
+            }
+        } finally {
+            engine.shutdown();
+        }
+        assertEquals(List.of("0.0 40.0", "10.0 41.0", "20.0 42.0", "30.0 43.0"), rows);
+    }
+
+    @Test
+    public void keepsColumnsSampledAndReleasesThemOnStop() throws IOException {
+        recording.addColumn("temp", thermal, t -> t);
+        try (MetricRecorder rec = new MetricRecorder(tmp.newFolder(), 1, 4096, 1)) {
+            recording.start(rec);
+            assertTrue(thermal.hasListeners());
+            assertFalse(idle.hasListeners());
+            try {
+                recording.addColumn("late", idle, s -> 0);
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            recording.stop();
+        }
+        assertFalse(thermal.hasListeners());
+        assertEquals(SamplingEngine.IDLE, engine.runDue(now));
+    }
+
+    @Test
+    public void reportsWakeupsAndCpuPerMinute() throws IOException {
+        recording.addColumn("temp", thermal, t -> t);
+        try (MetricRecorder rec = new MetricRecorder(tmp.newFolder(), 1, 4096, 1)) {
+            recording.start(rec);
+            // one wakeup per second for a minute, with 30 ms of CPU per wakeup
+            for (int i = 0; i < 60; i++) {
+                engine.runDue(now);
+                cpu += 30;
+                now += 1000;
+            }
+            Recording.Overhead overhead = recording.getOverhead();
+            assertEquals(60, overhead.wakeupsPerMinute(), 0.001);
+            assertEquals(3.0, overhead.cpuPercent(), 0.001);
+            assertEquals(5, overhead.flushes);
+            assertSame(recording.stop(), recording.getOverhead());
+        }
+    }
+
+    @Test
+    public void stopBeforeFirstTickWritesNothing() throws IOException {
+        recording.addColumn("idle", idle, s -> 1);
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 1, 4096, 1)) {
+            recording.start(rec);
+            recording.stop();
+        }
+        // nothing was due yet, so nothing was batched
+        assertEquals(0, MetricRecordReader.scan(dir, (t, v) -> fail()));
+    }
+
+    @Test
+    public void sinkGetsRowsWithoutARecorder() throws IOException {
+        recording.addColumn("temp", thermal, t -> t);
+        List<String> rows = new ArrayList<>();
+        recording.setSink((t, row) -> rows.add(t + " " + row[0]));
+        engine.runDue(now);
+        now += 1000;
+        temp++;
+        engine.runDue(now);
+        assertEquals(List.of("1000 40.0", "2000 41.0"), rows);
+        assertFalse(recording.isRecording());
+
+        // recording alongside, then stopping it, keeps the sink fed
+        File dir = tmp.newFolder();
+        try (MetricRecorder rec = new MetricRecorder(dir, 1, 1 << 16, 2)) {
+            recording.start(rec);
+            now += 1000;
+            engine.runDue(now);
+            recording.stop();
+        }
+        now += 1000;
+        engine.runDue(now);
+        assertEquals(4, rows.size());
+
+        recording.setSink(null);
+        now += 1000;
+        engine.runDue(now);
+        assertEquals(4, rows.size());
+        assertEquals(SamplingEngine.IDLE, engine.runDue(now + 60_000));
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SamplingEngineTest {
+    private long now = 10_000;
+    private final SamplingEngine engine = new SamplingEngine(() -> now);
+
+    @Test
+    public void samplesOncePerTickAndFansOut() {
+        int[] reads = new int[1];
+        Metric<Integer> metric = engine.register("counter", () -> ++reads[0]);
+        List<Integer> a = new ArrayList<>();
+        List<Integer> b = new ArrayList<>();
+        metric.subscribe(a::add);
+        metric.subscribe(b::add);
+
+        assertEquals(11_000, engine.runDue(now));
+        now += 500;
+        assertEquals(11_000, engine.runDue(now));
+        now += 500;
+        engine.runDue(now);
+
+        assertEquals(2, reads[0]);
+        assertEquals(List.of(1, 2), a);
+        assertEquals(List.of(1, 2), b);
+        assertEquals(Integer.valueOf(2), metric.getLast());
+    }
+
+    @Test
+    public void metricsWithoutListenersAreNotRead() {
+        int[] reads = new int[2];
+        Metric<Integer> watched = engine.register("watched", () -> ++reads[0]);
+        engine.register("idle", () -> ++reads[1]);
+
+        assertEquals(SamplingEngine.IDLE, engine.runDue(now));
+
+        Metric.Subscription sub = watched.subscribe(v -> {});
+        engine.runDue(now);
+        sub.cancel();
+        now += 1000;
+        assertEquals(SamplingEngine.IDLE, engine.runDue(now));
+
+        assertEquals(1, reads[0]);
+        assertEquals(0, reads[1]);
+    }
+
+    @Test
+    public void keepsTicksOnGridAfterStall() {
+        engine.register("m", () -> 0).subscribe(v -> {});
+        engine.runDue(now);
+        now += 3500;
+        assertEquals(now + 1000, engine.runDue(now));
+    }
+
+    @Test
+    public void failingSourceDoesNotStopOthers() {
+        List<String> seen = new ArrayList<>();
+        engine.register("bad", () -> { throw new IllegalStateException(); }).subscribe(v -> seen.add("bad"));
+        engine.register("good", () -> "ok").subscribe(seen::add);
+
+        engine.runDue(now);
+        assertEquals(List.of("ok"), seen);
+    }
+
+    @Test
+    public void backsOffWhileUnchangedAndSnapsBackOnChange() {
+        int[] value = {5};
+        Metric<Integer> metric = engine.register("slow",
+                SamplingPolicy.adaptive(1000, 500, 8000, 0), () -> value[0]);
+        metric.subscribe(v -> {});
+
+        long start = now;
+        long[] expected = {1000, 2000, 4000, 8000, 8000};
+        engine.runDue(now);
+        for (long interval : expected) {
+            assertEquals(interval, metric.getIntervalMs());
+            now += interval;
+            engine.runDue(now);
+        }
+        assertEquals(6, metric.getReads());
+        // A 1 s poller would have read 24 times over the same 23 s.
+        assertEquals((now - start) / 1000 + 1 - 6, metric.getSkippedReads());
+
+        value[0] = 6;
+        now += 8000;
+        engine.runDue(now);
+        assertEquals(500, metric.getIntervalMs());
+        assertEquals(now + 500, engine.runDue(now));
+    }
+
+    @Test
+    public void thresholdIgnoresSmallMoves() {
+        double[] value = {40.0};
+        Metric<Double> metric = engine.register("temp",
+                SamplingPolicy.adaptive(1000, 1000, 4000, 0.5), () -> value[0], (a, b) -> Math.abs(a - b));
+        metric.subscribe(v -> {});
+
+        engine.runDue(now);
+        value[0] = 40.3;
+        now += 1000;
+        engine.runDue(now);
+        assertEquals(2000, metric.getIntervalMs());
+
+        value[0] = 41.0;
+        now += 2000;
+        engine.runDue(now);
+        assertEquals(1000, metric.getIntervalMs());
+    }
+
+    @Test
+    public void metricsRunOnTheirOwnIntervals() {
+        int[] reads = new int[2];
+        engine.register("fast", SamplingPolicy.fixed(1000), () -> ++reads[0]).subscribe(v -> {});
+        engine.register("slow", SamplingPolicy.fixed(5000), () -> ++reads[1]).subscribe(v -> {});
+
+        for (int i = 0; i < 10; i++) {
+            engine.runDue(now);
+            now += 1000;
+        }
+        assertEquals(10, reads[0]);
+        assertEquals(2, reads[1]);
+    }
+
+    @Test
+    public void recordsLatencyFailuresAndAllocationsPerSource() {
+        long[] allocated = new long[1];
+        int[] reads = new int[1];
+        Metric<Integer> flaky = engine.register("flaky", () -> {
+            allocated[0] += 96;
+            if (++reads[0] % 2 == 0) throw new IllegalStateException("sensor asleep");
+            return reads[0];
+        });
+        flaky.subscribe(v -> {});
+
+        engine.runDue(now);
+        engine.setAllocations(() -> allocated[0]);
+        engine.setBudgetMs(0);
+        for (int i = 0; i < 4; i++) {
+            now += 1000;
+            engine.runDue(now);
+        }
+
+        SourceStats stats = flaky.getStats();
+        assertEquals(5, stats.getSamples());
+        assertEquals(2, stats.getFailures());
+        assertEquals(4, stats.getTimeouts(), 1); // a read can take under a nanosecond of clock
+        assertEquals(96, stats.getAllocatedBytesPerSample(), 0);
+        assertTrue(stats.getMaxLatencyNanos() >= stats.getLatencyNanos(50));
+
+        String dump = engine.dump();
+        assertTrue(dump, dump.contains("flaky"));
+        assertTrue(dump, dump.contains(" 96"));
+        assertEquals("only metrics that were read are listed", 2, dump.split("\n").length);
+    }
+
+    @Test
+    public void hotSpotCountsAllocationsOfTheSource() {
+        SamplingEngine.Allocations allocations = SamplingEngine.Allocations.hotSpot();
+        org.junit.Assume.assumeNotNull(allocations);
+        engine.setAllocations(allocations);
+        Metric<long[]> metric = engine.register("alloc", () -> new long[1024]);
+        metric.subscribe(v -> {});
+        engine.runDue(now);
+        assertTrue(metric.getStats().getAllocatedBytesPerSample() >= 8 * 1024);
+    }
+
+    private static <T> T await(CountDownLatch latch, T value) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+
+    @Test
+    public void slowSourceRepublishesLastValueAsStale() {
+        CountDownLatch asleep = new CountDownLatch(1);
+        int[] reads = new int[1];
+        Metric<Integer> thermal = engine.register("thermal", SamplingPolicy.fixed(1000).withDeadline(20),
+                () -> ++reads[0] == 2 ? await(asleep, 2) : reads[0]);
+        Metric<String> battery = engine.register("battery", () -> "ok");
+        List<String> seen = new ArrayList<>();
+        thermal.subscribe(v -> seen.add(v + (thermal.isStale() ? " stale" : "")));
+        battery.subscribe(v -> seen.add(v));
+        try {
+            engine.runDue(now);
+            now += 1000;
+            long started = System.nanoTime();
+            engine.runDue(now);
+            assertTrue("waited for the hung read", System.nanoTime() - started < 1_000_000_000L);
+            assertTrue(thermal.isStale());
+            assertEquals(1, thermal.getStats().getTimeouts());
+
+            asleep.countDown();
+            now += 1000;
+            engine.runDue(now);
+            assertFalse(thermal.isStale());
+            // the read that missed its deadline is used once it finishes, not started again
+            assertEquals(2, reads[0]);
+            assertEquals(List.of("ok", "1", "ok", "1 stale", "ok", "2"), seen);
+        } finally {
+            asleep.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void sourceThatKeepsTimingOutIsQuarantinedAndReprobed() {
+        CountDownLatch asleep = new CountDownLatch(1);
+        Metric<Integer> zone = engine.register("zone", SamplingPolicy.fixed(1000).withDeadline(5),
+                () -> await(asleep, 7));
+        zone.subscribe(v -> {});
+        try {
+            for (int i = 0; i < Metric.QUARANTINE_AFTER - 1; i++) {
+                assertEquals(now + 1000, engine.runDue(now));
+                now += 1000;
+            }
+            assertEquals(now + 5000, engine.runDue(now));
+            assertTrue(zone.isQuarantined());
+
+            now += 5000;
+            assertEquals("failed probe doubles the wait", now + 10_000, engine.runDue(now));
+
+            asleep.countDown();
+            now += 10_000;
+            assertEquals(now + 1000, engine.runDue(now));
+            assertFalse(zone.isQuarantined());
+            assertEquals(Integer.valueOf(7), zone.getLast());
+            assertEquals(Metric.QUARANTINE_AFTER + 1, zone.getStats().getTimeouts());
+        } finally {
+            asleep.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void readCancelledBeforeItRanIsReplacedByAFreshOne() {
+        int[] reads = new int[1];
+        Metric<Integer> zone = engine.register("zone", SamplingPolicy.fixed(1000).withDeadline(5), () -> ++reads[0]);
+        zone.subscribe(v -> {});
+        // a read left queued on a pool that shut down, as shutdownNow() hands it back
+        List<Runnable> queued = new ArrayList<>();
+        zone.startRead(now, queued::add);
+        zone.finishRead(now);
+        assertTrue(zone.isStale());
+        ((Future<?>) queued.get(0)).cancel(false);
+        try {
+            for (int i = 0; i < Metric.QUARANTINE_AFTER; i++) {
+                now += 1000;
+                engine.runDue(now);
+                assertEquals(Integer.valueOf(i + 1), zone.getLast());
+            }
+            assertFalse(zone.isStale());
+            assertFalse(zone.isQuarantined());
+            assertEquals(1, zone.getStats().getTimeouts());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void readRejectedByAShutDownPoolIsNotWaitedOn() {
+        int[] reads = new int[1];
+        Metric<Integer> zone = engine.register("zone", SamplingPolicy.fixed(1000).withDeadline(5), () -> ++reads[0]);
+        zone.subscribe(v -> {});
+        zone.startRead(now, task -> {
+            throw new RejectedExecutionException();
+        });
+        zone.finishRead(now);
+        assertEquals(0, zone.getStats().getTimeouts());
+        try {
+            now += 1000;
+            engine.runDue(now);
+            assertEquals(Integer.valueOf(1), zone.getLast());
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void restartWaitsForTheOldThreadToLeaveItsTick() throws InterruptedException {
+        SamplingEngine live = new SamplingEngine(SamplingEngine.Clock.SYSTEM);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger mostInside = new AtomicInteger();
+        Metric<Integer> slow = live.register("slow", SamplingPolicy.fixed(10), () -> {
+            mostInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+            entered.countDown();
+            int v = await(release, 1);
+            inside.decrementAndGet();
+            return v;
+        });
+        slow.subscribe(v -> {});
+        live.start();
+        try {
+            assertTrue(entered.await(10, TimeUnit.SECONDS));
+            live.shutdown();
+            Thread restart = new Thread(live::start);
+            restart.start();
+            restart.join(200);
+            assertTrue("start() went ahead of the old tick", restart.isAlive());
+
+            release.countDown();
+            restart.join(10_000);
+            assertFalse(restart.isAlive());
+            long reads = slow.getReads();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (slow.getReads() == reads && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            assertTrue("the new thread samples", slow.getReads() > reads);
+            assertEquals(1, mostInside.get());
+        } finally {
+            release.countDown();
+            live.shutdown();
+        }
+    }
+}
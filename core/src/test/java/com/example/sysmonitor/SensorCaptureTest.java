@@ -0,0 +1,115 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SensorCaptureTest {
+    private final SensorCapture capture = new SensorCapture(3, 8);
+    private final SensorCapture.Stats stats = new SensorCapture.Stats(3);
+    private final float[] event = new float[3];
+
+    @Test
+    public void statsOfASteadySineStream() {
+        // 400 Hz for 10 s: x is a 1g sine at 5 Hz, y a constant offset, z noise-free 0
+        long period = 2_500_000;
+        for (int i = 0; i < 4000; i++) {
+            event[0] = (float) (9.81 * Math.sin(2 * Math.PI * 5 * i / 400.0));
+            event[1] = 2f;
+            event[2] = 0f;
+            capture.add(i * period, event);
+        }
+        capture.snapshot(stats);
+
+        assertEquals(4000, stats.count);
+        assertEquals(400, stats.rateHz, 1e-6);
+        assertEquals(period, stats.meanIntervalNs, 1e-3);
+        assertEquals(0, stats.jitterNs, 1e-3);
+        assertEquals(period, stats.maxIntervalNs);
+
+        assertEquals(0, stats.mean[0], 1e-4);
+        assertEquals(9.81 / Math.sqrt(2), stats.rms[0], 1e-3);
+        assertEquals(9.81 * 9.81 / 2, stats.variance[0], 0.05);
+        assertEquals(2, stats.mean[1], 1e-9);
+        assertEquals(2, stats.rms[1], 1e-6);
+        assertEquals(0, stats.variance[1], 1e-9);
+        assertEquals(0, stats.rms[2], 0);
+    }
+
+    @Test
+    public void jitterAndGapsComeFromTimestamps() {
+        // intervals alternate 4 ms and 6 ms, then one 50 ms gap
+        long t = 0;
+        capture.add(t, event);
+        for (int i = 0; i < 100; i++) {
+            t += i % 2 == 0 ? 4_000_000 : 6_000_000;
+            capture.add(t, event);
+        }
+        capture.add(t + 50_000_000, event);
+        capture.snapshot(stats);
+
+        assertEquals(102, stats.count);
+        // 100 intervals of 5 ms on average plus the gap
+        assertEquals((100 * 5e6 + 50e6) / 101, stats.meanIntervalNs, 1);
+        assertEquals(101 * 1e9 / (500e6 + 50e6), stats.rateHz, 1e-6);
+        assertEquals(50_000_000, stats.maxIntervalNs);
+        assertTrue(stats.jitterNs > 1e6);
+    }
+
+    @Test
+    public void batchedDuplicatesDoNotCountAsIntervals() {
+        event[0] = 1;
+        capture.add(1_000_000, event);
+        capture.add(1_000_000, event);
+        capture.add(500_000, event); // out of order, e.g. from a flushed FIFO
+        capture.add(3_000_000, event);
+        capture.snapshot(stats);
+
+        assertEquals(4, stats.count);
+        assertEquals(1, stats.mean[0], 0);
+        assertEquals(2_000_000, stats.meanIntervalNs, 1e-6);
+        assertEquals(500, stats.rateHz, 1e-6);
+    }
+
+    @Test
+    public void ringKeepsNewestEventsInOrder() {
+        for (int i = 0; i < 20; i++) {
+            event[0] = i;
+            event[2] = -i;
+            capture.add(i * 1000L, event);
+        }
+        float[] recent = new float[16];
+        long[] times = new long[16];
+        assertEquals(8, capture.copyRecent(0, recent));
+        assertEquals(8, capture.copyRecentTimestamps(times));
+        for (int i = 0; i < 8; i++) {
+            assertEquals(12 + i, recent[i], 0);
+            assertEquals((12 + i) * 1000L, times[i]);
+        }
+
+        float[] lastThree = new float[3];
+        assertEquals(3, capture.copyRecent(2, lastThree));
+        assertArrayEquals(new float[]{-17, -18, -19}, lastThree, 0);
+
+        capture.snapshot(stats);
+        assertEquals(19, stats.latest[0], 0);
+        // statistics cover every event, not just those still in the ring
+        assertEquals(9.5, stats.mean[0], 1e-9);
+    }
+
+    @Test
+    public void shortEventsAndResetLeaveNoTrace() {
+        capture.add(0, new float[]{5});
+        capture.snapshot(stats);
+        assertEquals(5, stats.latest[0], 0);
+        assertEquals(0, stats.latest[1], 0);
+        assertTrue(Double.isNaN(stats.rateHz));
+        assertEquals(0, stats.variance[0], 0);
+
+        capture.reset();
+        capture.snapshot(stats);
+        assertEquals(0, stats.count);
+        assertTrue(Double.isNaN(stats.mean[0]));
+        assertEquals(0, capture.copyRecent(0, new float[4]));
+    }
+}
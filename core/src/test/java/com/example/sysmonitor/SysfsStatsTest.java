@@ -0,0 +1,34 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class SysfsStatsTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void readsSyntheticTree() throws IOException {
+        SysfsStats stats = new SysfsStats(SysfsFixture.create(tmp.getRoot(), 4, 3));
+
+        assertEquals(300000, stats.getCpuFrequency());
+        assertArrayEquals(new int[]{300000, 550000, 800000, 1050000}, stats.getCpuCoresFreq());
+        ThermalSnapshot thermal = stats.getThermalSnapshot();
+        assertArrayEquals(new int[]{0, 1, 2}, thermal.zoneIds);
+        assertEquals("gpu", thermal.names[2]);
+        assertEquals(30.5f, thermal.temps[1], 0f);
+        assertFalse(stats.checkRootAccess());
+    }
+
+    @Test
+    public void detectsSuUnderRoot() throws IOException {
+        SysfsFixture.write(new File(tmp.getRoot(), "system/xbin/su"), "");
+        assertTrue(new SysfsStats(FileSystemRoot.at(tmp.getRoot())).checkRootAccess());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.sysmonitor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ThermalSamplerTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void indexesSparseZonesById() throws IOException {
+        File root = tmp.getRoot();
+        SysfsFixture.writeZone(root, 0, "cpu", 45500);
+        SysfsFixture.writeZone(root, 3, "battery", 31);
+        SysfsFixture.writeZone(root, 7, "bogus", -273000);
+
+        try (ThermalSampler sampler = new ThermalSampler(new File(root, "sys/class/thermal"))) {
+            ThermalSnapshot s = sampler.sample();
+            assertArrayEquals(new int[]{0, 3, 7}, s.zoneIds);
+            assertEquals(8, s.temps.length);
+            assertEquals(45.5f, s.temps[0], 0f);
+            assertEquals(31f, s.temps[3], 0f);
+            assertFalse(s.isValid(7));
+            assertEquals("battery", s.names[3]);
+            assertNull(s.names[1]);
+        }
+    }
+
+    @Test
+    public void keepsTypeNamesAndRereadsTemps() throws IOException {
+        File root = tmp.getRoot();
+        SysfsFixture.writeZone(root, 0, "skin", 30000);
+
+        try (ThermalSampler sampler = new ThermalSampler(new File(root, "sys/class/thermal"))) {
+            ThermalSnapshot first = sampler.sample();
+            SysfsFixture.writeZone(root, 0, "renamed", 41000);
+            ThermalSnapshot second = sampler.sample();
+
+            assertSame(first, second);
+            assertEquals("skin", second.names[0]);
+            assertEquals(41f, second.temps[0], 0f);
+        }
+    }
+
+    @Test
+    public void readsLowestPassiveTripPerZone() throws IOException {
+        File root = tmp.getRoot();
+        SysfsFixture.writeZone(root, 0, "cpu-1-0", 50000);
+        SysfsFixture.writeTrip(root, 0, 0, "passive", 95000);
+        SysfsFixture.writeTrip(root, 0, 1, "passive", 88000);
+        SysfsFixture.writeTrip(root, 0, 2, "critical", 115000);
+        SysfsFixture.writeZone(root, 2, "battery", 30000);
+        SysfsFixture.writeTrip(root, 2, 0, "hot", 60000);
+
+        try (ThermalSampler sampler = new ThermalSampler(new File(root, "sys/class/thermal"))) {
+            float[] trips = sampler.readPassiveTrips();
+            assertEquals(3, trips.length);
+            assertEquals(88f, trips[0], 0f);
+            assertTrue(Float.isNaN(trips[1]));
+            assertTrue(Float.isNaN(trips[2]));
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.sysmonitor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ThrottleDetectorTest {
+    private static final String[] LABELS = {"0-3", "4-7"};
+    private static final int[] MAX_KHZ = {1800000, 2800000};
+    // cpu-0-0 and cpu-1-0 have passive trips, skin has none
+    private static final float[] TRIPS = {85f, 90f, Float.NaN};
+    private static final long WINDOW_MS = 10_000;
+
+    private final ThermalSnapshot thermal = new ThermalSnapshot(new int[]{0, 1, 2},
+            new String[]{"cpu-0-0", "cpu-1-0", "skin"});
+    private final int[] caps = new int[2];
+    private final List<ThrottleEvent> started = new ArrayList<>();
+    private final List<ThrottleEvent> ended = new ArrayList<>();
+    private ThrottleDetector detector;
+
+    @Before
+    public void setUp() {
+        detector = new ThrottleDetector(LABELS, MAX_KHZ, TRIPS, WINDOW_MS, 8);
+        detector.setListener(new ThrottleDetector.Listener() {
+            @Override
+            public void onThrottleStart(ThrottleEvent event) {
+                started.add(event);
+            }
+
+            @Override
+            public void onThrottleEnd(ThrottleEvent event) {
+                ended.add(event);
+            }
+        });
+    }
+
+    @Test
+    public void replaysSustainedLoadTrace() throws IOException {
+        replay("sustained_load.txt");
+
+        List<ThrottleEvent> history = detector.copyHistory();
+        assertEquals(2, history.size());
+        assertEquals(2, started.size());
+        assertEquals(history, ended);
+
+        ThrottleEvent big = history.get(0);
+        assertEquals(1, big.policy);
+        assertEquals("4-7", big.cpus);
+        assertEquals(6000, big.startMs);
+        assertEquals(11000, big.endMs);
+        assertEquals(2800000, big.baselineKhz);
+        assertEquals(2000000, big.minCapKhz);
+        assertEquals(1 - 2000f / 2800f, big.depth(), 1e-6f);
+        // crossed its 90 °C trip a second before the cap dropped
+        assertEquals(1, big.zoneId);
+        assertEquals("cpu-1-0", big.zoneName);
+        assertEquals(93f, big.zoneTempC, 0f);
+
+        ThrottleEvent little = history.get(1);
+        assertEquals(0, little.policy);
+        assertEquals(20000, little.startMs);
+        assertEquals(24000, little.endMs);
+        assertEquals(1200000, little.minCapKhz);
+        // no trip was crossed, but the skin warmed up by 4 °C
+        assertEquals(2, little.zoneId);
+        assertEquals("skin", little.zoneName);
+
+        assertFalse(detector.isThrottled(0));
+        assertFalse(detector.isThrottled(1));
+        assertEquals(100f, detector.lowestCapPercent(), 0f);
+    }
+
+    @Test
+    public void ongoingEventReportsDepthSoFar() {
+        tick(0, 1800000, 2800000, 60, 80, 35);
+        tick(1000, 1800000, 2100000, 60, 91, 35);
+        assertTrue(detector.isThrottled(1));
+        assertEquals(75f, detector.capPercent(1), 1e-4f);
+        assertEquals(75f, detector.lowestCapPercent(), 1e-4f);
+
+        ThrottleEvent active = detector.getActive(1);
+        assertTrue(active.isOngoing());
+        assertEquals(2100000, active.minCapKhz);
+        assertEquals(4000, active.durationMs(5000));
+        assertNull(detector.getActive(0));
+        assertEquals(1, started.size());
+        assertTrue(started.get(0).isOngoing());
+        assertTrue(ended.isEmpty());
+    }
+
+    @Test
+    public void zoneCrossingShortlyAfterTheDropIsStillBlamed() {
+        tick(0, 1800000, 2800000, 60, 80, 35);
+        tick(1000, 1800000, 2400000, 60, 88, 35);
+        assertEquals(ThrottleEvent.NO_ZONE, detector.getActive(1).zoneId);
+        tick(3000, 1800000, 2400000, 60, 90.5f, 35);
+        assertEquals(1, detector.getActive(1).zoneId);
+        assertEquals(1, detector.activeZone(1));
+        assertEquals(detector.getActive(1).zoneName, detector.activeZoneName(1));
+        assertEquals(2800000, detector.baselineKhz(1));
+    }
+
+    @Test
+    public void crossingsOutsideTheWindowAreNotBlamed() {
+        tick(0, 1800000, 2800000, 60, 91, 35);
+        tick(1000, 1800000, 2800000, 60, 80, 35);
+        // long after the only crossing, and nothing rose
+        tick(30_000, 1800000, 2800000, 60, 80, 35);
+        tick(31_000, 1800000, 2400000, 60, 80, 35);
+        assertEquals(ThrottleEvent.NO_ZONE, detector.getActive(1).zoneId);
+    }
+
+    @Test
+    public void lowerCeilingFromTheStartIsNotAnEvent() {
+        // a battery saver keeps the big cluster at 2 GHz from the first tick
+        for (int t = 0; t < 10; t++) tick(t * 1000L, 1800000, 2000000, 60, 80, 35);
+        assertTrue(started.isEmpty());
+        assertEquals(100f, detector.capPercent(1), 0f);
+        assertEquals(2800000, detector.hardwareMaxKhz(1));
+
+        // lifting it raises the baseline, lowering it again is throttling
+        tick(10_000, 1800000, 2800000, 60, 80, 35);
+        tick(11_000, 1800000, 2000000, 60, 80, 35);
+        assertTrue(detector.isThrottled(1));
+        assertEquals(2800000, detector.getActive(1).baselineKhz);
+    }
+
+    @Test
+    public void withoutTemperaturesEventsHaveNoZone() {
+        caps[0] = 1800000;
+        caps[1] = 2800000;
+        detector.update(0, caps, null);
+        caps[1] = 1000000;
+        detector.update(1000, caps, null);
+        caps[1] = 2800000;
+        detector.update(2000, caps, null);
+        ThrottleEvent e = ended.get(0);
+        assertEquals(ThrottleEvent.NO_ZONE, e.zoneId);
+        assertNull(e.zoneName);
+        assertTrue(Float.isNaN(e.zoneTempC));
+        assertEquals(1000, e.durationMs(99_999));
+    }
+
+    @Test
+    public void historyKeepsTheNewestEvents() {
+        ThrottleDetector small = new ThrottleDetector(LABELS, MAX_KHZ, TRIPS, WINDOW_MS, 2);
+        for (int i = 0; i < 5; i++) {
+            caps[0] = 1800000;
+            caps[1] = 2800000;
+            small.update(i * 2000L, caps, thermal);
+            caps[1] = 2000000 + i * 100000;
+            small.update(i * 2000L + 1000, caps, thermal);
+        }
+        caps[1] = 2800000;
+        assertEquals(4, small.finishedCount());
+        small.update(10_000, caps, thermal);
+        assertEquals(5, small.finishedCount());
+        assertEquals(ThrottleEvent.NO_ZONE, small.activeZone(1));
+        assertNull(small.activeZoneName(1));
+
+        List<ThrottleEvent> history = small.copyHistory();
+        assertEquals(2, history.size());
+        assertEquals(2300000, history.get(0).minCapKhz);
+        assertEquals(2400000, history.get(1).minCapKhz);
+    }
+
+    private void tick(long now, int little, int big, float t0, float t1, float t2) {
+        caps[0] = little;
+        caps[1] = big;
+        thermal.temps[0] = t0;
+        thermal.temps[1] = t1;
+        thermal.temps[2] = t2;
+        detector.update(now, caps, thermal);
+    }
+
+    private void replay(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/throttle/" + name)) {
+            assertNotNull(name, in);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] f = line.split("\\s+");
+                tick(Long.parseLong(f[0]), Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                        Float.parseFloat(f[3]), Float.parseFloat(f[4]), Float.parseFloat(f[5]));
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.sysmonitor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeSeriesTest {
+    private final TimeSeries series = new TimeSeries(
+            new TimeSeries.Resolution(1000, 10),
+            new TimeSeries.Resolution(10_000, 6));
+    private final TimeSeries.Window window = new TimeSeries.Window(16);
+
+    @Test
+    public void recentRangeComesFromRawTier() {
+        for (int s = 0; s < 5; s++) series.add(s * 1000L, s);
+
+        assertEquals(3, series.query(1000, 3000, window));
+        assertEquals(1000, window.periodMs);
+        assertEquals(2000, window.start[1]);
+        assertEquals(2f, window.avg[1], 0f);
+    }
+
+    @Test
+    public void olderRangeFallsBackToRollups() {
+        for (int s = 0; s < 30; s++) series.add(s * 1000L, s);
+
+        // The raw tier only reaches back 10 s, so a 0..29 s query uses 10 s buckets.
+        assertEquals(3, series.query(0, 29_999, window));
+        assertEquals(10_000, window.periodMs);
+        assertEquals(10_000, window.start[1]);
+        assertEquals(10f, window.min[1], 0f);
+        assertEquals(19f, window.max[1], 0f);
+        assertEquals(14.5f, window.avg[1], 1e-4f);
+    }
+
+    @Test
+    public void gapsDoNotResurrectOldBuckets() {
+        series.add(0, 1);
+        series.add(1000, 2);
+        series.add(12_000, 3);
+
+        assertEquals(1, series.query(3000, 12_000, window));
+        assertEquals(12_000, window.start[0]);
+        assertEquals(3f, window.max[0], 0f);
+    }
+
+    @Test
+    public void historyKeepsSeriesPerCoreAndZone() {
+        MetricHistory history = new MetricHistory(new TimeSeries.Resolution(1000, 60));
+        history.recordCores(0, new int[]{1_800_000, CpuFreqSampler.OFFLINE});
+        assertNotNull(history.core(0));
+        assertNull(history.core(1));
+
+        history.core(0).query(0, 0, window);
+        assertEquals(1800f, window.avg[0], 0f);
+        assertEquals(60 * 14, history.bytesPerSeries());
+    }
+}
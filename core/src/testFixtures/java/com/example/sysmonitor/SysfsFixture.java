@@ -0,0 +1,211 @@
+package com.example.sysmonitor;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes synthetic /sys trees for tests and benchmarks. Values are deterministic
+ * so runs are comparable across machines.
+ */
+public final class SysfsFixture {
+    private static final String[] ZONE_TYPES = {
+            "cpu-0-0", "cpu-1-0", "gpu", "battery", "skin", "modem", "pa", "xo"
+    };
+
+    private SysfsFixture() {}
+
+    /** Creates a tree with {@code cores} cpuN nodes and {@code zones} thermal zones under {@code dir}. */
+    public static FileSystemRoot create(File dir, int cores, int zones) throws IOException {
+        for (int i = 0; i < cores; i++) {
+            writeCore(dir, i, 300000 + (i % 8) * 250000);
+        }
+        for (int i = 0; i < zones; i++) {
+            writeZone(dir, i, zoneType(i), 30000 + (i % 40) * 500);
+        }
+        return FileSystemRoot.at(dir);
+    }
+
+    public static String zoneType(int zone) {
+        String type = ZONE_TYPES[zone % ZONE_TYPES.length];
+        return zone < ZONE_TYPES.length ? type : type + "_" + zone / ZONE_TYPES.length;
+    }
+
+    public static void writeCore(File dir, int core, int freqKhz) throws IOException {
+        File cpu = new File(dir, SysfsStats.CPU_DIR.substring(1) + "/cpu" + core + "/cpufreq");
+        write(new File(cpu, "scaling_cur_freq"), freqKhz + "\n");
+        write(new File(cpu, "cpuinfo_cur_freq"), freqKhz + "\n");
+    }
+
+    /**
+     * A cpufreq/policyN directory for {@code cores}, N being the first of them,
+     * capped at {@code capKhz}. Call again with a new cap to throttle it.
+     */
+    public static void writePolicy(File dir, int[] cores, int hardwareMaxKhz, int capKhz) throws IOException {
+        File policy = new File(dir, SysfsStats.CPU_DIR.substring(1) + "/cpufreq/policy" + cores[0]);
+        StringBuilder related = new StringBuilder();
+        for (int c : cores) related.append(related.length() == 0 ? "" : " ").append(c);
+        write(new File(policy, "related_cpus"), related + "\n");
+        write(new File(policy, "cpuinfo_max_freq"), hardwareMaxKhz + "\n");
+        write(new File(policy, "scaling_max_freq"), capKhz + "\n");
+    }
+
+    /** Trip point {@code trip} of a zone written by {@link #writeZone}, e.g. "passive" or "critical". */
+    public static void writeTrip(File dir, int zone, int trip, String type, int milliCelsius) throws IOException {
+        File z = new File(dir, SysfsStats.THERMAL_DIR.substring(1) + "/thermal_zone" + zone);
+        write(new File(z, "trip_point_" + trip + "_type"), type + "\n");
+        write(new File(z, "trip_point_" + trip + "_temp"), milliCelsius + "\n");
+    }
+
+    public static void writeZone(File dir, int zone, String type, int milliCelsius) throws IOException {
+        File z = new File(dir, SysfsStats.THERMAL_DIR.substring(1) + "/thermal_zone" + zone);
+        write(new File(z, "type"), type + "\n");
+        write(new File(z, "temp"), milliCelsius + "\n");
+    }
+
+    /**
+     * A /proc/stat body for {@code cores} cores after {@code tick} seconds of a
+     * fixed per-core load; cores listed in {@code offline} are left out, as the
+     * kernel does. Trailing lines mimic a real file so parsers have to stop early.
+     */
+    public static String procStat(int cores, long tick, int... offline) {
+        StringBuilder cpus = new StringBuilder();
+        long[] sum = new long[8];
+        for (int c = 0; c < cores; c++) {
+            boolean skip = false;
+            for (int o : offline) skip |= o == c;
+            if (skip) continue;
+            long[] t = coreTimes(c, tick);
+            cpus.append("cpu").append(c);
+            for (int k = 0; k < t.length; k++) {
+                cpus.append(' ').append(t[k]);
+                sum[k] += t[k];
+            }
+            cpus.append(" 0 0\n");
+        }
+        StringBuilder sb = new StringBuilder("cpu ");
+        for (long v : sum) sb.append(' ').append(v);
+        sb.append(" 0 0\n").append(cpus);
+        sb.append("intr ").append(tick * 1000);
+        for (int i = 0; i < 512; i++) sb.append(" ").append(i % 7);
+        sb.append("\nctxt ").append(tick * 5000).append("\nbtime 1700000000\n")
+                .append("processes ").append(tick).append("\nprocs_running 2\nprocs_blocked 0\n")
+                .append("softirq ").append(tick * 10).append(" 0 0 0 0 0 0 0 0 0 0\n");
+        return sb.toString();
+    }
+
+    /**
+     * Jiffies of core {@code c} after {@code tick} seconds at 100 Hz: core c spends
+     * (10 + c % 8 * 10)% in user, 5% system, 2% iowait, 3% irq+softirq, the rest idle.
+     */
+    public static long[] coreTimes(int c, long tick) {
+        long user = (10 + (c % 8) * 10) * tick;
+        return new long[]{user, 0, 5 * tick, 90 * tick - user, 2 * tick, 2 * tick, tick, 0};
+    }
+
+    public static void writeProcStat(File dir, String content) throws IOException {
+        write(new File(dir, SysfsStats.PROC_STAT.substring(1)), content);
+    }
+
+    /**
+     * Writes /proc/[pid]/stat and cmdline. An empty {@code cmdline} mimics a kernel
+     * thread; the comm field contains a space to exercise the parser.
+     */
+    public static void writeProcess(File dir, int pid, String cmdline, long utime, long stime,
+                                    long startTime, long rssPages) throws IOException {
+        File p = new File(dir, SysfsStats.PROC_DIR.substring(1) + "/" + pid);
+        write(new File(p, "cmdline"), cmdline.isEmpty() ? "" : cmdline + "\0");
+        write(new File(p, "stat"), pid + " (proc " + pid + ") S 1 " + pid + " 0 0 -1 4194560 1200 0 0 0 "
+                + utime + " " + stime + " 0 0 20 0 12 0 " + startTime + " 2147483648 " + rssPages
+                + " 18446744073709551615 1 1 0 0 0 0 4612 0 1073775864 0 0 0 17 3 0 0 0 0 0\n");
+    }
+
+    /** A /proc/net/dev body with {@code interfaces} entries after {@code tick} seconds of traffic. */
+    public static String netDev(int interfaces, long tick) {
+        StringBuilder sb = new StringBuilder()
+                .append("Inter-|   Receive                                                |  Transmit\n")
+                .append(" face |bytes    packets errs drop fifo frame compressed multicast")
+                .append("|bytes    packets errs drop fifo colls carrier compressed\n");
+        for (int i = 0; i < interfaces; i++) {
+            String name = i == 0 ? "lo" : i == 1 ? "wlan0" : "rmnet_data" + (i - 2);
+            long rx = 1_000_000L * i + tick * 125_000L * (i + 1);
+            long tx = 500_000L * i + tick * 12_500L * (i + 1);
+            sb.append(String.format("%6s: %8d %7d    0    0    0     0          0         0 %8d %7d"
+                    + "    0    0    0     0       0          0\n", name, rx, rx / 1000, tx, tx / 1000));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A /proc/meminfo in the layout of a 5.10 kernel, with every field the
+     * kernel prints so parsers have to skip the ones they don't track.
+     */
+    public static String meminfo(long availableKb) {
+        String[][] fields = {
+                {"MemTotal", "7634580"}, {"MemFree", String.valueOf(availableKb / 5)},
+                {"MemAvailable", String.valueOf(availableKb)}, {"Buffers", "6112"},
+                {"Cached", "2870564"}, {"SwapCached", "46280"}, {"Active", "2403584"},
+                {"Inactive", "2470904"}, {"Active(anon)", "851356"}, {"Inactive(anon)", "1279460"},
+                {"Active(file)", "1552228"}, {"Inactive(file)", "1191444"}, {"Unevictable", "165688"},
+                {"Mlocked", "165688"}, {"SwapTotal", "4194300"}, {"SwapFree", "2871424"},
+                {"Dirty", "428"}, {"Writeback", "0"}, {"AnonPages", "2167020"}, {"Mapped", "1329708"},
+                {"Shmem", "24832"}, {"KReclaimable", "348408"}, {"Slab", "607788"},
+                {"SReclaimable", "193492"}, {"SUnreclaim", "414296"}, {"KernelStack", "86176"},
+                {"ShadowCallStack", "21576"}, {"PageTables", "163932"}, {"NFS_Unstable", "0"},
+                {"Bounce", "0"}, {"WritebackTmp", "0"}, {"CommitLimit", "8011588"},
+                {"Committed_AS", "199846124"}, {"VmallocTotal", "263061440"}, {"VmallocUsed", "265204"},
+                {"VmallocChunk", "0"}, {"Percpu", "11840"}, {"AnonHugePages", "0"},
+                {"ShmemHugePages", "0"}, {"ShmemPmdMapped", "0"}, {"FileHugePages", "0"},
+                {"FilePmdMapped", "0"}, {"CmaTotal", "237568"}, {"CmaFree", "2568"}
+        };
+        StringBuilder sb = new StringBuilder();
+        for (String[] f : fields) {
+            sb.append(String.format("%-16s%8s kB\n", f[0] + ":", f[1]));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A /proc/diskstats with {@code disks} UFS LUNs of four partitions each,
+     * plus the zram, loop and dm devices a phone lists, all advancing with {@code tick}.
+     */
+    public static String diskstats(int disks, long tick) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 8; i++) diskLine(sb, 7, i * 8, "loop" + i, 0, tick);
+        for (int d = 0; d < disks; d++) {
+            String name = "sd" + (char) ('a' + d % 26) + (d >= 26 ? String.valueOf(d / 26) : "");
+            diskLine(sb, 8, d * 16, name, d + 1, tick);
+            for (int p = 1; p <= 4; p++) diskLine(sb, 8, d * 16 + p, name + p, d + 1, tick);
+        }
+        diskLine(sb, 254, 0, "zram0", 3, tick);
+        diskLine(sb, 253, 0, "dm-0", 5, tick);
+        return sb.toString();
+    }
+
+    private static void diskLine(StringBuilder sb, int major, int minor, String name, int load, long tick) {
+        long reads = 100_000L * load + tick * 40 * load;
+        long writes = 200_000L * load + tick * 60 * load;
+        sb.append(String.format("%4d %7d %s %d %d %d %d %d %d %d %d 0 %d %d 0 0 0 0 0 0\n",
+                major, minor, name, reads, reads / 10, reads * 40, reads / 2,
+                writes, writes / 3, writes * 40, writes, tick * 90 * load, reads + writes));
+    }
+
+    public static void write(File file, String content) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (FileWriter w = new FileWriter(file)) {
+            w.write(content);
+        }
+    }
+
+    /** Recursively removes a fixture tree. */
+    public static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) delete(child);
+        }
+        file.delete();
+    }
+}
@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "SysMonitor"
 include(":app")
+include(":core")
+include(":benchmark")